@@ -0,0 +1,3 @@
+
+mvnw -Pjmh test-compile exec:exec
+
@@ -0,0 +1,8 @@
+#!/bin/bash
+
+# Alle JMH-Benchmarks ausführen (dauert wegen Korpus mit 1 Mio. Zitaten lange);
+# einzelne Benchmarks/Parameter z.B. mit:
+# ./mvnw -Pjmh test-compile exec:exec -Djmh.argumente="ZitatParser -p anzahlZitate=10000 -rf json -rff target/jmh-ergebnis.json"
+
+./mvnw -Pjmh test-compile exec:exec
+
@@ -0,0 +1,5 @@
+@del /Q logdatei.log
+
+call mvnw clean package -Pschnellstart -DskipTests
+
+java -XX:SharedArchiveFile=target/schnellstart/zitate.jsa -Dspring.aot.enabled=true -jar target/schnellstart/zitate-0.0.1-SNAPSHOT.jar --zitate.aufwaermen.aktiv=true
@@ -0,0 +1,13 @@
+#!/bin/bash
+
+# Bauen mit Maven-Profil "schnellstart" (Spring AOT + CDS-Archiv aus Trainingslauf) und starten mit Aufwärmen;
+# Dauer bis zur Bereitschaft steht im Log ("Anwendung bereit ... ms nach Start der JVM").
+# Vergleich mit normalem Start: ./mvnw -Pjmh test-compile exec:java -Dexec.classpathScope=test \
+#   -Dexec.mainClass=de.eldecker.dhbw.spring.zitate.benchmark.StartzeitMessung
+
+rm logdatei.log 2> /dev/null
+
+./mvnw clean package -Pschnellstart -DskipTests || exit 1
+
+java -XX:SharedArchiveFile=target/schnellstart/zitate.jsa -Dspring.aot.enabled=true \
+     -jar target/schnellstart/zitate-0.0.1-SNAPSHOT.jar --zitate.aufwaermen.aktiv=true
@@ -0,0 +1,244 @@
+package de.eldecker.dhbw.spring.zitate.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.eldecker.dhbw.spring.zitate.ZitateSammlungApplication;
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import de.eldecker.dhbw.spring.zitate.logik.MassenIndizierer;
+import de.eldecker.dhbw.spring.zitate.logik.ZitateImporter;
+import de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator;
+
+
+/**
+ * Startet die Anwendung (ohne Web-Server) mit einer eingebetteten H2-Datenbank und
+ * einem lokalen Lucene-Index, die einen synthetischen Korpus mit der gewünschten Anzahl
+ * Zitate enthalten (erzeugt mit dem {@link ZitatKorpusGenerator}).
+ * <br><br>
+ *
+ * Datenbank und Index liegen im Ordner {@code target/jmh-daten/<anzahl>/}. Da JMH jede
+ * Parameter-Kombination in einer eigenen JVM ausführt, wird der Korpus nur beim ersten
+ * Start importiert und danach wiederverwendet; das ist vor allem bei einer Million Zitaten
+ * wichtig. Der Import von {@code zitate.txt} beim Start ist abgeschaltet, weil er als
+ * Job im Hintergrund laufen und den Import des Korpus stören würde.
+ * <br><br>
+ *
+ * Mit {@link #starten(int, int)} wird der Lucene-Index auf mehrere Shards aufgeteilt;
+ * jede Anzahl Shards hat einen eigenen Index-Ordner {@code lucene-<shards>s}, die
+ * Datenbank wird aber gemeinsam verwendet und der Index beim ersten Start mit dem
+ * Mass Indexer aufgebaut.
+ * <br><br>
+ *
+ * Mit {@link #starten(int, int, String)} wird zusätzlich ein Spring-Profil für die Ablage
+ * des Lucene-Index aktiviert (z.B. {@code lucene-mmap}, siehe {@code application.properties});
+ * {@link #leerStarten(String)} startet mit leerer Datenbank für Import-Benchmarks.
+ */
+final class BenchmarkUmgebung implements AutoCloseable {
+
+    /** Spring-Kontext der gestarteten Anwendung. */
+    private final ConfigurableApplicationContext _kontext;
+
+
+    /**
+     * Konstruktor, nur über {@link #starten(int, int, String)} und {@link #leerStarten(String)}.
+     *
+     * @param kontext Kontext der gestarteten Anwendung
+     */
+    private BenchmarkUmgebung( ConfigurableApplicationContext kontext ) {
+
+        _kontext = kontext;
+    }
+
+
+    /**
+     * Anwendung mit einem Index ohne Sharding starten und ggf. den synthetischen Korpus
+     * importieren.
+     *
+     * @param anzahlZitate Anzahl der synthetischen Zitate
+     *
+     * @return Umgebung, muss nach dem Benchmark geschlossen werden
+     *
+     * @throws InterruptedException Unterbrochen beim Warten auf den Neuaufbau des Index
+     *
+     * @throws IOException Fehler beim Schreiben oder Lesen der Zitatdatei
+     */
+    static BenchmarkUmgebung starten( int anzahlZitate ) throws InterruptedException, IOException {
+
+        return starten( anzahlZitate, 1 );
+    }
+
+
+    /**
+     * Anwendung mit {@code anzahlShards} Shards für den Lucene-Index starten und ggf. den
+     * synthetischen Korpus importieren bzw. den Index aufbauen.
+     *
+     * @param anzahlZitate Anzahl der synthetischen Zitate
+     *
+     * @param anzahlShards Anzahl Shards (Property {@code zitate.suche.shards})
+     *
+     * @return Umgebung, muss nach dem Benchmark geschlossen werden
+     *
+     * @throws InterruptedException Unterbrochen beim Warten auf den Neuaufbau des Index
+     *
+     * @throws IOException Fehler beim Schreiben oder Lesen der Zitatdatei
+     */
+    static BenchmarkUmgebung starten( int anzahlZitate, int anzahlShards ) throws InterruptedException, IOException {
+
+        return starten( anzahlZitate, anzahlShards, null );
+    }
+
+
+    /**
+     * Anwendung mit {@code anzahlShards} Shards und dem Spring-Profil {@code profil} starten
+     * und ggf. den synthetischen Korpus importieren bzw. den Index aufbauen. Jedes Profil hat
+     * einen eigenen Index-Ordner; beim Profil {@code lucene-heap} wird der Index bei jedem
+     * Start neu aufgebaut.
+     *
+     * @param anzahlZitate Anzahl der synthetischen Zitate
+     *
+     * @param anzahlShards Anzahl Shards (Property {@code zitate.suche.shards})
+     *
+     * @param profil Spring-Profil, oder {@code null} für Default-Konfiguration
+     *
+     * @return Umgebung, muss nach dem Benchmark geschlossen werden
+     *
+     * @throws InterruptedException Unterbrochen beim Warten auf den Neuaufbau des Index
+     *
+     * @throws IOException Fehler beim Schreiben oder Lesen der Zitatdatei
+     */
+    static BenchmarkUmgebung starten( int anzahlZitate, int anzahlShards, String profil )
+            throws InterruptedException, IOException {
+
+        final Path verzeichnis = Path.of( "target", "jmh-daten", String.valueOf( anzahlZitate ) ).toAbsolutePath();
+
+        String indexOrdner = anzahlShards > 1 ? "lucene-" + anzahlShards + "s" : "lucene";
+        if ( profil != null ) {
+
+            indexOrdner += "-" + profil;
+        }
+
+        final BenchmarkUmgebung umgebung = new BenchmarkUmgebung(
+                anwendungStarten( verzeichnis, verzeichnis.resolve( indexOrdner ), profil,
+                                  "--zitate.suche.shards=" + anzahlShards ) );
+
+        final ZitateRepo zitateRepo = umgebung.getBean( ZitateRepo.class );
+        if ( zitateRepo.count() < anzahlZitate ) {
+
+            final Path datei = verzeichnis.resolve( "zitate-synthetisch.txt" );
+            new ZitatKorpusGenerator( ZitatKorpusGenerator.DEFAULT_SEED ).schreiben( datei, anzahlZitate );
+
+            try ( BufferedReader reader = Files.newBufferedReader( datei ) ) {
+
+                umgebung.getBean( ZitateImporter.class ).importiere( reader );
+            }
+
+        } else if ( umgebung.getBean( MassenIndizierer.class ).anzahlDokumente() == 0 ) {
+
+            umgebung.getBean( MassenIndizierer.class ).indexNeuAufbauen( zitateRepo.count() );
+        }
+
+        return umgebung;
+    }
+
+
+    /**
+     * Anwendung mit leerer Datenbank und leerem Index im Ordner
+     * {@code target/jmh-daten/leer-<profil>/} starten, z.B. für Benchmarks des Imports.
+     * Der Ordner wird vorher gelöscht; der Bulk-Modus des Imports ist ausgeschaltet, damit
+     * jede Transaktion wie im normalen Betrieb in den Index schreibt.
+     *
+     * @param profil Spring-Profil, oder {@code null} für Default-Konfiguration
+     *
+     * @return Umgebung, muss nach dem Benchmark geschlossen werden
+     *
+     * @throws IOException Fehler beim Löschen des Ordners
+     */
+    static BenchmarkUmgebung leerStarten( String profil ) throws IOException {
+
+        final Path verzeichnis = Path.of( "target", "jmh-daten", "leer-" + ( profil == null ? "standard" : profil ) )
+                                     .toAbsolutePath();
+        if ( Files.exists( verzeichnis ) ) {
+
+            try ( Stream<Path> pfade = Files.walk( verzeichnis ) ) {
+
+                for ( Path pfad : pfade.sorted( Comparator.reverseOrder() ).toList() ) {
+
+                    Files.delete( pfad );
+                }
+            }
+        }
+
+        return new BenchmarkUmgebung( anwendungStarten( verzeichnis, verzeichnis.resolve( "lucene" ), profil,
+                                                        "--zitate.import.bulk-modus=false" ) );
+    }
+
+
+    /**
+     * Anwendung ohne Web-Server und ohne Import beim Start starten.
+     *
+     * @param verzeichnis Ordner für die H2-Datenbank
+     *
+     * @param indexVerzeichnis Ordner für den Lucene-Index
+     *
+     * @param profil Spring-Profil, oder {@code null}
+     *
+     * @param weitereArgumente Weitere Kommandozeilen-Argumente
+     *
+     * @return Kontext der gestarteten Anwendung
+     */
+    private static ConfigurableApplicationContext anwendungStarten( Path verzeichnis, Path indexVerzeichnis,
+                                                                    String profil, String... weitereArgumente ) {
+
+        // Kommandozeilen-Argumente, weil diese Vorrang vor application.properties haben
+        final List<String> argumente = new ArrayList<>( List.of(
+                "--spring.datasource.url=jdbc:h2:file:" + verzeichnis.resolve( "zitate" ),
+                "--spring.jpa.properties.hibernate.search.backend.directory.root=" + indexVerzeichnis,
+                "--zitate.import.beim-start=false",
+                "--zitate.index.aufbauen-wenn-leer=false",
+                "--logging.file.name=",
+                "--logging.level.de.eldecker=WARN" ) );
+        if ( profil != null ) {
+
+            argumente.add( "--spring.profiles.active=" + profil );
+        }
+        argumente.addAll( List.of( weitereArgumente ) );
+
+        return new SpringApplicationBuilder( ZitateSammlungApplication.class )
+                        .web( WebApplicationType.NONE )
+                        .run( argumente.toArray( String[]::new ) );
+    }
+
+
+    /**
+     * Bean aus dem Kontext der Anwendung holen.
+     *
+     * @param klasse Klasse der Bean
+     *
+     * @return Bean
+     */
+    <T> T getBean( Class<T> klasse ) {
+
+        return _kontext.getBean( klasse );
+    }
+
+
+    /**
+     * Anwendung herunterfahren.
+     */
+    @Override
+    public void close() {
+
+        _kontext.close();
+    }
+
+}
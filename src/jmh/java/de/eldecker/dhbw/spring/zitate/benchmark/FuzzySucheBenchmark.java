@@ -0,0 +1,107 @@
+package de.eldecker.dhbw.spring.zitate.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.FuzzySuche;
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitatTreffer;
+
+
+/**
+ * Benchmark für die Suche mit {@link FuzzySuche} direkt (ohne Such-Cache) für
+ * verschiedene Korpusgrößen, Edit-Distanzen und maximale Trefferzahlen.
+ * <br><br>
+ *
+ * {@code sucheFuzzy} lädt die Treffer als Entitäten aus der Datenbank,
+ * {@code sucheFuzzyTreffer} erzeugt sie aus dem Lucene-Index (Projektion).
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx4g" )
+@State( Scope.Benchmark )
+public class FuzzySucheBenchmark {
+
+    /** Suchbegriffe, zum Teil mit Tippfehlern; werden reihum verwendet. */
+    private static final String[] SUCHBEGRIFFE = {
+            "love", "wisdom", "happines", "televison", "knowledge", "candlelihgt", "freedom", "mariage" };
+
+    @Param( { "10000", "100000", "1000000" } )
+    public int anzahlZitate;
+
+    @Param( { "0", "1", "2" } )
+    public int editDistanz;
+
+    @Param( { "10", "500" } )
+    public int maxTreffer;
+
+    private BenchmarkUmgebung   _umgebung;
+    private FuzzySuche          _fuzzySuche;
+    private TransactionTemplate _transaktion;
+    private int                 _zaehler = 0;
+
+
+    @Setup( Level.Trial )
+    public void starten() throws InterruptedException, IOException {
+
+        _umgebung   = BenchmarkUmgebung.starten( anzahlZitate );
+        _fuzzySuche = _umgebung.getBean( FuzzySuche.class );
+
+        _transaktion = new TransactionTemplate( _umgebung.getBean( PlatformTransactionManager.class ) );
+        _transaktion.setReadOnly( true );
+    }
+
+
+    @TearDown( Level.Trial )
+    public void beenden() {
+
+        _umgebung.close();
+    }
+
+
+    @Benchmark
+    public List<ZitatEntity> sucheFuzzy() {
+
+        final String suchbegriff = naechsterSuchbegriff();
+
+        return _transaktion.execute( status -> _fuzzySuche.sucheFuzzy( suchbegriff, maxTreffer, editDistanz ) );
+    }
+
+
+    @Benchmark
+    public List<ZitatTreffer> sucheFuzzyTreffer() {
+
+        final String suchbegriff = naechsterSuchbegriff();
+
+        return _transaktion.execute( status ->
+                    _fuzzySuche.sucheFuzzyTreffer( suchbegriff, maxTreffer, editDistanz, 0, null ) );
+    }
+
+
+    private String naechsterSuchbegriff() {
+
+        _zaehler = ( _zaehler + 1 ) % SUCHBEGRIFFE.length;
+
+        return SUCHBEGRIFFE[ _zaehler ];
+    }
+
+}
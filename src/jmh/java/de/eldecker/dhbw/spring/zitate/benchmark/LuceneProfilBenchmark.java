@@ -0,0 +1,99 @@
+package de.eldecker.dhbw.spring.zitate.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.FuzzySuche;
+import de.eldecker.dhbw.spring.zitate.db.ZitatTreffer;
+
+
+/**
+ * Benchmark für die Dauer einer einzelnen Fuzzy-Suche ({@code sucheFuzzyTreffer}) mit
+ * den Profilen für die Ablage des Lucene-Index aus {@code application.properties};
+ * {@code standard} steht für die Default-Konfiguration ohne Profil.
+ * <br><br>
+ *
+ * Jedes Profil hat einen eigenen Index-Ordner, der beim ersten Lauf aufgebaut wird (siehe
+ * {@link BenchmarkUmgebung#starten(int, int, String)}); der Durchsatz beim Import wird
+ * mit dem {@link LuceneProfilImportBenchmark} gemessen.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx2g" )
+@State( Scope.Benchmark )
+public class LuceneProfilBenchmark {
+
+    /** Suchbegriffe, zum Teil mit Tippfehlern; werden reihum verwendet. */
+    private static final String[] SUCHBEGRIFFE = {
+            "love", "wisdom", "happines", "televison", "knowledge", "candlelihgt", "freedom", "mariage" };
+
+    @Param( { "standard", "lucene-mmap", "lucene-heap", "lucene-schreiblast" } )
+    public String profil;
+
+    @Param( { "100000" } )
+    public int anzahlZitate;
+
+    @Param( { "1", "2" } )
+    public int editDistanz;
+
+    private BenchmarkUmgebung   _umgebung;
+    private FuzzySuche          _fuzzySuche;
+    private TransactionTemplate _transaktion;
+    private int                 _zaehler = 0;
+
+
+    @Setup( Level.Trial )
+    public void starten() throws InterruptedException, IOException {
+
+        _umgebung   = BenchmarkUmgebung.starten( anzahlZitate, 1, "standard".equals( profil ) ? null : profil );
+        _fuzzySuche = _umgebung.getBean( FuzzySuche.class );
+
+        _transaktion = new TransactionTemplate( _umgebung.getBean( PlatformTransactionManager.class ) );
+        _transaktion.setReadOnly( true );
+    }
+
+
+    @TearDown( Level.Trial )
+    public void beenden() {
+
+        _umgebung.close();
+    }
+
+
+    @Benchmark
+    public List<ZitatTreffer> sucheFuzzyTreffer() {
+
+        final String suchbegriff = naechsterSuchbegriff();
+
+        return _transaktion.execute( status ->
+                    _fuzzySuche.sucheFuzzyTreffer( suchbegriff, 10, editDistanz, 0, null ) );
+    }
+
+
+    private String naechsterSuchbegriff() {
+
+        _zaehler = ( _zaehler + 1 ) % SUCHBEGRIFFE.length;
+
+        return SUCHBEGRIFFE[ _zaehler ];
+    }
+
+}
@@ -0,0 +1,93 @@
+package de.eldecker.dhbw.spring.zitate.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.eldecker.dhbw.spring.zitate.logik.ZitateImporter;
+import de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator;
+
+
+/**
+ * Benchmark für den Durchsatz (Zitate pro Sekunde) beim Import ohne Bulk-Modus, d.h.
+ * jede Transaktion mit {@code zitate.import.batchgroesse} Zitaten schreibt in den
+ * Lucene-Index, mit den Profilen für die Ablage des Index aus {@code application.properties}.
+ * <br><br>
+ *
+ * Jeder Aufruf importiert einen Block mit {@link #ZITATE_PRO_AUFRUF} synthetischen Zitaten
+ * in eine anfangs leere Datenbank (siehe {@link BenchmarkUmgebung#leerStarten(String)});
+ * die Blöcke werden vorher erzeugt, damit der {@link ZitatKorpusGenerator} nicht mitgemessen
+ * wird. Im Profil {@code lucene-schreiblast} sollte der Durchsatz wegen der seltenen
+ * Commits am höchsten sein.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 2, time = 5 )
+@Measurement( iterations = 5, time = 5 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx2g" )
+@State( Scope.Benchmark )
+public class LuceneProfilImportBenchmark {
+
+    /** Anzahl Zitate pro Aufruf der Benchmark-Methode. */
+    private static final int ZITATE_PRO_AUFRUF = 5000;
+
+    /** Anzahl vorab erzeugter Blöcke, die reihum importiert werden. */
+    private static final int ANZAHL_BLOECKE = 16;
+
+    @Param( { "standard", "lucene-mmap", "lucene-heap", "lucene-schreiblast" } )
+    public String profil;
+
+    private BenchmarkUmgebung _umgebung;
+    private ZitateImporter    _importer;
+    private String[]          _bloecke;
+    private int               _zaehler = 0;
+
+
+    @Setup( Level.Trial )
+    public void starten() throws IOException {
+
+        final ZitatKorpusGenerator generator = new ZitatKorpusGenerator( ZitatKorpusGenerator.DEFAULT_SEED );
+        _bloecke = new String[ ANZAHL_BLOECKE ];
+        for ( int i = 0; i < ANZAHL_BLOECKE; i++ ) {
+
+            _bloecke[ i ] = generator.erzeugen( ZITATE_PRO_AUFRUF );
+        }
+
+        _umgebung = BenchmarkUmgebung.leerStarten( "standard".equals( profil ) ? null : profil );
+        _importer = _umgebung.getBean( ZitateImporter.class );
+    }
+
+
+    @TearDown( Level.Trial )
+    public void beenden() {
+
+        _umgebung.close();
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation( ZITATE_PRO_AUFRUF )
+    public long importieren() throws InterruptedException {
+
+        _zaehler = ( _zaehler + 1 ) % ANZAHL_BLOECKE;
+
+        return _importer.importiere( new BufferedReader( new StringReader( _bloecke[ _zaehler ] ) ) );
+    }
+
+}
@@ -0,0 +1,102 @@
+package de.eldecker.dhbw.spring.zitate.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.FuzzySuche;
+import de.eldecker.dhbw.spring.zitate.db.ZitatTreffer;
+
+
+/**
+ * Benchmark für die Dauer einer einzelnen Fuzzy-Suche ({@code sucheFuzzyTreffer}) mit
+ * einer Million Zitaten, wenn der Lucene-Index auf 1 bis 8 Shards aufgeteilt ist und die
+ * Shards parallel durchsucht werden.
+ * <br><br>
+ *
+ * Für jede Anzahl Shards wird beim ersten Lauf ein eigener Index aufgebaut (siehe
+ * {@link BenchmarkUmgebung#starten(int, int)}). Die Verkürzung der Dauer hängt von der
+ * Anzahl freier CPU-Kerne ab; bei mehr Shards als Kernen wird die Suche wieder langsamer.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx4g" )
+@State( Scope.Benchmark )
+public class ShardingBenchmark {
+
+    /** Suchbegriffe, zum Teil mit Tippfehlern; werden reihum verwendet. */
+    private static final String[] SUCHBEGRIFFE = {
+            "love", "wisdom", "happines", "televison", "knowledge", "candlelihgt", "freedom", "mariage" };
+
+    @Param( { "1000000" } )
+    public int anzahlZitate;
+
+    @Param( { "1", "2", "4", "8" } )
+    public int anzahlShards;
+
+    @Param( { "1", "2" } )
+    public int editDistanz;
+
+    @Param( { "10" } )
+    public int maxTreffer;
+
+    private BenchmarkUmgebung   _umgebung;
+    private FuzzySuche          _fuzzySuche;
+    private TransactionTemplate _transaktion;
+    private int                 _zaehler = 0;
+
+
+    @Setup( Level.Trial )
+    public void starten() throws InterruptedException, IOException {
+
+        _umgebung   = BenchmarkUmgebung.starten( anzahlZitate, anzahlShards );
+        _fuzzySuche = _umgebung.getBean( FuzzySuche.class );
+
+        _transaktion = new TransactionTemplate( _umgebung.getBean( PlatformTransactionManager.class ) );
+        _transaktion.setReadOnly( true );
+    }
+
+
+    @TearDown( Level.Trial )
+    public void beenden() {
+
+        _umgebung.close();
+    }
+
+
+    @Benchmark
+    public List<ZitatTreffer> sucheFuzzyTreffer() {
+
+        final String suchbegriff = naechsterSuchbegriff();
+
+        return _transaktion.execute( status ->
+                    _fuzzySuche.sucheFuzzyTreffer( suchbegriff, maxTreffer, editDistanz, 0, null ) );
+    }
+
+
+    private String naechsterSuchbegriff() {
+
+        _zaehler = ( _zaehler + 1 ) % SUCHBEGRIFFE.length;
+
+        return SUCHBEGRIFFE[ _zaehler ];
+    }
+
+}
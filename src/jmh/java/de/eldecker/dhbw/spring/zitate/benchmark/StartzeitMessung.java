@@ -0,0 +1,267 @@
+package de.eldecker.dhbw.spring.zitate.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator;
+
+
+/**
+ * Misst für den mit Maven-Profil {@code schnellstart} gebauten JAR (siehe
+ * {@code maven_schnellstart.sh}) die Dauer eines Kaltstarts in drei Varianten:
+ * normaler Start, Start mit Spring AOT und CDS-Archiv, und zusätzlich mit Aufwärmen
+ * ({@code zitate.aufwaermen.aktiv=true}). Kein JMH-Benchmark, weil jede Messung eine
+ * neue JVM braucht.
+ * <br><br>
+ *
+ * Gemessen wird ab dem Start des Prozesses:
+ * <ul>
+ * <li><b>Erste Anfrage:</b> bis {@code /actuator/health/readiness} Bereitschaft meldet und
+ *     die erste Suche über {@code GET /api/v1/suche} beantwortet ist.</li>
+ * <li><b>Stabile Latenz:</b> danach werden Suchen mit zufälligen Suchbegriffen (mit Tippfehler,
+ *     damit der Such-Cache nicht trifft) in Blöcken von {@link #BLOCK_GROESSE} Anfragen
+ *     geschickt, bis sich der Median eines Blocks um weniger als {@link #TOLERANZ_PROZENT}
+ *     Prozent gegenüber dem vorherigen Block ändert.</li>
+ * </ul>
+ * Jede Variante wird {@code -Dstartzeit.wiederholungen} (3) mal gestartet, ausgegeben wird
+ * der Median. Es werden Datenbank und Index im aktuellen Verzeichnis verwendet, die Anwendung
+ * darf also nicht gleichzeitig laufen. Aufruf:
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:java -Dexec.classpathScope=test \
+ *        -Dexec.mainClass=de.eldecker.dhbw.spring.zitate.benchmark.StartzeitMessung
+ * </pre>
+ */
+public class StartzeitMessung {
+
+    /** Ordner mit ausgepacktem JAR und CDS-Archiv. */
+    private static final Path SCHNELLSTART_VERZEICHNIS = Path.of( "target", "schnellstart" );
+
+    /** Anzahl Anfragen pro Block für Median der Latenz. */
+    private static final int BLOCK_GROESSE = 50;
+
+    /** Max. Anzahl Blöcke, falls die Latenz nicht stabil wird. */
+    private static final int MAX_BLOECKE = 40;
+
+    /** Änderung des Medians (in Prozent), ab der die Latenz als stabil gilt. */
+    private static final int TOLERANZ_PROZENT = 10;
+
+    /** Max. Wartezeit auf Bereitschaft der Anwendung. */
+    private static final Duration MAX_STARTZEIT = Duration.ofMinutes( 5 );
+
+    /**
+     * Ergebnis eines Starts.
+     *
+     * @param ersteAnfrageMillis Dauer bis zur Antwort auf die erste Suche
+     *
+     * @param stabilMillis Dauer bis zur stabilen Latenz
+     *
+     * @param latenzMikros Median der Latenz im letzten Block
+     */
+    private record Ergebnis( long ersteAnfrageMillis, long stabilMillis, long latenzMikros ) {}
+
+    private final HttpClient _httpClient = HttpClient.newBuilder()
+                                                     .connectTimeout( Duration.ofSeconds( 1 ) )
+                                                     .build();
+
+    private final ZitatKorpusGenerator _generator = new ZitatKorpusGenerator( ZitatKorpusGenerator.DEFAULT_SEED );
+
+    private final Random _zufall = new Random( ZitatKorpusGenerator.DEFAULT_SEED );
+
+
+    public static void main( String[] args ) throws Exception {
+
+        final Path jar;
+        try ( Stream<Path> pfade = Files.list( SCHNELLSTART_VERZEICHNIS ) ) {
+
+            jar = pfade.filter( pfad -> pfad.getFileName().toString().endsWith( ".jar" ) )
+                       .findFirst()
+                       .orElseThrow( () -> new IllegalStateException(
+                               "Kein JAR in " + SCHNELLSTART_VERZEICHNIS + ", zuerst mit -Pschnellstart bauen." ) );
+        }
+        final String archiv = SCHNELLSTART_VERZEICHNIS.resolve( "zitate.jsa" ).toString();
+
+        final int wiederholungen = Integer.getInteger( "startzeit.wiederholungen", 3 );
+
+        final StartzeitMessung messung = new StartzeitMessung();
+
+        final List<String> zeilen = new ArrayList<>();
+        zeilen.add( messung.messen( "normal", jar, wiederholungen, List.of(), List.of() ) );
+        zeilen.add( messung.messen( "AOT + CDS", jar, wiederholungen,
+                                    List.of( "-XX:SharedArchiveFile=" + archiv, "-Dspring.aot.enabled=true" ),
+                                    List.of() ) );
+        zeilen.add( messung.messen( "AOT + CDS + Aufwärmen", jar, wiederholungen,
+                                    List.of( "-XX:SharedArchiveFile=" + archiv, "-Dspring.aot.enabled=true" ),
+                                    List.of( "--zitate.aufwaermen.aktiv=true" ) ) );
+
+        System.out.println();
+        System.out.println( String.format( "%-24s %18s %18s %16s", "Variante", "erste Anfrage [ms]",
+                                           "stabile Latenz [ms]", "Latenz dann [µs]" ) );
+        zeilen.forEach( System.out::println );
+    }
+
+
+    /**
+     * Eine Variante mehrmals starten und Median der Ergebnisse formatieren.
+     */
+    private String messen( String variante, Path jar, int wiederholungen,
+                           List<String> jvmArgumente, List<String> argumente ) throws Exception {
+
+        final long[] ersteAnfrage = new long[ wiederholungen ];
+        final long[] stabil       = new long[ wiederholungen ];
+        final long[] latenz       = new long[ wiederholungen ];
+        for ( int i = 0; i < wiederholungen; i++ ) {
+
+            final Ergebnis ergebnis = starten( jar, jvmArgumente, argumente );
+            System.out.println( variante + ", Lauf " + ( i + 1 ) + ": " + ergebnis );
+
+            ersteAnfrage[ i ] = ergebnis.ersteAnfrageMillis();
+            stabil[ i ]       = ergebnis.stabilMillis();
+            latenz[ i ]       = ergebnis.latenzMikros();
+        }
+
+        return String.format( "%-24s %18d %18d %16d", variante, median( ersteAnfrage ), median( stabil ), median( latenz ) );
+    }
+
+
+    /**
+     * Anwendung als eigenen Prozess starten, messen und wieder beenden.
+     */
+    private Ergebnis starten( Path jar, List<String> jvmArgumente, List<String> argumente ) throws Exception {
+
+        final int port;
+        try ( ServerSocket socket = new ServerSocket( 0 ) ) {
+
+            port = socket.getLocalPort();
+        }
+
+        final List<String> befehl = new ArrayList<>();
+        befehl.add( Path.of( System.getProperty( "java.home" ), "bin", "java" ).toString() );
+        befehl.addAll( jvmArgumente );
+        befehl.addAll( List.of( "-jar", jar.toString(),
+                                "--server.port=" + port,
+                                "--zitate.import.beim-start=false",
+                                "--logging.file.name=" ) );
+        befehl.addAll( argumente );
+
+        final long startNanos = System.nanoTime();
+        final Process prozess = new ProcessBuilder( befehl ).redirectOutput( ProcessBuilder.Redirect.DISCARD )
+                                                            .redirectError( ProcessBuilder.Redirect.INHERIT )
+                                                            .start();
+        try {
+
+            final String basisUrl = "http://localhost:" + port;
+            while ( status( basisUrl + "/actuator/health/readiness" ) != 200 ) {
+
+                if ( !prozess.isAlive() || System.nanoTime() - startNanos > MAX_STARTZEIT.toNanos() ) {
+
+                    throw new IllegalStateException( "Anwendung nicht bereit, Exit-Code: " +
+                                                     ( prozess.isAlive() ? "-" : prozess.exitValue() ) );
+                }
+                Thread.sleep( 10 );
+            }
+            suchen( basisUrl );
+            final long ersteAnfrageMillis = ( System.nanoTime() - startNanos ) / 1_000_000;
+
+            long medianVorher = -1;
+            long median = 0;
+            for ( int block = 0; block < MAX_BLOECKE; block++ ) {
+
+                final long[] latenzen = new long[ BLOCK_GROESSE ];
+                for ( int i = 0; i < BLOCK_GROESSE; i++ ) {
+
+                    latenzen[ i ] = suchen( basisUrl );
+                }
+                median = median( latenzen );
+
+                if ( medianVorher > 0 && Math.abs( median - medianVorher ) * 100 <= medianVorher * TOLERANZ_PROZENT ) {
+
+                    break;
+                }
+                medianVorher = median;
+            }
+
+            return new Ergebnis( ersteAnfrageMillis, ( System.nanoTime() - startNanos ) / 1_000_000, median / 1000 );
+        }
+        finally {
+
+            prozess.destroy();
+            prozess.waitFor();
+        }
+    }
+
+
+    /**
+     * Eine Fuzzy-Suche mit zufälligem Suchbegriff ohne Staffelung.
+     *
+     * @return Latenz in Nanosekunden
+     */
+    private long suchen( String basisUrl ) throws IOException, InterruptedException {
+
+        final String suchbegriff = URLEncoder.encode( suchbegriffMitTippfehler(), StandardCharsets.UTF_8 );
+
+        final long startNanos = System.nanoTime();
+        final int status = status( basisUrl + "/api/v1/suche?fuzziness=2&gestaffelt=false&suchbegriff=" + suchbegriff );
+        final long nanos = System.nanoTime() - startNanos;
+        if ( status != 200 ) {
+
+            throw new IllegalStateException( "Suche mit HTTP-Status " + status );
+        }
+
+        return nanos;
+    }
+
+
+    /**
+     * HTTP-Status einer GET-Anfrage; -1, wenn keine Verbindung möglich ist.
+     */
+    private int status( String url ) throws InterruptedException {
+
+        try {
+
+            return _httpClient.send( HttpRequest.newBuilder( URI.create( url ) ).GET().build(),
+                                     HttpResponse.BodyHandlers.discarding() )
+                              .statusCode();
+        }
+        catch ( IOException ex ) {
+
+            return -1;
+        }
+    }
+
+
+    /**
+     * Zufälliges Wort aus dem Vokabular des {@link ZitatKorpusGenerator}, bei dem ein
+     * Buchstabe ersetzt ist.
+     */
+    private String suchbegriffMitTippfehler() {
+
+        final char[] zeichen = _generator.zufallsWort().toCharArray();
+        zeichen[ _zufall.nextInt( zeichen.length ) ] = (char) ( 'a' + _zufall.nextInt( 26 ) );
+
+        return new String( zeichen );
+    }
+
+
+    private static long median( long[] werte ) {
+
+        final long[] sortiert = werte.clone();
+        Arrays.sort( sortiert );
+
+        return sortiert[ sortiert.length / 2 ];
+    }
+
+}
@@ -0,0 +1,70 @@
+package de.eldecker.dhbw.spring.zitate.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.eldecker.dhbw.spring.zitate.logik.ZitatMitAutor;
+import de.eldecker.dhbw.spring.zitate.logik.ZitatParser;
+import de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator;
+
+
+/**
+ * Benchmark für das Zerlegen einer Zitatdatei mit dem {@link ZitatParser} und
+ * {@link ZitatMitAutor} (ersetzt die frühere Methode {@code DatenImporterRunner.zeilenZuZitate}),
+ * ohne Datenbank. Gemessen wird die Zeit für den ganzen Korpus.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx2g" )
+@State( Scope.Benchmark )
+public class ZitatParserBenchmark {
+
+    @Param( { "10000", "100000", "1000000" } )
+    public int anzahlZitate;
+
+    private String _korpus;
+
+
+    @Setup( Level.Trial )
+    public void starten() {
+
+        _korpus = new ZitatKorpusGenerator( ZitatKorpusGenerator.DEFAULT_SEED ).erzeugen( anzahlZitate );
+    }
+
+
+    @Benchmark
+    public long parsen( Blackhole blackhole ) throws IOException {
+
+        final ZitatParser parser = new ZitatParser( zitat -> blackhole.consume( ZitatMitAutor.ausRohtext( zitat ) ) );
+
+        try ( BufferedReader reader = new BufferedReader( new StringReader( _korpus ) ) ) {
+
+            String zeile;
+            while ( ( zeile = reader.readLine() ) != null ) {
+
+                parser.zeileVerarbeiten( zeile );
+            }
+        }
+
+        return parser.beenden();
+    }
+
+}
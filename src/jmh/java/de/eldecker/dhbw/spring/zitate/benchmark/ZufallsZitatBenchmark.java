@@ -0,0 +1,65 @@
+package de.eldecker.dhbw.spring.zitate.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.eldecker.dhbw.spring.zitate.logik.ZufallsZitat;
+import de.eldecker.dhbw.spring.zitate.logik.ZufallsZitatService;
+
+
+/**
+ * Benchmark für die Auswahl eines zufälligen Zitats mit dem {@link ZufallsZitatService}
+ * (ersetzt die frühere Native Query {@code ZitateRepo.getZufallsZitat}). Der Aufwand
+ * sollte unabhängig von der Korpusgröße sein.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx4g" )
+@State( Scope.Benchmark )
+public class ZufallsZitatBenchmark {
+
+    @Param( { "10000", "100000", "1000000" } )
+    public int anzahlZitate;
+
+    private BenchmarkUmgebung   _umgebung;
+    private ZufallsZitatService _zufallsZitatService;
+
+
+    @Setup( Level.Trial )
+    public void starten() throws InterruptedException, IOException {
+
+        _umgebung            = BenchmarkUmgebung.starten( anzahlZitate );
+        _zufallsZitatService = _umgebung.getBean( ZufallsZitatService.class );
+    }
+
+
+    @TearDown( Level.Trial )
+    public void beenden() {
+
+        _umgebung.close();
+    }
+
+
+    @Benchmark
+    public ZufallsZitat getZufallsZitat() {
+
+        return _zufallsZitatService.getZufallsZitat();
+    }
+
+}
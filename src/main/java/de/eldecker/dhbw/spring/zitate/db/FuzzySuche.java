@@ -1,33 +1,221 @@
 package de.eldecker.dhbw.spring.zitate.db;
 
+import static de.eldecker.dhbw.spring.zitate.db.ZitatAnalyseKonfigurator.MAX_LAENGE_PRAEFIX;
+import static de.eldecker.dhbw.spring.zitate.db.ZitatAnalyseKonfigurator.MIN_LAENGE_PRAEFIX;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.SUCHE_LADEN;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.SUCHE_LUCENE;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.TAG_ART;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.TAG_FUZZINESS;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.TAG_TREFFER;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.trefferKlasse;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
+import org.hibernate.search.engine.search.aggregation.AggregationKey;
+import org.hibernate.search.engine.search.predicate.dsl.PredicateFinalStep;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.engine.search.query.SearchResult;
 import org.hibernate.search.mapper.orm.Search;
 import org.hibernate.search.mapper.orm.session.SearchSession;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 
 /**
  * Diese Repo-Bean implementiert die Fuzzy-Suche mit Lucene. 
+ * <br><br>
+ * 
+ * Für jede Suche werden zwei Timer befüllt: {@code zitate.suche.lucene} mit der Dauer
+ * der Query im Lucene-Backend und {@code zitate.suche.laden} mit der restlichen Zeit,
+ * die für das Laden der Entitäten aus der Datenbank bzw. das Erzeugen der Projektionen
+ * gebraucht wird (siehe {@link de.eldecker.dhbw.spring.zitate.helferlein.Metriken}).
+ * <br><br>
+ * 
+ * Ist der Index auf mehrere Shards aufgeteilt (siehe {@link ZitatShardKonfigurator}),
+ * dann führt {@link #sucheFuzzyTreffer(String, int, int, int, String)} die Query in allen
+ * Shards parallel aus und führt die Treffer nach Relevanz zusammen; alle anderen Suchen
+ * laufen wie bisher über alle Shards gemeinsam.
+ * <br><br>
+ * 
+ * Wurde der Index aufgebaut, bevor {@code zitat} und {@code autor} im Index gespeichert
+ * wurden, dann liefern die Projektionen für diese Felder einfach {@code null}; solche
+ * Treffer werden aus der Datenbank nachgeladen, bis der Index neu aufgebaut ist
+ * (siehe {@link #fehlendeFelderNachladen(List)}).
  */
 @Repository
 public class FuzzySuche {
 
+    private static final Logger LOG = LoggerFactory.getLogger( FuzzySuche.class );
+
+	/**
+	 * Treffer aus einem Shard mit Relevanz (Score), damit die Treffer aller Shards
+	 * zusammengeführt werden können.
+	 *
+	 * @param score Relevanz laut Lucene (BM25)
+	 *
+	 * @param treffer Eigentlicher Treffer
+	 */
+	private record ShardTreffer( float score, ZitatTreffer treffer ) {}
+
+	/**
+	 * Schlüssel für die Timer einer Kombination von Tags.
+	 *
+	 * @param art Wert für Tag {@code art}
+	 *
+	 * @param maxEditDistance Wert für Tag {@code fuzziness}
+	 *
+	 * @param trefferKlasse Wert für Tag {@code treffer}
+	 */
+	private record TimerSchluessel( String art, int maxEditDistance, String trefferKlasse ) {}
+
+	/**
+	 * Timer für Dauer der Query und für Laden der Treffer mit denselben Tags.
+	 *
+	 * @param lucene Timer {@code zitate.suche.lucene}
+	 *
+	 * @param laden Timer {@code zitate.suche.laden}
+	 */
+	private record SuchTimer( Timer lucene, Timer laden ) {}
+
+	/** Reihenfolge beim Zusammenführen: absteigend nach Relevanz, bei Gleichstand nach ID. */
+	private static final Comparator<ShardTreffer> NACH_RELEVANZ =
+	        Comparator.comparingDouble( ShardTreffer::score )
+	                  .reversed()
+	                  .thenComparing( shardTreffer -> shardTreffer.treffer().id() );
+
+	/** Regulärer Ausdruck zum Zerlegen des Präfixes für die Vorschläge in Wörter. */
+	private static final Pattern LEERZEICHEN_REGEXP = Pattern.compile( "\\s+" );
+
 	/** Zentrales API-Objekt für JPA (welches wir bei "Spring Data JPA" normalerweise nicht brauchen). */
 	private final EntityManager _entityManager;
+
+	/**
+	 * Bis zu dieser Anzahl wird die Gesamtanzahl der Treffer beim Blättern exakt gezählt,
+	 * darüber hinaus bricht Lucene das Zählen ab.
+	 */
+	private final int _trefferzahlSchwelle;
+
+	/** Registry für Timer mit Dauer der Suchen. */
+	private final MeterRegistry _meterRegistry;
+
+	/**
+	 * Timer pro Kombination der Tags, damit nicht bei jeder Suche zwei Timer gebaut und
+	 * in der Registry nachgeschlagen werden.
+	 */
+	private final Map<TimerSchluessel, SuchTimer> _suchTimer = new ConcurrentHashMap<>();
+
+	/** Für eigene Sessions der Suchen in den Shards, die in anderen Threads laufen. */
+	private final EntityManagerFactory _entityManagerFactory;
+
+	/** Anzahl Shards und Kennungen der Shards. */
+	private final ZitatShardKonfigurator _shardKonfigurator;
+
+	/**
+	 * Threads für die Suche in den Shards 1 bis n-1 (Shard 0 wird im aufrufenden Thread
+	 * durchsucht); {@code null}, wenn der Index nicht aufgeteilt ist.
+	 */
+	private final ExecutorService _shardExecutor;
+
+	/** Damit die Warnung wegen eines veralteten Index nur einmal geloggt wird. */
+	private final AtomicBoolean _veralteterIndexGemeldet = new AtomicBoolean( false );
 	
 	
     /**
      * Konstruktor für <i>Dependency Injection</i>. 
      */
 	@Autowired
-	public FuzzySuche( EntityManager entityManager ) {
+	public FuzzySuche( EntityManager          entityManager,
+	                   EntityManagerFactory   entityManagerFactory,
+	                   MeterRegistry          meterRegistry,
+	                   ZitatShardKonfigurator shardKonfigurator,
+	                   @Value( "${zitate.suche.trefferzahl-schwelle:10000}" ) int trefferzahlSchwelle,
+	                   @Value( "${zitate.suche.shard-threads:0}"            ) int shardThreads ) {
 	    
-	    _entityManager = entityManager;
+	    _entityManager        = entityManager;
+	    _entityManagerFactory = entityManagerFactory;
+	    _meterRegistry        = meterRegistry;
+	    _shardKonfigurator    = shardKonfigurator;
+	    _trefferzahlSchwelle  = trefferzahlSchwelle;
+
+	    final int anzahlShards = shardKonfigurator.getAnzahlShards();
+	    if ( anzahlShards > 1 ) {
+
+	        final int threads = shardThreads > 0 ? shardThreads
+	                                             : Runtime.getRuntime().availableProcessors();
+	        _shardExecutor = shardExecutorErzeugen( threads );
+
+	        LOG.info( "Fuzzy-Suche in {} Shards mit {} Threads.", anzahlShards, threads );
+
+	    } else {
+
+	        _shardExecutor = null;
+	    }
+	}
+
+
+	/**
+	 * Erzeugt den Thread-Pool für die Suche in den Shards; die Threads sind Daemon-Threads,
+	 * damit sie das Beenden der Anwendung nicht aufhalten.
+	 *
+	 * @param threads Anzahl Threads
+	 *
+	 * @return Thread-Pool mit fester Größe
+	 */
+	private static ExecutorService shardExecutorErzeugen( int threads ) {
+
+	    final AtomicInteger threadZaehler = new AtomicInteger( 0 );
+
+	    return Executors.newFixedThreadPool( threads, runnable -> {
+
+	        final Thread thread = new Thread( runnable, "zitate-shard-suche-" + threadZaehler.incrementAndGet() );
+	        thread.setDaemon( true );
+	        return thread;
+	    });
+	}
+
+
+	/**
+	 * Thread-Pool für die Suche in den Shards beim Herunterfahren beenden; laufende Suchen
+	 * dürfen noch fertig werden, bevor die {@code EntityManagerFactory} geschlossen wird.
+	 *
+	 * @throws InterruptedException Beim Warten auf das Ende laufender Suchen unterbrochen
+	 */
+	@PreDestroy
+	public void beenden() throws InterruptedException {
+
+	    if ( _shardExecutor != null ) {
+
+	        _shardExecutor.shutdown();
+	        if ( !_shardExecutor.awaitTermination( 10, SECONDS ) ) {
+
+	            _shardExecutor.shutdownNow();
+	        }
+	    }
 	}
 	
 
@@ -52,13 +240,761 @@ public class FuzzySuche {
 		
         final SearchSession searchSession = Search.session( _entityManager );
 
-        return searchSession.search( ZitatEntity.class )
-                            .where( f -> f.match()
-                    		              .fields( "zitat" )
-                    		              .matching( suchbegriff )
-                    		              .fuzzy( maxEditDistance ) )
-                            .fetch( maxTreffer )
-                            .hits();
+        final long startNanos = System.nanoTime();
+
+        final SearchResult<ZitatEntity> result =
+                searchSession.search( ZitatEntity.class )
+                             .where( f -> f.match()
+                    		               .fields( "zitat" )
+                    		               .matching( suchbegriff )
+                    		               .fuzzy( maxEditDistance ) )
+                             .fetch( maxTreffer );
+
+        dauerErfassen( "entitaeten", maxEditDistance, result, startNanos );
+
+        return result.hits();
+    }
+
+
+	/**
+	 * Methode für Fuzzy-Suche nach Zitaten, die die Treffer direkt aus den im Lucene-Index
+	 * gespeicherten Feldern erzeugt (Projektion). Im Gegensatz zu
+	 * {@link #sucheFuzzy(String, int, int)} werden die Treffer also nicht aus der
+	 * Datenbank geladen, es gibt pro Suche keinen einzigen Datenbankzugriff.
+	 * <br><br>
+	 * 
+	 * Bei {@code maxEditDistance=0} wird keine Fuzzy-Query, sondern die viel billigere
+	 * exakte Suche nach den Termen ausgeführt.
+	 * <br><br>
+	 * 
+	 * Bei mehreren Shards siehe {@link #sucheInAllenShards(String, int, int, int, String)}.
+	 *
+	 * @param suchbegriff Suchbegriff
+	 *
+	 * @param maxTreffer Maximale Anzahl Treffer, die zurück geliefert werden soll
+	 *
+	 * @param maxEditDistance Wert für max. erlaubte "Unschärfe" bei Fuzzy-Search;
+	 *                        zulässig sind die Werte 0, 1 und 2 (Maximum von Lucene)
+	 *
+	 * @param praefixLaenge Anzahl Zeichen am Anfang jedes Terms, die exakt übereinstimmen
+	 *                      müssen; je größer der Wert, desto weniger Terme muss Lucene
+	 *                      bei der Fuzzy-Suche prüfen
+	 *
+	 * @param autor Nur Zitate dieses Autors (Groß-/Kleinschreibung egal), oder {@code null}
+	 *              für alle Autoren
+	 *
+	 * @return Liste der Ergebnisse
+	 */
+	public List<ZitatTreffer> sucheFuzzyTreffer( String suchbegriff, int maxTreffer,
+	                                             int maxEditDistance, int praefixLaenge, String autor ) {
+
+        if ( _shardExecutor != null ) {
+
+            return sucheInAllenShards( suchbegriff, maxTreffer, maxEditDistance, praefixLaenge, autor );
+        }
+
+        final SearchSession searchSession = Search.session( _entityManager );
+
+        final long startNanos = System.nanoTime();
+
+        final SearchResult<ZitatTreffer> result =
+                searchSession.search( ZitatEntity.class )
+                             .select( f -> f.composite()
+                                            .from( f.id( Long.class ),
+                                                   f.field( "zitat", String.class ),
+                                                   f.field( "autor", String.class ) )
+                                            .as( ZitatTreffer::new ) )
+                             .where( f -> suchPraedikat( f, suchbegriff, maxEditDistance, praefixLaenge, autor ) )
+                             .fetch( maxTreffer );
+
+        final List<ZitatTreffer> trefferListe = fehlendeFelderNachladen( result.hits() );
+
+        dauerErfassen( "treffer", maxEditDistance, result, startNanos );
+
+        return trefferListe;
+    }
+
+
+	/**
+	 * Führt die Query von {@link #sucheFuzzyTreffer(String, int, int, int, String)} in jedem
+	 * Shard einzeln aus (Shard 0 im aufrufenden Thread, die anderen parallel im Thread-Pool),
+	 * holt aus jedem Shard die besten {@code maxTreffer} Treffer und liefert davon die
+	 * insgesamt besten {@code maxTreffer}. Die Dauer der Suche wird damit ungefähr durch
+	 * den langsamsten Shard bestimmt statt durch die Summe aller Shards.
+	 * <br><br>
+	 * 
+	 * Lucene berechnet die Relevanz (BM25) mit den Statistiken (Anzahl Dokumente, Häufigkeit
+	 * der Terme) des jeweiligen Shards. Weil die Zitate über einen Hash der ID gleichmäßig
+	 * verteilt werden, unterscheiden sich die Statistiken kaum, die Reihenfolge kann aber
+	 * bei fast gleich relevanten Treffern von der Suche ohne Sharding abweichen.
+	 *
+	 * @param suchbegriff Suchbegriff
+	 *
+	 * @param maxTreffer Maximale Anzahl Treffer, die zurück geliefert werden soll
+	 *
+	 * @param maxEditDistance Unschärfe für Fuzzy-Suche (0 bis 2)
+	 *
+	 * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+	 *
+	 * @param autor Autor für Filter, oder {@code null}
+	 *
+	 * @return Liste der Ergebnisse, nach Relevanz sortiert
+	 */
+	private List<ZitatTreffer> sucheInAllenShards( String suchbegriff, int maxTreffer,
+	                                               int maxEditDistance, int praefixLaenge, String autor ) {
+
+        final int anzahlShards = _shardKonfigurator.getAnzahlShards();
+
+        final long startNanos = System.nanoTime();
+
+        final List<CompletableFuture<SearchResult<ShardTreffer>>> futures = new ArrayList<>( anzahlShards - 1 );
+        for ( int shard = 1; shard < anzahlShards; shard++ ) {
+
+            final String kennung = ZitatShardKonfigurator.kennung( shard );
+            futures.add( CompletableFuture.supplyAsync( () -> sucheInShard( kennung, suchbegriff, maxTreffer,
+                                                                            maxEditDistance, praefixLaenge, autor ),
+                                                        _shardExecutor ) );
+        }
+
+        final List<SearchResult<ShardTreffer>> ergebnisse = new ArrayList<>( anzahlShards );
+        ergebnisse.add( sucheInShard( ZitatShardKonfigurator.kennung( 0 ), suchbegriff, maxTreffer,
+                                      maxEditDistance, praefixLaenge, autor ) );
+        try {
+
+            for ( CompletableFuture<SearchResult<ShardTreffer>> future : futures ) {
+
+                ergebnisse.add( future.join() );
+            }
+        }
+        catch ( CompletionException ex ) {
+
+            if ( ex.getCause() instanceof RuntimeException ursache ) {
+
+                throw ursache;
+            }
+            throw ex;
+        }
+
+        long luceneNanos = 0;
+        final List<ShardTreffer> alleTreffer = new ArrayList<>( anzahlShards * maxTreffer );
+        for ( SearchResult<ShardTreffer> ergebnis : ergebnisse ) {
+
+            luceneNanos = Math.max( luceneNanos, ergebnis.took().toNanos() );
+            alleTreffer.addAll( ergebnis.hits() );
+        }
+
+        final List<ZitatTreffer> besteTreffer = alleTreffer.stream()
+                                                           .sorted( NACH_RELEVANZ )
+                                                           .limit( maxTreffer )
+                                                           .map( ShardTreffer::treffer )
+                                                           .toList();
+
+        final List<ZitatTreffer> trefferListe = fehlendeFelderNachladen( besteTreffer );
+
+        dauerErfassen( "treffer", maxEditDistance, trefferListe.size(), luceneNanos, startNanos );
+
+        return trefferListe;
+    }
+
+
+	/**
+	 * Führt die Query für {@link #sucheInAllenShards(String, int, int, int, String)} in
+	 * einem Shard aus. Weil die Methode auch in anderen Threads läuft, wird eine eigene
+	 * Session verwendet; da nur Projektionen aus dem Index geholt werden, greift sie nicht
+	 * auf die Datenbank zu.
+	 *
+	 * @param kennung Kennung des Shards (Routing Key)
+	 *
+	 * @param suchbegriff Suchbegriff
+	 *
+	 * @param maxTreffer Maximale Anzahl Treffer aus diesem Shard
+	 *
+	 * @param maxEditDistance Unschärfe für Fuzzy-Suche (0 bis 2)
+	 *
+	 * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+	 *
+	 * @param autor Autor für Filter, oder {@code null}
+	 *
+	 * @return Ergebnis mit Treffern und Relevanz
+	 */
+	private SearchResult<ShardTreffer> sucheInShard( String kennung, String suchbegriff, int maxTreffer,
+	                                                 int maxEditDistance, int praefixLaenge, String autor ) {
+
+        try ( EntityManager entityManager = _entityManagerFactory.createEntityManager() ) {
+
+            return Search.session( entityManager )
+                         .search( ZitatEntity.class )
+                         .select( f -> f.composite()
+                                        .from( f.score(),
+                                               f.composite()
+                                                .from( f.id( Long.class ),
+                                                       f.field( "zitat", String.class ),
+                                                       f.field( "autor", String.class ) )
+                                                .as( ZitatTreffer::new ) )
+                                        .as( ( score, treffer ) -> new ShardTreffer( score, treffer ) ) )
+                         .where( f -> suchPraedikat( f, suchbegriff, maxEditDistance, praefixLaenge, autor ) )
+                         .routing( kennung )
+                         .fetch( maxTreffer );
+        }
+    }
+
+
+	/**
+	 * Liefert einen Block von Treffern einer Suche, nach Relevanz sortiert (bei gleicher
+	 * Relevanz nach ID), für das Streamen großer Trefferlisten in mehreren kurzen Abfragen.
+	 * <br><br>
+	 * 
+	 * Für jeden Block muss Lucene alle Treffer bis {@code offset + anzahl} bewerten und
+	 * sortieren, der Aufwand steigt also mit dem Offset; dafür bleibt zwischen den Blöcken
+	 * keine Session offen. Wird der Index zwischen zwei Blöcken geändert, dann kann ein
+	 * Treffer doppelt geliefert werden oder fehlen.
+	 *
+	 * @param suchbegriff Suchbegriff
+	 *
+	 * @param maxEditDistance Unschärfe für Fuzzy-Suche (0 bis 2)
+	 *
+	 * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+	 *
+	 * @param offset Anzahl Treffer, die übersprungen werden (schon gelieferte Blöcke)
+	 *
+	 * @param anzahl Maximale Anzahl Treffer in diesem Block
+	 *
+	 * @param autor Nur Zitate dieses Autors, oder {@code null} für alle Autoren
+	 *
+	 * @return Treffer des Blocks; weniger als {@code anzahl}, wenn es keine weiteren gibt
+	 */
+	public List<ZitatTreffer> sucheTrefferBlock( String suchbegriff, int maxEditDistance, int praefixLaenge,
+	                                             int offset, int anzahl, String autor ) {
+
+        final SearchSession searchSession = Search.session( _entityManager );
+
+        final long startNanos = System.nanoTime();
+
+        final SearchResult<ZitatTreffer> result =
+                searchSession.search( ZitatEntity.class )
+                             .select( f -> f.composite()
+                                            .from( f.id( Long.class ),
+                                                   f.field( "zitat", String.class ),
+                                                   f.field( "autor", String.class ) )
+                                            .as( ZitatTreffer::new ) )
+                             .where( f -> suchPraedikat( f, suchbegriff, maxEditDistance, praefixLaenge, autor ) )
+                             .sort( f -> f.score().then().field( "id_sortierung" ) )
+                             .fetch( offset, anzahl );
+
+        final List<ZitatTreffer> trefferListe = fehlendeFelderNachladen( result.hits() );
+
+        dauerErfassen( "block", maxEditDistance, result, startNanos );
+
+        return trefferListe;
+    }
+
+
+	/**
+	 * Seitenweises Blättern durch alle Treffer einer Suche ("search after"/Keyset-Paginierung).
+	 * <br><br>
+	 * 
+	 * Die Treffer werden hierfür nicht nach Relevanz, sondern nach ID sortiert. Statt wie
+	 * bei {@code fetch(offset, limit)} alle Treffer vor der gewünschten Seite mitzusortieren,
+	 * wird nur nach Treffern mit einer ID größer (bzw. kleiner) als die letzte (bzw. erste)
+	 * ID der bisherigen Seite gesucht. Der Aufwand pro Seite hängt deshalb nicht davon ab,
+	 * wie weit schon geblättert wurde.
+	 * <br><br>
+	 * 
+	 * Von {@code nachId} und {@code vorId} darf höchstens einer der beiden Werte gesetzt sein;
+	 * sind beide {@code null}, dann wird die erste Seite geliefert.
+	 * <br><br>
+	 * 
+	 * Die Gesamtanzahl der Treffer wird nur für die erste Seite gezählt (die Query dafür
+	 * hat noch keinen ID-Filter); für die weiteren Seiten gibt der Aufrufer die Anzahl von
+	 * der ersten Seite mit. Nur wenn sie nicht bekannt ist ({@code bekannteAnzahl} negativ),
+	 * wird mit einer zweiten Query ohne ID-Filter gezählt.
+	 *
+	 * @param suchbegriff Suchbegriff
+	 *
+	 * @param maxEditDistance Unschärfe für Fuzzy-Suche (0 bis 2)
+	 *
+	 * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+	 *
+	 * @param seitenGroesse Anzahl Treffer pro Seite
+	 *
+	 * @param nachId Seite mit Treffern nach dieser ID liefern (Blättern vorwärts)
+	 *
+	 * @param vorId Seite mit Treffern vor dieser ID liefern (Blättern rückwärts)
+	 *
+	 * @param bekannteAnzahl Gesamtanzahl Treffer von der ersten Seite, oder ein negativer
+	 *                       Wert, wenn sie (neu) gezählt werden soll
+	 *
+	 * @param bekannteAnzahlExakt {@code true} gdw. {@code bekannteAnzahl} exakt ist
+	 *
+	 * @param autor Nur Zitate dieses Autors, oder {@code null} für alle Autoren
+	 *
+	 * @return Seite mit Treffern
+	 */
+	public ZitatSeite sucheSeite( String suchbegriff, int maxEditDistance, int praefixLaenge,
+	                              int seitenGroesse, Long nachId, Long vorId,
+	                              long bekannteAnzahl, boolean bekannteAnzahlExakt, String autor ) {
+
+        final SearchSession searchSession = Search.session( _entityManager );
+
+        final boolean rueckwaerts = vorId != null;
+
+        final long startNanos = System.nanoTime();
+
+        // eine Zusatz-Zeile holen, um festzustellen ob es in dieser Richtung weitere Treffer gibt
+        final SearchResult<ZitatTreffer> result =
+                searchSession.search( ZitatEntity.class )
+                             .select( f -> f.composite()
+                                            .from( f.id( Long.class ),
+                                                   f.field( "zitat", String.class ),
+                                                   f.field( "autor", String.class ) )
+                                            .as( ZitatTreffer::new ) )
+                             .where( ( f, root ) -> {
+
+                                 root.add( suchPraedikat( f, suchbegriff, maxEditDistance, praefixLaenge, autor ) );
+                                 if ( nachId != null ) {
+
+                                     root.add( f.range().field( "id_sortierung" ).greaterThan( nachId ) );
+                                 }
+                                 if ( vorId != null ) {
+
+                                     root.add( f.range().field( "id_sortierung" ).lessThan( vorId ) );
+                                 }
+                             })
+                             .sort( f -> rueckwaerts ? f.field( "id_sortierung" ).desc()
+                                                     : f.field( "id_sortierung" ).asc() )
+                             .totalHitCountThreshold( _trefferzahlSchwelle )
+                             .fetch( seitenGroesse + 1 );
+
+        final List<ZitatTreffer> trefferListe = new ArrayList<>( result.hits() );
+
+        final boolean weitereInRichtung = trefferListe.size() > seitenGroesse;
+        if ( weitereInRichtung ) {
+
+            trefferListe.remove( seitenGroesse );
+        }
+        if ( rueckwaerts ) {
+
+            Collections.reverse( trefferListe );
+        }
+
+        final List<ZitatTreffer> seitenTreffer = fehlendeFelderNachladen( trefferListe );
+
+        dauerErfassen( "seite", maxEditDistance, result, startNanos );
+
+        final boolean ersteSeite = nachId == null && vorId == null;
+
+        long    anzahlGesamt = bekannteAnzahl;
+        boolean anzahlExakt  = bekannteAnzahlExakt;
+        if ( ersteSeite ) {
+
+            anzahlGesamt = result.total().hitCountLowerBound();
+            anzahlExakt  = result.total().isHitCountExact();
+
+        } else if ( bekannteAnzahl < 0 ) {
+
+            // Trefferzahl der Query oben enthält wegen ID-Filter nicht alle Treffer
+            final SearchResult<ZitatEntity> zaehlResult =
+                    searchSession.search( ZitatEntity.class )
+                                 .where( f -> suchPraedikat( f, suchbegriff, maxEditDistance, praefixLaenge, autor ) )
+                                 .totalHitCountThreshold( _trefferzahlSchwelle )
+                                 .fetch( 0 );
+
+            anzahlGesamt = zaehlResult.total().hitCountLowerBound();
+            anzahlExakt  = zaehlResult.total().isHitCountExact();
+        }
+
+        return new ZitatSeite( List.copyOf( seitenTreffer ),
+                               anzahlGesamt,
+                               anzahlExakt,
+                               rueckwaerts || weitereInRichtung,
+                               rueckwaerts ? weitereInRichtung : nachId != null );
     }
+
+
+	/**
+	 * Alle Zitate eines Autors (Groß-/Kleinschreibung und Akzente egal), nach ID sortiert.
+	 * Im Gegensatz zur Volltextsuche nach dem Namen ist dies ein einfacher Term-Lookup,
+	 * dessen Aufwand nicht von der Größe des Index abhängt.
+	 *
+	 * @param autor Name des Autors
+	 *
+	 * @param maxTreffer Maximale Anzahl Treffer, die zurück geliefert werden soll
+	 *
+	 * @return Liste der Zitate des Autors
+	 */
+	public List<ZitatTreffer> sucheNachAutor( String autor, int maxTreffer ) {
+
+        final SearchSession searchSession = Search.session( _entityManager );
+
+        final long startNanos = System.nanoTime();
+
+        final SearchResult<ZitatTreffer> result =
+                searchSession.search( ZitatEntity.class )
+                             .select( f -> f.composite()
+                                            .from( f.id( Long.class ),
+                                                   f.field( "zitat", String.class ),
+                                                   f.field( "autor", String.class ) )
+                                            .as( ZitatTreffer::new ) )
+                             .where( f -> autorPraedikat( f, autor ) )
+                             .sort( f -> f.field( "id_sortierung" ) )
+                             .fetch( maxTreffer );
+
+        final List<ZitatTreffer> trefferListe = fehlendeFelderNachladen( result.hits() );
+
+        dauerErfassen( "autor", 0, result, startNanos );
+
+        return trefferListe;
+	}
+
+
+	/**
+	 * Zählt die Zitate pro Autor (Facetten) mit einer Lucene-Aggregation über das
+	 * Keyword-Feld {@code autor}; es werden keine Treffer geladen.
+	 *
+	 * @param suchbegriff Nur Zitate zählen, die auf diesen Suchbegriff passen; bei
+	 *                    {@code null} werden alle Zitate gezählt
+	 *
+	 * @param maxEditDistance Unschärfe für Fuzzy-Suche (0 bis 2)
+	 *
+	 * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+	 *
+	 * @param maxAutoren Maximale Anzahl Autoren im Ergebnis
+	 *
+	 * @return Map mit Autor als Schlüssel und Anzahl Zitate als Wert, absteigend nach
+	 *         Anzahl sortiert; Zitate ohne Autor werden nicht gezählt
+	 */
+	public Map<String, Long> zaehleAutoren( String suchbegriff, int maxEditDistance, int praefixLaenge,
+	                                        int maxAutoren ) {
+
+        final SearchSession searchSession = Search.session( _entityManager );
+
+        final AggregationKey<Map<String, Long>> autorenKey = AggregationKey.of( "autoren" );
+
+        final SearchResult<ZitatEntity> result =
+                searchSession.search( ZitatEntity.class )
+                             .where( f -> suchbegriff == null
+                                          ? f.matchAll()
+                                          : suchPraedikat( f, suchbegriff, maxEditDistance, praefixLaenge, null ) )
+                             .aggregation( autorenKey, f -> f.terms()
+                                                             .field( "autor", String.class )
+                                                             .maxTermCount( maxAutoren ) )
+                             .fetch( 0 );
+
+        return result.aggregation( autorenKey );
+	}
+
+
+	/**
+	 * Vorschläge für die Eingabe im Suchfeld ("Search as you type"): liefert die Zitate,
+	 * in denen jedes Wort von {@code praefix} als Wortanfang vorkommt. Gesucht wird im
+	 * Feld {@code zitat_vorschlag}, das die Präfixe aller Wörter enthält; jeder Wortanfang
+	 * ist deshalb eine einfache Term-Query, es wird keine (teure) Fuzzy- oder Wildcard-Query
+	 * ausgeführt.
+	 * <br><br>
+	 * 
+	 * Wörter mit nur einem Buchstaben werden ignoriert, weil so kurze Präfixe nicht im
+	 * Index stehen (siehe {@link ZitatAnalyseKonfigurator#MIN_LAENGE_PRAEFIX}); sonst gäbe
+	 * es z.B. für "lo w" gar keinen Vorschlag, bis das zweite Zeichen getippt ist.
+	 *
+	 * @param praefix Bisher eingegebener Text, z.B. "lo wi"
+	 *
+	 * @param anzahl Maximale Anzahl Vorschläge
+	 *
+	 * @param maxTextLaenge Zitate, die länger sind, werden auf diese Länge gekürzt
+	 *
+	 * @return Liste der Vorschläge, nach Relevanz sortiert; leer, wenn {@code praefix}
+	 *         kein Wort mit mindestens zwei Buchstaben enthält
+	 */
+	public List<ZitatVorschlag> sucheVorschlaege( String praefix, int anzahl, int maxTextLaenge ) {
+
+	    // längere Präfixe sind wegen "maxGramSize" nicht im Index, kürzere wegen "minGramSize"
+	    final List<String> woerter = LEERZEICHEN_REGEXP.splitAsStream( praefix.trim() )
+	                                                   .filter( wort -> wort.length() >= MIN_LAENGE_PRAEFIX )
+	                                                   .map( wort -> wort.length() > MAX_LAENGE_PRAEFIX
+	                                                                 ? wort.substring( 0, MAX_LAENGE_PRAEFIX )
+	                                                                 : wort )
+	                                                   .toList();
+	    if ( woerter.isEmpty() ) {
+
+	        return List.of();
+	    }
+
+        final SearchSession searchSession = Search.session( _entityManager );
+
+        final long startNanos = System.nanoTime();
+
+        final SearchResult<ZitatVorschlag> result =
+                searchSession.search( ZitatEntity.class )
+                             .select( f -> f.composite()
+                                            .from( f.id( Long.class ),
+                                                   f.field( "zitat", String.class ) )
+                                            .as( ( id, zitat ) -> new ZitatVorschlag( id, kuerzen( zitat, maxTextLaenge ) ) ) )
+                             .where( ( f, root ) -> {
+
+                                 for ( String wort : woerter ) {
+
+                                     root.add( f.match()
+                                                .field( "zitat_vorschlag" )
+                                                .matching( wort ) );
+                                 }
+                             })
+                             .fetch( anzahl );
+
+        final List<ZitatVorschlag> vorschlaege = fehlendeTexteNachladen( result.hits(), maxTextLaenge );
+
+        dauerErfassen( "vorschlaege", 0, result, startNanos );
+
+        return vorschlaege;
+	}
+
+
+	/**
+	 * Dauer einer Suche auf die Timer {@code zitate.suche.lucene} und {@code zitate.suche.laden}
+	 * aufteilen. Die Dauer der Query im Backend liefert Hibernate Search mit
+	 * {@link SearchResult#took()}; der Rest bis zum Ende von {@code fetch()} ist das Laden
+	 * der Treffer.
+	 *
+	 * @param art Art der Suche für Tag {@code art}
+	 *
+	 * @param maxEditDistance Unschärfe der Suche für Tag {@code fuzziness}
+	 *
+	 * @param result Ergebnis der Suche
+	 *
+	 * @param startNanos Wert von {@link System#nanoTime()} vor Ausführung der Suche
+	 */
+	private void dauerErfassen( String art, int maxEditDistance, SearchResult<?> result, long startNanos ) {
+
+	    dauerErfassen( art, maxEditDistance, result.hits().size(), result.took().toNanos(), startNanos );
+	}
+
+
+	/**
+	 * Wie {@link #dauerErfassen(String, int, SearchResult, long)}, aber mit schon
+	 * ermittelter Dauer der Query im Backend, z.B. bei der Suche in mehreren Shards
+	 * die Dauer im langsamsten Shard.
+	 *
+	 * @param art Art der Suche für Tag {@code art}
+	 *
+	 * @param maxEditDistance Unschärfe der Suche für Tag {@code fuzziness}
+	 *
+	 * @param anzahlTreffer Anzahl Treffer für Tag {@code treffer}
+	 *
+	 * @param queryNanos Dauer der Query im Lucene-Backend
+	 *
+	 * @param startNanos Wert von {@link System#nanoTime()} vor Ausführung der Suche
+	 */
+	private void dauerErfassen( String art, int maxEditDistance, int anzahlTreffer, long queryNanos, long startNanos ) {
+
+	    final long gesamtNanos = System.nanoTime() - startNanos;
+	    final long luceneNanos = Math.min( queryNanos, gesamtNanos );
+
+	    final SuchTimer timer =
+	            _suchTimer.computeIfAbsent( new TimerSchluessel( art, maxEditDistance, trefferKlasse( anzahlTreffer ) ),
+	                                        this::suchTimerRegistrieren );
+
+	    timer.lucene().record( luceneNanos, NANOSECONDS );
+	    timer.laden().record( gesamtNanos - luceneNanos, NANOSECONDS );
+	}
+
+
+	/**
+	 * Timer {@code zitate.suche.lucene} und {@code zitate.suche.laden} für eine
+	 * Kombination der Tags erzeugen und registrieren; wird nur beim ersten Auftreten
+	 * der Kombination aufgerufen.
+	 *
+	 * @param schluessel Werte der Tags
+	 *
+	 * @return Beide Timer
+	 */
+	private SuchTimer suchTimerRegistrieren( TimerSchluessel schluessel ) {
+
+	    final String fuzziness = String.valueOf( schluessel.maxEditDistance() );
+
+	    final Timer lucene = Timer.builder( SUCHE_LUCENE )
+	                              .description( "Dauer der Query im Lucene-Backend" )
+	                              .tags( TAG_ART, schluessel.art(), TAG_FUZZINESS, fuzziness,
+	                                     TAG_TREFFER, schluessel.trefferKlasse() )
+	                              .register( _meterRegistry );
+
+	    final Timer laden = Timer.builder( SUCHE_LADEN )
+	                             .description( "Dauer für Laden der Entitäten bzw. Erzeugen der Projektionen" )
+	                             .tags( TAG_ART, schluessel.art(), TAG_FUZZINESS, fuzziness,
+	                                    TAG_TREFFER, schluessel.trefferKlasse() )
+	                             .register( _meterRegistry );
+
+	    return new SuchTimer( lucene, laden );
+	}
+
+
+	/**
+	 * Ergänzt Treffer, für die die Projektion keinen Text geliefert hat, aus der Datenbank.
+	 * Das passiert, wenn der Index vor der Einführung der gespeicherten Felder aufgebaut und
+	 * seitdem nicht neu aufgebaut wurde; Hibernate Search prüft das beim Start nicht. Treffer,
+	 * deren Zitat inzwischen gelöscht wurde, werden weggelassen.
+	 * <br><br>
+	 * 
+	 * Bei einem aktuellen Index wird nur die Liste durchlaufen, es gibt keinen Datenbankzugriff.
+	 *
+	 * @param trefferListe Treffer aus der Projektion
+	 *
+	 * @return {@code trefferListe} unverändert, wenn alle Treffer einen Text haben; sonst
+	 *         neue Liste mit den Werten aus der Datenbank für die Treffer ohne Text
+	 */
+	private List<ZitatTreffer> fehlendeFelderNachladen( List<ZitatTreffer> trefferListe ) {
+
+	    if ( trefferListe.stream().allMatch( treffer -> treffer.zitat() != null ) ) {
+
+	        return trefferListe;
+	    }
+	    veraltetenIndexMelden();
+
+	    final List<ZitatTreffer> ergebnis = new ArrayList<>( trefferListe.size() );
+	    for ( ZitatTreffer treffer : trefferListe ) {
+
+	        if ( treffer.zitat() != null ) {
+
+	            ergebnis.add( treffer );
+
+	        } else {
+
+	            final ZitatEntity zitat = _entityManager.find( ZitatEntity.class, treffer.id() );
+	            if ( zitat != null ) {
+
+	                ergebnis.add( new ZitatTreffer( zitat.getId(), zitat.getZitat(), zitat.getAutor() ) );
+	            }
+	        }
+	    }
+	    return ergebnis;
+	}
+
+
+	/**
+	 * Wie {@link #fehlendeFelderNachladen(List)}, aber für Vorschläge.
+	 *
+	 * @param vorschlaege Vorschläge aus der Projektion
+	 *
+	 * @param maxTextLaenge Nachgeladene Zitate werden auf diese Länge gekürzt
+	 *
+	 * @return {@code vorschlaege} unverändert, wenn alle Vorschläge einen Text haben
+	 */
+	private List<ZitatVorschlag> fehlendeTexteNachladen( List<ZitatVorschlag> vorschlaege, int maxTextLaenge ) {
+
+	    if ( vorschlaege.stream().allMatch( vorschlag -> vorschlag.text() != null ) ) {
+
+	        return vorschlaege;
+	    }
+	    veraltetenIndexMelden();
+
+	    final List<ZitatVorschlag> ergebnis = new ArrayList<>( vorschlaege.size() );
+	    for ( ZitatVorschlag vorschlag : vorschlaege ) {
+
+	        if ( vorschlag.text() != null ) {
+
+	            ergebnis.add( vorschlag );
+
+	        } else {
+
+	            final ZitatEntity zitat = _entityManager.find( ZitatEntity.class, vorschlag.id() );
+	            if ( zitat != null ) {
+
+	                ergebnis.add( new ZitatVorschlag( zitat.getId(), kuerzen( zitat.getZitat(), maxTextLaenge ) ) );
+	            }
+	        }
+	    }
+	    return ergebnis;
+	}
+
+
+	/**
+	 * Einmalige Warnung, dass der Index neu aufgebaut werden sollte.
+	 */
+	private void veraltetenIndexMelden() {
+
+	    if ( _veralteterIndexGemeldet.compareAndSet( false, true ) ) {
+
+	        LOG.warn( "Index enthält keine gespeicherten Felder für Projektionen, Treffer werden aus der " +
+	                  "Datenbank nachgeladen; Index bitte neu aufbauen (POST /api/v1/admin/reindex)." );
+	    }
+	}
+
+
+	/**
+	 * Kürzt {@code text} auf {@code maxLaenge} Zeichen, wobei das letzte Zeichen durch
+	 * "…" ersetzt wird.
+	 *
+	 * @param text Zu kürzender Text
+	 *
+	 * @param maxLaenge Maximale Länge des Ergebnisses
+	 *
+	 * @return {@code text} unverändert, wenn er nicht länger als {@code maxLaenge} ist
+	 */
+	private static String kuerzen( String text, int maxLaenge ) {
+
+	    if ( text == null || text.length() <= maxLaenge ) {
+
+	        return text;
+	    }
+
+	    return text.substring( 0, maxLaenge - 1 ) + "…";
+	}
+
+
+	/**
+	 * Erzeugt das Prädikat für die Suche nach {@code suchbegriff} im Feld {@code zitat};
+	 * bei {@code maxEditDistance=0} ohne Fuzzy-Query. Ist ein Autor angegeben, dann wird
+	 * zusätzlich nach diesem gefiltert; der Filter geht nicht in die Relevanz ein.
+	 *
+	 * @param f Factory für Prädikate
+	 *
+	 * @param suchbegriff Suchbegriff
+	 *
+	 * @param maxEditDistance Unschärfe für Fuzzy-Suche (0 bis 2)
+	 *
+	 * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+	 *
+	 * @param autor Autor für Filter, oder {@code null}
+	 *
+	 * @return Prädikat für Query
+	 */
+	private static PredicateFinalStep suchPraedikat( SearchPredicateFactory f, String suchbegriff,
+	                                                 int maxEditDistance, int praefixLaenge, String autor ) {
+
+	    final PredicateFinalStep textPraedikat = maxEditDistance == 0
+	            ? f.match()
+	               .fields( "zitat" )
+	               .matching( suchbegriff )
+	            : f.match()
+	               .fields( "zitat" )
+	               .matching( suchbegriff )
+	               .fuzzy( maxEditDistance, praefixLaenge );
+
+	    if ( autor == null ) {
+
+	        return textPraedikat;
+	    }
+
+	    return f.bool()
+	            .must( textPraedikat )
+	            .filter( autorPraedikat( f, autor ) );
+	}
+
+
+	/**
+	 * Erzeugt das Prädikat für die Suche nach einem Autor: eine Term-Query auf das
+	 * normalisierte Keyword-Feld {@code autor_suche}, es wird also nur ein Eintrag im
+	 * Term-Wörterbuch nachgeschlagen.
+	 *
+	 * @param f Factory für Prädikate
+	 *
+	 * @param autor Name des Autors
+	 *
+	 * @return Prädikat für Query
+	 */
+	private static PredicateFinalStep autorPraedikat( SearchPredicateFactory f, String autor ) {
+
+	    return f.match()
+	            .field( "autor_suche" )
+	            .matching( autor );
+	}
 	
 }
@@ -0,0 +1,103 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import static jakarta.persistence.GenerationType.IDENTITY;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+
+/**
+ * Eintrag in der Tabelle {@code Index_Aenderungen} (<i>Outbox</i>) für den Cluster-Modus:
+ * pro geändertem Zitat und Transaktion eine Zeile mit der ID des Zitats, dem Knoten, der
+ * die Änderung geschrieben hat, und dem Zeitpunkt des Commits. Die anderen Knoten lesen
+ * die Tabelle regelmäßig und übernehmen die Änderungen in ihren lokalen Lucene-Index,
+ * siehe {@code IndexSynchronisierer}.
+ * <br><br>
+ *
+ * Die Zeilen werden nicht über JPA, sondern vom {@link IndexAenderungenProtokollierer}
+ * direkt per JDBC in derselben Transaktion wie die Änderung am Zitat eingefügt. Die ID
+ * wird von der Datenbank vergeben ({@code IDENTITY}), damit sie über alle Knoten hinweg
+ * in der Reihenfolge des Einfügens steigt; bei einer Sequenz mit {@code allocationSize}
+ * würde jeder Knoten einen eigenen Block von IDs verwenden.
+ */
+@Entity
+@Table( name = "Index_Aenderungen" )
+public class IndexAenderungEntity {
+
+    /** Laufende Nummer der Änderung, Position für die lesenden Knoten. */
+    @Id
+    @GeneratedValue( strategy = IDENTITY )
+    private Long id;
+
+    /** ID des geänderten (eingefügten, geänderten oder gelöschten) Zitats. */
+    @Column( name = "zitat_id", nullable = false )
+    private Long zitatId;
+
+    /** Kennung des Knotens, der die Änderung geschrieben hat. */
+    @Column( name = "knoten", length = 64, nullable = false )
+    private String knoten;
+
+    /**
+     * Zeitpunkt, zu dem die Transaktion mit der Änderung committet wurde, laut Uhr des
+     * schreibenden Knotens; nur für die Metrik der Verzögerung, nicht für die Auswahl
+     * der zu übernehmenden Änderungen, weil die Uhren der Knoten abweichen können.
+     */
+    @Column( name = "zeitpunkt", nullable = false )
+    private Instant zeitpunkt;
+
+
+    /**
+     * Default-Konstruktor, wird von JPA benötigt.
+     */
+    public IndexAenderungEntity() {}
+
+
+    /**
+     * Getter für laufende Nummer der Änderung.
+     *
+     * @return ID/Primärschlüssel
+     */
+    public Long getId() {
+
+        return id;
+    }
+
+
+    /**
+     * Getter für ID des geänderten Zitats.
+     *
+     * @return ID des Zitats
+     */
+    public Long getZitatId() {
+
+        return zitatId;
+    }
+
+
+    /**
+     * Getter für Kennung des Knotens, der die Änderung geschrieben hat.
+     *
+     * @return Kennung des Knotens
+     */
+    public String getKnoten() {
+
+        return knoten;
+    }
+
+
+    /**
+     * Getter für Zeitpunkt der Änderung.
+     *
+     * @return Zeitpunkt des Commits
+     */
+    public Instant getZeitpunkt() {
+
+        return zeitpunkt;
+    }
+
+}
@@ -0,0 +1,235 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Protokolliert im Cluster-Modus ({@code zitate.cluster.aktiv=true}) jede Änderung an
+ * einer {@link ZitatEntity} in der Tabelle {@code Index_Aenderungen} (siehe
+ * {@link IndexAenderungEntity}), damit die anderen Knoten sie in ihren lokalen
+ * Lucene-Index übernehmen können.
+ * <br><br>
+ *
+ * Die Bean meldet sich hierfür als Listener für die Hibernate-Ereignisse nach dem
+ * Einfügen, Ändern und Löschen an. Die IDs der Zitate werden pro Session gesammelt und
+ * kurz vor dem Commit mit einem JDBC-Batch in derselben Transaktion eingefügt; eine
+ * Änderung wird also genau dann protokolliert, wenn sie auch committet wird. Ein JPA-
+ * Entity-Listener wie der {@link ZitatEntityListener} darf dagegen laut Spezifikation
+ * keine weiteren Datenbankzugriffe machen.
+ * <br><br>
+ *
+ * Bulk-Statements mit JPQL ({@code UPDATE}/{@code DELETE}) auf {@link ZitatEntity} lösen
+ * keine Ereignisse aus und werden deshalb nicht protokolliert.
+ */
+@Component
+public class IndexAenderungenProtokollierer implements PostInsertEventListener,
+                                                       PostUpdateEventListener,
+                                                       PostDeleteEventListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger( IndexAenderungenProtokollierer.class );
+
+    /** SQL zum Einfügen einer Änderung; die ID vergibt die Datenbank. */
+    private static final String INSERT_SQL =
+            "INSERT INTO Index_Aenderungen ( zitat_id, knoten, zeitpunkt ) VALUES ( ?, ?, ? )";
+
+    /** Ist der Cluster-Modus eingeschaltet? */
+    private final boolean _aktiv;
+
+    /** Kennung dieses Knotens. */
+    private final String _knoten;
+
+    /** Gesammelte Änderungen pro Session, bis zum Ende ihrer Transaktion. */
+    private final Map<SharedSessionContractImplementor, Vormerkung> _vormerkungen = new ConcurrentHashMap<>();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>; meldet die Bean im Cluster-Modus als
+     * Listener bei Hibernate an.
+     */
+    @Autowired
+    public IndexAenderungenProtokollierer( EntityManagerFactory entityManagerFactory,
+                                           @Value( "${zitate.cluster.aktiv:false}" ) boolean aktiv,
+                                           @Value( "${zitate.cluster.knoten:}"     ) String  knoten ) {
+
+        _aktiv  = aktiv;
+        _knoten = knoten.isBlank() ? UUID.randomUUID().toString() : knoten.strip();
+
+        if ( !aktiv ) {
+
+            return;
+        }
+
+        final EventListenerRegistry registry = entityManagerFactory.unwrap( SessionFactoryImplementor.class )
+                                                                   .getServiceRegistry()
+                                                                   .requireService( EventListenerRegistry.class );
+        registry.appendListeners( EventType.POST_INSERT, this );
+        registry.appendListeners( EventType.POST_UPDATE, this );
+        registry.appendListeners( EventType.POST_DELETE, this );
+
+        if ( knoten.isBlank() ) {
+
+            LOG.warn( "Cluster-Modus ohne Property \"zitate.cluster.knoten\", zufällige Kennung {}; " +
+                      "der lokale Index wird bei jedem Start neu aufgebaut.", _knoten );
+        } else {
+
+            LOG.info( "Cluster-Modus: Änderungen an Zitaten werden für Knoten \"{}\" protokolliert.", _knoten );
+        }
+    }
+
+
+    /**
+     * Ist der Cluster-Modus eingeschaltet?
+     *
+     * @return {@code true}, wenn Änderungen protokolliert werden
+     */
+    public boolean isAktiv() {
+
+        return _aktiv;
+    }
+
+
+    /**
+     * Getter für Kennung dieses Knotens.
+     *
+     * @return Kennung aus Property {@code zitate.cluster.knoten}, oder eine zufällige
+     *         Kennung wenn die Property nicht gesetzt ist
+     */
+    public String getKnoten() {
+
+        return _knoten;
+    }
+
+
+    @Override
+    public void onPostInsert( PostInsertEvent event ) {
+
+        vormerken( event.getEntity(), event.getSession() );
+    }
+
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event ) {
+
+        vormerken( event.getEntity(), event.getSession() );
+    }
+
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event ) {
+
+        vormerken( event.getEntity(), event.getSession() );
+    }
+
+
+    /**
+     * Die Änderung muss nicht erst nach dem Commit verarbeitet werden, weil sie in
+     * derselben Transaktion protokolliert wird.
+     *
+     * @param persister Persister der Entität
+     *
+     * @return immer {@code false}
+     */
+    @Override
+    public boolean requiresPostCommitHandling( EntityPersister persister ) {
+
+        return false;
+    }
+
+
+    /**
+     * Merkt die ID eines geänderten Zitats für das Ende der Transaktion vor. Beim ersten
+     * Zitat einer Transaktion wird die {@link Vormerkung} bei der Session registriert.
+     *
+     * @param entitaet Geänderte Entität; andere Entitäten als Zitate werden ignoriert
+     *
+     * @param session Session, in der die Änderung geschrieben wurde
+     */
+    private void vormerken( Object entitaet, EventSource session ) {
+
+        if ( !( entitaet instanceof ZitatEntity zitat ) ) {
+
+            return;
+        }
+
+        Vormerkung vormerkung = _vormerkungen.get( session );
+        if ( vormerkung == null ) {
+
+            vormerkung = new Vormerkung();
+            _vormerkungen.put( session, vormerkung );
+            session.getActionQueue().registerProcess( (BeforeTransactionCompletionProcess) vormerkung );
+            session.getActionQueue().registerProcess( (AfterTransactionCompletionProcess) vormerkung );
+        }
+        vormerkung.zitatIds.add( zitat.getId() );
+    }
+
+
+    /**
+     * IDs der in einer Transaktion geänderten Zitate; wird vor dem Commit in die Tabelle
+     * geschrieben und nach dem Ende der Transaktion (auch bei Rollback) verworfen.
+     */
+    private final class Vormerkung implements BeforeTransactionCompletionProcess,
+                                              AfterTransactionCompletionProcess {
+
+        /** IDs der geänderten Zitate, jede ID nur einmal. */
+        final Set<Long> zitatIds = new LinkedHashSet<>();
+
+        @Override
+        public void doBeforeTransactionCompletion( SessionImplementor session ) {
+
+            final OffsetDateTime zeitpunkt = OffsetDateTime.ofInstant( Instant.now(), ZoneOffset.UTC );
+
+            session.doWork( connection -> {
+
+                try ( PreparedStatement insert = connection.prepareStatement( INSERT_SQL ) ) {
+
+                    for ( Long zitatId : zitatIds ) {
+
+                        insert.setLong( 1, zitatId );
+                        insert.setString( 2, _knoten );
+                        insert.setObject( 3, zeitpunkt );
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+        }
+
+        @Override
+        public void doAfterTransactionCompletion( boolean erfolgreich, SharedSessionContractImplementor session ) {
+
+            _vormerkungen.remove( session );
+        }
+    }
+
+}
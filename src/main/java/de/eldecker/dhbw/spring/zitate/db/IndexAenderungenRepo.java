@@ -0,0 +1,61 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+/**
+ * Repository für Tabelle mit Änderungen an Zitaten für den Cluster-Modus (Outbox).
+ */
+public interface IndexAenderungenRepo extends JpaRepository<IndexAenderungEntity, Long> {
+
+    /**
+     * Liefert die nächsten Änderungen nach {@code nachId}, aufsteigend nach ID (Query wird
+     * von Spring Data aus dem Methodennamen abgeleitet).
+     *
+     * @param nachId ID der letzten schon übernommenen Änderung
+     *
+     * @param limit Max. Anzahl Änderungen
+     *
+     * @return Liste der Änderungen, kann leer sein
+     */
+    List<IndexAenderungEntity> findByIdGreaterThanOrderByIdAsc( Long nachId, Limit limit );
+
+
+    /**
+     * Anzahl Änderungen nach {@code nachId}, also noch nicht übernommene Änderungen.
+     *
+     * @param nachId ID der letzten schon übernommenen Änderung
+     *
+     * @return Anzahl Änderungen
+     */
+    long countByIdGreaterThan( Long nachId );
+
+
+    /**
+     * Größte vergebene ID.
+     *
+     * @return ID der neuesten Änderung, oder 0 wenn die Tabelle leer ist
+     */
+    @Query( "SELECT COALESCE( MAX( a.id ), 0 ) FROM IndexAenderungEntity a" )
+    long findMaxId();
+
+
+    /**
+     * Löscht alle Änderungen bis einschließlich {@code bisId} mit einem einzigen
+     * DELETE-Statement; muss in einer Transaktion aufgerufen werden.
+     *
+     * @param bisId Größte zu löschende ID
+     *
+     * @return Anzahl gelöschter Änderungen
+     */
+    @Modifying
+    @Query( "DELETE FROM IndexAenderungEntity a WHERE a.id <= :bisId" )
+    int loescheBis( @Param( "bisId" ) long bisId );
+
+}
@@ -0,0 +1,90 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+
+/**
+ * Eintrag in der Tabelle {@code Index_Knoten} für den Cluster-Modus: für jeden Knoten
+ * die ID der letzten {@link IndexAenderungEntity}, die in seinen lokalen Lucene-Index
+ * übernommen wurde. Damit kann ein Knoten nach einem Neustart an dieser Stelle
+ * weitermachen, und Änderungen, die alle Knoten übernommen haben, können gelöscht werden.
+ */
+@Entity
+@Table( name = "Index_Knoten" )
+public class IndexKnotenEntity {
+
+    /** Kennung des Knotens (Property {@code zitate.cluster.knoten}). */
+    @Id
+    @Column( name = "knoten", length = 64 )
+    private String knoten;
+
+    /** ID der letzten übernommenen Änderung. */
+    @Column( name = "letzte_aenderung", nullable = false )
+    private Long letzteAenderung;
+
+    /** Zeitpunkt, zu dem der Knoten zuletzt Änderungen abgefragt hat. */
+    @Column( name = "aktualisiert", nullable = false )
+    private Instant aktualisiert;
+
+
+    /**
+     * Default-Konstruktor, wird von JPA benötigt.
+     */
+    public IndexKnotenEntity() {}
+
+
+    /**
+     * Konstruktor für neuen oder aktualisierten Eintrag.
+     *
+     * @param knoten Kennung des Knotens
+     *
+     * @param letzteAenderung ID der letzten übernommenen Änderung
+     *
+     * @param aktualisiert Zeitpunkt der Abfrage
+     */
+    public IndexKnotenEntity( String knoten, Long letzteAenderung, Instant aktualisiert ) {
+
+        this.knoten          = knoten;
+        this.letzteAenderung = letzteAenderung;
+        this.aktualisiert    = aktualisiert;
+    }
+
+
+    /**
+     * Getter für Kennung des Knotens.
+     *
+     * @return Kennung des Knotens
+     */
+    public String getKnoten() {
+
+        return knoten;
+    }
+
+
+    /**
+     * Getter für ID der letzten übernommenen Änderung.
+     *
+     * @return ID aus Tabelle {@code Index_Aenderungen}
+     */
+    public Long getLetzteAenderung() {
+
+        return letzteAenderung;
+    }
+
+
+    /**
+     * Getter für Zeitpunkt der letzten Abfrage.
+     *
+     * @return Zeitpunkt
+     */
+    public Instant getAktualisiert() {
+
+        return aktualisiert;
+    }
+
+}
@@ -0,0 +1,26 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+/**
+ * Repository für Tabelle mit der Position jedes Knotens im Cluster-Modus.
+ */
+public interface IndexKnotenRepo extends JpaRepository<IndexKnotenEntity, String> {
+
+    /**
+     * Kleinste Position der Knoten, die seit {@code seit} noch Änderungen abgefragt
+     * haben; bis zu dieser ID haben alle aktiven Knoten die Änderungen übernommen.
+     *
+     * @param seit Knoten, die länger nicht mehr abgefragt haben, gelten als ausgefallen
+     *
+     * @return Kleinste ID, oder {@code null} wenn es keinen aktiven Knoten gibt
+     */
+    @Query( "SELECT MIN( k.letzteAenderung ) FROM IndexKnotenEntity k WHERE k.aktualisiert >= :seit" )
+    Long findMinLetzteAenderungSeit( @Param( "seit" ) Instant seit );
+
+}
@@ -0,0 +1,70 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.ngram.EdgeNGramFilterFactory;
+import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+
+/**
+ * Definiert eigene Lucene-Analyzer, die in {@link ZitatEntity} verwendet werden.
+ * Die Klasse wird in {@code application.properties} mit der Property
+ * {@code hibernate.search.backend.analysis.configurer} registriert.
+ * <br><br>
+ *
+ * Für die Vorschläge bei der Eingabe des Suchbegriffs ("Search as you type") wird
+ * jedes Wort beim Indizieren in seine Präfixe ab Länge 2 zerlegt (<i>Edge N-Grams</i>),
+ * z.B. "Liebe" in "li", "lie", "lieb", "liebe". Eine Präfix-Suche ist dann eine
+ * einfache Term-Query, die Lucene ohne Durchlaufen des Term-Wörterbuchs beantworten kann.
+ * <br><br>
+ *
+ * Außerdem wird ein Normalizer für den Autor definiert, damit beim Filtern nach Autor
+ * Groß-/Kleinschreibung und Akzente keine Rolle spielen ("goethe" findet "Goethe").
+ */
+public class ZitatAnalyseKonfigurator implements LuceneAnalysisConfigurer {
+
+    /** Name des Analyzers für das Indizieren des Vorschlags-Felds (mit Edge N-Grams). */
+    public static final String ANALYZER_VORSCHLAG_INDEX = "vorschlag_index";
+
+    /** Name des Analyzers für den eingegebenen Präfix (ohne Edge N-Grams). */
+    public static final String ANALYZER_VORSCHLAG_SUCHE = "vorschlag_suche";
+
+    /** Name des Normalizers für die Suche nach Autor (ganzer Name als ein Term). */
+    public static final String NORMALIZER_AUTOR = "autor_normalisiert";
+
+    /** Kürzere Wortanfänge (also einzelne Buchstaben) werden nicht indiziert. */
+    public static final int MIN_LAENGE_PRAEFIX = 2;
+
+    /** Längere Wortanfänge werden nicht indiziert. */
+    public static final int MAX_LAENGE_PRAEFIX = 15;
+
+
+    /**
+     * Analyzer und Normalizer definieren.
+     *
+     * @param context Kontext-Objekt für Definition der Analyzer und Normalizer
+     */
+    @Override
+    public void configure( LuceneAnalysisConfigurationContext context ) {
+
+        context.analyzer( ANALYZER_VORSCHLAG_INDEX ).custom()
+               .tokenizer( StandardTokenizerFactory.NAME )
+               .tokenFilter( LowerCaseFilterFactory.NAME )
+               .tokenFilter( ASCIIFoldingFilterFactory.NAME )
+               .tokenFilter( EdgeNGramFilterFactory.NAME )
+                   .param( "minGramSize", String.valueOf( MIN_LAENGE_PRAEFIX ) )
+                   .param( "maxGramSize", String.valueOf( MAX_LAENGE_PRAEFIX ) );
+
+        context.analyzer( ANALYZER_VORSCHLAG_SUCHE ).custom()
+               .tokenizer( StandardTokenizerFactory.NAME )
+               .tokenFilter( LowerCaseFilterFactory.NAME )
+               .tokenFilter( ASCIIFoldingFilterFactory.NAME );
+
+        context.normalizer( NORMALIZER_AUTOR ).custom()
+               .tokenFilter( LowerCaseFilterFactory.NAME )
+               .tokenFilter( ASCIIFoldingFilterFactory.NAME );
+    }
+
+}
@@ -0,0 +1,91 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.cache.CacheManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.jcache.CacheManagerImpl;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import jakarta.annotation.PreDestroy;
+
+
+/**
+ * Eigener JCache-{@link CacheManager} (Caffeine) für den Second-Level-Cache von Hibernate
+ * in diesem Spring-Kontext.
+ * <br><br>
+ *
+ * Holt sich Hibernate den {@code CacheManager} selbst über den {@code CachingProvider},
+ * dann bekommen alle {@code EntityManagerFactory}-Instanzen in einer JVM mit derselben
+ * Konfigurationsdatei denselben {@code CacheManager} und damit dieselbe Region
+ * {@code "zitate"} -- z.B. mehrere Spring-Kontexte in den Tests oder zwei Knoten im
+ * Cluster-Test, die dann Zitate mit derselben ID aus einer anderen Datenbank lesen bzw.
+ * deren Einträge aus dem Cache entfernen. Diese Bean erzeugt deshalb einen eigenen
+ * {@code CacheManager} mit der Konfiguration aus der Datei in Property
+ * {@code hibernate.javax.cache.uri} und übergibt ihn Hibernate mit Property
+ * {@code hibernate.javax.cache.cache_manager}; beim Herunterfahren wird er geschlossen.
+ */
+@Component
+public class ZitatCacheKonfigurator implements HibernatePropertiesCustomizer {
+
+    private static final Logger LOG = LoggerFactory.getLogger( ZitatCacheKonfigurator.class );
+
+    /** Property mit Pfad der Konfigurationsdatei im Klassenpfad. */
+    private static final String PROPERTY_URI = "hibernate.javax.cache.uri";
+
+    /** Property für den {@code CacheManager}, den Hibernate verwenden soll. */
+    private static final String PROPERTY_CACHE_MANAGER = "hibernate.javax.cache.cache_manager";
+
+    /** Eigener CacheManager, wird beim ersten Aufruf von {@link #customize(Map)} erzeugt. */
+    private CacheManager _cacheManager = null;
+
+
+    /**
+     * Eigenen {@code CacheManager} erzeugen und in die Properties für Hibernate eintragen,
+     * wenn eine Konfigurationsdatei für JCache angegeben ist.
+     *
+     * @param hibernateProperties Properties für Hibernate
+     */
+    @Override
+    public synchronized void customize( Map<String, Object> hibernateProperties ) {
+
+        final Object konfiguration = hibernateProperties.get( PROPERTY_URI );
+        if ( konfiguration == null ) {
+
+            return;
+        }
+
+        if ( _cacheManager == null ) {
+
+            final CaffeineCachingProvider provider = new CaffeineCachingProvider();
+
+            _cacheManager = new CacheManagerImpl( provider, false, URI.create( konfiguration.toString() ),
+                                                  getClass().getClassLoader(), new Properties() );
+
+            LOG.info( "Eigener CacheManager für Second-Level-Cache mit Konfiguration \"{}\" erzeugt.", konfiguration );
+        }
+
+        hibernateProperties.put( PROPERTY_CACHE_MANAGER, _cacheManager );
+    }
+
+
+    /**
+     * {@code CacheManager} beim Herunterfahren schließen.
+     */
+    @PreDestroy
+    public synchronized void schliessen() {
+
+        if ( _cacheManager != null ) {
+
+            _cacheManager.close();
+        }
+    }
+
+}
@@ -2,16 +2,34 @@ package de.eldecker.dhbw.spring.zitate.db;
 
 import static jakarta.persistence.GenerationType.AUTO;
 import static java.lang.String.format;
-
+import static org.hibernate.search.engine.backend.types.Projectable.YES;
+import static de.eldecker.dhbw.spring.zitate.db.ZitatAnalyseKonfigurator.ANALYZER_VORSCHLAG_INDEX;
+import static de.eldecker.dhbw.spring.zitate.db.ZitatAnalyseKonfigurator.ANALYZER_VORSCHLAG_SUCHE;
+import static de.eldecker.dhbw.spring.zitate.db.ZitatAnalyseKonfigurator.NORMALIZER_AUTOR;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Objects;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.search.engine.backend.types.Aggregable;
+import org.hibernate.search.engine.backend.types.Sortable;
+import org.hibernate.search.mapper.pojo.bridge.mapping.annotation.RoutingBinderRef;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.KeywordField;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 
@@ -24,17 +42,46 @@ import jakarta.persistence.Transient;
  * 
  * Lucene wird seinen Index für diese Tabelle im Unterordner
  * {@code ZitatEntity/} des Maven-Projekts ablegen. 
+ * <br><br>
+ * 
+ * Änderungen werden über den {@link ZitatEntityListener} an den
+ * {@link ZitateAenderungsZaehler} gemeldet.
+ * <br><br>
+ * 
+ * Die Entität liegt im Second-Level-Cache von Hibernate (Region {@code zitate}, siehe
+ * {@code zitate-cache.conf}), weil Zitate ständig gelesen und fast nie geändert werden;
+ * {@code READ_WRITE} sorgt dafür, dass nach einer Änderung kein veralteter Stand aus
+ * dem Cache gelesen wird.
+ * <br><br>
+ * 
+ * Für den inkrementellen Import wird zu jedem Zitat ein Inhalts-Hash (SHA-256 über
+ * Text und Autor) in einer indizierten Spalte gespeichert, damit mit wenigen Queries
+ * festgestellt werden kann, welche Zitate einer Datei schon in der Datenbank sind.
+ * <br><br>
+ * 
+ * Der Lucene-Index kann auf mehrere Shards aufgeteilt werden (siehe
+ * {@link ZitatShardKonfigurator}); der Shard wird vom {@link ZitatShardRoutingBinder}
+ * aus der ID berechnet.
  */
 @Entity
-@Table( name = "Zitate" )
-@Indexed
+@Table( name = "Zitate", indexes = @Index( name = "ix_zitate_inhalts_hash", columnList = "inhalts_hash" ) )
+@Cacheable
+@Cache( usage = CacheConcurrencyStrategy.READ_WRITE, region = "zitate" )
+@Indexed( routingBinder = @RoutingBinderRef( type = ZitatShardRoutingBinder.class ) )
+@EntityListeners( ZitatEntityListener.class )
 public class ZitatEntity {
 
     /**
      * Primärschlüssel der Zitat-Entität.
+     * <br><br>
+     * 
+     * Wird zusätzlich als sortierbares Feld {@code id_sortierung} indiziert, damit
+     * beim seitenweisen Blättern nach der ID sortiert und gefiltert werden kann
+     * (siehe {@link FuzzySuche#sucheSeite(String, int, int, int, Long, Long, long, boolean, String)}).
      */
     @Id
     @GeneratedValue( strategy = AUTO )
+    @GenericField( name = "id_sortierung", sortable = Sortable.YES )
     private Long id;
 
 	/**
@@ -48,11 +95,53 @@ public class ZitatEntity {
 	 * "HSEARCH000610: Unknown field 'zitat'. Context: 
 	 * indexes [ZitatEntity]"
 	 * </pre>
+	 * 
+	 * Der Text wird zusätzlich im Index gespeichert ({@code projectable}), damit
+	 * Suchtreffer als {@link ZitatTreffer} ohne Datenbankzugriff erzeugt werden
+	 * können. Ein Index, der vor dieser Änderung aufgebaut wurde, muss dafür
+	 * einmal neu aufgebaut werden ({@code POST /api/v1/admin/reindex}); bis dahin
+	 * lädt {@link FuzzySuche} die Treffer ohne Text aus der Datenbank nach.
+	 * <br><br>
+	 * 
+	 * Das zweite Feld {@code zitat_vorschlag} enthält die Präfixe aller Wörter
+	 * (siehe {@link ZitatAnalyseKonfigurator}) und wird für die Vorschläge bei der
+	 * Eingabe des Suchbegriffs verwendet.
 	 */
-    @FullTextField
+    @FullTextField( projectable = YES )
+    @FullTextField( name = "zitat_vorschlag",
+                    analyzer = ANALYZER_VORSCHLAG_INDEX, searchAnalyzer = ANALYZER_VORSCHLAG_SUCHE )
     @Column(name = "zitat", length = 9999)
     private String zitat;
 
+    /**
+     * Autor des Zitats, wird beim Import aus der Zeile {@code -- Autor} am Ende des
+     * Zitats gewonnen; {@code null}, wenn kein Autor angegeben ist.
+     * <br><br>
+     *
+     * Der Autor wird nicht als Volltext, sondern als ein einziger Term (Keyword)
+     * indiziert: im Feld {@code autor} unverändert für die Zählung der Zitate pro Autor
+     * (Aggregation) und für Projektionen, im Feld {@code autor_suche} normalisiert für
+     * das Filtern nach Autor. Eine Suche nach Autor ist damit ein einfacher Term-Lookup.
+     */
+    @KeywordField( aggregable = Aggregable.YES, projectable = YES )
+    @KeywordField( name = "autor_suche", normalizer = NORMALIZER_AUTOR )
+    @Column( name = "autor", length = 255 )
+    private String autor;
+
+    /**
+     * SHA-256-Hash über {@code zitat} und {@code autor} als Hex-String (64 Zeichen),
+     * siehe {@link #berechneInhaltsHash(String, String)}. Wird von Konstruktoren und
+     * Settern aktualisiert; zwei Zitate, die nach {@link #equals(Object)} gleich sind,
+     * haben also denselben Hash.
+     * <br><br>
+     * 
+     * Kann bei Zitaten, die vor Einführung der Spalte geschrieben wurden, {@code null}
+     * sein; der Wert wird dann beim nächsten inkrementellen Import nachgetragen.
+     * Die Spalte wird nicht von Lucene indiziert.
+     */
+    @Column( name = "inhalts_hash", length = 64 )
+    private String inhaltsHash;
+
     
     /**
      * Default-Konstruktor, wird von JPA benötigt.
@@ -60,6 +149,7 @@ public class ZitatEntity {
     public ZitatEntity() {
 
     	this.zitat = "";
+    	this.inhaltsHash = berechneInhaltsHash( zitat, autor );
     }
     
     
@@ -72,6 +162,23 @@ public class ZitatEntity {
     public ZitatEntity( String zitat ) {
     	
     	this.zitat = zitat;
+    	this.inhaltsHash = berechneInhaltsHash( zitat, autor );
+    }
+
+
+    /**
+     * Konstruktor um bei Objekterzeugung gleich Text und Autor des Zitats
+     * zu übergeben.
+     * 
+     * @param zitat Text des Zitats (ohne Autor)
+     * 
+     * @param autor Autor des Zitats, oder {@code null}
+     */
+    public ZitatEntity( String zitat, String autor ) {
+    	
+    	this.zitat = zitat;
+    	this.autor = autor;
+    	this.inhaltsHash = berechneInhaltsHash( zitat, autor );
     }
 
 
@@ -107,18 +214,105 @@ public class ZitatEntity {
 	public void setZitat( String zitat ) {
 
 		this.zitat = zitat;
+		this.inhaltsHash = berechneInhaltsHash( zitat, autor );
+	}
+
+
+	/**
+	 * Getter für Autor des Zitats.
+	 *
+	 * @return Autor, oder {@code null} wenn unbekannt
+	 */
+	public String getAutor() {
+
+		return autor;
+	}
+
+
+	/**
+	 * Setter für Autor des Zitats.
+	 *
+	 * @param autor Autor, oder {@code null} wenn unbekannt
+	 */
+	public void setAutor( String autor ) {
+
+		this.autor = autor;
+		this.inhaltsHash = berechneInhaltsHash( zitat, autor );
+	}
+
+
+	/**
+	 * Getter für Inhalts-Hash des Zitats. Es gibt keinen Setter, weil der Hash
+	 * immer aus Text und Autor berechnet wird.
+	 *
+	 * @return SHA-256-Hash als Hex-String, oder {@code null} bei alten Zitaten,
+	 *         für die der Hash noch nicht nachgetragen wurde
+	 */
+	public String getInhaltsHash() {
+
+		return inhaltsHash;
+	}
+
+
+	/**
+	 * Berechnet den Hash für ein noch nicht nachgetragenes Zitat neu, siehe
+	 * {@link #getInhaltsHash()}.
+	 */
+	public void inhaltsHashNachtragen() {
+
+		this.inhaltsHash = berechneInhaltsHash( zitat, autor );
+	}
+
+
+	/**
+	 * Berechnet den Inhalts-Hash für Text und Autor eines Zitats. Vor dem Text wird
+	 * seine Länge in Bytes eingerechnet und ein Autor wird mit einem Marker-Byte
+	 * angehängt, damit sich verschiedene Kombinationen (z.B. Autor {@code null} und
+	 * leerer Autor) nicht durch Verschieben von Zeichen auf denselben Hash abbilden lassen.
+	 *
+	 * @param zitat Text des Zitats
+	 *
+	 * @param autor Autor des Zitats, oder {@code null}
+	 *
+	 * @return SHA-256-Hash als Hex-String mit 64 Zeichen (Kleinbuchstaben)
+	 */
+	public static String berechneInhaltsHash( String zitat, String autor ) {
+
+		final MessageDigest digest;
+		try {
+
+			digest = MessageDigest.getInstance( "SHA-256" );
+		}
+		catch ( NoSuchAlgorithmException ex ) {
+
+			throw new IllegalStateException( "SHA-256 wird von der JVM nicht unterstützt.", ex );
+		}
+
+		final byte[] zitatBytes = zitat == null ? new byte[ 0 ] : zitat.getBytes( StandardCharsets.UTF_8 );
+		final int laenge = zitatBytes.length;
+		digest.update( new byte[] { (byte) ( laenge >>> 24 ), (byte) ( laenge >>> 16 ),
+		                            (byte) ( laenge >>>  8 ), (byte)   laenge } );
+		digest.update( zitatBytes );
+
+		if ( autor != null ) {
+
+			digest.update( (byte) 1 );
+			digest.update( autor.getBytes( StandardCharsets.UTF_8 ) );
+		}
+
+		return HexFormat.of().formatHex( digest.digest() );
 	}
 
 
 	/**
 	 * String-Repräsentation des Objekts.
 	 *
-	 * @return String mit ID und Text des Zitats.
+	 * @return String mit ID, Text und Autor des Zitats.
 	 */
 	@Override
 	public String toString() {
 
-		final String str = format( "Zitat Nr %d: %s", id, zitat );
+		final String str = format( "Zitat Nr %d: %s (%s)", id, zitat, autor );
 
 		return str;
 	}
@@ -134,7 +328,7 @@ public class ZitatEntity {
 	@Override
 	public int hashCode() {
 
-		return Objects.hash( zitat );
+		return Objects.hash( zitat, autor );
 	}
 
 
@@ -145,7 +339,7 @@ public class ZitatEntity {
 	 *
 	 * @return {@code true} gdw. {obj} auch eine Instanz von {@link ZitatEntity}
 	 *         ist und die relevanten Attribute außer ID (weil die von JPA evtl.
-	 *         noch nicht gesetzt) denselben Wert haben (derzeit nur "zitat").
+	 *         noch nicht gesetzt) denselben Wert haben ("zitat" und "autor").
 	 */
     @Override
     public boolean equals( Object obj ) {
@@ -156,7 +350,8 @@ public class ZitatEntity {
         
         if ( obj instanceof ZitatEntity anderesObjekt ) {
 
-        	return Objects.equals( zitat, anderesObjekt.zitat ); 
+        	return Objects.equals( zitat, anderesObjekt.zitat ) &&
+        	       Objects.equals( autor, anderesObjekt.autor ); 
 
         } else {
 
@@ -0,0 +1,73 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+
+/**
+ * JPA-Entity-Listener für {@link ZitatEntity}, der bei jeder Änderung den
+ * {@link ZitateAenderungsZaehler} hochzählt.
+ * <br><br>
+ *
+ * Spring Boot konfiguriert Hibernate so, dass Entity-Listener als Spring-Beans
+ * instanziiert werden, deshalb funktioniert hier <i>Dependency Injection</i>.
+ */
+@Component
+public class ZitatEntityListener {
+
+    /** Bean mit Generationszähler, der bei Änderungen hochgezählt wird. */
+    private final ZitateAenderungsZaehler _aenderungsZaehler;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ZitatEntityListener( ZitateAenderungsZaehler aenderungsZaehler ) {
+
+        _aenderungsZaehler = aenderungsZaehler;
+    }
+
+
+    /**
+     * Wird von JPA nach dem Einfügen, Ändern oder Löschen eines Zitats aufgerufen.
+     * <br><br>
+     *
+     * Der Zähler wird sofort erhöht und (falls eine Transaktion läuft) nach deren
+     * Ende ein zweites Mal, damit ein zwischenzeitlich aus der noch nicht
+     * committeten Transaktion abgeleiteter Zustand wieder als veraltet erkannt wird.
+     * Die Synchronisation wird pro Transaktion nur einmal registriert, auch wenn
+     * darin tausende Zitate geschrieben werden (Import).
+     *
+     * @param zitat Geändertes Zitat, wird nicht ausgewertet
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void zitatGeaendert( ZitatEntity zitat ) {
+
+        _aenderungsZaehler.erhoehen();
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive() &&
+             !TransactionSynchronizationManager.hasResource( this ) ) {
+
+            TransactionSynchronizationManager.bindResource( this, Boolean.TRUE );
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+
+                @Override
+                public void afterCompletion( int status ) {
+
+                    TransactionSynchronizationManager.unbindResourceIfPossible( ZitatEntityListener.this );
+                    _aenderungsZaehler.erhoehen();
+                }
+            });
+        }
+    }
+
+}
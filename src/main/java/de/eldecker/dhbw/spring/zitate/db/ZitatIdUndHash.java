@@ -0,0 +1,14 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+
+/**
+ * ID und Inhalts-Hash eines Zitats, wird beim inkrementellen Import für das Auffinden
+ * nicht mehr in der Datei enthaltener Zitate verwendet, ohne die Entitäten zu laden.
+ *
+ * @param id ID des Zitats
+ *
+ * @param inhaltsHash Inhalts-Hash, siehe {@link ZitatEntity#getInhaltsHash()}
+ */
+public record ZitatIdUndHash( Long   id,
+                              String inhaltsHash ) {
+}
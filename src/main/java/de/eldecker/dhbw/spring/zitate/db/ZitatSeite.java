@@ -0,0 +1,27 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import java.util.List;
+
+
+/**
+ * Eine Seite mit Suchtreffern beim seitenweisen Blättern, siehe
+ * {@link FuzzySuche#sucheSeite(String, int, int, int, Long, Long, long, boolean, String)}.
+ *
+ * @param trefferListe Treffer auf dieser Seite, aufsteigend nach ID sortiert
+ *
+ * @param anzahlTrefferGesamt Gesamtanzahl Treffer über alle Seiten; wenn
+ *                            {@code anzahlExakt} gleich {@code false} ist, dann
+ *                            ist das nur eine Untergrenze
+ *
+ * @param anzahlExakt {@code true} gdw. {@code anzahlTrefferGesamt} exakt ist
+ *
+ * @param gibtNaechsteSeite {@code true} gdw. es nach dieser Seite noch Treffer gibt
+ *
+ * @param gibtVorherigeSeite {@code true} gdw. es vor dieser Seite noch Treffer gibt
+ */
+public record ZitatSeite( List<ZitatTreffer> trefferListe,
+                          long               anzahlTrefferGesamt,
+                          boolean            anzahlExakt,
+                          boolean            gibtNaechsteSeite,
+                          boolean            gibtVorherigeSeite ) {
+}
@@ -0,0 +1,117 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Konfiguration für die Aufteilung (<i>Sharding</i>) des Lucene-Index für {@link ZitatEntity}
+ * auf mehrere Teil-Indizes; die Anzahl wird mit der Property {@code zitate.suche.shards}
+ * festgelegt (Default 1, also kein Sharding).
+ * <br><br>
+ *
+ * Jedes Zitat kommt anhand eines Hash-Werts seiner ID in genau einen Shard (siehe
+ * {@link ZitatShardRoutingBinder}); die Shards heißen {@code "0"} bis {@code "n-1"}. Diese
+ * Bean setzt hierfür beim Erzeugen der {@code EntityManagerFactory} die Properties
+ * {@code hibernate.search.backend.sharding.*} (Strategie {@code explicit}), damit die
+ * Anzahl nur an einer Stelle konfiguriert werden muss. Jeder Shard liegt in einem eigenen
+ * Unterordner von {@code ZitatEntity/} und kann von {@link FuzzySuche} parallel
+ * durchsucht werden.
+ * <br><br>
+ *
+ * Nach Änderung der Anzahl Shards muss der Index einmal neu aufgebaut werden
+ * (Mass Indexer), weil die Dokumente sonst im falschen Shard liegen.
+ */
+@Component
+public class ZitatShardKonfigurator implements HibernatePropertiesCustomizer {
+
+    private static final Logger LOG = LoggerFactory.getLogger( ZitatShardKonfigurator.class );
+
+    /** Anzahl Shards; 1 für einen einzigen Index ohne Sharding. */
+    private final int _anzahlShards;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ZitatShardKonfigurator( @Value( "${zitate.suche.shards:1}" ) int anzahlShards ) {
+
+        _anzahlShards = Math.max( 1, anzahlShards );
+    }
+
+
+    /**
+     * Properties für Sharding im Lucene-Backend setzen, wenn mehr als ein Shard
+     * konfiguriert ist.
+     *
+     * @param hibernateProperties Properties für Hibernate (und Hibernate Search)
+     */
+    @Override
+    public void customize( Map<String, Object> hibernateProperties ) {
+
+        if ( _anzahlShards <= 1 ) {
+
+            return;
+        }
+
+        final String kennungen = IntStream.range( 0, _anzahlShards )
+                                          .mapToObj( ZitatShardKonfigurator::kennung )
+                                          .collect( Collectors.joining( "," ) );
+
+        hibernateProperties.put( "hibernate.search.backend.sharding.strategy", "explicit" );
+        hibernateProperties.put( "hibernate.search.backend.sharding.shard_identifiers", kennungen );
+
+        LOG.info( "Lucene-Index für Zitate wird auf {} Shards aufgeteilt.", _anzahlShards );
+    }
+
+
+    /**
+     * Getter für Anzahl Shards.
+     *
+     * @return Anzahl Shards, mindestens 1
+     */
+    public int getAnzahlShards() {
+
+        return _anzahlShards;
+    }
+
+
+    /**
+     * Kennung des Shards, in dem das Zitat mit der ID {@code id} liegt. Die ID wird
+     * vorher gemischt (Fibonacci-Hashing), damit die Zuordnung nicht mit ID-Bereichen
+     * zusammenhängt.
+     *
+     * @param id ID des Zitats
+     *
+     * @return Kennung des Shards, {@code "0"} bis {@code "n-1"}
+     */
+    public String shardFuerId( long id ) {
+
+        final int hash = Long.hashCode( id * 0x9E3779B97F4A7C15L );
+
+        return kennung( Math.floorMod( hash, _anzahlShards ) );
+    }
+
+
+    /**
+     * Kennung (<i>Routing Key</i>) für einen Shard.
+     *
+     * @param shard Nummer des Shards, 0 bis {@code n-1}
+     *
+     * @return Kennung des Shards
+     */
+    public static String kennung( int shard ) {
+
+        return String.valueOf( shard );
+    }
+
+}
@@ -0,0 +1,86 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import org.hibernate.search.mapper.pojo.bridge.RoutingBridge;
+import org.hibernate.search.mapper.pojo.bridge.binding.RoutingBindingContext;
+import org.hibernate.search.mapper.pojo.bridge.mapping.programmatic.RoutingBinder;
+import org.hibernate.search.mapper.pojo.bridge.runtime.RoutingBridgeRouteContext;
+import org.hibernate.search.mapper.pojo.route.DocumentRoutes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Legt für Hibernate Search fest, in welchen Shard des Lucene-Index ein Zitat geschrieben
+ * wird (siehe {@link ZitatShardKonfigurator}). Wird in {@link ZitatEntity} mit
+ * {@code @Indexed(routingBinder = ...)} registriert; Hibernate Search holt die Klasse als
+ * Spring-Bean, deshalb funktioniert hier <i>Dependency Injection</i>.
+ * <br><br>
+ *
+ * Da die ID eines Zitats sich nie ändert, liegt ein Zitat immer im selben Shard; die
+ * bisherige Route ist deshalb gleich der aktuellen.
+ */
+@Component
+public class ZitatShardRoutingBinder implements RoutingBinder {
+
+    /** Bean mit Anzahl Shards und Zuordnung ID zu Shard. */
+    private final ZitatShardKonfigurator _shardKonfigurator;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ZitatShardRoutingBinder( ZitatShardKonfigurator shardKonfigurator ) {
+
+        _shardKonfigurator = shardKonfigurator;
+    }
+
+
+    /**
+     * Bridge registrieren; sie hängt nur von der ID ab, nicht von anderen Feldern.
+     *
+     * @param context Kontext-Objekt für Registrierung der Bridge
+     */
+    @Override
+    public void bind( RoutingBindingContext context ) {
+
+        context.dependencies().useRootOnly();
+
+        context.bridge( ZitatEntity.class, new Bridge( _shardKonfigurator ) );
+    }
+
+
+    /**
+     * Bridge, die für jedes Zitat die Route (Shard) berechnet.
+     */
+    private static class Bridge implements RoutingBridge<ZitatEntity> {
+
+        private final ZitatShardKonfigurator _shardKonfigurator;
+
+        Bridge( ZitatShardKonfigurator shardKonfigurator ) {
+
+            _shardKonfigurator = shardKonfigurator;
+        }
+
+        @Override
+        public void route( DocumentRoutes routes, Object entityIdentifier, ZitatEntity indexedEntity,
+                           RoutingBridgeRouteContext context ) {
+
+            if ( _shardKonfigurator.getAnzahlShards() <= 1 ) {
+
+                routes.addRoute(); // ohne Sharding kein Routing Key
+                return;
+            }
+
+            routes.addRoute().routingKey( _shardKonfigurator.shardFuerId( (Long) entityIdentifier ) );
+        }
+
+        @Override
+        public void previousRoutes( DocumentRoutes routes, Object entityIdentifier, ZitatEntity indexedEntity,
+                                    RoutingBridgeRouteContext context ) {
+
+            route( routes, entityIdentifier, indexedEntity, context );
+        }
+    }
+
+}
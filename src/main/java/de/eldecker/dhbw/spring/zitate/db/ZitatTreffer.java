@@ -0,0 +1,18 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+
+/**
+ * Schlankes Ergebnis-Objekt für einen Suchtreffer, das direkt aus den im
+ * Lucene-Index gespeicherten Feldern (Projektionen) befüllt wird; für die
+ * Erzeugung muss also nicht auf die Datenbank zugegriffen werden.
+ *
+ * @param id ID/Primärschlüssel des Zitats
+ *
+ * @param zitat Text des Zitats
+ *
+ * @param autor Autor des Zitats, oder {@code null} wenn unbekannt
+ */
+public record ZitatTreffer( Long   id,
+                            String zitat,
+                            String autor ) {
+}
@@ -0,0 +1,14 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+
+/**
+ * Vorschlag für die Eingabe im Suchfeld ("Search as you type"); bewusst
+ * klein gehalten, weil bei jedem Tastendruck eine Liste davon übertragen wird.
+ *
+ * @param id ID des Zitats
+ *
+ * @param text Anfang des Zitats, ggf. gekürzt
+ */
+public record ZitatVorschlag( Long   id,
+                              String text ) {
+}
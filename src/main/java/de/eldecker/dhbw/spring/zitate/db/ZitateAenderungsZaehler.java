@@ -0,0 +1,47 @@
+package de.eldecker.dhbw.spring.zitate.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Bean mit einem Generationszähler für den Datenbestand der Zitate.
+ * Der Zähler wird bei jeder schreibenden Änderung (Einfügen, Ändern, Löschen)
+ * an einer {@link ZitatEntity} hochgezählt, siehe {@link ZitatEntityListener}.
+ * <br><br>
+ *
+ * Andere Beans können sich den Zählerstand merken, um später mit einem
+ * einfachen Vergleich festzustellen, ob der von ihnen im Speicher gehaltene
+ * abgeleitete Zustand (z.B. Liste der IDs) noch aktuell ist.
+ */
+@Component
+public class ZitateAenderungsZaehler {
+
+    /** Aktuelle Generation des Datenbestands, beginnt bei 0. */
+    private final AtomicLong _generation = new AtomicLong( 0 );
+
+
+    /**
+     * Aktuelle Generation des Datenbestands abfragen.
+     *
+     * @return Generationsnummer; je höher, desto mehr Änderungen gab es seit
+     *         dem Start der Anwendung
+     */
+    public long getGeneration() {
+
+        return _generation.get();
+    }
+
+
+    /**
+     * Generation hochzählen, weil sich der Datenbestand geändert hat.
+     *
+     * @return Neue Generationsnummer
+     */
+    public long erhoehen() {
+
+        return _generation.incrementAndGet();
+    }
+
+}
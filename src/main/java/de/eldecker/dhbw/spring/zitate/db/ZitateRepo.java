@@ -1,9 +1,16 @@
 package de.eldecker.dhbw.spring.zitate.db;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
 
 
 /**
@@ -12,16 +19,87 @@ import org.springframework.data.jpa.repository.Query;
 public interface ZitateRepo extends JpaRepository<ZitatEntity, Long> {
 
     /**
-     * Native Query (!) für das Holen eines zufälligen Zitats, kein JPQL!
-     * Funktioniert evtl. nicht, wenn andere Datenbank als "H2" verwendet wird.
+     * Liefert die IDs aller Zitate aufsteigend sortiert als Stream, ohne die Entitäten
+     * selbst zu laden; die Ergebnismenge wird mit einer großen <i>Fetch Size</i> vom
+     * JDBC-Treiber abgeholt. Im Gegensatz zu einer Native Query mit {@code RAND()}
+     * funktioniert diese JPQL-Query mit jedem Datenbank-Dialekt.
      * <br><br>
-     * 
-     * Das SQL-Statement funktioniert unter H2 (und anscheinend auch MySQL),
-     * aber nicht unter PostgreSQL: für PostgreSQL muss der Name der Funktion
-     * "RAND" durch "RANDOM" ersetzt werden.
-     * 
-     * @return Optional mit zufällig ausgewähltem Zitat
+     *
+     * Der Stream muss innerhalb einer Transaktion konsumiert und danach
+     * geschlossen werden (try-with-resources).
+     *
+     * @return Stream mit den IDs aller Zitate
+     */
+    @Query( "SELECT z.id FROM ZitatEntity z ORDER BY z.id" )
+    @QueryHints( @QueryHint( name = "org.hibernate.fetchSize", value = "10000" ) )
+    Stream<Long> streamAlleIds();
+
+
+    /**
+     * Lädt alle Zitate aus einem ID-Bereich (Query wird von Spring Data aus dem
+     * Methodennamen abgeleitet). Die geladenen Zitate werden nicht in den
+     * Second-Level-Cache geschrieben, weil die Methode für das Durchlaufen aller
+     * Zitate (Neuindizierung) verwendet wird und den Cache sonst verdrängen würde.
+     *
+     * @param vonId Kleinste ID (inklusive)
+     *
+     * @param bisId Größte ID (inklusive)
+     *
+     * @return Liste der Zitate im Bereich, kann leer sein
+     */
+    @QueryHints( @QueryHint( name = "jakarta.persistence.cache.storeMode", value = "BYPASS" ) )
+    List<ZitatEntity> findByIdBetween( Long vonId, Long bisId );
+
+
+    /**
+     * Liefert von den übergebenen Inhalts-Hashes diejenigen, zu denen es schon ein
+     * Zitat in der Datenbank gibt; dank Index auf der Spalte {@code inhalts_hash}
+     * ist das eine Query pro Batch statt einer Query pro Zitat.
+     *
+     * @param inhaltsHashes Zu prüfende Hashes (z.B. ein Batch aus der Importdatei)
+     *
+     * @return Bereits vorhandene Hashes (ohne Duplikate)
+     */
+    @Query( "SELECT DISTINCT z.inhaltsHash FROM ZitatEntity z WHERE z.inhaltsHash IN :inhaltsHashes" )
+    List<String> findVorhandeneInhaltsHashes( @Param( "inhaltsHashes" ) Collection<String> inhaltsHashes );
+
+
+    /**
+     * Liefert von den übergebenen IDs diejenigen, zu denen es ein Zitat in der
+     * Datenbank gibt, ohne die Entitäten zu laden.
+     *
+     * @param ids Zu prüfende IDs (z.B. ein Chunk von IDs aus dem Lucene-Index)
+     *
+     * @return Vorhandene IDs
+     */
+    @Query( "SELECT z.id FROM ZitatEntity z WHERE z.id IN :ids" )
+    List<Long> findVorhandeneIds( @Param( "ids" ) Collection<Long> ids );
+
+
+    /**
+     * Liefert ID und Inhalts-Hash aller Zitate als Stream, ohne die Entitäten zu laden.
+     * Der Stream muss innerhalb einer Transaktion konsumiert und danach geschlossen
+     * werden (try-with-resources).
+     *
+     * @return Stream mit ID und Hash aller Zitate, aufsteigend nach ID sortiert
      */
-    @Query( nativeQuery = true, value = "SELECT * FROM zitate ORDER BY RAND() LIMIT 1" )
-    Optional<ZitatEntity> getZufallsZitat();
+    @Query( "SELECT new de.eldecker.dhbw.spring.zitate.db.ZitatIdUndHash( z.id, z.inhaltsHash ) " +
+            "FROM ZitatEntity z ORDER BY z.id" )
+    @QueryHints( @QueryHint( name = "org.hibernate.fetchSize", value = "10000" ) )
+    Stream<ZitatIdUndHash> streamAlleIdsUndHashes();
+
+
+    /**
+     * Lädt Zitate, für die noch kein Inhalts-Hash gespeichert ist (Zitate aus der Zeit
+     * vor Einführung der Spalte), damit der Hash nachgetragen werden kann. Die Zitate
+     * werden dabei nicht in den Second-Level-Cache geschrieben.
+     *
+     * @param seite Max. Anzahl Zitate (es wird immer die erste Seite abgefragt, weil
+     *              nachgetragene Zitate aus der Ergebnismenge herausfallen)
+     *
+     * @return Zitate ohne Hash, leer wenn alle nachgetragen sind
+     */
+    @QueryHints( @QueryHint( name = "jakarta.persistence.cache.storeMode", value = "BYPASS" ) )
+    List<ZitatEntity> findByInhaltsHashIsNull( Pageable seite );
+
 }
@@ -0,0 +1,21 @@
+package de.eldecker.dhbw.spring.zitate.helferlein;
+
+
+/**
+ * Exception für eine hochgeladene Datei, die größer als erlaubt ist; führt im
+ * Admin-Controller zu HTTP-Status 413 (im Gegensatz zu {@link ZitateException},
+ * die dort zu 409 führt).
+ */
+@SuppressWarnings("serial")
+public class DateiZuGrossException extends Exception {
+
+    /**
+     * Exception unter Angabe der Fehlerbeschreibung erzeugen.
+     *
+     * @param fehlertext Beschreibung Fehler
+     */
+    public DateiZuGrossException( String fehlertext ) {
+
+        super( fehlertext );
+    }
+}
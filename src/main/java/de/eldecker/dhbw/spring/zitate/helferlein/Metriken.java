@@ -0,0 +1,116 @@
+package de.eldecker.dhbw.spring.zitate.helferlein;
+
+
+/**
+ * Namen und Tags der eigenen Micrometer-Metriken, die unter {@code /actuator/prometheus}
+ * ausgegeben werden (Punkte werden dort zu Unterstrichen, Timer bekommen die Endung
+ * {@code _seconds}).
+ * <br><br>
+ *
+ * Werte von Tags müssen eine kleine, feste Menge bilden, weil für jede Kombination
+ * eine eigene Zeitreihe angelegt wird; die Anzahl Treffer wird deshalb mit
+ * {@link #trefferKlasse(int)} in wenige Klassen eingeteilt.
+ */
+public final class Metriken {
+
+    /** Timer für Suche inkl. Cache, wie sie der Aufrufer von {@code SuchService} erlebt. */
+    public static final String SUCHE_ANFRAGE = "zitate.suche.anfrage";
+
+    /** Timer für Ausführung einer Query im Lucene-Backend (ohne Laden der Treffer). */
+    public static final String SUCHE_LUCENE = "zitate.suche.lucene";
+
+    /** Timer für Laden der Entitäten bzw. Erzeugen der Projektionen nach der Query. */
+    public static final String SUCHE_LADEN = "zitate.suche.laden";
+
+    /** Timer für Auswahl eines Zufallszitats. */
+    public static final String ZUFALLSZITAT = "zitate.zufallszitat";
+
+    /** Timer für Neuladen des Snapshots mit den IDs für Zufallszitate. */
+    public static final String ZUFALLSZITAT_SNAPSHOT = "zitate.zufallszitat.snapshot";
+
+    /** Timer für Phasen eines Imports, siehe Tag {@link #TAG_PHASE}. */
+    public static final String IMPORT_PHASE = "zitate.import.phase";
+
+    /** Zähler für importierte Zitate. */
+    public static final String IMPORT_ZITATE = "zitate.import.zitate";
+
+    /** Gauge für Größe des Lucene-Index in Bytes. */
+    public static final String INDEX_GROESSE = "zitate.index.groesse";
+
+    /** Gauge für Anzahl Dokumente im Lucene-Index. */
+    public static final String INDEX_DOKUMENTE = "zitate.index.dokumente";
+
+    /** Gauge für Anzahl Segmente im Lucene-Index. */
+    public static final String INDEX_SEGMENTE = "zitate.index.segmente";
+
+    /** Timer für Wartezeit auf eine Erlaubnis im Schott für Suchen. */
+    public static final String SCHOTT_WARTEZEIT = "zitate.schott.wartezeit";
+
+    /** Zähler für wegen Überlast abgewiesene Suchen, siehe Tag {@link #TAG_GRUND}. */
+    public static final String SCHOTT_ABGEWIESEN = "zitate.schott.abgewiesen";
+
+    /** Gauge für Anzahl gerade laufender Suchen im Schott. */
+    public static final String SCHOTT_AKTIV = "zitate.schott.aktiv";
+
+    /** Gauge für Anzahl Suchen, die gerade auf eine Erlaubnis warten. */
+    public static final String SCHOTT_WARTEND = "zitate.schott.wartend";
+
+    /** Timer für Verzögerung vom Commit auf einem Knoten bis zur Übernahme in den lokalen Index. */
+    public static final String CLUSTER_VERZOEGERUNG = "zitate.cluster.verzoegerung";
+
+    /** Gauge für Anzahl protokollierter Änderungen, die dieser Knoten noch nicht verarbeitet hat. */
+    public static final String CLUSTER_RUECKSTAND = "zitate.cluster.rueckstand";
+
+    /** Gauge für Dauer vom Start der JVM bis zur Bereitschaft der Anwendung. */
+    public static final String START_BEREIT = "zitate.start.bereit";
+
+    /** Tag mit Edit-Distanz der Fuzzy-Suche (heißt wie der Parameter der REST-API). */
+    public static final String TAG_FUZZINESS = "fuzziness";
+
+    /** Tag mit Klasse der Trefferzahl, siehe {@link #trefferKlasse(int)}. */
+    public static final String TAG_TREFFER = "treffer";
+
+    /** Tag mit Art der Suche, z.B. "entitaeten" oder "seite". */
+    public static final String TAG_ART = "art";
+
+    /** Tag mit Phase des Imports: "lesen", "parsen", "schreiben", "indizieren" oder "abgleichen". */
+    public static final String TAG_PHASE = "phase";
+
+    /** Tag mit Stufe der Suche, z.B. "EXAKT" oder "FUZZY_2". */
+    public static final String TAG_STUFE = "stufe";
+
+    /** Tag mit Grund für Abweisung: "warteschlange" (voll) oder "zeitueberschreitung". */
+    public static final String TAG_GRUND = "grund";
+
+
+    /** Keine Instanzen, nur Konstanten und statische Methoden. */
+    private Metriken() {}
+
+
+    /**
+     * Teilt eine Anzahl Treffer in eine von wenigen Klassen ein, damit sie als
+     * Tag verwendet werden kann.
+     *
+     * @param anzahlTreffer Anzahl Treffer
+     *
+     * @return "0", "1-10", "11-100" oder "mehr"
+     */
+    public static String trefferKlasse( int anzahlTreffer ) {
+
+        if ( anzahlTreffer == 0 ) {
+
+            return "0";
+        }
+        if ( anzahlTreffer <= 10 ) {
+
+            return "1-10";
+        }
+        if ( anzahlTreffer <= 100 ) {
+
+            return "11-100";
+        }
+
+        return "mehr";
+    }
+
+}
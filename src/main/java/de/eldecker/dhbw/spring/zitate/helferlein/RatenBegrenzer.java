@@ -0,0 +1,65 @@
+package de.eldecker.dhbw.spring.zitate.helferlein;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Einfacher thread-sicherer Ratenbegrenzer: es werden höchstens {@code maxProSekunde}
+ * Einheiten pro Sekunde freigegeben, ein Aufrufer von {@link #warteAuf(int)} wird
+ * entsprechend lange schlafen gelegt.
+ * <br><br>
+ *
+ * Für jede angeforderte Einheit wird ein Zeitschlitz der Länge {@code 1/maxProSekunde}
+ * reserviert; es wird also keine Burst-Kapazität aufgespart.
+ */
+public class RatenBegrenzer {
+
+    /** Nanosekunden pro Einheit; 0 bedeutet "unbegrenzt". */
+    private final long _nanosProEinheit;
+
+    /** Zeitpunkt (System.nanoTime()), ab dem die nächste Einheit frei ist. */
+    private final AtomicLong _naechsterFreierZeitpunkt = new AtomicLong( System.nanoTime() );
+
+
+    /**
+     * Neuen Ratenbegrenzer erzeugen.
+     *
+     * @param maxProSekunde Maximale Anzahl Einheiten pro Sekunde; Wert 0 oder
+     *                      kleiner bedeutet, dass nicht begrenzt wird.
+     */
+    public RatenBegrenzer( long maxProSekunde ) {
+
+        _nanosProEinheit = maxProSekunde > 0 ? 1_000_000_000L / maxProSekunde : 0;
+    }
+
+
+    /**
+     * Reserviert {@code anzahl} Einheiten und wartet, bis diese frei sind.
+     *
+     * @param anzahl Anzahl angeforderter Einheiten
+     *
+     * @throws InterruptedException Thread wurde während des Wartens unterbrochen
+     */
+    public void warteAuf( int anzahl ) throws InterruptedException {
+
+        if ( _nanosProEinheit == 0 ) {
+
+            return;
+        }
+
+        final long jetzt = System.nanoTime();
+        final long dauer = _nanosProEinheit * anzahl;
+
+        final long reserviertAb = _naechsterFreierZeitpunkt.getAndAccumulate( dauer,
+                                        ( frei, d ) -> Math.max( frei, jetzt ) + d );
+
+        final long wartezeit = Math.max( reserviertAb, jetzt ) - jetzt;
+        if ( wartezeit > 0 ) {
+
+            NANOSECONDS.sleep( wartezeit );
+        }
+    }
+
+}
@@ -1,12 +1,10 @@
 package de.eldecker.dhbw.spring.zitate.helferlein;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.Collections.emptyList;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.List;
+import java.io.InputStreamReader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,36 +38,38 @@ public class RessourcenDateiLader {
 
 
     /**
-     * Zeilen einer Textdatei aus dem Ressourcen-Ordner laden.
+     * Textdatei aus dem Ressourcen-Ordner zum zeilenweisen Lesen öffnen.
+     * Die Datei wird nicht auf einmal in den Speicher geladen, sondern als Stream
+     * gelesen; das funktioniert auch, wenn die Anwendung aus einer JAR-Datei
+     * gestartet wurde.
      *
      * @param pfad Pfad zur Datei relativ im Ressourcen-Ordner, z.B. {@code "zitate.txt"}
      *
-     * @return Liste der eingelesenen Zeilen; kann leer sein, aber nicht {@code null}.
+     * @return Reader für die Datei (UTF8), muss vom Aufrufer geschlossen werden
+     *
+     * @throws IOException Datei existiert nicht oder konnte nicht geöffnet werden
      */
-    public List<String> ladeZeilenAusRessourcenDatei( String pfad ) {
-
-        final String resourceLocation = "classpath:" + pfad;
-
-        final Resource resource = _resourceLoader.getResource( resourceLocation );
+    public BufferedReader oeffneRessourcenDatei( String pfad ) throws IOException {
 
-        try {
+        final Resource resource = getRessource( pfad );
 
-            final Path path = resource.getFile().toPath();
+        LOG.info( "Öffne Ressourcen-Datei \"{}\" zum zeilenweisen Einlesen.", resource );
 
-            final List<String> stringListe = Files.readAllLines( path, UTF_8 ); // throws IOException
-
-            LOG.info( "Anzahl der Zeilen aus Ressourcen-Datei \"{}\" eingelesen: {}",
-                      path, stringListe.size() );
+        return new BufferedReader( new InputStreamReader( resource.getInputStream(), UTF_8 ), 64 * 1024 );
+    }
 
-            return stringListe;
-        }
-        catch ( IOException ex ) {
 
-            LOG.error( "Fehler beim Versuch die Ressourcendatei \"{}\" einzulesen: ",
-                       pfad, ex );
+    /**
+     * Ressource für eine Datei aus dem Ressourcen-Ordner, z.B. wenn zusätzlich zum
+     * Inhalt die Größe benötigt wird ({@link Resource#contentLength()}).
+     *
+     * @param pfad Pfad zur Datei relativ im Ressourcen-Ordner, z.B. {@code "zitate.txt"}
+     *
+     * @return Ressource; ob die Datei existiert, wird nicht geprüft
+     */
+    public Resource getRessource( String pfad ) {
 
-            return emptyList();
-        }
+        return _resourceLoader.getResource( "classpath:" + pfad );
     }
 
 }
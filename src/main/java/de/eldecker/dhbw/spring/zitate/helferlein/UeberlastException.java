@@ -0,0 +1,44 @@
+package de.eldecker.dhbw.spring.zitate.helferlein;
+
+
+/**
+ * Exception für eine Anfrage, die wegen Überlast abgewiesen wird (Load Shedding);
+ * führt in den Controllern zu HTTP-Status 503 mit Header {@code Retry-After}.
+ * <br><br>
+ *
+ * Im Gegensatz zu {@link ZitateException} ist dies eine {@link RuntimeException},
+ * weil sie auch aus Lambdas (z.B. beim Laden eines Cache-Eintrags) geworfen wird.
+ */
+@SuppressWarnings("serial")
+public class UeberlastException extends RuntimeException {
+
+    /** Empfohlene Wartezeit für den Client bis zum nächsten Versuch. */
+    private final int _retryAfterSekunden;
+
+
+    /**
+     * Exception unter Angabe der Fehlerbeschreibung erzeugen.
+     *
+     * @param fehlertext Beschreibung Fehler
+     *
+     * @param retryAfterSekunden Wert für Header {@code Retry-After}
+     */
+    public UeberlastException( String fehlertext, int retryAfterSekunden ) {
+
+        super( fehlertext );
+
+        _retryAfterSekunden = retryAfterSekunden;
+    }
+
+
+    /**
+     * Getter für empfohlene Wartezeit.
+     *
+     * @return Anzahl Sekunden für Header {@code Retry-After}
+     */
+    public int getRetryAfterSekunden() {
+
+        return _retryAfterSekunden;
+    }
+
+}
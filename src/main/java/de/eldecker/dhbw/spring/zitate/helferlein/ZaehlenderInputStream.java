@@ -0,0 +1,66 @@
+package de.eldecker.dhbw.spring.zitate.helferlein;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Input-Stream, der die Anzahl der gelesenen Bytes in einem {@link AtomicLong} mitzählt,
+ * damit der Fortschritt beim Einlesen einer Datei aus einem anderen Thread abgefragt
+ * werden kann.
+ */
+public class ZaehlenderInputStream extends FilterInputStream {
+
+    /** Zähler für gelesene Bytes. */
+    private final AtomicLong _anzahlBytes;
+
+
+    /**
+     * Neuen zählenden Stream erzeugen.
+     *
+     * @param eingabe Eigentlicher Stream, wird beim Schließen mitgeschlossen
+     *
+     * @param anzahlBytes Zähler, zu dem die gelesenen Bytes addiert werden
+     */
+    public ZaehlenderInputStream( InputStream eingabe, AtomicLong anzahlBytes ) {
+
+        super( eingabe );
+        _anzahlBytes = anzahlBytes;
+    }
+
+
+    @Override
+    public int read() throws IOException {
+
+        final int wert = super.read();
+        if ( wert >= 0 ) {
+
+            _anzahlBytes.incrementAndGet();
+        }
+        return wert;
+    }
+
+
+    @Override
+    public int read( byte[] puffer, int offset, int laenge ) throws IOException {
+
+        final int anzahl = super.read( puffer, offset, laenge );
+        if ( anzahl > 0 ) {
+
+            _anzahlBytes.addAndGet( anzahl );
+        }
+        return anzahl;
+    }
+
+
+    @Override
+    public long skip( long anzahl ) throws IOException {
+
+        final long uebersprungen = super.skip( anzahl );
+        _anzahlBytes.addAndGet( uebersprungen );
+        return uebersprungen;
+    }
+
+}
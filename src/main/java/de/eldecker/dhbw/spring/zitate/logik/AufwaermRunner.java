@@ -0,0 +1,175 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.FuzzySuche;
+
+
+/**
+ * Optionales Aufwärmen beim Start ({@code zitate.aufwaermen.aktiv=true}): eine Liste
+ * typischer Suchbegriffe ({@code zitate.aufwaermen.suchbegriffe}) wird in mehreren Runden
+ * mit allen Edit-Distanzen durch die {@link FuzzySuche} geschickt. Dabei werden die Klassen
+ * von Lucene und Hibernate Search geladen, der JIT-Compiler übersetzt die heißen Pfade,
+ * die Dateien des Index kommen in den Page-Cache und der Second-Level-Cache wird gefüllt.
+ * Außerdem wird der Snapshot mit den IDs für Zufallszitate geladen.
+ * <br><br>
+ *
+ * Da alle {@link ApplicationRunner} vor dem {@code ApplicationReadyEvent} laufen, meldet
+ * die Anwendung (Actuator: {@code /actuator/health/readiness}) erst nach dem Aufwärmen
+ * Bereitschaft. Die Runden enden, sobald sich die Dauer einer Runde um weniger als
+ * {@code zitate.aufwaermen.toleranz-prozent} gegenüber der vorherigen Runde ändert,
+ * spätestens aber nach {@code zitate.aufwaermen.max-runden} Runden.
+ * <br><br>
+ *
+ * Die Suchen gehen nicht über den {@link SuchService}, damit dessen Cache nicht mit den
+ * Suchbegriffen des Aufwärmens gefüllt wird.
+ */
+@Service
+public class AufwaermRunner implements ApplicationRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger( AufwaermRunner.class );
+
+    /** Anzahl Runden, die mindestens ausgeführt werden. */
+    private static final int MIN_RUNDEN = 3;
+
+    /** Bean für die Lucene-Suche. */
+    private final FuzzySuche _fuzzySuche;
+
+    /** Bean für Zufallszitate, deren Snapshot mit den IDs geladen werden soll. */
+    private final ZufallsZitatService _zufallsZitatService;
+
+    /** Read-Only-Transaktion für die Suchen (Laden der Treffer braucht Session). */
+    private final TransactionTemplate _readOnlyTransaktion;
+
+    /** Aufwärmen beim Start ausführen? */
+    private final boolean _aktiv;
+
+    /** Typische Suchbegriffe, z.B. aus dem Log der häufigsten Suchen. */
+    private final List<String> _suchbegriffe;
+
+    /** Maximale Anzahl Runden. */
+    private final int _maxRunden;
+
+    /** Änderung der Dauer einer Runde (in Prozent), ab der die Latenz als stabil gilt. */
+    private final int _toleranzProzent;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public AufwaermRunner( FuzzySuche                 fuzzySuche,
+                           ZufallsZitatService        zufallsZitatService,
+                           PlatformTransactionManager transactionManager,
+                           @Value( "${zitate.aufwaermen.aktiv:false}"           ) boolean      aktiv,
+                           @Value( "${zitate.aufwaermen.suchbegriffe:}"         ) List<String> suchbegriffe,
+                           @Value( "${zitate.aufwaermen.max-runden:20}"         ) int          maxRunden,
+                           @Value( "${zitate.aufwaermen.toleranz-prozent:10}"   ) int          toleranzProzent ) {
+
+        _fuzzySuche          = fuzzySuche;
+        _zufallsZitatService = zufallsZitatService;
+        _readOnlyTransaktion = new TransactionTemplate( transactionManager );
+        _readOnlyTransaktion.setReadOnly( true );
+        _aktiv               = aktiv;
+        _suchbegriffe        = suchbegriffe.stream().map( String::strip ).filter( s -> !s.isEmpty() ).toList();
+        _maxRunden           = Math.max( MIN_RUNDEN, maxRunden );
+        _toleranzProzent     = toleranzProzent;
+    }
+
+
+    /**
+     * Aufwärmen ausführen, wenn eingeschaltet; Fehler werden nur geloggt, weil die
+     * Anwendung auch ohne Aufwärmen funktioniert.
+     *
+     * @param args Wird nicht ausgewertet
+     */
+    @Override
+    public void run( ApplicationArguments args ) {
+
+        if ( !_aktiv || _suchbegriffe.isEmpty() ) {
+
+            return;
+        }
+
+        try {
+
+            aufwaermen();
+        }
+        catch ( RuntimeException ex ) {
+
+            LOG.warn( "Fehler beim Aufwärmen, wird abgebrochen.", ex );
+        }
+    }
+
+
+    /**
+     * Runden mit allen Suchbegriffen ausführen, bis die Dauer einer Runde stabil ist.
+     */
+    private void aufwaermen() {
+
+        final long startNanos = System.nanoTime();
+
+        _zufallsZitatService.getZufallsZitat();
+
+        long ersteRundeNanos = 0;
+        long letzteRundeNanos = 0;
+        int  runde = 0;
+        while ( runde < _maxRunden ) {
+
+            final long rundeNanos = runde();
+            runde++;
+
+            if ( runde == 1 ) {
+
+                ersteRundeNanos = rundeNanos;
+            }
+
+            final boolean stabil = runde >= MIN_RUNDEN &&
+                                   Math.abs( rundeNanos - letzteRundeNanos ) * 100 <= letzteRundeNanos * _toleranzProzent;
+            letzteRundeNanos = rundeNanos;
+            if ( stabil ) {
+
+                break;
+            }
+        }
+
+        LOG.info( "Aufwärmen mit {} Suchbegriffen in {} Runden nach {} ms beendet; " +
+                  "Dauer einer Runde anfangs {} ms, zuletzt {} ms.",
+                  _suchbegriffe.size(), runde, ( System.nanoTime() - startNanos ) / 1_000_000,
+                  ersteRundeNanos / 1_000_000, letzteRundeNanos / 1_000_000 );
+    }
+
+
+    /**
+     * Eine Runde: jeder Suchbegriff mit Edit-Distanz 0, 1 und 2.
+     *
+     * @return Dauer der Runde in Nanosekunden
+     */
+    private long runde() {
+
+        final long startNanos = System.nanoTime();
+
+        for ( String suchbegriff : _suchbegriffe ) {
+
+            for ( int editDistanz = 0; editDistanz <= 2; editDistanz++ ) {
+
+                final int maxEditDistance = editDistanz;
+                _readOnlyTransaktion.executeWithoutResult( status ->
+                        _fuzzySuche.sucheFuzzyTreffer( suchbegriff, 10, maxEditDistance, 0, null ) );
+            }
+        }
+
+        return System.nanoTime() - startNanos;
+    }
+
+}
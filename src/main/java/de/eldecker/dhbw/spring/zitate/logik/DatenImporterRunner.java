@@ -1,19 +1,16 @@
 package de.eldecker.dhbw.spring.zitate.logik;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Service;
 
-import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
 import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
-import de.eldecker.dhbw.spring.zitate.helferlein.RessourcenDateiLader;
+import de.eldecker.dhbw.spring.zitate.helferlein.ZitateException;
 
 
 /**
@@ -46,11 +43,35 @@ import de.eldecker.dhbw.spring.zitate.helferlein.RessourcenDateiLader;
  *   Zitats.
  * </li>
  * <li>
+ *   Der Autor folgt am Ende des Zitats nach {@code --}; er wird beim Import
+ *   in ein eigenes Feld übernommen (siehe {@link ZitatMitAutor}).
+ * </li>
+ * <li>
  *   Die Textdatei muss in UTF8 kodiert sein.
  * </li>
  * </ul>
  * <br><br>
  *
+ * Das eigentliche Parsen und Schreiben übernimmt die Bean {@link ZitateImporter},
+ * die die Datei als Stream verarbeitet. Der Import läuft als Job des
+ * {@link ImportJobService} im Hintergrund, der Start der Anwendung wartet also nicht
+ * auf sein Ende; der Fortschritt kann unter {@code GET /api/v1/admin/import}
+ * abgefragt werden.
+ * <br><br>
+ *
+ * Sind schon Zitate in der Datenbank, dann wird die Datei nur im inkrementellen Modus
+ * (Property {@code zitate.import.inkrementell}) erneut importiert: Es werden dann nur
+ * neue Zitate eingefügt und optional (Property {@code zitate.import.entfernen}) nicht
+ * mehr enthaltene Zitate gelöscht, siehe
+ * {@link ZitateImporter#importiereInkrementell(java.io.BufferedReader, boolean)}.
+ * Mit {@code zitate.import.beim-start=false} wird beim Start gar nichts importiert.
+ * <br><br>
+ *
+ * Mit {@code zitate.index.aufbauen-wenn-leer=true} (z.B. Profil {@code lucene-heap}, bei dem
+ * der Index nur im Heap liegt) wird außerdem ein leerer Index aus den schon vorhandenen
+ * Zitaten neu aufgebaut, als Job des {@link ReindexService} im Hintergrund.
+ * <br><br>
+ *
  * Zitatdatei mit ca. 1.900 Zitaten in diesem Format von <i>Rudy Velthuis</i>:
  * <ul>
  *   <li><a href="http://rvelthuis.de/zips/quotes.txt">http://rvelthuis.de/zips/quotes.txt</a></li>
@@ -66,19 +87,49 @@ public class DatenImporterRunner implements ApplicationRunner {
 	/** Repo-Bean für Zugriff auf Datenbanktabelle mit Zitaten. */
 	private final ZitateRepo _zitateRepo;
 
-	/** Hilfs-Bean für zeileweises Einlesen der Textdatei mit den Zitaten aus Ressourcen-Ordner. */
-	private final RessourcenDateiLader _dateiLader;
+	/** Service-Bean, die den Import der Zitatdatei als Job im Hintergrund ausführt. */
+	private final ImportJobService _importJobService;
+
+	/** Für Neuaufbau eines leeren Index im Hintergrund. */
+	private final ReindexService _reindexService;
+
+	/** Für Anzahl Dokumente im Index. */
+	private final MassenIndizierer _massenIndizierer;
+
+	/** Beim Start überhaupt Zitate aus der Ressourcen-Datei importieren? */
+	private final boolean _beimStart;
+
+	/** Bei schon gefüllter Datenbank neue Zitate aus der Datei nachladen? */
+	private final boolean _inkrementell;
+
+	/** Beim inkrementellen Import nicht mehr in der Datei enthaltene Zitate löschen? */
+	private final boolean _entfernen;
+
+	/** Leeren Index beim Start aus den Zitaten in der Datenbank aufbauen? */
+	private final boolean _indexAufbauenWennLeer;
 
 
 	/**
 	 * Konstruktor für <i>Dependency Injection</i>.
 	 */
 	@Autowired
-	public DatenImporterRunner( ZitateRepo           zitateRepo,
-	                            RessourcenDateiLader dateiLader ) {
-
-		_zitateRepo = zitateRepo;
-		_dateiLader = dateiLader;
+	public DatenImporterRunner( ZitateRepo       zitateRepo,
+	                            ImportJobService importJobService,
+	                            ReindexService   reindexService,
+	                            MassenIndizierer massenIndizierer,
+	                            @Value( "${zitate.import.beim-start:true}"           ) boolean beimStart,
+	                            @Value( "${zitate.import.inkrementell:false}"        ) boolean inkrementell,
+	                            @Value( "${zitate.import.entfernen:false}"           ) boolean entfernen,
+	                            @Value( "${zitate.index.aufbauen-wenn-leer:false}"   ) boolean indexAufbauenWennLeer ) {
+
+		_zitateRepo            = zitateRepo;
+		_importJobService      = importJobService;
+		_reindexService        = reindexService;
+		_massenIndizierer      = massenIndizierer;
+		_beimStart             = beimStart;
+		_inkrementell          = inkrementell;
+		_entfernen             = entfernen;
+		_indexAufbauenWennLeer = indexAufbauenWennLeer;
 	}
 
 
@@ -86,83 +137,65 @@ public class DatenImporterRunner implements ApplicationRunner {
 	 * Methode wird unmittelbar nach Hochfahren der Spring-Boot-Anwendung (wenn alles
 	 * initialisiert ist) aufgerufen. Sie überprüft dann, ob schon Zitate in der Datenbank
 	 * sind. Wenn noch überhaupt kein Zitat in der Datenbank ist, dann werden welche
-	 * aus einer Ressourcen-Datei geladen.
+	 * aus einer Ressourcen-Datei geladen. Andernfalls wird die Datei im inkrementellen
+	 * Modus (falls eingeschaltet) mit der Datenbank abgeglichen. In beiden Fällen wird
+	 * nur ein Import-Job eingereiht, die Methode kehrt also sofort zurück.
 	 *
 	 * @param args Wird nicht ausgewertet
 	 */
 	@Override
 	public void run( ApplicationArguments args ) throws Exception {
 
-		final long anzahlZitateAlt = _zitateRepo.count();
-		if ( anzahlZitateAlt > 0 ) {
+		if ( _indexAufbauenWennLeer ) {
 
-			LOG.info( "Es sind schon {} Zitate in der Datenbank, deshalb werden keine Daten importiert.",
-					  anzahlZitateAlt );
-		} else {
+			leerenIndexAufbauen();
+		}
 
-			LOG.info( "Noch keine Zitate in der Datenbank, lade jetzt welche ..." );
+		if ( !_beimStart ) {
 
-			final List<String> zeilenListe = _dateiLader.ladeZeilenAusRessourcenDatei( "zitate.txt" );
-			if ( zeilenListe.isEmpty() ) {
+			LOG.info( "Import beim Start ist abgeschaltet." );
+			return;
+		}
 
-			    LOG.error( "Datei mit Zitaten enthielt 0 Zeilen." );
+		final long anzahlZitateAlt = _zitateRepo.count();
+		if ( anzahlZitateAlt > 0 && _inkrementell ) {
 
-			} else {
+			LOG.info( "Es sind schon {} Zitate in der Datenbank, importiere nur neue Zitate (Entfernen: {}) ...",
+					  anzahlZitateAlt, _entfernen );
 
-			    final List<String> zitatListe = zeilenZuZitate( zeilenListe );
+			_importJobService.ressourceImportieren( "zitate.txt", _entfernen );
 
-                final List<ZitatEntity> zitatEntityListe = 
-                        zitatListe.stream()
-                                  .map( zitatString -> new ZitatEntity( zitatString ) )
-                                  .toList();
+		} else if ( anzahlZitateAlt > 0 ) {
 
-			    LOG.info( "Anzahl Zitate gefunden: {}", zitatListe.size() );
+			LOG.info( "Es sind schon {} Zitate in der Datenbank, deshalb werden keine Daten importiert.",
+					  anzahlZitateAlt );
+		} else {
 
-			    _zitateRepo.saveAll( zitatEntityListe );
-			}
+			LOG.info( "Noch keine Zitate in der Datenbank, lade jetzt welche im Hintergrund ..." );
 
-			final long anzahlZitateNeu = _zitateRepo.count();
-			LOG.info( "Es wurden {} Zitate in die Datenbank geladen.", anzahlZitateNeu );
+			_importJobService.ressourceImportieren( "zitate.txt", false );
 		}
 	}
 
 
 	/**
-	 * In der Ressourcen-Datei sind die Zitate auf mehrere Zeilen verteilt. Diese Methode
-	 * fasst die Zeilen eines Zitats zu einem String zusammen. Dabei wird ausgewertet,
-	 * dass zwischen zwei Zitaten eine einzelne Zeile mit einem Punkt steht.
-	 *
-	 * @param zeilenListe Liste der einzelnen Zeilen aus der Ressourcen-Datei; muss
-	 *                    mindestens eine Zeile enthalten.
+	 * Startet den Neuaufbau des Index im Hintergrund, wenn er leer ist, aber schon
+	 * Zitate in der Datenbank sind; der Fortschritt kann unter
+	 * {@code GET /api/v1/admin/reindex} abgefragt werden.
 	 *
-	 * @return Liste mit einem Zitat pro Zeile; kann 0 Einträge enthalten, aber nicht
-	 *         {@code null} sein
+	 * @throws ZitateException Es läuft schon ein Reindexierungs-Job
 	 */
-	private List<String> zeilenZuZitate( List<String> zeilenListe ) {
-
-	    final int anzahlZitateGeschaetzt = zeilenListe.size() / 2;
-	    final List<String> ergebnisListe = new ArrayList<>( anzahlZitateGeschaetzt );
-
-	    String zitat = "";
-	    for ( String zeile: zeilenListe ) {
+	private void leerenIndexAufbauen() throws ZitateException {
 
-	        if ( zeile.trim().equals( "." ) ) {
+		final long anzahlZitate = _zitateRepo.count();
+		if ( anzahlZitate == 0 || _massenIndizierer.anzahlDokumente() > 0 ) {
 
-	            ergebnisListe.add( zitat );
-	            zitat = "";
-
-	        } else {
-
-	            zitat = zitat + zeile;
-	        }
-	    }
-
-	    if ( !zitat.isBlank() ) {
+			return;
+		}
 
-	        ergebnisListe.add( zitat );
-	    }
+		LOG.info( "Index ist leer, baue ihn für {} Zitate im Hintergrund neu auf ...", anzahlZitate );
 
-	    return ergebnisListe;
+		_reindexService.starten( Runtime.getRuntime().availableProcessors(), 0 );
 	}
 
 }
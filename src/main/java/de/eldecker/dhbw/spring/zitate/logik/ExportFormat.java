@@ -0,0 +1,79 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+
+/**
+ * Formate für den Export aller Zitate, siehe {@link ZitateExporter}.
+ */
+public enum ExportFormat {
+
+    /** Ein JSON-Objekt mit {@code id}, {@code zitat} und {@code autor} pro Zeile. */
+    NDJSON( "application/x-ndjson", "ndjson" ),
+
+    /** CSV nach RFC 4180 mit Kopfzeile {@code id,zitat,autor}, Trennzeichen Komma. */
+    CSV( "text/csv", "csv" ),
+
+    /**
+     * Format der Zitatdatei {@code zitate.txt} (Zitate durch eine Zeile mit einem Punkt
+     * getrennt, Autor nach {@code --}), kann also wieder importiert werden.
+     */
+    TXT( "text/plain", "txt" );
+
+
+    /** Media-Type für Header {@code Content-Type} (ohne Zeichensatz). */
+    private final String _mediaType;
+
+    /** Dateiendung für den Dateinamen im Header {@code Content-Disposition}. */
+    private final String _dateiendung;
+
+
+    private ExportFormat( String mediaType, String dateiendung ) {
+
+        _mediaType   = mediaType;
+        _dateiendung = dateiendung;
+    }
+
+
+    /**
+     * Getter für Media-Type.
+     *
+     * @return Media-Type, z.B. {@code text/csv}
+     */
+    public String getMediaType() {
+
+        return _mediaType;
+    }
+
+
+    /**
+     * Getter für Dateiendung.
+     *
+     * @return Dateiendung ohne Punkt, z.B. {@code csv}
+     */
+    public String getDateiendung() {
+
+        return _dateiendung;
+    }
+
+
+    /**
+     * Format für einen Wert des URL-Parameters {@code format} ermitteln; Groß-/Kleinschreibung
+     * wird nicht beachtet.
+     *
+     * @param parameter Wert des Parameters, z.B. {@code "csv"}
+     *
+     * @return Format, oder {@code null} wenn es kein Format mit diesem Namen gibt
+     */
+    public static ExportFormat ausParameter( String parameter ) {
+
+        for ( ExportFormat format : values() ) {
+
+            if ( format.name().equalsIgnoreCase( parameter.trim() ) ) {
+
+                return format;
+            }
+        }
+
+        return null;
+    }
+
+}
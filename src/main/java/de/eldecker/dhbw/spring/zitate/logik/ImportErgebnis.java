@@ -0,0 +1,22 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+
+/**
+ * Ergebnis eines inkrementellen Imports, siehe
+ * {@link ZitateImporter#importiereInkrementell(java.io.BufferedReader, boolean)}.
+ *
+ * @param zitateInDatei Anzahl der Zitate in der Datei (inkl. Duplikate)
+ *
+ * @param eingefuegt Anzahl neuer Zitate, die eingefügt und indiziert wurden
+ *
+ * @param entfernt Anzahl Zitate, die nicht mehr in der Datei enthalten waren und
+ *                 deshalb gelöscht wurden; 0 wenn Entfernen nicht angefordert war
+ *
+ * @param hashesNachgetragen Anzahl Zitate, für die der Inhalts-Hash vor dem Abgleich
+ *                           nachgetragen werden musste
+ */
+public record ImportErgebnis( long zitateInDatei,
+                              long eingefuegt,
+                              long entfernt,
+                              long hashesNachgetragen ) {
+}
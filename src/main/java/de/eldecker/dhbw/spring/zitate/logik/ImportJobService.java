@@ -0,0 +1,615 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import de.eldecker.dhbw.spring.zitate.helferlein.DateiZuGrossException;
+import de.eldecker.dhbw.spring.zitate.helferlein.RessourcenDateiLader;
+import de.eldecker.dhbw.spring.zitate.helferlein.ZaehlenderInputStream;
+import de.eldecker.dhbw.spring.zitate.helferlein.ZitateException;
+import de.eldecker.dhbw.spring.zitate.logik.ImportJobStatus.Zustand;
+
+
+/**
+ * Service-Bean, die Zitatdateien als Jobs im Hintergrund importiert, damit weder der
+ * Start der Anwendung noch ein HTTP-Request auf das Ende des Imports warten muss.
+ * <br><br>
+ *
+ * Hochgeladene Dateien werden zuerst in eine temporäre Datei übertragen (also nie
+ * komplett in den Speicher geladen): ein Request-Body wird in einem Puffer fester Größe
+ * kopiert, eine schon vom Servlet-Container gespeicherte Datei (Formular-Upload) wird
+ * nur verschoben. Danach wird der Job eingereiht und die Datei am Ende des Jobs wieder
+ * gelöscht. Die Jobs werden von
+ * einem einzigen Thread nacheinander abgearbeitet, damit sich zwei Imports nicht
+ * gegenseitig beim Abgleich der Inhalts-Hashes oder beim Neuaufbau des Index stören.
+ * <br><br>
+ *
+ * Ist die Datenbank beim Start eines Jobs leer, dann wird mit
+ * {@link ZitateImporter#importiere(BufferedReader, java.util.function.LongConsumer)}
+ * voll importiert, sonst inkrementell mit
+ * {@link ZitateImporter#importiereInkrementell(BufferedReader, boolean, java.util.function.LongConsumer)}.
+ * <br><br>
+ *
+ * Der Status der letzten {@value #MAX_JOBS_IN_LISTE} Jobs kann abgefragt werden.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger LOG = LoggerFactory.getLogger( ImportJobService.class );
+
+    /** Max. Anzahl Jobs, deren Status aufbewahrt wird; ältere beendete Jobs werden vergessen. */
+    static final int MAX_JOBS_IN_LISTE = 20;
+
+    /** Service-Bean für das eigentliche Parsen und Schreiben. */
+    private final ZitateImporter _importer;
+
+    /** Repo-Bean, um festzustellen, ob die Datenbank leer ist. */
+    private final ZitateRepo _zitateRepo;
+
+    /** Hilfs-Bean für Zugriff auf Zitatdatei im Ressourcen-Ordner. */
+    private final RessourcenDateiLader _dateiLader;
+
+    /** Verzeichnis für temporäre Dateien mit hochgeladenen Zitaten. */
+    private final Path _uploadVerzeichnis;
+
+    /** Max. Größe einer hochgeladenen Datei in Bytes. */
+    private final long _maxUploadBytes;
+
+    /** Max. Anzahl Jobs, die gleichzeitig auf ihre Ausführung warten dürfen. */
+    private final int _maxWartendeJobs;
+
+    /** Ein Thread, der die Jobs nacheinander abarbeitet. */
+    private final ExecutorService _executor = Executors.newSingleThreadExecutor( runnable -> {
+
+        final Thread thread = new Thread( runnable, "zitate-import" );
+        thread.setDaemon( true );
+        return thread;
+    });
+
+    /** Für laufende Nummer der Jobs. */
+    private final AtomicLong _jobZaehler = new AtomicLong( 0 );
+
+    /** Jobs in Reihenfolge des Einreihens, Schlüssel ist die ID; Zugriff nur mit {@link #_jobsSperre}. */
+    private final Map<Long, Job> _jobs = new LinkedHashMap<>();
+
+    /** Sperre für {@link #_jobs}; kein {@code synchronized}, damit virtuelle Threads nicht blockieren. */
+    private final ReentrantLock _jobsSperre = new ReentrantLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ImportJobService( ZitateImporter       importer,
+                             ZitateRepo           zitateRepo,
+                             RessourcenDateiLader dateiLader,
+                             @Value( "${zitate.import.upload.verzeichnis:${java.io.tmpdir}}" ) String uploadVerzeichnis,
+                             @Value( "${zitate.import.upload.max-bytes:1073741824}"          ) long   maxUploadBytes,
+                             @Value( "${zitate.import.max-wartende-jobs:3}"                  ) int    maxWartendeJobs ) {
+
+        _importer          = importer;
+        _zitateRepo        = zitateRepo;
+        _dateiLader        = dateiLader;
+        _uploadVerzeichnis = Path.of( uploadVerzeichnis );
+        _maxUploadBytes    = maxUploadBytes;
+        _maxWartendeJobs   = maxWartendeJobs;
+    }
+
+
+    /**
+     * Import einer Zitatdatei aus dem Ressourcen-Ordner als Job einreihen. Das Öffnen
+     * der Datei erfolgt über einen Stream, funktioniert also auch in einer JAR-Datei.
+     *
+     * @param pfad Pfad zur Datei relativ im Ressourcen-Ordner, z.B. {@code "zitate.txt"}
+     *
+     * @param entfernen Bei inkrementellem Import nicht mehr enthaltene Zitate löschen?
+     *
+     * @return Status des eingereihten Jobs
+     *
+     * @throws ZitateException Zu viele Jobs warten schon
+     */
+    public ImportJobStatus ressourceImportieren( String pfad, boolean entfernen ) throws ZitateException {
+
+        final Resource ressource = _dateiLader.getRessource( pfad );
+
+        long groesse = -1;
+        try {
+
+            groesse = ressource.contentLength();
+        }
+        catch ( IOException ex ) {
+
+            LOG.debug( "Größe der Ressourcen-Datei \"{}\" unbekannt.", pfad, ex );
+        }
+
+        return einreihen( new Job( _jobZaehler.incrementAndGet(), "classpath:" + pfad, groesse,
+                                   ressource::getInputStream, null, entfernen ) );
+    }
+
+
+    /**
+     * Kopiert die hochgeladene Datei in eine temporäre Datei und reiht den Import als
+     * Job ein. Diese Methode kehrt zurück, sobald die Datei vollständig empfangen wurde.
+     *
+     * @param eingabe Stream mit Inhalt der Zitatdatei (UTF-8), wird nicht geschlossen
+     *
+     * @param dateiname Name der Datei (nur für Status und Log), kann {@code null} sein
+     *
+     * @param entfernen Bei inkrementellem Import nicht mehr enthaltene Zitate löschen?
+     *
+     * @return Status des eingereihten Jobs
+     *
+     * @throws ZitateException Zu viele Jobs warten schon
+     *
+     * @throws DateiZuGrossException Datei ist größer als erlaubt
+     *
+     * @throws IOException Fehler beim Empfangen oder Schreiben der temporären Datei
+     */
+    public ImportJobStatus hochgeladeneDateiImportieren( InputStream eingabe,
+                                                         String      dateiname,
+                                                         boolean     entfernen )
+                                                                throws ZitateException, DateiZuGrossException,
+                                                                       IOException {
+
+        warteschlangePruefen(); // vor dem Kopieren, damit keine Datei umsonst empfangen wird
+
+        Files.createDirectories( _uploadVerzeichnis );
+        final Path datei = Files.createTempFile( _uploadVerzeichnis, "zitate-upload-", ".txt" );
+
+        final long groesse;
+        try {
+
+            groesse = zwischenspeichern( eingabe, datei );
+        }
+        catch ( IOException | DateiZuGrossException ex ) {
+
+            Files.deleteIfExists( datei );
+            throw ex;
+        }
+
+        return temporaereDateiEinreihen( datei, groesse, dateiname, entfernen );
+    }
+
+
+    /**
+     * Überträgt eine hochgeladene Datei, die der Servlet-Container schon auf der Festplatte
+     * abgelegt hat (Formular-Upload), in das Upload-Verzeichnis und reiht den Import als
+     * Job ein. Im Gegensatz zu {@link #hochgeladeneDateiImportieren(InputStream, String, boolean)}
+     * wird die Datei nicht noch einmal kopiert, sondern nur verschoben (sofern sie auf
+     * demselben Dateisystem liegt).
+     *
+     * @param uebertragung Überträgt die Datei in die übergebene temporäre Datei, z.B.
+     *                     mit {@code MultipartFile.transferTo()}
+     *
+     * @param groesse Größe der Datei in Bytes
+     *
+     * @param dateiname Name der Datei (nur für Status und Log), kann {@code null} sein
+     *
+     * @param entfernen Bei inkrementellem Import nicht mehr enthaltene Zitate löschen?
+     *
+     * @return Status des eingereihten Jobs
+     *
+     * @throws ZitateException Zu viele Jobs warten schon
+     *
+     * @throws DateiZuGrossException Datei ist größer als erlaubt
+     *
+     * @throws IOException Fehler beim Übertragen der Datei
+     */
+    public ImportJobStatus hochgeladeneDateiImportieren( DateiUebertragung uebertragung,
+                                                         long              groesse,
+                                                         String            dateiname,
+                                                         boolean           entfernen )
+                                                                throws ZitateException, DateiZuGrossException,
+                                                                       IOException {
+        if ( groesse > _maxUploadBytes ) {
+
+            throw new DateiZuGrossException( "Zitatdatei ist größer als " + _maxUploadBytes + " Bytes." );
+        }
+
+        warteschlangePruefen();
+
+        Files.createDirectories( _uploadVerzeichnis );
+        final Path datei = Files.createTempFile( _uploadVerzeichnis, "zitate-upload-", ".txt" ).toAbsolutePath().normalize();
+
+        try {
+
+            uebertragung.uebertragen( datei );
+        }
+        catch ( IOException ex ) {
+
+            Files.deleteIfExists( datei );
+            throw ex;
+        }
+
+        return temporaereDateiEinreihen( datei, groesse, dateiname, entfernen );
+    }
+
+
+    /**
+     * Import einer empfangenen temporären Datei als Job einreihen; kann der Job nicht
+     * eingereiht werden, dann wird die Datei gelöscht.
+     *
+     * @param datei Temporäre Datei im Upload-Verzeichnis
+     *
+     * @param groesse Größe der Datei in Bytes
+     *
+     * @param dateiname Name der hochgeladenen Datei, kann {@code null} sein
+     *
+     * @param entfernen Bei inkrementellem Import nicht mehr enthaltene Zitate löschen?
+     *
+     * @return Status des eingereihten Jobs
+     *
+     * @throws ZitateException Zu viele Jobs warten schon
+     *
+     * @throws IOException Fehler beim Löschen der Datei
+     */
+    private ImportJobStatus temporaereDateiEinreihen( Path datei, long groesse, String dateiname, boolean entfernen )
+                                                             throws ZitateException, IOException {
+
+        final String quelle = dateiname == null || dateiname.isBlank() ? "upload" : dateiname;
+
+        LOG.info( "Hochgeladene Zitatdatei \"{}\" mit {} Bytes nach {} übertragen.", quelle, groesse, datei );
+
+        try {
+
+            return einreihen( new Job( _jobZaehler.incrementAndGet(), quelle, groesse,
+                                       () -> Files.newInputStream( datei ), datei, entfernen ) );
+        }
+        catch ( ZitateException ex ) {
+
+            Files.deleteIfExists( datei );
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Status eines Jobs abfragen.
+     *
+     * @param id ID des Jobs
+     *
+     * @return Status, oder leer wenn es keinen (nicht zu alten) Job mit dieser ID gibt
+     */
+    public Optional<ImportJobStatus> getStatus( long id ) {
+
+        _jobsSperre.lock();
+        try {
+
+            return Optional.ofNullable( _jobs.get( id ) ).map( Job::status );
+        }
+        finally {
+
+            _jobsSperre.unlock();
+        }
+    }
+
+
+    /**
+     * Status aller bekannten Jobs abfragen.
+     *
+     * @return Liste mit Status, neuester Job zuerst
+     */
+    public List<ImportJobStatus> getAlleStatus() {
+
+        _jobsSperre.lock();
+        try {
+
+            final List<ImportJobStatus> ergebnis = new ArrayList<>( _jobs.size() );
+            _jobs.values().forEach( job -> ergebnis.add( 0, job.status() ) );
+            return ergebnis;
+        }
+        finally {
+
+            _jobsSperre.unlock();
+        }
+    }
+
+
+    /**
+     * Prüft, ob noch ein Job eingereiht werden darf.
+     *
+     * @throws ZitateException Es warten schon {@link #_maxWartendeJobs} Jobs
+     */
+    private void warteschlangePruefen() throws ZitateException {
+
+        _jobsSperre.lock();
+        try {
+
+            final long anzahlWartend = _jobs.values().stream()
+                                            .filter( job -> job.zustand == Zustand.WARTEND )
+                                            .count();
+            if ( anzahlWartend >= _maxWartendeJobs ) {
+
+                throw new ZitateException( "Es warten schon " + anzahlWartend + " Import-Jobs, bitte später erneut versuchen." );
+            }
+        }
+        finally {
+
+            _jobsSperre.unlock();
+        }
+    }
+
+
+    /**
+     * Job in Liste aufnehmen und an den Import-Thread übergeben; alte beendete Jobs
+     * werden aus der Liste entfernt.
+     *
+     * @param job Neuer Job
+     *
+     * @return Status des Jobs
+     *
+     * @throws ZitateException Zu viele Jobs warten schon
+     */
+    private ImportJobStatus einreihen( Job job ) throws ZitateException {
+
+        _jobsSperre.lock();
+        try {
+
+            warteschlangePruefen();
+
+            _jobs.put( job.id, job );
+
+            final Iterator<Job> iterator = _jobs.values().iterator();
+            while ( _jobs.size() > MAX_JOBS_IN_LISTE && iterator.hasNext() ) {
+
+                final Zustand zustand = iterator.next().zustand;
+                if ( zustand == Zustand.FERTIG || zustand == Zustand.FEHLER ) {
+
+                    iterator.remove();
+                }
+            }
+        }
+        finally {
+
+            _jobsSperre.unlock();
+        }
+
+        _executor.execute( () -> jobAusfuehren( job ) );
+
+        LOG.info( "Import-Job {} für \"{}\" eingereiht.", job.id, job.quelle );
+
+        return job.status();
+    }
+
+
+    /**
+     * Kopiert {@code eingabe} in {@code datei}, bricht aber ab, sobald mehr als
+     * {@link #_maxUploadBytes} Bytes gelesen wurden.
+     *
+     * @param eingabe Stream mit Inhalt der hochgeladenen Datei
+     *
+     * @param datei Temporäre Datei
+     *
+     * @return Anzahl kopierter Bytes
+     *
+     * @throws DateiZuGrossException Datei ist größer als erlaubt
+     *
+     * @throws IOException Fehler beim Lesen oder Schreiben
+     */
+    private long zwischenspeichern( InputStream eingabe, Path datei ) throws DateiZuGrossException, IOException {
+
+        final byte[] puffer = new byte[ 64 * 1024 ];
+        long anzahlBytes = 0;
+
+        try ( OutputStream ausgabe = Files.newOutputStream( datei ) ) {
+
+            int anzahl;
+            while ( ( anzahl = eingabe.read( puffer ) ) >= 0 ) {
+
+                anzahlBytes += anzahl;
+                if ( anzahlBytes > _maxUploadBytes ) {
+
+                    throw new DateiZuGrossException( "Zitatdatei ist größer als " + _maxUploadBytes + " Bytes." );
+                }
+                ausgabe.write( puffer, 0, anzahl );
+            }
+        }
+
+        return anzahlBytes;
+    }
+
+
+    /**
+     * Führt einen Job im Import-Thread aus; Fehler werden im Job vermerkt. Ein
+     * {@link Error} (z.B. {@link OutOfMemoryError}) wird danach weitergeworfen, weil
+     * die Anwendung dann nicht mehr in einem sicheren Zustand ist. Eine temporäre Datei
+     * wird am Ende in jedem Fall gelöscht.
+     *
+     * @param job Auszuführender Job
+     */
+    private void jobAusfuehren( Job job ) {
+
+        job.startNanos = System.nanoTime();
+        job.zustand    = Zustand.LAEUFT;
+
+        try ( InputStream eingabe = job.oeffner.oeffnen();
+              BufferedReader reader = new BufferedReader(
+                      new InputStreamReader( new ZaehlenderInputStream( eingabe, job.bytesGelesen ), UTF_8 ),
+                      64 * 1024 ) ) {
+
+            if ( _zitateRepo.count() == 0 ) {
+
+                job.modus = "voll";
+                final long anzahl = _importer.importiere( reader, job.zitateGeschrieben::set );
+                job.ergebnis = new ImportErgebnis( anzahl, anzahl, 0, 0 );
+
+            } else {
+
+                job.modus = "inkrementell";
+                job.ergebnis = _importer.importiereInkrementell( reader, job.entfernen, job.zitateGeschrieben::set );
+            }
+
+            job.endeNanos = System.nanoTime();
+            job.zustand   = Zustand.FERTIG;
+
+            LOG.info( "Import-Job {} für \"{}\" fertig: {} Zitate eingefügt in {} ms.",
+                      job.id, job.quelle, job.zitateGeschrieben.get(), job.dauerMillis() );
+        }
+        catch ( Exception ex ) {
+
+            if ( ex instanceof InterruptedException ) {
+
+                Thread.currentThread().interrupt();
+            }
+
+            fehlerVermerken( job, ex );
+        }
+        catch ( Error err ) {
+
+            fehlerVermerken( job, err );
+            throw err;
+        }
+        finally {
+
+            if ( job.temporaereDatei != null ) {
+
+                try {
+
+                    Files.deleteIfExists( job.temporaereDatei );
+                }
+                catch ( IOException ex ) {
+
+                    LOG.warn( "Temporäre Datei {} konnte nicht gelöscht werden.", job.temporaereDatei, ex );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Job als fehlgeschlagen markieren und Fehler loggen.
+     *
+     * @param job Abgebrochener Job
+     *
+     * @param fehler Ursache des Abbruchs
+     */
+    private static void fehlerVermerken( Job job, Throwable fehler ) {
+
+        job.fehler    = fehler;
+        job.endeNanos = System.nanoTime();
+        job.zustand   = Zustand.FEHLER;
+
+        LOG.error( "Import-Job {} für \"{}\" mit Fehler abgebrochen.", job.id, job.quelle, fehler );
+    }
+
+
+    /**
+     * Überträgt eine hochgeladene Datei in eine temporäre Datei, siehe
+     * {@link ImportJobService#hochgeladeneDateiImportieren(DateiUebertragung, long, String, boolean)}.
+     */
+    @FunctionalInterface
+    public interface DateiUebertragung {
+
+        /**
+         * Datei übertragen.
+         *
+         * @param ziel Temporäre Datei (absoluter Pfad), die schon existiert und
+         *             überschrieben werden soll
+         *
+         * @throws IOException Fehler beim Übertragen
+         */
+        void uebertragen( Path ziel ) throws IOException;
+    }
+
+
+    /**
+     * Öffnet den Stream mit dem Inhalt der zu importierenden Datei.
+     */
+    @FunctionalInterface
+    private interface EingabeOeffner {
+
+        InputStream oeffnen() throws IOException;
+    }
+
+
+    /**
+     * Zustand eines Import-Jobs, wird vom Import-Thread aktualisiert und von
+     * Request-Threads gelesen.
+     */
+    private static class Job {
+
+        final long id;
+        final String quelle;
+        final long bytesGesamt;
+        final EingabeOeffner oeffner;
+        final Path temporaereDatei;
+        final boolean entfernen;
+
+        volatile Zustand zustand = Zustand.WARTEND;
+        volatile String modus = null;
+
+        volatile long startNanos = 0;
+        volatile long endeNanos  = 0;
+
+        final AtomicLong bytesGelesen      = new AtomicLong( 0 );
+        final AtomicLong zitateGeschrieben = new AtomicLong( 0 );
+
+        volatile ImportErgebnis ergebnis = null;
+        volatile Throwable      fehler   = null;
+
+        Job( long id, String quelle, long bytesGesamt, EingabeOeffner oeffner,
+             Path temporaereDatei, boolean entfernen ) {
+
+            this.id              = id;
+            this.quelle          = quelle;
+            this.bytesGesamt     = bytesGesamt;
+            this.oeffner         = oeffner;
+            this.temporaereDatei = temporaereDatei;
+            this.entfernen       = entfernen;
+        }
+
+        long dauerMillis() {
+
+            if ( startNanos == 0 ) {
+
+                return 0;
+            }
+
+            final long ende = endeNanos == 0 ? System.nanoTime() : endeNanos;
+
+            return ( ende - startNanos ) / 1_000_000;
+        }
+
+        ImportJobStatus status() {
+
+            final long dauer       = dauerMillis();
+            final long gelesen     = bytesGelesen.get();
+            final long geschrieben = zitateGeschrieben.get();
+
+            final int prozent = bytesGesamt > 0 ? (int) Math.min( 100, gelesen * 100 / bytesGesamt ) : -1;
+
+            final Throwable ex = fehler;
+
+            return new ImportJobStatus( id, zustand, quelle, modus, bytesGesamt, gelesen, prozent,
+                                        geschrieben, dauer, geschrieben * 1000 / Math.max( 1, dauer ),
+                                        ergebnis,
+                                        ex == null ? null : ex.getMessage() );
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+
+/**
+ * Momentaufnahme eines Import-Jobs, wird vom Admin-REST-Endpunkt als JSON
+ * zurückgeliefert.
+ *
+ * @param id Laufende Nummer des Jobs (seit Start der Anwendung)
+ *
+ * @param zustand Zustand des Jobs
+ *
+ * @param quelle Name der hochgeladenen Datei bzw. Pfad der Ressourcen-Datei
+ *
+ * @param modus "voll" (Datenbank war leer) oder "inkrementell"; {@code null} solange
+ *              der Job noch wartet
+ *
+ * @param bytesGesamt Größe der Datei in Bytes; -1 wenn unbekannt
+ *
+ * @param bytesGelesen Anzahl bisher gelesener Bytes
+ *
+ * @param fortschrittProzent Anteil gelesener Bytes in Prozent; -1 wenn Größe unbekannt
+ *
+ * @param zitateGeschrieben Anzahl bisher eingefügter Zitate
+ *
+ * @param dauerMillis Bisherige Laufzeit in Millisekunden (bzw. Gesamtlaufzeit, wenn beendet)
+ *
+ * @param zitateProSekunde Durchsatz beim Einfügen
+ *
+ * @param ergebnis Ergebnis, wenn {@code zustand} gleich {@link Zustand#FERTIG} ist,
+ *                 sonst {@code null}
+ *
+ * @param fehlermeldung Fehlermeldung, wenn {@code zustand} gleich {@link Zustand#FEHLER}
+ *                      ist, sonst {@code null}
+ */
+public record ImportJobStatus( long           id,
+                               Zustand        zustand,
+                               String         quelle,
+                               String         modus,
+                               long           bytesGesamt,
+                               long           bytesGelesen,
+                               int            fortschrittProzent,
+                               long           zitateGeschrieben,
+                               long           dauerMillis,
+                               long           zitateProSekunde,
+                               ImportErgebnis ergebnis,
+                               String         fehlermeldung ) {
+
+    /**
+     * Zustände eines Import-Jobs.
+     */
+    public enum Zustand {
+
+        /** Job wartet, bis vorher eingereihte Jobs fertig sind. */
+        WARTEND,
+
+        /** Job läuft gerade. */
+        LAEUFT,
+
+        /** Job wurde erfolgreich beendet. */
+        FERTIG,
+
+        /** Job wurde mit Fehler abgebrochen. */
+        FEHLER
+    }
+
+}
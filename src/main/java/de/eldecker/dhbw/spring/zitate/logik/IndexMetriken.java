@@ -0,0 +1,130 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.INDEX_DOKUMENTE;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.INDEX_GROESSE;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.INDEX_SEGMENTE;
+
+import java.io.IOException;
+import java.util.function.ToIntFunction;
+
+import org.apache.lucene.index.IndexReader;
+import org.hibernate.search.backend.lucene.LuceneExtension;
+import org.hibernate.search.backend.lucene.index.LuceneIndexManager;
+import org.hibernate.search.backend.lucene.scope.LuceneIndexScope;
+import org.hibernate.search.mapper.orm.Search;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Gauges für den Lucene-Index der Zitate: Größe auf der Festplatte, Anzahl Dokumente
+ * und Anzahl Segmente. Spring Boot registriert Beans vom Typ {@link MeterBinder}
+ * automatisch bei der {@link MeterRegistry}.
+ * <br><br>
+ *
+ * Die Werte werden erst beim Abruf der Metriken (z.B. durch Prometheus) ermittelt;
+ * hierfür wird jeweils ein {@link IndexReader} geöffnet. Solange Hibernate Search
+ * noch nicht bereit ist oder ein Fehler auftritt, wird {@code NaN} geliefert.
+ */
+@Component
+public class IndexMetriken implements MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger( IndexMetriken.class );
+
+    /** Für Zugriff auf das Hibernate-Search-Mapping (unabhängig von einer Session). */
+    private final EntityManagerFactory _entityManagerFactory;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public IndexMetriken( EntityManagerFactory entityManagerFactory ) {
+
+        _entityManagerFactory = entityManagerFactory;
+    }
+
+
+    /**
+     * Gauges bei der Registry anmelden.
+     *
+     * @param registry Registry für Metriken
+     */
+    @Override
+    public void bindTo( MeterRegistry registry ) {
+
+        Gauge.builder( INDEX_GROESSE, this, IndexMetriken::groesseBytes )
+             .description( "Größe des Lucene-Index für Zitate" )
+             .baseUnit( BaseUnits.BYTES )
+             .register( registry );
+
+        Gauge.builder( INDEX_DOKUMENTE, this, metriken -> metriken.ausIndexReader( IndexReader::numDocs ) )
+             .description( "Anzahl Dokumente (ohne gelöschte) im Lucene-Index für Zitate" )
+             .register( registry );
+
+        Gauge.builder( INDEX_SEGMENTE, this, metriken -> metriken.ausIndexReader( reader -> reader.leaves().size() ) )
+             .description( "Anzahl Segmente im Lucene-Index für Zitate" )
+             .register( registry );
+    }
+
+
+    /**
+     * Größe des Index auf der Festplatte (bzw. im Heap bei {@code local-heap}).
+     *
+     * @return Größe in Bytes, oder {@code NaN} bei Fehler
+     */
+    private double groesseBytes() {
+
+        try {
+
+            return Search.mapping( _entityManagerFactory )
+                         .indexedEntity( ZitatEntity.class )
+                         .indexManager()
+                         .unwrap( LuceneIndexManager.class )
+                         .computeSizeInBytes();
+        }
+        catch ( RuntimeException ex ) {
+
+            LOG.debug( "Größe des Lucene-Index konnte nicht ermittelt werden.", ex );
+            return Double.NaN;
+        }
+    }
+
+
+    /**
+     * Öffnet einen {@link IndexReader} für den Index und ermittelt damit einen Wert.
+     *
+     * @param funktion Liefert den Wert für einen Reader
+     *
+     * @return Wert, oder {@code NaN} bei Fehler
+     */
+    private double ausIndexReader( ToIntFunction<IndexReader> funktion ) {
+
+        try {
+
+            final LuceneIndexScope scope = Search.mapping( _entityManagerFactory )
+                                                 .scope( ZitatEntity.class )
+                                                 .extension( LuceneExtension.get() );
+
+            try ( IndexReader reader = scope.openIndexReader() ) {
+
+                return funktion.applyAsInt( reader );
+            }
+        }
+        catch ( IOException | RuntimeException ex ) {
+
+            LOG.debug( "Wert aus Lucene-Index konnte nicht ermittelt werden.", ex );
+            return Double.NaN;
+        }
+    }
+
+}
@@ -0,0 +1,522 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.CLUSTER_RUECKSTAND;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.CLUSTER_VERZOEGERUNG;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.IndexAenderungEntity;
+import de.eldecker.dhbw.spring.zitate.db.IndexAenderungenProtokollierer;
+import de.eldecker.dhbw.spring.zitate.db.IndexAenderungenRepo;
+import de.eldecker.dhbw.spring.zitate.db.IndexKnotenEntity;
+import de.eldecker.dhbw.spring.zitate.db.IndexKnotenRepo;
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitatShardKonfigurator;
+import de.eldecker.dhbw.spring.zitate.db.ZitateAenderungsZaehler;
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Übernimmt im Cluster-Modus ({@code zitate.cluster.aktiv=true}) die Änderungen anderer
+ * Knoten an Zitaten in den lokalen Lucene-Index. Alle Knoten verwenden dieselbe
+ * Datenbank (z.B. H2-Server über TCP), jeder Knoten hat aber seinen eigenen Index, in
+ * den Hibernate Search nur die auf diesem Knoten geschriebenen Änderungen automatisch
+ * übernimmt.
+ * <br><br>
+ *
+ * Ein eigener Thread fragt alle {@code zitate.cluster.abfrage-intervall-ms} die Tabelle
+ * {@code Index_Aenderungen} (siehe {@link IndexAenderungenProtokollierer}) nach neuen
+ * Änderungen ab, lädt die betroffenen Zitate und aktualisiert ihre Dokumente im Index
+ * bzw. entfernt die Dokumente gelöschter Zitate. Änderungen, die dieser Knoten selbst
+ * geschrieben hat, werden übersprungen. Die Position (ID der letzten verarbeiteten
+ * Änderung) wird in der Tabelle {@code Index_Knoten} gespeichert, damit der Knoten nach
+ * einem Neustart dort weitermacht.
+ * <br><br>
+ *
+ * Die IDs werden beim Einfügen vergeben, eine Transaktion mit kleinerer ID kann aber nach
+ * einer mit größerer ID committen und würde sonst übersprungen. Änderungen werden deshalb
+ * nur bis zur ersten Lücke in den IDs übernommen. Eine Lücke wird erst übersprungen, wenn
+ * dieser Knoten sie länger als {@code zitate.cluster.sicherheitsabstand-ms} sieht (dann
+ * wurde die Transaktion zurückgerollt oder die Datenbank hat IDs ausgelassen). Diese Zeit
+ * wird mit der Uhr dieses Knotens gemessen, die Zeitstempel der anderen Knoten werden dafür
+ * nicht verwendet; eine Abweichung der Uhren spielt also keine Rolle. Der Abstand muss
+ * größer sein als die Zeit zwischen Einfügen und Commit.
+ * <br><br>
+ *
+ * Der lokale Index wird beim Start mit dem {@link MassenIndizierer} neu aufgebaut, wenn der
+ * Knoten noch keine Position hat, seine Position älter als die Aufbewahrungsdauer der
+ * Änderungen ist oder der Index leer ist, obwohl es Zitate gibt. Änderungen, die alle
+ * aktiven Knoten verarbeitet haben, werden regelmäßig gelöscht.
+ * <br><br>
+ *
+ * Ist der Index auf Shards aufgeteilt, dann hat jeder Knoten alle Shards; eine Aufteilung
+ * der Shards auf die Knoten würde bedeuten, dass eine Suche auf einem Knoten nur einen
+ * Teil der Zitate findet.
+ * <br><br>
+ *
+ * Metriken: Timer {@code zitate.cluster.verzoegerung} (Commit auf anderem Knoten bis
+ * Übernahme in den lokalen Index) und Gauge {@code zitate.cluster.rueckstand}.
+ */
+@Service
+public class IndexSynchronisierer implements ApplicationRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger( IndexSynchronisierer.class );
+
+    /** Nach so vielen Abfragen werden verarbeitete Änderungen gelöscht. */
+    private static final int AUFRAEUMEN_NACH_ABFRAGEN = 100;
+
+    /** Protokolliert die eigenen Änderungen, liefert Kennung des Knotens. */
+    private final IndexAenderungenProtokollierer _protokollierer;
+
+    /** Repo für Tabelle mit den Änderungen. */
+    private final IndexAenderungenRepo _aenderungenRepo;
+
+    /** Repo für Tabelle mit den Positionen der Knoten. */
+    private final IndexKnotenRepo _knotenRepo;
+
+    /** Repo zum Laden der geänderten Zitate. */
+    private final ZitateRepo _zitateRepo;
+
+    /** Für Indizierungsplan von Hibernate Search. */
+    private final EntityManager _entityManager;
+
+    /** Für Entfernen geänderter Zitate aus dem Second-Level-Cache. */
+    private final EntityManagerFactory _entityManagerFactory;
+
+    /** Für Routing-Key beim Entfernen gelöschter Zitate aus einem aufgeteilten Index. */
+    private final ZitatShardKonfigurator _shardKonfigurator;
+
+    /** Für Neuaufbau des Index beim Start. */
+    private final MassenIndizierer _massenIndizierer;
+
+    /** Wird nach Übernahme von Änderungen hochgezählt (Such-Cache, Zufallszitate). */
+    private final ZitateAenderungsZaehler _aenderungsZaehler;
+
+    /** Transaktion für Abfrage und Übernahme eines Blocks von Änderungen. */
+    private final TransactionTemplate _transaktion;
+
+    /** Timer für Verzögerung bis zur Übernahme. */
+    private final Timer _verzoegerungTimer;
+
+    /** Pause zwischen zwei Abfragen. */
+    private final long _abfrageIntervallMillis;
+
+    /** Eine Lücke in den IDs erst überspringen, wenn sie so lange besteht. */
+    private final long _sicherheitsabstandMillis;
+
+    /** Max. Anzahl Änderungen pro Transaktion. */
+    private final int _batchGroesse;
+
+    /** Verarbeitete Änderungen so lange aufbewahren; Knoten ohne Abfrage in dieser Zeit gelten als ausgefallen. */
+    private final Duration _aufbewahrung;
+
+    /** ID der letzten verarbeiteten Änderung; wird nur vom Abfrage-Thread geschrieben. */
+    private volatile long _position = 0;
+
+    /** Anzahl noch nicht verarbeiteter Änderungen nach der letzten Abfrage. */
+    private final AtomicLong _rueckstand = new AtomicLong( 0 );
+
+    /** Zähler für Abfragen, zum Auslösen des Aufräumens. */
+    private long _anzahlAbfragen = 0;
+
+    /** Erste fehlende ID nach der Position, auf deren Commit gewartet wird; 0 wenn keine. */
+    private long _lueckeId = 0;
+
+    /** Seit wann ({@link System#nanoTime()}) auf {@link #_lueckeId} gewartet wird. */
+    private long _lueckeSeitNanos = 0;
+
+    /** Thread für die Abfragen, nur im Cluster-Modus. */
+    private ScheduledExecutorService _executor = null;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public IndexSynchronisierer( IndexAenderungenProtokollierer protokollierer,
+                                 IndexAenderungenRepo           aenderungenRepo,
+                                 IndexKnotenRepo                knotenRepo,
+                                 ZitateRepo                     zitateRepo,
+                                 EntityManager                  entityManager,
+                                 EntityManagerFactory           entityManagerFactory,
+                                 ZitatShardKonfigurator         shardKonfigurator,
+                                 MassenIndizierer               massenIndizierer,
+                                 ZitateAenderungsZaehler        aenderungsZaehler,
+                                 PlatformTransactionManager     transactionManager,
+                                 MeterRegistry                  meterRegistry,
+                                 @Value( "${zitate.cluster.abfrage-intervall-ms:500}"    ) long abfrageIntervallMillis,
+                                 @Value( "${zitate.cluster.sicherheitsabstand-ms:500}"   ) long sicherheitsabstandMillis,
+                                 @Value( "${zitate.cluster.batchgroesse:500}"            ) int  batchGroesse,
+                                 @Value( "${zitate.cluster.aufbewahrung-stunden:24}"     ) long aufbewahrungStunden ) {
+
+        _protokollierer           = protokollierer;
+        _aenderungenRepo          = aenderungenRepo;
+        _knotenRepo               = knotenRepo;
+        _zitateRepo               = zitateRepo;
+        _entityManager            = entityManager;
+        _entityManagerFactory     = entityManagerFactory;
+        _shardKonfigurator        = shardKonfigurator;
+        _massenIndizierer         = massenIndizierer;
+        _aenderungsZaehler        = aenderungsZaehler;
+        _transaktion              = new TransactionTemplate( transactionManager );
+        _abfrageIntervallMillis   = abfrageIntervallMillis;
+        _sicherheitsabstandMillis = sicherheitsabstandMillis;
+        _batchGroesse             = batchGroesse;
+        _aufbewahrung             = Duration.ofHours( aufbewahrungStunden );
+
+        _verzoegerungTimer = Timer.builder( CLUSTER_VERZOEGERUNG )
+                                  .description( "Verzögerung vom Commit auf anderem Knoten bis zur Übernahme in den lokalen Index" )
+                                  .register( meterRegistry );
+
+        Gauge.builder( CLUSTER_RUECKSTAND, _rueckstand, AtomicLong::get )
+             .description( "Anzahl protokollierter Änderungen, die dieser Knoten noch nicht verarbeitet hat" )
+             .register( meterRegistry );
+    }
+
+
+    /**
+     * Startet im Cluster-Modus den Thread für die Abfragen; der erste Auftrag prüft,
+     * ob der lokale Index neu aufgebaut werden muss. Der Start der Anwendung wartet
+     * nicht darauf.
+     *
+     * @param args Wird nicht ausgewertet
+     */
+    @Override
+    public void run( ApplicationArguments args ) {
+
+        if ( !_protokollierer.isAktiv() ) {
+
+            return;
+        }
+
+        _executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+
+            final Thread thread = new Thread( runnable, "zitate-index-sync" );
+            thread.setDaemon( true );
+            return thread;
+        });
+
+        _executor.execute( this::positionBestimmen );
+        _executor.scheduleWithFixedDelay( this::abfragen,
+                                          _abfrageIntervallMillis, _abfrageIntervallMillis, MILLISECONDS );
+
+        LOG.info( "Index-Synchronisation für Knoten \"{}\" gestartet, Abfrage alle {} ms.",
+                  _protokollierer.getKnoten(), _abfrageIntervallMillis );
+    }
+
+
+    /**
+     * Thread für Abfragen beim Herunterfahren beenden, bevor die {@code EntityManagerFactory}
+     * geschlossen wird.
+     *
+     * @throws InterruptedException Beim Warten auf das Ende einer laufenden Abfrage unterbrochen
+     */
+    @PreDestroy
+    public void beenden() throws InterruptedException {
+
+        if ( _executor != null ) {
+
+            _executor.shutdownNow();
+            _executor.awaitTermination( 10, SECONDS );
+        }
+    }
+
+
+    /**
+     * Getter für Position dieses Knotens.
+     *
+     * @return ID der letzten verarbeiteten Änderung
+     */
+    public long getPosition() {
+
+        return _position;
+    }
+
+
+    /**
+     * Bestimmt beim Start die Position dieses Knotens und baut den lokalen Index
+     * neu auf, wenn er nicht auf dem Stand der gespeicherten Position sein kann.
+     * Die Position wird vor dem Neuaufbau gesetzt; Änderungen, die währenddessen
+     * geschrieben werden, werden danach ein zweites Mal übernommen.
+     */
+    private void positionBestimmen() {
+
+        final String knoten = _protokollierer.getKnoten();
+        try {
+
+            final Optional<IndexKnotenEntity> eintrag = _knotenRepo.findById( knoten );
+
+            final boolean positionGueltig = eintrag.isPresent() &&
+                                            eintrag.get().getAktualisiert().isAfter( Instant.now().minus( _aufbewahrung ) );
+
+            if ( positionGueltig && !indexLeerTrotzZitaten() ) {
+
+                _position = eintrag.get().getLetzteAenderung();
+                LOG.info( "Knoten \"{}\" setzt Index-Synchronisation nach Änderung {} fort.", knoten, _position );
+                return;
+            }
+
+            final long maxId = _aenderungenRepo.findMaxId();
+            _knotenRepo.save( new IndexKnotenEntity( knoten, maxId, Instant.now() ) );
+            _position = maxId;
+
+            LOG.info( "Knoten \"{}\" baut lokalen Index neu auf, danach Synchronisation ab Änderung {}.", knoten, maxId );
+            _massenIndizierer.indexNeuAufbauen( _zitateRepo.count() );
+        }
+        catch ( InterruptedException ex ) {
+
+            Thread.currentThread().interrupt();
+        }
+        catch ( RuntimeException ex ) {
+
+            LOG.error( "Position für Index-Synchronisation konnte nicht bestimmt werden.", ex );
+        }
+    }
+
+
+    /**
+     * Prüft, ob der lokale Index leer ist, obwohl es Zitate in der Datenbank gibt
+     * (z.B. Index-Verzeichnis gelöscht oder Index im Heap).
+     *
+     * @return {@code true}, wenn der Index neu aufgebaut werden muss
+     */
+    private boolean indexLeerTrotzZitaten() {
+
+        return _massenIndizierer.anzahlDokumente() == 0 && _zitateRepo.count() > 0;
+    }
+
+
+    /**
+     * Eine Abfrage: verarbeitet alle neuen Änderungen in Blöcken und räumt gelegentlich
+     * auf. Fehler werden nur geloggt, damit der Thread weiter abfragt.
+     */
+    private void abfragen() {
+
+        try {
+
+            int anzahl;
+            do {
+
+                anzahl = naechstenBlockVerarbeiten();
+            }
+            while ( anzahl == _batchGroesse );
+
+            _rueckstand.set( _aenderungenRepo.countByIdGreaterThan( _position ) );
+
+            if ( ++_anzahlAbfragen % AUFRAEUMEN_NACH_ABFRAGEN == 0 ) {
+
+                aufraeumen();
+            }
+        }
+        catch ( RuntimeException ex ) {
+
+            LOG.error( "Fehler bei Index-Synchronisation, nächster Versuch in {} ms.", _abfrageIntervallMillis, ex );
+        }
+    }
+
+
+    /**
+     * Verarbeitet den nächsten Block von Änderungen in einer Transaktion: die Dokumente
+     * werden beim Commit geschrieben, danach wird die neue Position übernommen. Der Block
+     * endet vor der ersten Lücke in den IDs, siehe {@link #bisZurLuecke(List)}.
+     *
+     * @return Anzahl verarbeiteter Änderungen (inkl. eigener)
+     */
+    private int naechstenBlockVerarbeiten() {
+
+        final String knoten = _protokollierer.getKnoten();
+
+        final List<IndexAenderungEntity> aenderungen = _transaktion.execute( status -> {
+
+            final List<IndexAenderungEntity> block =
+                    bisZurLuecke( _aenderungenRepo.findByIdGreaterThanOrderByIdAsc( _position,
+                                                                                    Limit.of( _batchGroesse ) ) );
+            if ( block.isEmpty() ) {
+
+                return block;
+            }
+
+            final Set<Long> zitatIds = new LinkedHashSet<>();
+            for ( IndexAenderungEntity aenderung : block ) {
+
+                if ( !knoten.equals( aenderung.getKnoten() ) ) {
+
+                    zitatIds.add( aenderung.getZitatId() );
+                }
+            }
+            if ( !zitatIds.isEmpty() ) {
+
+                indexAktualisieren( zitatIds );
+            }
+
+            _knotenRepo.save( new IndexKnotenEntity( knoten, block.get( block.size() - 1 ).getId(), Instant.now() ) );
+
+            return block;
+        });
+
+        if ( aenderungen.isEmpty() ) {
+
+            return 0;
+        }
+
+        _position = aenderungen.get( aenderungen.size() - 1 ).getId();
+
+        final Instant jetzt = Instant.now();
+        boolean fremdeAenderungen = false;
+        for ( IndexAenderungEntity aenderung : aenderungen ) {
+
+            if ( !knoten.equals( aenderung.getKnoten() ) ) {
+
+                _verzoegerungTimer.record( Duration.between( aenderung.getZeitpunkt(), jetzt ) );
+                fremdeAenderungen = true;
+            }
+        }
+        if ( fremdeAenderungen ) {
+
+            _aenderungsZaehler.erhoehen();
+        }
+
+        return aenderungen.size();
+    }
+
+
+    /**
+     * Liefert den Anfang von {@code block}, dessen IDs ohne Lücke an die Position
+     * anschließen. Fehlt eine ID, dann ist die Transaktion mit dieser ID vielleicht noch
+     * nicht committet; die Lücke wird deshalb erst übersprungen, wenn sie seit mindestens
+     * {@link #_sicherheitsabstandMillis} besteht.
+     *
+     * @param block Nächste Änderungen nach der Position, aufsteigend nach ID
+     *
+     * @return Änderungen bis vor die erste (noch nicht abgelaufene) Lücke
+     */
+    private List<IndexAenderungEntity> bisZurLuecke( List<IndexAenderungEntity> block ) {
+
+        long erwarteteId = _position + 1;
+        for ( int i = 0; i < block.size(); i++ ) {
+
+            final long id = block.get( i ).getId();
+            if ( id != erwarteteId && !lueckeAbgelaufen( erwarteteId ) ) {
+
+                return block.subList( 0, i );
+            }
+            erwarteteId = id + 1;
+        }
+
+        return block;
+    }
+
+
+    /**
+     * Prüft, ob die Lücke ab {@code ersteFehlendeId} übersprungen werden darf; beim ersten
+     * Aufruf für eine Lücke beginnt die Wartezeit.
+     *
+     * @param ersteFehlendeId Kleinste fehlende ID
+     *
+     * @return {@code true}, wenn die Lücke seit mindestens {@link #_sicherheitsabstandMillis} besteht
+     */
+    private boolean lueckeAbgelaufen( long ersteFehlendeId ) {
+
+        final long jetzt = System.nanoTime();
+        if ( _lueckeId != ersteFehlendeId ) {
+
+            _lueckeId        = ersteFehlendeId;
+            _lueckeSeitNanos = jetzt;
+            return false;
+        }
+
+        if ( jetzt - _lueckeSeitNanos < MILLISECONDS.toNanos( _sicherheitsabstandMillis ) ) {
+
+            return false;
+        }
+
+        LOG.debug( "Keine Änderung mit ID {} nach {} ms, Lücke wird übersprungen.", ersteFehlendeId, _sicherheitsabstandMillis );
+        return true;
+    }
+
+
+    /**
+     * Aktualisiert die Dokumente der Zitate mit den angegebenen IDs im lokalen Index;
+     * muss in einer Transaktion aufgerufen werden. Die Zitate werden vorher aus dem
+     * Second-Level-Cache entfernt, damit nicht ein veralteter Stand indiziert wird.
+     *
+     * @param zitatIds IDs der geänderten Zitate; Zitate, die es nicht mehr gibt,
+     *                 werden aus dem Index entfernt
+     */
+    private void indexAktualisieren( Set<Long> zitatIds ) {
+
+        zitatIds.forEach( id -> _entityManagerFactory.getCache().evict( ZitatEntity.class, id ) );
+
+        final SearchIndexingPlan indexingPlan = Search.session( _entityManager ).indexingPlan();
+
+        final Set<Long> gefunden = new HashSet<>();
+        for ( ZitatEntity zitat : _zitateRepo.findAllById( zitatIds ) ) {
+
+            indexingPlan.addOrUpdate( zitat );
+            gefunden.add( zitat.getId() );
+        }
+
+        final boolean mitShards = _shardKonfigurator.getAnzahlShards() > 1;
+        for ( Long id : zitatIds ) {
+
+            if ( !gefunden.contains( id ) ) {
+
+                indexingPlan.purge( ZitatEntity.class, id, mitShards ? _shardKonfigurator.shardFuerId( id ) : null );
+            }
+        }
+    }
+
+
+    /**
+     * Speichert die Position dieses Knotens mit aktuellem Zeitpunkt (auch ohne neue
+     * Änderungen, damit der Knoten weiter als aktiv gilt) und löscht die Änderungen,
+     * die alle aktiven Knoten verarbeitet haben.
+     */
+    private void aufraeumen() {
+
+        _knotenRepo.save( new IndexKnotenEntity( _protokollierer.getKnoten(), _position, Instant.now() ) );
+
+        final Long minPosition = _knotenRepo.findMinLetzteAenderungSeit( Instant.now().minus( _aufbewahrung ) );
+        if ( minPosition == null ) {
+
+            return;
+        }
+
+        final int anzahl = _transaktion.execute( status -> _aenderungenRepo.loescheBis( minPosition ) );
+        if ( anzahl > 0 ) {
+
+            LOG.debug( "{} von allen Knoten verarbeitete Änderungen gelöscht.", anzahl );
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.massindexing.MassIndexer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitateAenderungsZaehler;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Service-Bean, die den Lucene-Index für {@link ZitatEntity} mit dem
+ * <i>Mass Indexer</i> von Hibernate Search komplett neu aufbaut.
+ * <br><br>
+ *
+ * Der Mass Indexer lädt die Entitäten mit mehreren Threads parallel aus der
+ * Datenbank und schreibt die Dokumente in den Index; das ist beim initialen
+ * Laden eines großen Datenbestands viel schneller als die automatische
+ * Indizierung pro Transaktion.
+ */
+@Service
+public class MassenIndizierer {
+
+    private static final Logger LOG = LoggerFactory.getLogger( MassenIndizierer.class );
+
+    /** Für Zugriff auf das Hibernate-Search-Mapping (unabhängig von einer Session). */
+    private final EntityManagerFactory _entityManagerFactory;
+
+    /** Generationszähler, wird nach Neuaufbau des Index hochgezählt (Index hat sich geändert). */
+    private final ZitateAenderungsZaehler _aenderungsZaehler;
+
+    /** Anzahl Threads zum Laden der Entitäten; 0 für Anzahl CPU-Kerne. */
+    private final int _threads;
+
+    /** Anzahl Entitäten, die pro Query geladen werden. */
+    private final int _batchGroesse;
+
+    /** Segmente des Index nach dem Indizieren zu einem Segment zusammenführen? */
+    private final boolean _segmenteAmEndeZusammenfuehren;
+
+    /** Segmente des Index nach dem Löschen der alten Dokumente zusammenführen? */
+    private final boolean _segmenteNachLoeschenZusammenfuehren;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public MassenIndizierer( EntityManagerFactory    entityManagerFactory,
+                             ZitateAenderungsZaehler aenderungsZaehler,
+                             @Value( "${zitate.massenindizierung.threads:0}"                                    ) int     threads,
+                             @Value( "${zitate.massenindizierung.batchgroesse:500}"                             ) int     batchGroesse,
+                             @Value( "${zitate.massenindizierung.segmente-am-ende-zusammenfuehren:true}"        ) boolean segmenteAmEndeZusammenfuehren,
+                             @Value( "${zitate.massenindizierung.segmente-nach-loeschen-zusammenfuehren:false}" ) boolean segmenteNachLoeschenZusammenfuehren ) {
+
+        _entityManagerFactory                = entityManagerFactory;
+        _aenderungsZaehler                   = aenderungsZaehler;
+        _threads                             = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        _batchGroesse                        = batchGroesse;
+        _segmenteAmEndeZusammenfuehren       = segmenteAmEndeZusammenfuehren;
+        _segmenteNachLoeschenZusammenfuehren = segmenteNachLoeschenZusammenfuehren;
+    }
+
+
+    /**
+     * Index für alle Zitate mit den konfigurierten Einstellungen neu aufbauen
+     * und auf das Ende warten. Vorher werden alle Dokumente aus dem Index gelöscht.
+     *
+     * @param anzahlZitate Anzahl der Zitate in der Datenbank (nur für Berechnung
+     *                     des Durchsatzes im Log)
+     *
+     * @throws InterruptedException Thread wurde während des Wartens unterbrochen
+     */
+    public void indexNeuAufbauen( long anzahlZitate ) throws InterruptedException {
+
+        LOG.info( "Starte Mass Indexer für Zitate mit {} Threads und Batchgröße {} ...",
+                  _threads, _batchGroesse );
+
+        final long startNanos = System.nanoTime();
+
+        erzeugeMassIndexer( _threads ).purgeAllOnStart( true )
+                                      .startAndWait();
+
+        _aenderungsZaehler.erhoehen();
+
+        final long millisekunden = Math.max( 1, ( System.nanoTime() - startNanos ) / 1_000_000 );
+
+        LOG.info( "Mass Indexer fertig: {} Zitate in {} ms indiziert ({} Dokumente/s).",
+                  anzahlZitate, millisekunden, anzahlZitate * 1000 / millisekunden );
+    }
+
+
+    /**
+     * Anzahl Dokumente im Index, z.B. um festzustellen, ob ein Index im Heap oder
+     * in einem neuen Verzeichnis noch aufgebaut werden muss.
+     *
+     * @return Anzahl Dokumente (ohne gelöschte)
+     */
+    public long anzahlDokumente() {
+
+        try ( EntityManager entityManager = _entityManagerFactory.createEntityManager() ) {
+
+            return Search.session( entityManager )
+                         .search( ZitatEntity.class )
+                         .where( f -> f.matchAll() )
+                         .fetchTotalHitCount();
+        }
+    }
+
+
+    /**
+     * Erzeugt einen Mass Indexer für {@link ZitatEntity} mit den konfigurierten
+     * Einstellungen für Batchgröße und Zusammenführen von Segmenten.
+     *
+     * @param threads Anzahl Threads zum Laden der Entitäten
+     *
+     * @return Mass Indexer, der noch gestartet werden muss
+     */
+    MassIndexer erzeugeMassIndexer( int threads ) {
+
+        return Search.mapping( _entityManagerFactory )
+                     .scope( ZitatEntity.class )
+                     .massIndexer()
+                     .threadsToLoadObjects( threads )
+                     .batchSizeToLoadObjects( _batchGroesse )
+                     .mergeSegmentsOnFinish( _segmenteAmEndeZusammenfuehren )
+                     .mergeSegmentsAfterPurge( _segmenteNachLoeschenZusammenfuehren );
+    }
+
+}
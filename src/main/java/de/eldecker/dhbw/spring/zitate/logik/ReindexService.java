@@ -0,0 +1,434 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.hibernate.search.engine.search.query.SearchScroll;
+import org.hibernate.search.engine.search.query.SearchScrollResult;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitatShardKonfigurator;
+import de.eldecker.dhbw.spring.zitate.db.ZitateAenderungsZaehler;
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import de.eldecker.dhbw.spring.zitate.helferlein.RatenBegrenzer;
+import de.eldecker.dhbw.spring.zitate.helferlein.ZitateException;
+import de.eldecker.dhbw.spring.zitate.logik.ReindexStatus.Zustand;
+import jakarta.persistence.EntityManager;
+
+
+/**
+ * Service-Bean für die Neuindizierung aller Zitate im laufenden Betrieb.
+ * <br><br>
+ *
+ * Im Gegensatz zum {@link MassenIndizierer} werden die Dokumente im Index
+ * <b>nicht</b> vorher gelöscht, sondern per {@code addOrUpdate} ersetzt. Die Suche
+ * liefert deshalb während der ganzen Laufzeit weiter Treffer aus dem bisherigen
+ * Index; jedes Dokument wird erst dann ausgetauscht, wenn seine neue Version fertig
+ * ist.
+ * <br><br>
+ *
+ * Weil {@code addOrUpdate} nur Dokumente für vorhandene Zitate schreibt, würden
+ * Dokumente von Zitaten, die ohne automatische Indizierung aus der Datenbank gelöscht
+ * wurden (z.B. per SQL oder während der Index nicht synchron war), im Index bleiben.
+ * Nach dem Indizieren werden deshalb alle IDs im Index in Chunks durchlaufen; Dokumente,
+ * zu deren ID es kein Zitat in der Datenbank mehr gibt, werden entfernt.
+ * <br><br>
+ *
+ * Die IDs werden in Bereiche von je {@code zitate.reindex.batchgroesse} Zitaten
+ * aufgeteilt, die von einem Thread-Pool parallel abgearbeitet werden. Mit einer
+ * Ratenbegrenzung kann verhindert werden, dass der Job die Datenbank und die
+ * CPU-Kerne so stark auslastet, dass die Suchanfragen darunter leiden.
+ * <br><br>
+ *
+ * Es kann immer nur ein Job gleichzeitig laufen.
+ */
+@Service
+public class ReindexService {
+
+    private static final Logger LOG = LoggerFactory.getLogger( ReindexService.class );
+
+    /** Repo-Bean für Zugriff auf Datenbanktabelle mit Zitaten. */
+    private final ZitateRepo _zitateRepo;
+
+    /** Zentrales API-Objekt für JPA, wird für Hibernate-Search-Session benötigt. */
+    private final EntityManager _entityManager;
+
+    /** Generationszähler, wird nach Ende eines Jobs hochgezählt (Index hat sich geändert). */
+    private final ZitateAenderungsZaehler _aenderungsZaehler;
+
+    /** Transaktion für Laden und Indizieren eines ID-Bereichs. */
+    private final TransactionTemplate _transactionTemplate;
+
+    /** Read-Only-Transaktion für Lesen der IDs als Stream. */
+    private final TransactionTemplate _readOnlyTransaktion;
+
+    /** Anzahl Shards, für Routing beim Entfernen verwaister Dokumente. */
+    private final ZitatShardKonfigurator _shardKonfigurator;
+
+    /** Anzahl Zitate, die pro Transaktion geladen und indiziert werden. */
+    private final int _batchGroesse;
+
+    /** Aktueller oder zuletzt gelaufener Job; {@code null} wenn noch kein Job gestartet wurde. */
+    private volatile Job _job = null;
+
+    /** Sperre, damit nicht zwei Jobs gleichzeitig gestartet werden; kein {@code synchronized}, damit virtuelle Threads nicht blockieren. */
+    private final ReentrantLock _startSperre = new ReentrantLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ReindexService( ZitateRepo                 zitateRepo,
+                           EntityManager              entityManager,
+                           ZitateAenderungsZaehler    aenderungsZaehler,
+                           PlatformTransactionManager transactionManager,
+                           ZitatShardKonfigurator     shardKonfigurator,
+                           @Value( "${zitate.reindex.batchgroesse:500}" ) int batchGroesse ) {
+
+        _zitateRepo          = zitateRepo;
+        _entityManager       = entityManager;
+        _aenderungsZaehler   = aenderungsZaehler;
+        _shardKonfigurator   = shardKonfigurator;
+        _transactionTemplate = new TransactionTemplate( transactionManager );
+        _readOnlyTransaktion = new TransactionTemplate( transactionManager );
+        _readOnlyTransaktion.setReadOnly( true );
+        _batchGroesse        = batchGroesse;
+    }
+
+
+    /**
+     * Neuen Reindexierungs-Job im Hintergrund starten.
+     *
+     * @param threads Anzahl Threads, die parallel Zitate laden und indizieren
+     *
+     * @param maxDokumenteProSekunde Ratenbegrenzung; 0 für unbegrenzt
+     *
+     * @return Status des gerade gestarteten Jobs
+     *
+     * @throws ZitateException Es läuft schon ein Job
+     */
+    public ReindexStatus starten( int threads, long maxDokumenteProSekunde ) throws ZitateException {
+
+        _startSperre.lock();
+        try {
+
+            final Job jobAlt = _job;
+            if ( jobAlt != null && jobAlt.zustand.get() == Zustand.LAEUFT ) {
+
+                throw new ZitateException( "Es läuft bereits ein Reindexierungs-Job." );
+            }
+
+            final Job job = new Job( threads, maxDokumenteProSekunde );
+            _job = job;
+
+            final Thread koordinator = new Thread( () -> jobAusfuehren( job ), "reindex-koordinator" );
+            koordinator.setDaemon( true );
+            koordinator.start();
+
+            return job.status();
+        }
+        finally {
+
+            _startSperre.unlock();
+        }
+    }
+
+
+    /**
+     * Status des aktuellen oder zuletzt gelaufenen Jobs abfragen.
+     *
+     * @return Status-Objekt, nicht {@code null}
+     */
+    public ReindexStatus getStatus() {
+
+        final Job job = _job;
+
+        return job == null ? ReindexStatus.keinJob() : job.status();
+    }
+
+
+    /**
+     * Führt einen Job aus: IDs aller Zitate als Stream lesen, in Bereiche aufteilen,
+     * Bereiche im Thread-Pool indizieren, auf das Ende warten und danach verwaiste
+     * Dokumente aus dem Index entfernen.
+     *
+     * @param job Auszuführender Job
+     */
+    private void jobAusfuehren( Job job ) {
+
+        LOG.info( "Reindexierung gestartet mit {} Threads, max. {} Dokumente/s (0=unbegrenzt).",
+                  job.threads, job.maxDokumenteProSekunde );
+
+        final ExecutorService threadPool = Executors.newFixedThreadPool( job.threads, runnable -> {
+
+            final Thread thread = new Thread( runnable, "reindex-" + job.threadZaehler.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        });
+
+        try {
+
+            job.anzahlGesamt = _zitateRepo.count();
+
+            _readOnlyTransaktion.executeWithoutResult( status -> {
+
+                try ( Stream<Long> idStream = _zitateRepo.streamAlleIds() ) {
+
+                    long bereichStart = -1;
+                    long letzteId     = -1;
+                    int  anzahl       = 0;
+
+                    for ( Long id : (Iterable<Long>) idStream::iterator ) {
+
+                        if ( anzahl == 0 ) {
+
+                            bereichStart = id;
+                        }
+                        letzteId = id;
+                        anzahl++;
+
+                        if ( anzahl == _batchGroesse ) {
+
+                            bereichEinreihen( job, threadPool, bereichStart, letzteId );
+                            anzahl = 0;
+                        }
+                    }
+
+                    if ( anzahl > 0 ) {
+
+                        bereichEinreihen( job, threadPool, bereichStart, letzteId );
+                    }
+                }
+            });
+
+            threadPool.shutdown();
+            threadPool.awaitTermination( 365, DAYS );
+
+            final Throwable fehler = job.fehler.get();
+            if ( fehler != null ) {
+
+                throw fehler;
+            }
+
+            verwaisteDokumenteEntfernen( job );
+
+            job.endeNanos = System.nanoTime();
+            job.zustand.set( Zustand.FERTIG );
+
+            LOG.info( "Reindexierung fertig: {} Dokumente indiziert, {} verwaiste Dokumente entfernt in {} ms.",
+                      job.anzahlIndiziert.get(), job.anzahlEntfernt.get(), job.dauerMillis() );
+        }
+        catch ( Throwable ex ) {
+
+            job.fehler.compareAndSet( null, ex );
+            job.endeNanos = System.nanoTime();
+            job.zustand.set( Zustand.FEHLER );
+
+            LOG.error( "Reindexierung mit Fehler abgebrochen.", ex );
+        }
+        finally {
+
+            threadPool.shutdownNow();
+            _aenderungsZaehler.erhoehen();
+        }
+    }
+
+
+    /**
+     * Reiht die Indizierung eines ID-Bereichs in den Thread-Pool ein.
+     *
+     * @param job Job, zu dem der Bereich gehört
+     *
+     * @param threadPool Thread-Pool des Jobs
+     *
+     * @param vonId Kleinste ID des Bereichs (inklusive)
+     *
+     * @param bisId Größte ID des Bereichs (inklusive)
+     */
+    private void bereichEinreihen( Job job, ExecutorService threadPool, long vonId, long bisId ) {
+
+        threadPool.execute( () -> {
+
+            if ( job.fehler.get() != null ) {
+
+                return; // Job ist schon gescheitert, restliche Bereiche überspringen
+            }
+
+            try {
+
+                bereichIndizieren( job, vonId, bisId );
+            }
+            catch ( Throwable ex ) {
+
+                job.fehler.compareAndSet( null, ex );
+            }
+        });
+    }
+
+
+    /**
+     * Lädt alle Zitate eines ID-Bereichs und ersetzt ihre Dokumente im Index.
+     * Die Index-Änderungen werden beim Commit der Transaktion ausgeführt.
+     *
+     * @param job Job, dessen Zähler aktualisiert werden
+     *
+     * @param vonId Kleinste ID des Bereichs (inklusive)
+     *
+     * @param bisId Größte ID des Bereichs (inklusive)
+     *
+     * @throws InterruptedException Thread wurde beim Warten wegen Ratenbegrenzung unterbrochen
+     */
+    private void bereichIndizieren( Job job, long vonId, long bisId ) throws InterruptedException {
+
+        final int anzahl = _transactionTemplate.execute( status -> {
+
+            final List<ZitatEntity> zitatListe = _zitateRepo.findByIdBetween( vonId, bisId );
+            job.anzahlGeladen.addAndGet( zitatListe.size() );
+
+            final SearchIndexingPlan indexingPlan = Search.session( _entityManager ).indexingPlan();
+            zitatListe.forEach( indexingPlan::addOrUpdate );
+
+            return zitatListe.size();
+        });
+
+        job.anzahlIndiziert.addAndGet( anzahl );
+
+        job.ratenBegrenzer.warteAuf( anzahl );
+    }
+
+
+    /**
+     * Durchläuft die IDs aller Dokumente im Index in Chunks von {@code zitate.reindex.batchgroesse}
+     * und entfernt die Dokumente, zu denen es kein Zitat in der Datenbank gibt. Es werden
+     * nur die IDs der verwaisten Dokumente im Speicher gehalten; entfernt werden sie erst
+     * nach dem Durchlaufen, damit der Index nicht während des Scrollens geändert wird.
+     *
+     * @param job Job, dessen Zähler aktualisiert wird
+     *
+     * @throws InterruptedException Thread wurde beim Warten wegen Ratenbegrenzung unterbrochen
+     */
+    private void verwaisteDokumenteEntfernen( Job job ) throws InterruptedException {
+
+        final List<Long> verwaisteIds = new ArrayList<>();
+
+        _readOnlyTransaktion.executeWithoutResult( status -> {
+
+            try ( SearchScroll<Long> scroll = Search.session( _entityManager )
+                                                    .search( ZitatEntity.class )
+                                                    .select( f -> f.id( Long.class ) )
+                                                    .where( f -> f.matchAll() )
+                                                    .scroll( _batchGroesse ) ) {
+
+                for ( SearchScrollResult<Long> chunk = scroll.next(); chunk.hasHits(); chunk = scroll.next() ) {
+
+                    final Set<Long> vorhanden = new HashSet<>( _zitateRepo.findVorhandeneIds( chunk.hits() ) );
+                    for ( Long id : chunk.hits() ) {
+
+                        if ( !vorhanden.contains( id ) ) {
+
+                            verwaisteIds.add( id );
+                        }
+                    }
+                }
+            }
+        });
+
+        final boolean mitShards = _shardKonfigurator.getAnzahlShards() > 1;
+        for ( int von = 0; von < verwaisteIds.size(); von += _batchGroesse ) {
+
+            final List<Long> batch = verwaisteIds.subList( von, Math.min( von + _batchGroesse, verwaisteIds.size() ) );
+
+            _transactionTemplate.executeWithoutResult( status -> {
+
+                final SearchIndexingPlan indexingPlan = Search.session( _entityManager ).indexingPlan();
+                for ( Long id : batch ) {
+
+                    indexingPlan.purge( ZitatEntity.class, id, mitShards ? _shardKonfigurator.shardFuerId( id ) : null );
+                }
+            });
+
+            job.anzahlEntfernt.addAndGet( batch.size() );
+            job.ratenBegrenzer.warteAuf( batch.size() );
+        }
+    }
+
+
+    /**
+     * Zustand eines Reindexierungs-Jobs, wird von mehreren Threads aktualisiert.
+     */
+    private static class Job {
+
+        final int threads;
+        final long maxDokumenteProSekunde;
+        final RatenBegrenzer ratenBegrenzer;
+
+        final long startNanos = System.nanoTime();
+        volatile long endeNanos = 0;
+
+        volatile long anzahlGesamt = 0;
+        final AtomicLong anzahlGeladen   = new AtomicLong( 0 );
+        final AtomicLong anzahlIndiziert = new AtomicLong( 0 );
+        final AtomicLong anzahlEntfernt  = new AtomicLong( 0 );
+
+        final AtomicReference<Zustand>   zustand = new AtomicReference<>( Zustand.LAEUFT );
+        final AtomicReference<Throwable> fehler  = new AtomicReference<>( null );
+
+        final AtomicInteger threadZaehler = new AtomicInteger( 0 );
+
+        Job( int threads, long maxDokumenteProSekunde ) {
+
+            this.threads                = threads;
+            this.maxDokumenteProSekunde = maxDokumenteProSekunde;
+            this.ratenBegrenzer         = new RatenBegrenzer( maxDokumenteProSekunde );
+        }
+
+        long dauerMillis() {
+
+            final long ende = endeNanos == 0 ? System.nanoTime() : endeNanos;
+
+            return ( ende - startNanos ) / 1_000_000;
+        }
+
+        ReindexStatus status() {
+
+            final Zustand zustandAktuell = zustand.get();
+            final long    indiziert      = anzahlIndiziert.get();
+            final long    dauer          = dauerMillis();
+
+            long restSekunden = -1;
+            if ( zustandAktuell == Zustand.LAEUFT && indiziert > 0 && anzahlGesamt > 0 ) {
+
+                restSekunden = Math.max( 0, anzahlGesamt - indiziert ) * dauer / indiziert / 1000;
+            }
+
+            final Throwable ex = fehler.get();
+
+            return new ReindexStatus( zustandAktuell, threads, maxDokumenteProSekunde,
+                                      anzahlGesamt, anzahlGeladen.get(), indiziert, anzahlEntfernt.get(),
+                                      dauer, restSekunden,
+                                      ex == null ? null : ex.getMessage() );
+        }
+    }
+
+}
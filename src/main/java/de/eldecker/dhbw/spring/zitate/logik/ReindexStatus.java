@@ -0,0 +1,71 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+
+/**
+ * Momentaufnahme des Fortschritts eines Reindexierungs-Jobs, wird vom
+ * Admin-REST-Endpunkt als JSON zurückgeliefert.
+ *
+ * @param zustand Zustand des Jobs
+ *
+ * @param threads Anzahl Threads, mit denen der Job läuft
+ *
+ * @param maxDokumenteProSekunde Ratenbegrenzung; 0 für unbegrenzt
+ *
+ * @param anzahlGesamt Anzahl der Zitate in der Datenbank beim Start des Jobs
+ *
+ * @param anzahlGeladen Anzahl bisher aus der Datenbank geladener Zitate
+ *
+ * @param anzahlIndiziert Anzahl bisher in den Index geschriebener Dokumente
+ *
+ * @param anzahlEntfernt Anzahl aus dem Index entfernter Dokumente von Zitaten, die es
+ *                       in der Datenbank nicht mehr gibt
+ *
+ * @param dauerMillis Bisherige Laufzeit in Millisekunden (bzw. Gesamtlaufzeit, wenn beendet)
+ *
+ * @param restSekundenGeschaetzt Geschätzte Restlaufzeit in Sekunden; -1 wenn nicht
+ *                               schätzbar oder Job nicht mehr läuft
+ *
+ * @param fehlermeldung Fehlermeldung, wenn {@code zustand} gleich {@link Zustand#FEHLER}
+ *                      ist, sonst {@code null}
+ */
+public record ReindexStatus( Zustand zustand,
+                             int     threads,
+                             long    maxDokumenteProSekunde,
+                             long    anzahlGesamt,
+                             long    anzahlGeladen,
+                             long    anzahlIndiziert,
+                             long    anzahlEntfernt,
+                             long    dauerMillis,
+                             long    restSekundenGeschaetzt,
+                             String  fehlermeldung ) {
+
+    /**
+     * Zustände eines Reindexierungs-Jobs.
+     */
+    public enum Zustand {
+
+        /** Seit Start der Anwendung wurde noch kein Job gestartet. */
+        KEIN_JOB,
+
+        /** Job läuft gerade. */
+        LAEUFT,
+
+        /** Job wurde erfolgreich beendet. */
+        FERTIG,
+
+        /** Job wurde mit Fehler abgebrochen. */
+        FEHLER
+    }
+
+
+    /**
+     * Status für den Fall, dass noch kein Job gestartet wurde.
+     *
+     * @return Status-Objekt mit Zustand {@link Zustand#KEIN_JOB}
+     */
+    public static ReindexStatus keinJob() {
+
+        return new ReindexStatus( Zustand.KEIN_JOB, 0, 0, 0, 0, 0, 0, 0, -1, null );
+    }
+
+}
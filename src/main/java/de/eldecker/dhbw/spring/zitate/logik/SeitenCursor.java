@@ -0,0 +1,142 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Base64;
+import java.util.List;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatSeite;
+import de.eldecker.dhbw.spring.zitate.db.ZitatTreffer;
+import de.eldecker.dhbw.spring.zitate.helferlein.ZitateException;
+
+
+/**
+ * Cursor für das seitenweise Blättern durch Suchtreffer. Für den Client ist der
+ * Cursor ein "undurchsichtiger" String (Base64), der unverändert als
+ * URL-Parameter zurückgeschickt werden muss.
+ * <br><br>
+ * 
+ * Der Cursor enthält auch die Gesamtanzahl der Treffer, die für die erste Seite
+ * ermittelt wurde; damit muss beim Blättern nicht für jede Seite noch einmal gezählt
+ * werden. Ändern sich die Zitate während des Blätterns, dann wird also weiterhin die
+ * Anzahl vom Anfang angezeigt.
+ *
+ * @param rueckwaerts {@code true} für Seite vor {@code id}, {@code false} für
+ *                    Seite nach {@code id}
+ *
+ * @param id ID des letzten (vorwärts) bzw. ersten (rückwärts) Treffers der
+ *           aktuellen Seite
+ *
+ * @param anzahlTrefferGesamt Gesamtanzahl Treffer von der ersten Seite, oder
+ *                            {@link #ANZAHL_UNBEKANNT} bei einem Cursor im alten
+ *                            Format ohne Anzahl
+ *
+ * @param anzahlExakt {@code true} gdw. {@code anzahlTrefferGesamt} exakt ist
+ */
+public record SeitenCursor( boolean rueckwaerts, long id, long anzahlTrefferGesamt, boolean anzahlExakt ) {
+
+    /** Wert für {@code anzahlTrefferGesamt}, wenn die Anzahl neu gezählt werden muss. */
+    public static final long ANZAHL_UNBEKANNT = -1;
+
+
+    /**
+     * Cursor als String für URL kodieren.
+     *
+     * @return Kodierter Cursor, z.B. "bjoxMjM6NDU6ZQ" für "n:123:45:e"
+     */
+    public String kodieren() {
+
+        final String klartext = ( rueckwaerts ? "v:" : "n:" ) + id + ":" +
+                                anzahlTrefferGesamt + ( anzahlExakt ? ":e" : ":u" );
+
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString( klartext.getBytes( UTF_8 ) );
+    }
+
+
+    /**
+     * Cursor aus URL-Parameter dekodieren; ein Cursor im alten Format "n:123" (ohne
+     * Anzahl) wird noch akzeptiert, die Anzahl ist dann {@link #ANZAHL_UNBEKANNT}.
+     *
+     * @param kodiert Kodierter Cursor, siehe {@link #kodieren()}
+     *
+     * @return Dekodierter Cursor
+     *
+     * @throws ZitateException Ungültiger Cursor
+     */
+    public static SeitenCursor dekodieren( String kodiert ) throws ZitateException {
+
+        try {
+
+            final String klartext = new String( Base64.getUrlDecoder().decode( kodiert ), UTF_8 );
+
+            final String[] teile = klartext.split( ":", -1 );
+            if ( teile[ 0 ].equals( "n" ) || teile[ 0 ].equals( "v" ) ) {
+
+                final boolean rueckwaerts = teile[ 0 ].equals( "v" );
+                final long    id          = Long.parseLong( teile[ 1 ] );
+
+                if ( teile.length == 2 ) {
+
+                    return new SeitenCursor( rueckwaerts, id, ANZAHL_UNBEKANNT, false );
+                }
+                if ( teile.length == 4 && ( teile[ 3 ].equals( "e" ) || teile[ 3 ].equals( "u" ) ) ) {
+
+                    final long anzahl = Long.parseLong( teile[ 2 ] );
+                    if ( anzahl >= 0 ) {
+
+                        return new SeitenCursor( rueckwaerts, id, anzahl, teile[ 3 ].equals( "e" ) );
+                    }
+                }
+            }
+        }
+        catch ( IllegalArgumentException | ArrayIndexOutOfBoundsException ex ) { // auch NumberFormatException
+
+            // Fehler wird unten gemeldet
+        }
+
+        throw new ZitateException( "Ungültiger Wert für Parameter \"cursor\": " + kodiert );
+    }
+
+
+    /**
+     * Kodierten Cursor für die nächste Seite erzeugen.
+     *
+     * @param seite Aktuelle Seite
+     *
+     * @return Kodierter Cursor, oder {@code null} wenn es keine nächste Seite gibt
+     */
+    public static String fuerNaechsteSeite( ZitatSeite seite ) {
+
+        final List<ZitatTreffer> liste = seite.trefferListe();
+        if ( !seite.gibtNaechsteSeite() || liste.isEmpty() ) {
+
+            return null;
+        }
+
+        return new SeitenCursor( false, liste.get( liste.size() - 1 ).id(),
+                                 seite.anzahlTrefferGesamt(), seite.anzahlExakt() ).kodieren();
+    }
+
+
+    /**
+     * Kodierten Cursor für die vorherige Seite erzeugen.
+     *
+     * @param seite Aktuelle Seite
+     *
+     * @return Kodierter Cursor, oder {@code null} wenn es keine vorherige Seite gibt
+     */
+    public static String fuerVorherigeSeite( ZitatSeite seite ) {
+
+        final List<ZitatTreffer> liste = seite.trefferListe();
+        if ( !seite.gibtVorherigeSeite() || liste.isEmpty() ) {
+
+            return null;
+        }
+
+        return new SeitenCursor( true, liste.get( 0 ).id(),
+                                 seite.anzahlTrefferGesamt(), seite.anzahlExakt() ).kodieren();
+    }
+
+}
@@ -0,0 +1,70 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.START_BEREIT;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+
+/**
+ * Meldet, wie lange es vom Start der JVM bis zur Bereitschaft der Anwendung gedauert
+ * hat (inkl. {@link AufwaermRunner}), und ob dabei mit Spring AOT und einem Archiv
+ * für <i>Class Data Sharing</i> (CDS) gestartet wurde, siehe Maven-Profil
+ * {@code schnellstart}. Die Dauer steht auch in der Metrik {@code zitate.start.bereit}.
+ */
+@Component
+public class StartzeitProtokollierer {
+
+    private static final Logger LOG = LoggerFactory.getLogger( StartzeitProtokollierer.class );
+
+    /** Für Gauge mit der Dauer bis zur Bereitschaft. */
+    private final MeterRegistry _meterRegistry;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public StartzeitProtokollierer( MeterRegistry meterRegistry ) {
+
+        _meterRegistry = meterRegistry;
+    }
+
+
+    /**
+     * Wird aufgerufen, wenn die Anwendung bereit ist, d.h. nach allen
+     * {@code ApplicationRunner}-Beans.
+     *
+     * @param event Ereignis mit Dauer des Starts laut Spring
+     */
+    @EventListener
+    public void bereit( ApplicationReadyEvent event ) {
+
+        final long jvmMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        final boolean cds = ManagementFactory.getRuntimeMXBean()
+                                             .getInputArguments()
+                                             .stream()
+                                             .anyMatch( argument -> argument.startsWith( "-XX:SharedArchiveFile" ) );
+
+        TimeGauge.builder( START_BEREIT, () -> jvmMillis, TimeUnit.MILLISECONDS )
+                 .description( "Dauer vom Start der JVM bis zur Bereitschaft der Anwendung" )
+                 .register( _meterRegistry );
+
+        LOG.info( "Anwendung bereit {} ms nach Start der JVM (Spring: {} ms); AOT: {}, CDS-Archiv: {}.",
+                  jvmMillis, event.getTimeTaken() == null ? "?" : event.getTimeTaken().toMillis(),
+                  AotDetector.useGeneratedArtifacts(), cds );
+    }
+
+}
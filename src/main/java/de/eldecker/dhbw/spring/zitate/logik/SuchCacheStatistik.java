@@ -0,0 +1,26 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+
+/**
+ * Statistik für den Cache mit Suchergebnissen, wird vom Admin-REST-Endpunkt
+ * als JSON zurückgeliefert.
+ *
+ * @param anzahlTreffer Anzahl Anfragen, die aus dem Cache beantwortet wurden
+ *
+ * @param anzahlFehlschlaege Anzahl Anfragen, für die eine Lucene-Suche nötig war
+ *
+ * @param trefferQuote Anteil der Anfragen, die aus dem Cache beantwortet wurden (0.0 bis 1.0)
+ *
+ * @param anzahlVerdraengungen Anzahl Einträge, die wegen Größe oder Alter entfernt wurden
+ *
+ * @param anzahlEintraege Aktuelle (geschätzte) Anzahl Einträge im Cache
+ *
+ * @param generation Generation des Datenbestands, zu der die Einträge im Cache gehören
+ */
+public record SuchCacheStatistik( long   anzahlTreffer,
+                                  long   anzahlFehlschlaege,
+                                  double trefferQuote,
+                                  long   anzahlVerdraengungen,
+                                  long   anzahlEintraege,
+                                  long   generation ) {
+}
@@ -0,0 +1,17 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import java.util.List;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatTreffer;
+
+
+/**
+ * Ergebnis einer Suche nach Zitaten.
+ *
+ * @param trefferListe Liste der Treffer, kann leer sein
+ *
+ * @param stufe Stufe der Suche, die das Ergebnis geliefert hat
+ */
+public record SuchErgebnis( List<ZitatTreffer> trefferListe,
+                            SuchStufe          stufe ) {
+}
@@ -0,0 +1,356 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.SCHOTT_ABGEWIESEN;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.SCHOTT_AKTIV;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.SCHOTT_WARTEND;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.SCHOTT_WARTEZEIT;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.TAG_GRUND;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.TAG_STUFE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import de.eldecker.dhbw.spring.zitate.helferlein.UeberlastException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+
+/**
+ * Schott (<i>Bulkhead</i>) für Suchen im Lucene-Index: begrenzt die Anzahl gleichzeitig
+ * laufender Suchen getrennt nach {@link SuchStufe}, damit ein Ansturm teurer Fuzzy-Suchen
+ * nicht alle Worker-Threads von Tomcat und alle CPU-Kerne belegt und billige Anfragen
+ * (Zufallszitat, statische Seiten, exakte Suche) weiter schnell beantwortet werden.
+ * <br><br>
+ *
+ * Jede Stufe hat einen eigenen Pool von Erlaubnissen (Semaphore). Ist keine Erlaubnis
+ * frei, dann wartet die Anfrage höchstens {@code zitate.schott.max-wartezeit-ms}; es
+ * dürfen aber nur so viele Anfragen warten, wie die Warteschlange der Stufe fasst.
+ * Anfragen, die keinen Platz in der Warteschlange bekommen oder zu lange warten, werden
+ * sofort mit einer {@link UeberlastException} abgewiesen (HTTP-Status 503 mit
+ * {@code Retry-After}), statt sich anzustauen.
+ * <br><br>
+ *
+ * Gestreamte Suchen (NDJSON) halten ihre Erlaubnis, bis die ganze Antwort geschrieben
+ * ist; das dauert bei langsamen Clients beliebig lange. Sie bekommen deshalb einen
+ * eigenen Pool {@code STREAM} mit max. Laufzeit ({@code zitate.schott.stream.*}), damit
+ * sie den Pools der normalen Suchen keine Erlaubnisse wegnehmen. Die Erlaubnis wird mit
+ * {@link #streamErlaubnisHolen()} geholt, <i>bevor</i> die Antwort begonnen wird, damit
+ * eine Abweisung noch als HTTP-Status 503 gesendet werden kann.
+ * <br><br>
+ *
+ * Metriken: Timer {@code zitate.schott.wartezeit}, Zähler {@code zitate.schott.abgewiesen}
+ * und Gauges {@code zitate.schott.aktiv}/{@code zitate.schott.wartend}, jeweils mit Tag
+ * {@code stufe}.
+ */
+@Service
+public class SuchSchott {
+
+    private static final Logger LOG = LoggerFactory.getLogger( SuchSchott.class );
+
+    /**
+     * Erlaubnisse und Warteschlange für eine Stufe.
+     */
+    private static final class Pool {
+
+        /** Name der Stufe, für die der Pool gilt (Tag {@code stufe} der Metriken). */
+        final String stufe;
+
+        /** Max. Anzahl gleichzeitig laufender Suchen. */
+        final int maxParallel;
+
+        /** Max. Anzahl Suchen, die auf eine Erlaubnis warten dürfen. */
+        final int maxWartend;
+
+        /** Erlaubnisse; fair, damit wartende Anfragen in Reihenfolge drankommen. */
+        final Semaphore erlaubnisse;
+
+        /** Anzahl Anfragen, die gerade auf eine Erlaubnis warten. */
+        final AtomicInteger wartend = new AtomicInteger( 0 );
+
+        /** Timer für Wartezeit (0 wenn sofort eine Erlaubnis frei war). */
+        final Timer warteTimer;
+
+        /** Zähler für Abweisungen wegen voller Warteschlange. */
+        final Counter abgewiesenWarteschlange;
+
+        /** Zähler für Abweisungen wegen Überschreitung der max. Wartezeit. */
+        final Counter abgewiesenZeit;
+
+        Pool( String stufe, int maxParallel, int maxWartend, MeterRegistry meterRegistry ) {
+
+            this.stufe       = stufe;
+            this.maxParallel = maxParallel;
+            this.maxWartend  = maxWartend;
+            this.erlaubnisse = new Semaphore( maxParallel, true );
+
+            warteTimer = Timer.builder( SCHOTT_WARTEZEIT )
+                              .description( "Wartezeit auf Erlaubnis für Suche" )
+                              .tag( TAG_STUFE, stufe )
+                              .register( meterRegistry );
+
+            abgewiesenWarteschlange = abgewiesenZaehler( meterRegistry, stufe, "warteschlange" );
+            abgewiesenZeit          = abgewiesenZaehler( meterRegistry, stufe, "zeitueberschreitung" );
+
+            Gauge.builder( SCHOTT_AKTIV, this, pool -> pool.maxParallel - pool.erlaubnisse.availablePermits() )
+                 .description( "Anzahl laufender Suchen" )
+                 .tag( TAG_STUFE, stufe )
+                 .register( meterRegistry );
+
+            Gauge.builder( SCHOTT_WARTEND, wartend, AtomicInteger::get )
+                 .description( "Anzahl Suchen, die auf eine Erlaubnis warten" )
+                 .tag( TAG_STUFE, stufe )
+                 .register( meterRegistry );
+        }
+
+        private static Counter abgewiesenZaehler( MeterRegistry meterRegistry, String stufeName, String grund ) {
+
+            return Counter.builder( SCHOTT_ABGEWIESEN )
+                          .description( "Anzahl wegen Überlast abgewiesener Suchen" )
+                          .tags( TAG_STUFE, stufeName, TAG_GRUND, grund )
+                          .register( meterRegistry );
+        }
+    }
+
+    /**
+     * Erlaubnis für eine gestreamte Suche, muss nach dem Schreiben der Antwort mit
+     * {@link #close()} zurückgegeben werden.
+     */
+    public static final class Erlaubnis implements AutoCloseable {
+
+        /** Pool, aus dem die Erlaubnis stammt. */
+        private final Pool _pool;
+
+        /** Zeitpunkt ({@link System#nanoTime()}), ab dem die Suche abgebrochen wird. */
+        private final long _fristNanos;
+
+        /** Wert für Header {@code Retry-After}, falls die Frist überschritten wird. */
+        private final int _retryAfterSekunden;
+
+        /** Verhindert, dass die Erlaubnis mehrfach zurückgegeben wird. */
+        private final AtomicBoolean _zurueckgegeben = new AtomicBoolean( false );
+
+        private Erlaubnis( Pool pool, long maxDauerNanos, int retryAfterSekunden ) {
+
+            _pool               = pool;
+            _fristNanos         = System.nanoTime() + maxDauerNanos;
+            _retryAfterSekunden = retryAfterSekunden;
+        }
+
+        /**
+         * Prüft, ob die max. Laufzeit der gestreamten Suche überschritten ist; wird für
+         * jeden Treffer aufgerufen.
+         *
+         * @throws UeberlastException Frist überschritten, Suche muss abgebrochen werden
+         */
+        public void fristPruefen() {
+
+            if ( System.nanoTime() - _fristNanos > 0 ) {
+
+                throw new UeberlastException( "Max. Laufzeit für gestreamte Suche überschritten.",
+                                              _retryAfterSekunden );
+            }
+        }
+
+        /**
+         * Erlaubnis zurückgeben; weitere Aufrufe haben keine Wirkung.
+         */
+        @Override
+        public void close() {
+
+            if ( _zurueckgegeben.compareAndSet( false, true ) ) {
+
+                _pool.erlaubnisse.release();
+            }
+        }
+    }
+
+    /** Ein Pool pro Stufe. */
+    private final Map<SuchStufe, Pool> _pools = new EnumMap<>( SuchStufe.class );
+
+    /** Eigener Pool für gestreamte Suchen. */
+    private final Pool _streamPool;
+
+    /** Max. Laufzeit einer gestreamten Suche. */
+    private final long _streamMaxDauerNanos;
+
+    /** Max. Wartezeit auf eine Erlaubnis. */
+    private final long _maxWartezeitNanos;
+
+    /** Wert für Header {@code Retry-After} bei Abweisung. */
+    private final int _retryAfterSekunden;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public SuchSchott( MeterRegistry meterRegistry,
+                       @Value( "${zitate.schott.exakt.max-parallel:32}"         ) int  exaktMaxParallel,
+                       @Value( "${zitate.schott.exakt.warteschlange:64}"        ) int  exaktWarteschlange,
+                       @Value( "${zitate.schott.fuzzy-1.max-parallel:8}"        ) int  fuzzy1MaxParallel,
+                       @Value( "${zitate.schott.fuzzy-1.warteschlange:16}"      ) int  fuzzy1Warteschlange,
+                       @Value( "${zitate.schott.fuzzy-2.max-parallel:4}"        ) int  fuzzy2MaxParallel,
+                       @Value( "${zitate.schott.fuzzy-2.warteschlange:8}"       ) int  fuzzy2Warteschlange,
+                       @Value( "${zitate.schott.stream.max-parallel:2}"         ) int  streamMaxParallel,
+                       @Value( "${zitate.schott.stream.warteschlange:4}"        ) int  streamWarteschlange,
+                       @Value( "${zitate.schott.stream.max-dauer-sekunden:60}"  ) long streamMaxDauerSekunden,
+                       @Value( "${zitate.schott.max-wartezeit-ms:250}"          ) long maxWartezeitMillis,
+                       @Value( "${zitate.schott.retry-after-sekunden:1}"        ) int  retryAfterSekunden ) {
+
+        _pools.put( SuchStufe.EXAKT  , new Pool( SuchStufe.EXAKT.name()  , exaktMaxParallel , exaktWarteschlange , meterRegistry ) );
+        _pools.put( SuchStufe.FUZZY_1, new Pool( SuchStufe.FUZZY_1.name(), fuzzy1MaxParallel, fuzzy1Warteschlange, meterRegistry ) );
+        _pools.put( SuchStufe.FUZZY_2, new Pool( SuchStufe.FUZZY_2.name(), fuzzy2MaxParallel, fuzzy2Warteschlange, meterRegistry ) );
+
+        _streamPool          = new Pool( "STREAM", streamMaxParallel, streamWarteschlange, meterRegistry );
+        _streamMaxDauerNanos = SECONDS.toNanos( streamMaxDauerSekunden );
+
+        _maxWartezeitNanos  = MILLISECONDS.toNanos( maxWartezeitMillis );
+        _retryAfterSekunden = retryAfterSekunden;
+
+        LOG.info( "Schott für Suchen: max. parallel/wartend EXAKT={}/{}, FUZZY_1={}/{}, FUZZY_2={}/{}, STREAM={}/{}, max. Wartezeit {} ms.",
+                  exaktMaxParallel, exaktWarteschlange, fuzzy1MaxParallel, fuzzy1Warteschlange,
+                  fuzzy2MaxParallel, fuzzy2Warteschlange, streamMaxParallel, streamWarteschlange, maxWartezeitMillis );
+    }
+
+
+    /**
+     * Führt {@code suche} aus, sobald im Pool von {@code stufe} eine Erlaubnis frei ist.
+     *
+     * @param stufe Stufe der Suche (bestimmt den Pool)
+     *
+     * @param suche Eigentliche Suche
+     *
+     * @return Ergebnis von {@code suche}
+     *
+     * @throws UeberlastException Warteschlange voll oder max. Wartezeit überschritten;
+     *                            {@code suche} wurde dann nicht ausgeführt
+     */
+    public <T> T ausfuehren( SuchStufe stufe, Supplier<T> suche ) {
+
+        final Pool pool = _pools.get( stufe );
+
+        erlaubnisHolen( pool );
+        try {
+
+            return suche.get();
+        }
+        finally {
+
+            pool.erlaubnisse.release();
+        }
+    }
+
+
+    /**
+     * Holt eine Erlaubnis aus dem Pool für gestreamte Suchen; muss vor dem Beginn der
+     * Antwort aufgerufen werden. Die Erlaubnis muss auf jeden Fall mit
+     * {@link Erlaubnis#close()} zurückgegeben werden.
+     *
+     * @return Erlaubnis mit Frist für die max. Laufzeit der Suche
+     *
+     * @throws UeberlastException Warteschlange voll oder max. Wartezeit überschritten
+     */
+    public Erlaubnis streamErlaubnisHolen() {
+
+        erlaubnisHolen( _streamPool );
+
+        return new Erlaubnis( _streamPool, _streamMaxDauerNanos, _retryAfterSekunden );
+    }
+
+
+    /**
+     * Holt eine Erlaubnis aus {@code pool}, wartet wenn nötig. Auch wenn sofort eine
+     * Erlaubnis frei ist, wird die Reihenfolge der fairen Semaphore eingehalten
+     * ({@code tryAcquire()} ohne Timeout würde sich an wartenden Anfragen vorbeidrängeln).
+     *
+     * @param pool Pool der Stufe
+     *
+     * @throws UeberlastException Warteschlange voll, Wartezeit überschritten oder
+     *                            Thread wurde beim Warten unterbrochen
+     */
+    private void erlaubnisHolen( Pool pool ) {
+
+        boolean erhalten = false;
+        try {
+
+            erhalten = pool.erlaubnisse.tryAcquire( 0, NANOSECONDS );
+        }
+        catch ( InterruptedException ex ) {
+
+            Thread.currentThread().interrupt();
+
+            throw new UeberlastException( "Suche der Stufe " + pool.stufe + " wurde unterbrochen.",
+                                          _retryAfterSekunden );
+        }
+
+        if ( erhalten ) {
+
+            pool.warteTimer.record( 0, NANOSECONDS );
+        } else {
+
+            warten( pool );
+        }
+    }
+
+
+    /**
+     * Stellt die Anfrage in die Warteschlange des Pools und wartet auf eine Erlaubnis.
+     * Kehrt nur zurück, wenn eine Erlaubnis erhalten wurde.
+     *
+     * @param pool Pool der Stufe
+     *
+     * @throws UeberlastException Warteschlange voll, Wartezeit überschritten oder
+     *                            Thread wurde beim Warten unterbrochen
+     */
+    private void warten( Pool pool ) {
+
+        if ( pool.wartend.incrementAndGet() > pool.maxWartend ) {
+
+            pool.wartend.decrementAndGet();
+            pool.abgewiesenWarteschlange.increment();
+
+            throw new UeberlastException( "Zu viele Suchen der Stufe " + pool.stufe +
+                                          ", bitte später erneut versuchen.", _retryAfterSekunden );
+        }
+
+        final long startNanos = System.nanoTime();
+        boolean erhalten = false;
+        try {
+
+            erhalten = pool.erlaubnisse.tryAcquire( _maxWartezeitNanos, NANOSECONDS );
+        }
+        catch ( InterruptedException ex ) {
+
+            Thread.currentThread().interrupt();
+        }
+        finally {
+
+            pool.wartend.decrementAndGet();
+            pool.warteTimer.record( System.nanoTime() - startNanos, NANOSECONDS );
+        }
+
+        if ( !erhalten ) {
+
+            pool.abgewiesenZeit.increment();
+
+            throw new UeberlastException( "Keine Kapazität für Suche der Stufe " + pool.stufe +
+                                          " frei, bitte später erneut versuchen.", _retryAfterSekunden );
+        }
+    }
+
+}
@@ -0,0 +1,546 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.SUCHE_ANFRAGE;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.TAG_FUZZINESS;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.TAG_TREFFER;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.trefferKlasse;
+import static java.util.Locale.ROOT;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import de.eldecker.dhbw.spring.zitate.db.FuzzySuche;
+import de.eldecker.dhbw.spring.zitate.db.ZitatSeite;
+import de.eldecker.dhbw.spring.zitate.db.ZitatTreffer;
+import de.eldecker.dhbw.spring.zitate.db.ZitatVorschlag;
+import de.eldecker.dhbw.spring.zitate.db.ZitateAenderungsZaehler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+
+/**
+ * Service-Bean für die Suche nach Zitaten mit einem Cache vor der {@link FuzzySuche}.
+ * <br><br>
+ *
+ * Der Cache ist in der Größe und im Alter der Einträge begrenzt (siehe Properties
+ * {@code zitate.suchcache.*}). Damit nie veraltete Ergebnisse ausgeliefert werden,
+ * enthält jeder Schlüssel die Generation des Datenbestands aus dem
+ * {@link ZitateAenderungsZaehler}; nach einer Änderung an einem Zitat passt also
+ * kein alter Eintrag mehr. Die alten Einträge werden dann auch sofort entfernt.
+ * <br><br>
+ *
+ * Bei der gestaffelten Suche wird zuerst die billige exakte Suche ausgeführt; nur
+ * wenn diese weniger als {@code maxTreffer} Treffer liefert, wird mit Edit-Distanz 1
+ * und danach 2 gesucht (jeweils höchstens bis zur angeforderten Edit-Distanz).
+ * Suchbegriffe ohne Tippfehler verursachen so keine Kosten für die Fuzzy-Suche.
+ * <br><br>
+ *
+ * Der Cache speichert {@link CompletableFuture}s: der erste Thread, der einen Schlüssel
+ * nicht im Cache findet, legt ein noch nicht erfülltes Future an und führt die Suche
+ * außerhalb des Caches aus; andere Threads mit demselben Schlüssel warten auf dieses
+ * Future. So wird die Suche auch bei gleichzeitigen Anfragen nur einmal ausgeführt,
+ * ohne dass dabei eine Sperre in der Map des Caches gehalten wird (mit
+ * {@code Cache.get(key, mappingFunction)} liefe die Suche in
+ * {@code ConcurrentHashMap.compute()}, also in einem {@code synchronized}-Block, was bei
+ * virtuellen Threads den Träger-Thread blockiert).
+ * <br><br>
+ *
+ * Jeder Zugriff auf den Lucene-Index läuft durch das {@link SuchSchott}, das die Anzahl
+ * gleichzeitiger Suchen pro {@link SuchStufe} begrenzt; Treffer aus dem Cache brauchen
+ * keine Erlaubnis, gestreamte Suchen haben einen eigenen Pool. Bei Überlast werfen die Methoden eine
+ * {@link de.eldecker.dhbw.spring.zitate.helferlein.UeberlastException}.
+ * <br><br>
+ *
+ * Die Dauer jeder Suche inkl. Cache wird im Timer {@code zitate.suche.anfrage} erfasst,
+ * die Statistik des Caches steht unter {@code cache.*} mit Tag {@code cache=suchcache}
+ * auch als Metrik zur Verfügung.
+ */
+@Service
+public class SuchService {
+
+    /** Regulärer Ausdruck für Folge von Leerzeichen beim Normalisieren des Suchbegriffs. */
+    private static final Pattern LEERZEICHEN_REGEXP = Pattern.compile( "\\s+" );
+
+    /** Zitate in Vorschlägen werden auf diese Anzahl Zeichen gekürzt, damit die Antwort klein bleibt. */
+    public static final int MAX_LAENGE_VORSCHLAG = 80;
+
+    /** Anzahl Treffer, die beim Streaming pro Block (eigene kurze Transaktion) geholt werden. */
+    private static final int STREAM_BLOCK_GROESSE = 500;
+
+    /**
+     * Schlüssel für Cache-Eintrag.
+     *
+     * @param suchbegriff Normalisierter Suchbegriff
+     *
+     * @param autor Normalisierter Autor für Filter, oder {@code null}
+     *
+     * @param maxTreffer Maximale Anzahl Treffer
+     *
+     * @param maxEditDistance Unschärfe für Fuzzy-Suche
+     *
+     * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+     *
+     * @param generation Generation des Datenbestands bei Ausführung der Suche
+     */
+    private record SuchSchluessel( String suchbegriff,
+                                   String autor,
+                                   int    maxTreffer,
+                                   int    maxEditDistance,
+                                   int    praefixLaenge,
+                                   long   generation ) {}
+
+    /** Repo-Bean für eigentliche Suche mit Lucene. */
+    private final FuzzySuche _fuzzySuche;
+
+    /** Bean mit Generationszähler, ist Teil des Cache-Schlüssels. */
+    private final ZitateAenderungsZaehler _aenderungsZaehler;
+
+    /** Kurze Read-Only-Transaktion für jeden Block beim Streaming von Treffern. */
+    private final TransactionTemplate _readOnlyTransaktion;
+
+    /** Begrenzt die Anzahl gleichzeitiger Suchen pro Stufe. */
+    private final SuchSchott _schott;
+
+    /** Registry für Timer mit Dauer der Suchen. */
+    private final MeterRegistry _meterRegistry;
+
+    /**
+     * Timer {@code zitate.suche.anfrage} pro Kombination der Tags, Schlüssel ist
+     * "fuzziness/treffer"; damit nicht bei jeder Suche ein Timer gebaut und in der
+     * Registry nachgeschlagen wird.
+     */
+    private final Map<String, Timer> _anfrageTimer = new ConcurrentHashMap<>();
+
+    /** Cache mit Suchergebnissen. */
+    private final AsyncCache<SuchSchluessel, List<ZitatTreffer>> _cache;
+
+    /** Generation, zu der die Einträge im Cache gehören. */
+    private volatile long _cacheGeneration;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public SuchService( FuzzySuche                 fuzzySuche,
+                        ZitateAenderungsZaehler    aenderungsZaehler,
+                        PlatformTransactionManager transactionManager,
+                        SuchSchott                 schott,
+                        MeterRegistry              meterRegistry,
+                        @Value( "${zitate.suchcache.max-eintraege:10000}" ) long maxEintraege,
+                        @Value( "${zitate.suchcache.ttl-sekunden:600}"    ) long ttlSekunden ) {
+
+        _fuzzySuche        = fuzzySuche;
+        _aenderungsZaehler = aenderungsZaehler;
+        _schott            = schott;
+        _meterRegistry     = meterRegistry;
+        _cacheGeneration   = aenderungsZaehler.getGeneration();
+
+        _readOnlyTransaktion = new TransactionTemplate( transactionManager );
+        _readOnlyTransaktion.setReadOnly( true );
+
+        _cache = Caffeine.newBuilder()
+                         .maximumSize( maxEintraege )
+                         .expireAfterWrite( Duration.ofSeconds( ttlSekunden ) )
+                         .recordStats()
+                         .buildAsync();
+
+        CaffeineCacheMetrics.monitor( meterRegistry, _cache.synchronous(), "suchcache" );
+    }
+
+
+    /**
+     * Suche nach Zitaten; Ergebnisse werden wenn möglich aus dem Cache geliefert.
+     * Die Treffer werden direkt aus dem Lucene-Index erzeugt, ohne Zugriff auf die Datenbank.
+     *
+     * @param suchbegriff Suchbegriff
+     *
+     * @param maxTreffer Maximale Anzahl Treffer, die zurück geliefert werden soll
+     *
+     * @param maxEditDistance Wert für max. erlaubte "Unschärfe" bei Fuzzy-Search (0 bis 2)
+     *
+     * @param praefixLaenge Anzahl Zeichen am Anfang jedes Terms, die bei der Fuzzy-Suche
+     *                      exakt übereinstimmen müssen
+     *
+     * @param autor Nur Zitate dieses Autors, oder {@code null} für alle Autoren
+     *
+     * @param gestaffelt Bei {@code true} wird mit der exakten Suche begonnen und die
+     *                   Edit-Distanz nur dann erhöht, wenn zu wenige Treffer gefunden
+     *                   wurden; bei {@code false} wird sofort mit {@code maxEditDistance}
+     *                   gesucht.
+     *
+     * @return Ergebnis mit unveränderlicher Trefferliste und der Stufe, die die Treffer
+     *         geliefert hat
+     */
+    public SuchErgebnis suche( String suchbegriff, int maxTreffer, int maxEditDistance,
+                               int praefixLaenge, String autor, boolean gestaffelt ) {
+
+        final long startNanos = System.nanoTime();
+
+        final long   generation              = aktuelleGeneration();
+        final String suchbegriffNormalisiert = normalisieren( suchbegriff );
+        final String autorNormalisiert       = autor == null ? null : normalisieren( autor );
+
+        final int startDistanz = gestaffelt ? 0 : maxEditDistance;
+
+        List<ZitatTreffer> trefferListe = List.of();
+        int editDistance = startDistanz;
+        for ( ; editDistance <= maxEditDistance; editDistance++ ) {
+
+            final SuchSchluessel schluessel =
+                    new SuchSchluessel( suchbegriffNormalisiert, autorNormalisiert, maxTreffer,
+                                        editDistance, praefixLaenge, generation );
+
+            trefferListe = ausCacheOderLucene( schluessel );
+            if ( trefferListe.size() >= maxTreffer ) {
+
+                break;
+            }
+        }
+
+        final SuchStufe stufe = SuchStufe.fuerEditDistance( Math.min( editDistance, maxEditDistance ) );
+
+        anfrageTimer( maxEditDistance, trefferKlasse( trefferListe.size() ) )
+                .record( System.nanoTime() - startNanos, NANOSECONDS );
+
+        return new SuchErgebnis( trefferListe, stufe );
+    }
+
+
+    /**
+     * Timer {@code zitate.suche.anfrage} für eine Kombination der Tags; wird nur beim
+     * ersten Aufruf erzeugt und registriert.
+     *
+     * @param maxEditDistance Wert für Tag {@code fuzziness}
+     *
+     * @param trefferKlasse Wert für Tag {@code treffer}
+     *
+     * @return Timer
+     */
+    private Timer anfrageTimer( int maxEditDistance, String trefferKlasse ) {
+
+        return _anfrageTimer.computeIfAbsent( maxEditDistance + "/" + trefferKlasse, schluessel ->
+                    Timer.builder( SUCHE_ANFRAGE )
+                         .description( "Dauer einer Suche inkl. Cache" )
+                         .tags( TAG_FUZZINESS, String.valueOf( maxEditDistance ),
+                                TAG_TREFFER  , trefferKlasse )
+                         .register( _meterRegistry ) );
+    }
+
+
+    /**
+     * Seitenweises Blättern durch alle Treffer einer Suche. Die Seiten werden nicht
+     * gecacht, der Aufwand pro Seite ist aber unabhängig davon, wie weit schon
+     * geblättert wurde.
+     *
+     * @param suchbegriff Suchbegriff
+     *
+     * @param maxEditDistance Unschärfe für Fuzzy-Suche (0 bis 2)
+     *
+     * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+     *
+     * @param seitenGroesse Anzahl Treffer pro Seite
+     *
+     * @param cursor Cursor von vorheriger Seite, oder {@code null} für erste Seite
+     *
+     * @param autor Nur Zitate dieses Autors, oder {@code null} für alle Autoren
+     *
+     * @return Seite mit Treffern (nach ID sortiert)
+     */
+    public ZitatSeite sucheSeite( String suchbegriff, int maxEditDistance, int praefixLaenge,
+                                  int seitenGroesse, SeitenCursor cursor, String autor ) {
+
+        final Long nachId = cursor != null && !cursor.rueckwaerts() ? cursor.id() : null;
+        final Long vorId  = cursor != null &&  cursor.rueckwaerts() ? cursor.id() : null;
+
+        final long    anzahlGesamt = cursor != null ? cursor.anzahlTrefferGesamt() : SeitenCursor.ANZAHL_UNBEKANNT;
+        final boolean anzahlExakt  = cursor != null && cursor.anzahlExakt();
+
+        final String suchbegriffNormalisiert = normalisieren( suchbegriff );
+
+        return _schott.ausfuehren( SuchStufe.fuerEditDistance( maxEditDistance ), () ->
+                    _fuzzySuche.sucheSeite( suchbegriffNormalisiert, maxEditDistance, praefixLaenge,
+                                            seitenGroesse, nachId, vorId, anzahlGesamt, anzahlExakt, autor ) );
+    }
+
+
+    /**
+     * Erlaubnis für eine gestreamte Suche holen, siehe {@link SuchSchott#streamErlaubnisHolen()};
+     * muss aufgerufen werden, bevor die HTTP-Antwort begonnen wird.
+     *
+     * @return Erlaubnis für {@link #streameTreffer(SuchSchott.Erlaubnis, String, int, int, long, String, Consumer)}
+     *
+     * @throws de.eldecker.dhbw.spring.zitate.helferlein.UeberlastException Keine Erlaubnis frei
+     */
+    public SuchSchott.Erlaubnis streamErlaubnisHolen() {
+
+        return _schott.streamErlaubnisHolen();
+    }
+
+
+    /**
+     * Liefert alle Treffer einer Suche (bis {@code maxTreffer}) nach und nach an
+     * {@code trefferEmpfaenger}, ohne die Trefferliste im Speicher zu halten oder
+     * zu cachen. Kann auch in einem Thread ohne offene JPA-Session aufgerufen werden
+     * (z.B. beim asynchronen Schreiben einer HTTP-Antwort). Die Erlaubnis wird nicht
+     * zurückgegeben, das ist Aufgabe des Aufrufers.
+     * <br><br>
+     * 
+     * Die Treffer werden in Blöcken von {@value #STREAM_BLOCK_GROESSE} geholt, jeder Block
+     * in einer eigenen kurzen Transaktion, die beendet ist, bevor seine Treffer an
+     * {@code trefferEmpfaenger} gehen (siehe {@link FuzzySuche#sucheTrefferBlock(String, int, int, int, int, String)}).
+     *
+     * @param erlaubnis Erlaubnis aus {@link #streamErlaubnisHolen()}; wird deren Frist
+     *                  überschritten, dann wird die Suche mit einer
+     *                  {@link de.eldecker.dhbw.spring.zitate.helferlein.UeberlastException}
+     *                  abgebrochen
+     *
+     * @param suchbegriff Suchbegriff
+     *
+     * @param maxEditDistance Unschärfe für Fuzzy-Suche (0 bis 2)
+     *
+     * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+     *
+     * @param maxTreffer Maximale Anzahl Treffer
+     *
+     * @param autor Nur Zitate dieses Autors, oder {@code null} für alle Autoren
+     *
+     * @param trefferEmpfaenger Wird für jeden Treffer aufgerufen
+     *
+     * @return Anzahl der übergebenen Treffer
+     */
+    public long streameTreffer( SuchSchott.Erlaubnis erlaubnis, String suchbegriff, int maxEditDistance,
+                                int praefixLaenge, long maxTreffer, String autor,
+                                Consumer<ZitatTreffer> trefferEmpfaenger ) {
+
+        final String suchbegriffNormalisiert = normalisieren( suchbegriff );
+
+        long anzahl = 0;
+        while ( anzahl < maxTreffer ) {
+
+            erlaubnis.fristPruefen();
+
+            final int offset       = (int) anzahl;
+            final int blockGroesse = (int) Math.min( STREAM_BLOCK_GROESSE, maxTreffer - anzahl );
+
+            final List<ZitatTreffer> block = _readOnlyTransaktion.execute( status ->
+                        _fuzzySuche.sucheTrefferBlock( suchbegriffNormalisiert, maxEditDistance, praefixLaenge,
+                                                       offset, blockGroesse, autor ) );
+
+            // Transaktion ist hier schon beendet, ein langsamer Client hält also keine DB-Verbindung fest
+            for ( ZitatTreffer treffer : block ) {
+
+                erlaubnis.fristPruefen();
+                trefferEmpfaenger.accept( treffer );
+            }
+            anzahl += block.size();
+
+            if ( block.size() < blockGroesse ) {
+
+                break;
+            }
+        }
+
+        return anzahl;
+    }
+
+
+    /**
+     * Alle Zitate eines Autors (Term-Lookup im Index, nicht gecacht).
+     *
+     * @param autor Name des Autors, Groß-/Kleinschreibung egal
+     *
+     * @param maxTreffer Maximale Anzahl Treffer
+     *
+     * @return Zitate des Autors, nach ID sortiert
+     */
+    public List<ZitatTreffer> sucheNachAutor( String autor, int maxTreffer ) {
+
+        return _schott.ausfuehren( SuchStufe.EXAKT, () -> _fuzzySuche.sucheNachAutor( autor, maxTreffer ) );
+    }
+
+
+    /**
+     * Anzahl Zitate pro Autor (Facetten), für alle Zitate oder für die Treffer
+     * einer Suche; wird nicht gecacht.
+     *
+     * @param suchbegriff Suchbegriff, oder {@code null} für alle Zitate
+     *
+     * @param maxEditDistance Unschärfe für Fuzzy-Suche (0 bis 2)
+     *
+     * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes bei Fuzzy-Suche
+     *
+     * @param maxAutoren Maximale Anzahl Autoren
+     *
+     * @return Map von Autor auf Anzahl Zitate, absteigend nach Anzahl sortiert
+     */
+    public Map<String, Long> zaehleAutoren( String suchbegriff, int maxEditDistance, int praefixLaenge,
+                                            int maxAutoren ) {
+
+        final String suchbegriffNormalisiert = suchbegriff == null ? null : normalisieren( suchbegriff );
+
+        final SuchStufe stufe = suchbegriff == null ? SuchStufe.EXAKT : SuchStufe.fuerEditDistance( maxEditDistance );
+
+        return _schott.ausfuehren( stufe, () ->
+                    _fuzzySuche.zaehleAutoren( suchbegriffNormalisiert, maxEditDistance, praefixLaenge, maxAutoren ) );
+    }
+
+
+    /**
+     * Vorschläge für die Eingabe im Suchfeld ("Search as you type"). Die Vorschläge
+     * werden nicht gecacht, weil die Präfix-Suche im eigenen Lucene-Feld auch ohne
+     * Cache schnell genug ist und sich die Präfixe bei jedem Tastendruck ändern.
+     *
+     * @param praefix Bisher eingegebener Text (mindestens zwei Zeichen)
+     *
+     * @param anzahl Maximale Anzahl Vorschläge
+     *
+     * @return Liste der Vorschläge mit auf {@link #MAX_LAENGE_VORSCHLAG} Zeichen
+     *         gekürzten Zitaten
+     */
+    public List<ZitatVorschlag> vorschlaege( String praefix, int anzahl ) {
+
+        final String praefixNormalisiert = normalisieren( praefix );
+
+        return _schott.ausfuehren( SuchStufe.EXAKT, () ->
+                    _fuzzySuche.sucheVorschlaege( praefixNormalisiert, anzahl, MAX_LAENGE_VORSCHLAG ) );
+    }
+
+
+    /**
+     * Liefert die Treffer für {@code schluessel} aus dem Cache; bei einem Fehlschlag wird
+     * die Suche im aufrufenden Thread ausgeführt, gleichzeitige Aufrufe mit demselben
+     * Schlüssel warten auf deren Ergebnis. Schlägt die Suche fehl (z.B. wegen Überlast),
+     * dann entfernt Caffeine das Future wieder aus dem Cache und die Exception wird an
+     * alle wartenden Aufrufer weitergegeben.
+     *
+     * @param schluessel Schlüssel mit Suchparametern
+     *
+     * @return Unveränderliche Liste der Treffer
+     */
+    private List<ZitatTreffer> ausCacheOderLucene( SuchSchluessel schluessel ) {
+
+        final CompletableFuture<List<ZitatTreffer>> eigenesFuture = new CompletableFuture<>();
+
+        final CompletableFuture<List<ZitatTreffer>> future =
+                _cache.get( schluessel, ( k, executor ) -> eigenesFuture );
+
+        if ( future == eigenesFuture ) {
+
+            try {
+
+                eigenesFuture.complete( sucheInLucene( schluessel ) );
+            }
+            catch ( RuntimeException ex ) {
+
+                eigenesFuture.completeExceptionally( ex );
+                throw ex;
+            }
+        }
+
+        try {
+
+            return future.join();
+        }
+        catch ( CompletionException ex ) {
+
+            if ( ex.getCause() instanceof RuntimeException ursache ) {
+
+                throw ursache;
+            }
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Führt eine Lucene-Suche für einen Cache-Fehlschlag aus.
+     *
+     * @param s Schlüssel mit Suchparametern
+     *
+     * @return Unveränderliche Liste der Treffer
+     */
+    private List<ZitatTreffer> sucheInLucene( SuchSchluessel s ) {
+
+        return _schott.ausfuehren( SuchStufe.fuerEditDistance( s.maxEditDistance() ), () ->
+                    List.copyOf( _fuzzySuche.sucheFuzzyTreffer( s.suchbegriff(), s.maxTreffer(),
+                                                                s.maxEditDistance(), s.praefixLaenge(), s.autor() ) ) );
+    }
+
+
+    /**
+     * Statistik des Caches abfragen.
+     *
+     * @return Statistik mit Treffern, Fehlschlägen und Verdrängungen seit Start der Anwendung
+     */
+    public SuchCacheStatistik getCacheStatistik() {
+
+        final CacheStats stats = _cache.synchronous().stats();
+
+        return new SuchCacheStatistik( stats.hitCount(),
+                                       stats.missCount(),
+                                       stats.hitRate(),
+                                       stats.evictionCount(),
+                                       _cache.synchronous().estimatedSize(),
+                                       _cacheGeneration );
+    }
+
+
+    /**
+     * Liefert die aktuelle Generation des Datenbestands; wenn diese sich seit dem
+     * letzten Aufruf geändert hat, dann wird der Cache geleert, weil die alten
+     * Einträge wegen des Schlüssels ohnehin nicht mehr gefunden werden können.
+     *
+     * @return Aktuelle Generation
+     */
+    private long aktuelleGeneration() {
+
+        final long generation = _aenderungsZaehler.getGeneration();
+        if ( generation != _cacheGeneration ) {
+
+            _cacheGeneration = generation;
+            _cache.synchronous().invalidateAll();
+        }
+
+        return generation;
+    }
+
+
+    /**
+     * Suchbegriff normalisieren, damit z.B. "Liebe" und " liebe " denselben
+     * Cache-Eintrag verwenden (Lucene unterscheidet bei der Suche ohnehin nicht
+     * zwischen Groß- und Kleinschreibung).
+     *
+     * @param suchbegriff Suchbegriff wie vom Nutzer eingegeben
+     *
+     * @return Suchbegriff ohne Leerzeichen am Anfang/Ende, mit einfachen Leerzeichen
+     *         zwischen den Wörtern und in Kleinbuchstaben
+     */
+    private static String normalisieren( String suchbegriff ) {
+
+        final String getrimmt = suchbegriff.trim();
+
+        return LEERZEICHEN_REGEXP.matcher( getrimmt )
+                                 .replaceAll( " " )
+                                 .toLowerCase( ROOT );
+    }
+
+}
@@ -0,0 +1,57 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+
+/**
+ * Stufen der gestaffelten Suche, von billig nach teuer.
+ */
+public enum SuchStufe {
+
+    /** Exakte Suche nach den Termen, ohne Fuzzy-Query. */
+    EXAKT( 0 ),
+
+    /** Fuzzy-Suche mit Edit-Distanz 1. */
+    FUZZY_1( 1 ),
+
+    /** Fuzzy-Suche mit Edit-Distanz 2 (teuerster Automat von Lucene). */
+    FUZZY_2( 2 );
+
+
+    /** Edit-Distanz für die Lucene-Query dieser Stufe. */
+    private final int _editDistance;
+
+
+    /**
+     * Konstruktor für Enum-Wert.
+     *
+     * @param editDistance Edit-Distanz für Lucene-Query
+     */
+    private SuchStufe( int editDistance ) {
+
+        _editDistance = editDistance;
+    }
+
+
+    /**
+     * Getter für Edit-Distanz.
+     *
+     * @return Edit-Distanz für Lucene-Query dieser Stufe (0 bis 2)
+     */
+    public int getEditDistance() {
+
+        return _editDistance;
+    }
+
+
+    /**
+     * Stufe zu einer Edit-Distanz bestimmen.
+     *
+     * @param editDistance Edit-Distanz, 0 bis 2
+     *
+     * @return Zugehörige Suchstufe
+     */
+    public static SuchStufe fuerEditDistance( int editDistance ) {
+
+        return values()[ editDistance ];
+    }
+
+}
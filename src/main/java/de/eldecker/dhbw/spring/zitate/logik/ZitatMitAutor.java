@@ -0,0 +1,68 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+
+/**
+ * Ein Zitat aus der Zitatdatei, zerlegt in eigentlichen Text und Autor.
+ *
+ * @param zitat Text des Zitats ohne die Angabe des Autors
+ *
+ * @param autor Autor des Zitats, oder {@code null} wenn keiner angegeben ist
+ */
+public record ZitatMitAutor( String zitat,
+                             String autor ) {
+
+    /** Längere Autor-Angaben passen nicht in die DB-Spalte und werden nicht abgetrennt. */
+    static final int MAX_LAENGE_AUTOR = 255;
+
+
+    /**
+     * Trennt den Autor vom Text eines Zitats, wie es vom {@link ZitatParser} geliefert
+     * wird. Der Autor steht nach dem letzten {@code --}, z.B.:
+     * <pre>
+     * "Legend: A lie that has attained the dignity of age." -- H. L. Mencken
+     * </pre>
+     * Enthält der Teil nach dem letzten {@code --} ein Anführungszeichen, dann gehört
+     * {@code --} zum Text des Zitats und es wird kein Autor abgetrennt.
+     * <br><br>
+     * 
+     * Steht nach dem letzten {@code --} nichts, dann ist das ein Zitat ohne Autor, bei
+     * dem der Trenner trotzdem geschrieben wurde; so exportiert der {@link ZitateExporter}
+     * Zitate ohne Autor, damit ein {@code --} in ihrem Text nicht als Trenner gilt. Der
+     * Text vor dem Trenner wird dann bis auf ein Leerzeichen vor {@code --} unverändert
+     * übernommen.
+     *
+     * @param rohtext Vollständiges Zitat wie in der Datei
+     *
+     * @return Zitat mit Text (getrimmt) und Autor; ohne Autor ist der Text unverändert
+     *         bzw. der Text vor dem leeren Trenner
+     */
+    public static ZitatMitAutor ausRohtext( String rohtext ) {
+
+        final int position = rohtext.lastIndexOf( "--" );
+        if ( position < 0 ) {
+
+            return new ZitatMitAutor( rohtext, null );
+        }
+
+        final String autor      = rohtext.substring( position + 2 ).strip();
+        final String vorTrenner = rohtext.substring( 0, position );
+        final String zitat      = vorTrenner.strip();
+
+        if ( autor.isEmpty() && !zitat.isEmpty() ) {
+
+            final String ohneLeerzeichen = vorTrenner.endsWith( " " )
+                                           ? vorTrenner.substring( 0, vorTrenner.length() - 1 )
+                                           : vorTrenner;
+            return new ZitatMitAutor( ohneLeerzeichen, null );
+        }
+
+        if ( autor.isEmpty() || zitat.isEmpty() ||
+             autor.length() > MAX_LAENGE_AUTOR || autor.indexOf( '"' ) >= 0 ) {
+
+            return new ZitatMitAutor( rohtext, null );
+        }
+
+        return new ZitatMitAutor( zitat, autor );
+    }
+
+}
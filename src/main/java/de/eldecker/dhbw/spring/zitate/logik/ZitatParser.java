@@ -0,0 +1,94 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import java.util.function.Consumer;
+
+
+/**
+ * Inkrementeller Parser für das Format der Zitatdatei (siehe {@link DatenImporterRunner}).
+ * Die Zeilen werden einzeln mit {@link #zeileVerarbeiten(String)} übergeben, jedes
+ * vollständige Zitat wird sofort an den im Konstruktor übergebenen {@code Consumer}
+ * weitergereicht. Es wird also nie mehr als ein Zitat im Speicher gehalten.
+ * <br><br>
+ *
+ * Die Zeilen eines Zitats werden in einem {@link StringBuilder} gesammelt, damit
+ * das Zusammenfügen auch bei sehr langen Zitaten linearen Aufwand hat.
+ * <br><br>
+ *
+ * Objekte dieser Klasse sind nicht thread-safe.
+ */
+public class ZitatParser {
+
+    /** Puffer für die Zeilen des aktuellen Zitats, wird für jedes Zitat wiederverwendet. */
+    private final StringBuilder _puffer = new StringBuilder( 256 );
+
+    /** Empfänger für jedes vollständig eingelesene Zitat. */
+    private final Consumer<String> _zitatEmpfaenger;
+
+    /** Anzahl der bisher an {@link #_zitatEmpfaenger} übergebenen Zitate. */
+    private long _anzahlZitate = 0;
+
+
+    /**
+     * Neuen Parser erzeugen.
+     *
+     * @param zitatEmpfaenger Wird für jedes vollständig eingelesene Zitat aufgerufen
+     */
+    public ZitatParser( Consumer<String> zitatEmpfaenger ) {
+
+        _zitatEmpfaenger = zitatEmpfaenger;
+    }
+
+
+    /**
+     * Nächste Zeile aus der Zitatdatei verarbeiten. Eine Zeile, die nur aus einem
+     * Punkt besteht, schließt das aktuelle Zitat ab.
+     *
+     * @param zeile Zeile aus der Zitatdatei (ohne Zeilenumbruch)
+     */
+    public void zeileVerarbeiten( String zeile ) {
+
+        if ( zeile.trim().equals( "." ) ) {
+
+            zitatAbschliessen();
+
+        } else {
+
+            _puffer.append( zeile );
+        }
+    }
+
+
+    /**
+     * Muss nach der letzten Zeile aufgerufen werden, damit auch das letzte Zitat
+     * (nach dem kein Punkt mehr kommt) übergeben wird.
+     *
+     * @return Gesamtanzahl der übergebenen Zitate
+     */
+    public long beenden() {
+
+        zitatAbschliessen();
+
+        return _anzahlZitate;
+    }
+
+
+    /**
+     * Gibt den Pufferinhalt als Zitat weiter (sofern er nicht leer ist) und leert
+     * den Puffer.
+     */
+    private void zitatAbschliessen() {
+
+        if ( !_puffer.isEmpty() ) {
+
+            final String zitat = _puffer.toString();
+            _puffer.setLength( 0 );
+
+            if ( !zitat.isBlank() ) {
+
+                _anzahlZitate++;
+                _zitatEmpfaenger.accept( zitat );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,266 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitatTreffer;
+import jakarta.persistence.EntityManager;
+
+
+/**
+ * Service-Bean für den Export aller Zitate als Stream, z.B. für regelmäßige Abzüge
+ * für andere Systeme.
+ * <br><br>
+ *
+ * Die Zitate werden mit einem vorwärts gerichteten Cursor ({@link ScrollableResults})
+ * aus der Datenbank gelesen, den der JDBC-Treiber in Blöcken von
+ * {@code zitate.export.fetch-groesse} Zeilen abholt, und sofort in den Ausgabe-Stream
+ * geschrieben. Der Persistenz-Kontext wird nach jedem Block geleert und der
+ * Second-Level-Cache wird nicht verwendet; der Speicherbedarf ist damit unabhängig
+ * von der Anzahl der Zitate.
+ * <br><br>
+ *
+ * Ein Export im Format {@link ExportFormat#TXT} kann wieder importiert werden und
+ * ergibt dabei dieselben Inhalts-Hashes, ein inkrementeller Import desselben Exports
+ * fügt also keine Zitate ein. Bei Zitaten ohne Autor wird dafür der Trenner {@code --}
+ * ohne Autor geschrieben, sonst würde ein {@code --} im Text beim Import als Trenner
+ * gelten (siehe {@link ZitatMitAutor#ausRohtext(String)}).
+ */
+@Service
+public class ZitateExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger( ZitateExporter.class );
+
+    /** Zentrales API-Objekt für JPA, wird für Hibernate-Session benötigt. */
+    private final EntityManager _entityManager;
+
+    /** Read-Only-Transaktion für das Lesen mit dem Cursor. */
+    private final TransactionTemplate _readOnlyTransaktion;
+
+    /** Für Serialisierung der Zitate im Format NDJSON. */
+    private final ObjectMapper _objectMapper;
+
+    /** Anzahl Zeilen, die der JDBC-Treiber auf einmal holt; danach wird der Persistenz-Kontext geleert. */
+    private final int _fetchGroesse;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ZitateExporter( EntityManager              entityManager,
+                           PlatformTransactionManager transactionManager,
+                           ObjectMapper               objectMapper,
+                           @Value( "${zitate.export.fetch-groesse:1000}" ) int fetchGroesse ) {
+
+        _entityManager       = entityManager;
+        _readOnlyTransaktion = new TransactionTemplate( transactionManager );
+        _readOnlyTransaktion.setReadOnly( true );
+        _objectMapper        = objectMapper;
+        _fetchGroesse        = fetchGroesse;
+    }
+
+
+    /**
+     * Schreibt alle Zitate aufsteigend nach ID sortiert in {@code ausgabe}.
+     * Der Stream {@code ausgabe} wird nicht geschlossen.
+     *
+     * @param format Ausgabeformat
+     *
+     * @param gzip {@code true}, wenn die Ausgabe mit GZIP komprimiert werden soll
+     *
+     * @param ausgabe Ziel, z.B. Body einer HTTP-Antwort
+     *
+     * @return Anzahl exportierter Zitate
+     *
+     * @throws IOException Fehler beim Schreiben, z.B. weil der Client die Verbindung
+     *                     abgebrochen hat
+     */
+    public long exportiere( ExportFormat format, boolean gzip, OutputStream ausgabe ) throws IOException {
+
+        final long startNanos = System.nanoTime();
+
+        final GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream( ausgabe, 64 * 1024 ) : null;
+        final OutputStream gepuffert = new BufferedOutputStream( gzip ? gzipStream : ausgabe, 64 * 1024 );
+
+        final long anzahl;
+        try {
+
+            anzahl = _readOnlyTransaktion.execute( status -> {
+
+                try {
+
+                    return zitateSchreiben( format, gepuffert );
+                }
+                catch ( IOException ex ) {
+
+                    throw new UncheckedIOException( ex );
+                }
+            });
+        }
+        catch ( UncheckedIOException ex ) {
+
+            throw ex.getCause();
+        }
+
+        gepuffert.flush();
+        if ( gzipStream != null ) {
+
+            gzipStream.finish();
+        }
+
+        LOG.info( "Export im Format {} (gzip={}) abgeschlossen: {} Zitate in {} ms.",
+                  format, gzip, anzahl, ( System.nanoTime() - startNanos ) / 1_000_000 );
+
+        return anzahl;
+    }
+
+
+    /**
+     * Liest alle Zitate mit einem Cursor und schreibt sie; muss in einer Transaktion
+     * aufgerufen werden.
+     *
+     * @param format Ausgabeformat
+     *
+     * @param ausgabe Gepufferter Ausgabe-Stream
+     *
+     * @return Anzahl geschriebener Zitate
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    private long zitateSchreiben( ExportFormat format, OutputStream ausgabe ) throws IOException {
+
+        final Session session = _entityManager.unwrap( Session.class );
+
+        if ( format == ExportFormat.CSV ) {
+
+            ausgabe.write( "id,zitat,autor\r\n".getBytes( UTF_8 ) );
+        }
+
+        long anzahl = 0;
+        try ( ScrollableResults<ZitatEntity> cursor =
+                session.createSelectionQuery( "FROM ZitatEntity z ORDER BY z.id", ZitatEntity.class )
+                       .setFetchSize( _fetchGroesse )
+                       .setReadOnly( true )
+                       .setCacheMode( CacheMode.IGNORE )
+                       .scroll( ScrollMode.FORWARD_ONLY ) ) {
+
+            while ( cursor.next() ) {
+
+                zitatSchreiben( format, cursor.get(), ausgabe );
+
+                if ( ++anzahl % _fetchGroesse == 0 ) {
+
+                    session.clear();
+                }
+            }
+        }
+
+        return anzahl;
+    }
+
+
+    /**
+     * Ein Zitat im gewünschten Format schreiben.
+     *
+     * @param format Ausgabeformat
+     *
+     * @param zitat Zu schreibendes Zitat
+     *
+     * @param ausgabe Gepufferter Ausgabe-Stream
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    private void zitatSchreiben( ExportFormat format, ZitatEntity zitat, OutputStream ausgabe ) throws IOException {
+
+        switch ( format ) {
+
+            case NDJSON -> {
+
+                final ZitatTreffer zeile = new ZitatTreffer( zitat.getId(), zitat.getZitat(), zitat.getAutor() );
+                ausgabe.write( _objectMapper.writeValueAsBytes( zeile ) );
+                ausgabe.write( '\n' );
+            }
+
+            case CSV -> {
+
+                final String zeile = zitat.getId() + "," + csvFeld( zitat.getZitat() ) + "," +
+                                     csvFeld( zitat.getAutor() ) + "\r\n";
+                ausgabe.write( zeile.getBytes( UTF_8 ) );
+            }
+
+            case TXT -> {
+
+                final String text = einzeilig( zitat.getZitat() );
+                // Trenner auch ohne Autor, damit ein "--" im Text beim Import nicht als Trenner gilt
+                final String zeile = zitat.getAutor() == null ? text + " --"
+                                                              : text + " -- " + einzeilig( zitat.getAutor() );
+                ausgabe.write( zeile.getBytes( UTF_8 ) );
+                ausgabe.write( "\n.\n".getBytes( UTF_8 ) );
+            }
+        }
+    }
+
+
+    /**
+     * Feld für CSV nach RFC 4180: in Anführungszeichen, wenn es Komma, Anführungszeichen
+     * oder Zeilenumbruch enthält; Anführungszeichen werden dabei verdoppelt.
+     *
+     * @param wert Wert des Felds, kann {@code null} sein
+     *
+     * @return Feld für CSV-Zeile; leer für {@code null}
+     */
+    static String csvFeld( String wert ) {
+
+        if ( wert == null ) {
+
+            return "";
+        }
+
+        if ( wert.indexOf( ',' ) < 0 && wert.indexOf( '"' ) < 0 &&
+             wert.indexOf( '\n' ) < 0 && wert.indexOf( '\r' ) < 0 ) {
+
+            return wert;
+        }
+
+        return '"' + wert.replace( "\"", "\"\"" ) + '"';
+    }
+
+
+    /**
+     * Zeilenumbrüche durch Leerzeichen ersetzen, weil eine Zeile mit nur einem Punkt
+     * im Format der Zitatdatei ein Zitat beenden würde. Zitate aus einem Import
+     * enthalten keine Zeilenumbrüche, weil der {@link ZitatParser} die Zeilen
+     * zusammenfügt.
+     *
+     * @param text Text
+     *
+     * @return Text ohne Zeilenumbrüche
+     */
+    private static String einzeilig( String text ) {
+
+        return text.indexOf( '\n' ) < 0 && text.indexOf( '\r' ) < 0 ? text
+                                                                    : text.replaceAll( "\\R", " " );
+    }
+
+}
@@ -0,0 +1,647 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.IMPORT_PHASE;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.IMPORT_ZITATE;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.TAG_PHASE;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+import org.hibernate.search.mapper.orm.Search;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitatIdUndHash;
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+
+
+/**
+ * Service-Bean für den Import einer Zitatdatei als Stream.
+ * <br><br>
+ *
+ * Die Datei wird zeilenweise gelesen und mit dem {@link ZitatParser} inkrementell
+ * in Zitate zerlegt; der Autor am Ende jedes Zitats wird dabei mit
+ * {@link ZitatMitAutor#ausRohtext(String)} in ein eigenes Feld übernommen. Die Zitate werden in Batches fester Größe gesammelt, die jeweils
+ * in einer eigenen Transaktion mit JDBC-Batch-Inserts (siehe Property
+ * {@code hibernate.jdbc.batch_size} in {@code application.properties}) geschrieben
+ * werden. Danach wird der Persistenz-Kontext geleert, so dass der Speicherbedarf
+ * unabhängig von der Größe der Datei konstant bleibt.
+ * <br><br>
+ *
+ * Im Bulk-Modus (Property {@code zitate.import.bulk-modus}) wird die automatische
+ * Indizierung durch Hibernate Search während des Imports abgeschaltet; stattdessen
+ * wird der Index am Ende vom {@link MassenIndizierer} mit mehreren Threads neu
+ * aufgebaut.
+ * <br><br>
+ *
+ * Die Dauer der einzelnen Phasen eines Imports (Lesen, Parsen, Schreiben in die
+ * Datenbank, Indizieren) wird im Timer {@code zitate.import.phase} mit Tag {@code phase}
+ * erfasst; Lesen und Parsen wechseln sich zeilenweise ab und werden deshalb aufsummiert.
+ * <br><br>
+ *
+ * Beim inkrementellen Import ({@link #importiereInkrementell(BufferedReader, boolean)})
+ * werden nur Zitate eingefügt, deren Inhalts-Hash noch nicht in der Datenbank steht;
+ * der Abgleich erfolgt mit einer Query pro Batch (Phase "abgleichen"). Die neuen Zitate
+ * werden unabhängig vom Bulk-Modus automatisch indiziert, weil ein Neuaufbau des ganzen
+ * Index für wenige neue Zitate viel zu teuer wäre.
+ */
+@Service
+public class ZitateImporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger( ZitateImporter.class );
+
+    /** Zentrales API-Objekt für JPA, wird für {@code persist()}/{@code flush()}/{@code clear()} benötigt. */
+    private final EntityManager _entityManager;
+
+    /** Repo-Bean für Abgleich der Inhalts-Hashes beim inkrementellen Import. */
+    private final ZitateRepo _zitateRepo;
+
+    /** Für eine eigene Transaktion pro Batch. */
+    private final TransactionTemplate _transactionTemplate;
+
+    /** Anzahl Zitate, die in einer Transaktion geschrieben werden. */
+    private final int _batchGroesse;
+
+    /** Nach so vielen importierten Zitaten wird der Fortschritt auf den Logger geschrieben. */
+    private final int _protokollIntervall;
+
+    /** Automatische Indizierung während Import abschalten und Index am Ende neu aufbauen? */
+    private final boolean _bulkModus;
+
+    /** Bean für Neuaufbau des Index am Ende eines Imports im Bulk-Modus. */
+    private final MassenIndizierer _massenIndizierer;
+
+    /** Timer für Phase "lesen": Lesen der Zeilen aus dem Reader. */
+    private final Timer _lesenTimer;
+
+    /** Timer für Phase "parsen": Zerlegen der Zeilen in Zitate und Autoren. */
+    private final Timer _parsenTimer;
+
+    /** Timer für Phase "schreiben": Batches in die Datenbank schreiben (inkl. Commit, ohne Bulk-Modus auch inkl. Indizierung). */
+    private final Timer _schreibenTimer;
+
+    /** Timer für Phase "indizieren": Neuaufbau des Index im Bulk-Modus. */
+    private final Timer _indizierenTimer;
+
+    /** Timer für Phase "abgleichen": Inhalts-Hashes beim inkrementellen Import nachtragen und abgleichen. */
+    private final Timer _abgleichenTimer;
+
+    /** Zähler für importierte Zitate. */
+    private final Counter _zitateZaehler;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ZitateImporter( EntityManager              entityManager,
+                           ZitateRepo                 zitateRepo,
+                           PlatformTransactionManager transactionManager,
+                           MassenIndizierer           massenIndizierer,
+                           MeterRegistry              meterRegistry,
+                           @Value( "${zitate.import.batchgroesse:1000}"          ) int     batchGroesse,
+                           @Value( "${zitate.import.protokoll-intervall:100000}" ) int     protokollIntervall,
+                           @Value( "${zitate.import.bulk-modus:false}"           ) boolean bulkModus ) {
+
+        _entityManager       = entityManager;
+        _zitateRepo          = zitateRepo;
+        _transactionTemplate = new TransactionTemplate( transactionManager );
+        _massenIndizierer    = massenIndizierer;
+        _batchGroesse        = batchGroesse;
+        _protokollIntervall  = protokollIntervall;
+        _bulkModus           = bulkModus;
+
+        _lesenTimer      = phasenTimer( meterRegistry, "lesen"      );
+        _parsenTimer     = phasenTimer( meterRegistry, "parsen"     );
+        _schreibenTimer  = phasenTimer( meterRegistry, "schreiben"  );
+        _indizierenTimer = phasenTimer( meterRegistry, "indizieren" );
+        _abgleichenTimer = phasenTimer( meterRegistry, "abgleichen" );
+
+        _zitateZaehler = Counter.builder( IMPORT_ZITATE )
+                                .description( "Anzahl importierter Zitate" )
+                                .register( meterRegistry );
+    }
+
+
+    /**
+     * Timer für eine Phase des Imports erzeugen bzw. aus der Registry holen.
+     *
+     * @param meterRegistry Registry für Metriken
+     *
+     * @param phase Wert für Tag {@code phase}
+     *
+     * @return Timer
+     */
+    private static Timer phasenTimer( MeterRegistry meterRegistry, String phase ) {
+
+        return Timer.builder( IMPORT_PHASE )
+                    .description( "Dauer einer Phase des Imports" )
+                    .tag( TAG_PHASE, phase )
+                    .register( meterRegistry );
+    }
+
+
+    /**
+     * Alle Zitate aus {@code reader} lesen und in die Datenbank schreiben.
+     * Der {@code reader} wird von dieser Methode nicht geschlossen.
+     *
+     * @param reader Reader für Zitatdatei im Format, das bei {@link DatenImporterRunner}
+     *               beschrieben ist
+     *
+     * @return Anzahl der importierten Zitate
+     *
+     * @throws InterruptedException Thread wurde beim Warten auf den Mass Indexer
+     *                              (nur im Bulk-Modus) unterbrochen
+     */
+    public long importiere( BufferedReader reader ) throws InterruptedException {
+
+        return importiere( reader, anzahl -> {} );
+    }
+
+
+    /**
+     * Wie {@link #importiere(BufferedReader)}, meldet aber nach jedem Batch die Anzahl
+     * der bisher geschriebenen Zitate (z.B. für Fortschrittsanzeige eines Import-Jobs).
+     *
+     * @param reader Reader für Zitatdatei
+     *
+     * @param beobachter Wird nach jedem geschriebenen Batch mit der Anzahl der bisher
+     *                   geschriebenen Zitate aufgerufen
+     *
+     * @return Anzahl der importierten Zitate
+     *
+     * @throws InterruptedException Thread wurde beim Warten auf den Mass Indexer
+     *                              (nur im Bulk-Modus) unterbrochen
+     */
+    public long importiere( BufferedReader reader, LongConsumer beobachter ) throws InterruptedException {
+
+        final Fortschritt fortschritt = new Fortschritt( beobachter );
+
+        final List<ZitatEntity> batch = new ArrayList<>( _batchGroesse );
+
+        final ZitatParser parser = new ZitatParser( zitat -> {
+
+            final ZitatMitAutor zitatMitAutor = ZitatMitAutor.ausRohtext( zitat );
+            batch.add( new ZitatEntity( zitatMitAutor.zitat(), zitatMitAutor.autor() ) );
+            if ( batch.size() >= _batchGroesse ) {
+
+                batchSchreiben( batch, fortschritt, _bulkModus );
+            }
+        });
+
+        dateiEinlesen( reader, parser, fortschritt );
+
+        batchSchreiben( batch, fortschritt, _bulkModus );
+
+        phasenErfassen( fortschritt );
+
+        LOG.info( "Import abgeschlossen: {} Zitate in {} ms ({} Zitate/s); Lesen {} ms, Parsen {} ms, Schreiben {} ms.",
+                  fortschritt.anzahl, fortschritt.millisekunden(), fortschritt.zitateProSekunde(),
+                  fortschritt.lesenNanos / 1_000_000, fortschritt.parsenNanos / 1_000_000,
+                  fortschritt.schreibenNanos / 1_000_000 );
+
+        if ( _bulkModus && fortschritt.anzahl > 0 ) {
+
+            final long startIndizieren = System.nanoTime();
+            _massenIndizierer.indexNeuAufbauen( fortschritt.anzahl );
+            _indizierenTimer.record( System.nanoTime() - startIndizieren, NANOSECONDS );
+        }
+
+        return fortschritt.anzahl;
+    }
+
+
+    /**
+     * Inkrementeller Import: Nur Zitate aus {@code reader}, die es (nach Text und Autor,
+     * also im Sinne von {@link ZitatEntity#equals(Object)}) noch nicht in der Datenbank
+     * gibt, werden eingefügt und indiziert; Duplikate innerhalb der Datei werden nur
+     * einmal eingefügt. Der Import ist damit idempotent und kann mit derselben Datei
+     * beliebig oft wiederholt werden.
+     * <br><br>
+     *
+     * Vorher wird für Zitate ohne Inhalts-Hash (aus der Zeit vor Einführung der Spalte)
+     * der Hash nachgetragen. Pro Batch wird mit einer Query ermittelt, welche Hashes
+     * schon vorhanden sind.
+     * <br><br>
+     *
+     * Mit {@code entfernen} werden außerdem alle Zitate gelöscht (und aus dem Index
+     * entfernt), die nicht mehr in der Datei enthalten sind; ein geändertes Zitat wird
+     * so durch die neue Fassung ersetzt. Hierfür werden die Hashes aller Zitate der
+     * Datei im Speicher gehalten (ca. 150 Bytes pro Zitat).
+     * Der {@code reader} wird von dieser Methode nicht geschlossen.
+     *
+     * @param reader Reader für Zitatdatei im Format, das bei {@link DatenImporterRunner}
+     *               beschrieben ist
+     *
+     * @param entfernen {@code true}, wenn nicht mehr in der Datei enthaltene Zitate
+     *                  gelöscht werden sollen
+     *
+     * @return Anzahl gelesener, eingefügter und gelöschter Zitate
+     */
+    public ImportErgebnis importiereInkrementell( BufferedReader reader, boolean entfernen ) {
+
+        return importiereInkrementell( reader, entfernen, anzahl -> {} );
+    }
+
+
+    /**
+     * Wie {@link #importiereInkrementell(BufferedReader, boolean)}, meldet aber nach
+     * jedem Batch die Anzahl der bisher eingefügten Zitate.
+     *
+     * @param reader Reader für Zitatdatei
+     *
+     * @param entfernen {@code true}, wenn nicht mehr in der Datei enthaltene Zitate
+     *                  gelöscht werden sollen
+     *
+     * @param beobachter Wird nach jedem geschriebenen Batch mit der Anzahl der bisher
+     *                   eingefügten Zitate aufgerufen
+     *
+     * @return Anzahl gelesener, eingefügter und gelöschter Zitate
+     */
+    public ImportErgebnis importiereInkrementell( BufferedReader reader, boolean entfernen, LongConsumer beobachter ) {
+
+        final Fortschritt fortschritt = new Fortschritt( beobachter );
+
+        final long hashesNachgetragen = inhaltsHashesNachtragen( fortschritt );
+
+        final Set<String> hashesInDatei = entfernen ? new HashSet<>() : null;
+
+        // Schlüssel ist der Inhalts-Hash, damit Duplikate im selben Batch nur einmal geprüft werden
+        final Map<String, ZitatEntity> batch = new LinkedHashMap<>( 2 * _batchGroesse );
+
+        final ZitatParser parser = new ZitatParser( zitat -> {
+
+            final ZitatMitAutor zitatMitAutor = ZitatMitAutor.ausRohtext( zitat );
+            final ZitatEntity   entity        = new ZitatEntity( zitatMitAutor.zitat(), zitatMitAutor.autor() );
+
+            if ( hashesInDatei != null ) {
+
+                hashesInDatei.add( entity.getInhaltsHash() );
+            }
+            batch.putIfAbsent( entity.getInhaltsHash(), entity );
+            if ( batch.size() >= _batchGroesse ) {
+
+                neueZitateSchreiben( batch, fortschritt );
+            }
+        });
+
+        final long zitateInDatei = dateiEinlesen( reader, parser, fortschritt );
+
+        neueZitateSchreiben( batch, fortschritt );
+
+        final long entfernt = entfernen ? nichtMehrEnthalteneEntfernen( hashesInDatei, fortschritt ) : 0;
+
+        phasenErfassen( fortschritt );
+        _abgleichenTimer.record( fortschritt.abgleichenNanos, NANOSECONDS );
+
+        LOG.info( "Inkrementeller Import abgeschlossen: {} Zitate in Datei, {} neu, {} entfernt, {} Hashes nachgetragen; " +
+                  "Dauer {} ms (Lesen {} ms, Parsen {} ms, Abgleichen {} ms, Schreiben {} ms).",
+                  zitateInDatei, fortschritt.anzahl, entfernt, hashesNachgetragen, fortschritt.millisekunden(),
+                  fortschritt.lesenNanos / 1_000_000, fortschritt.parsenNanos / 1_000_000,
+                  fortschritt.abgleichenNanos / 1_000_000, fortschritt.schreibenNanos / 1_000_000 );
+
+        return new ImportErgebnis( zitateInDatei, fortschritt.anzahl, entfernt, hashesNachgetragen );
+    }
+
+
+    /**
+     * Liest alle Zeilen aus {@code reader} und übergibt sie an {@code parser}. Lesen
+     * und Parsen werden getrennt gemessen; Schreiben und Abgleichen werden vom Parser
+     * angestoßen und deshalb von der Zeit für das Parsen abgezogen.
+     *
+     * @param reader Reader für Zitatdatei
+     *
+     * @param parser Parser, dessen Empfänger die Zitate sammelt und schreibt
+     *
+     * @param fortschritt Hier werden die Zeiten für Lesen und Parsen eingetragen
+     *
+     * @return Anzahl der Zitate in der Datei
+     */
+    private long dateiEinlesen( BufferedReader reader, ZitatParser parser, Fortschritt fortschritt ) {
+
+        final long schreibenVorher  = fortschritt.schreibenNanos;
+        final long abgleichenVorher = fortschritt.abgleichenNanos;
+
+        long lesenNanos       = 0;
+        long verarbeitenNanos = 0;
+        try {
+
+            while ( true ) {
+
+                final long startLesen = System.nanoTime();
+                final String zeile = reader.readLine();
+                final long startVerarbeiten = System.nanoTime();
+                lesenNanos += startVerarbeiten - startLesen;
+
+                if ( zeile == null ) {
+
+                    break;
+                }
+                parser.zeileVerarbeiten( zeile );
+                verarbeitenNanos += System.nanoTime() - startVerarbeiten;
+            }
+        }
+        catch ( IOException ex ) {
+
+            throw new UncheckedIOException( ex );
+        }
+
+        final long startBeenden = System.nanoTime();
+        final long anzahlZitate = parser.beenden();
+        verarbeitenNanos += System.nanoTime() - startBeenden;
+
+        fortschritt.lesenNanos  = lesenNanos;
+        fortschritt.parsenNanos = verarbeitenNanos - ( fortschritt.schreibenNanos  - schreibenVorher  )
+                                                   - ( fortschritt.abgleichenNanos - abgleichenVorher );
+        return anzahlZitate;
+    }
+
+
+    /**
+     * Zeiten für Lesen, Parsen und Schreiben sowie Anzahl geschriebener Zitate in die
+     * Metriken übernehmen.
+     *
+     * @param fortschritt Fortschritt des abgeschlossenen Imports
+     */
+    private void phasenErfassen( Fortschritt fortschritt ) {
+
+        _lesenTimer.record( fortschritt.lesenNanos, NANOSECONDS );
+        _parsenTimer.record( fortschritt.parsenNanos, NANOSECONDS );
+        _schreibenTimer.record( fortschritt.schreibenNanos, NANOSECONDS );
+        _zitateZaehler.increment( fortschritt.anzahl );
+    }
+
+
+    /**
+     * Trägt für alle Zitate ohne Inhalts-Hash den Hash nach, jeweils {@code _batchGroesse}
+     * Zitate pro Transaktion. Die Spalte wird nicht von Lucene indiziert, deshalb löst das
+     * alleine keine Neuindizierung aus.
+     * <br><br>
+     * 
+     * Zitate ohne Hash stammen von einem Import vor Einführung der Spalte {@code autor}:
+     * bei ihnen steht der Autor noch im Text. Vor dem Hashen wird der Autor deshalb mit
+     * {@link ZitatMitAutor#ausRohtext(String)} genauso abgetrennt wie beim Import, sonst
+     * hätten sie einen anderen Hash als dieselben Zitate aus der Datei und würden beim
+     * inkrementellen Import doppelt eingefügt. Diese Zitate werden neu indiziert.
+     *
+     * @param fortschritt Dauer wird zur Phase "abgleichen" addiert
+     *
+     * @return Anzahl der Zitate, für die der Hash nachgetragen wurde
+     */
+    private long inhaltsHashesNachtragen( Fortschritt fortschritt ) {
+
+        final long startNanos = System.nanoTime();
+
+        long anzahl = 0;
+        while ( true ) {
+
+            final int anzahlBatch = _transactionTemplate.execute( status -> {
+
+                final List<ZitatEntity> zitate =
+                        _zitateRepo.findByInhaltsHashIsNull( PageRequest.of( 0, _batchGroesse ) );
+
+                for ( ZitatEntity zitat : zitate ) {
+
+                    final ZitatMitAutor zitatMitAutor = zitat.getAutor() == null
+                                                        ? ZitatMitAutor.ausRohtext( zitat.getZitat() )
+                                                        : null;
+                    if ( zitatMitAutor != null && zitatMitAutor.autor() != null ) {
+
+                        zitat.setZitat( zitatMitAutor.zitat() ); // Setter berechnen auch Hash neu
+                        zitat.setAutor( zitatMitAutor.autor() );
+
+                    } else {
+
+                        zitat.inhaltsHashNachtragen();
+                    }
+                }
+                _entityManager.flush();
+                _entityManager.clear();
+
+                return zitate.size();
+            });
+
+            if ( anzahlBatch == 0 ) {
+
+                break;
+            }
+            anzahl += anzahlBatch;
+        }
+
+        fortschritt.abgleichenNanos += System.nanoTime() - startNanos;
+
+        if ( anzahl > 0 ) {
+
+            LOG.info( "Inhalts-Hash für {} Zitate nachgetragen.", anzahl );
+        }
+
+        return anzahl;
+    }
+
+
+    /**
+     * Entfernt aus {@code batch} alle Zitate, deren Inhalts-Hash schon in der Datenbank
+     * steht (eine Query für den ganzen Batch), schreibt die übrigen und leert den Batch.
+     *
+     * @param batch Zitate mit Inhalts-Hash als Schlüssel; wird danach geleert
+     *
+     * @param fortschritt Fortschritt, der aktualisiert und ggf. geloggt wird
+     */
+    private void neueZitateSchreiben( Map<String, ZitatEntity> batch, Fortschritt fortschritt ) {
+
+        if ( batch.isEmpty() ) {
+
+            return;
+        }
+
+        final long startNanos = System.nanoTime();
+
+        final List<String> vorhandeneHashes = _zitateRepo.findVorhandeneInhaltsHashes( batch.keySet() );
+        vorhandeneHashes.forEach( batch::remove );
+
+        final List<ZitatEntity> neueZitate = new ArrayList<>( batch.values() );
+        batch.clear();
+
+        fortschritt.abgleichenNanos += System.nanoTime() - startNanos;
+
+        batchSchreiben( neueZitate, fortschritt, false );
+    }
+
+
+    /**
+     * Löscht alle Zitate, deren Inhalts-Hash nicht in {@code hashesInDatei} enthalten ist.
+     * Die Kandidaten werden als Stream von ID und Hash ermittelt, ohne die Entitäten zu
+     * laden; gelöscht wird über den {@code EntityManager}, damit Hibernate Search die
+     * Dokumente auch aus dem Index entfernt.
+     *
+     * @param hashesInDatei Inhalts-Hashes aller Zitate in der Datei
+     *
+     * @param fortschritt Dauer wird zur Phase "abgleichen" addiert
+     *
+     * @return Anzahl gelöschter Zitate
+     */
+    private long nichtMehrEnthalteneEntfernen( Set<String> hashesInDatei, Fortschritt fortschritt ) {
+
+        final long startNanos = System.nanoTime();
+
+        final List<Long> zuLoeschendeIds = new ArrayList<>();
+        _transactionTemplate.executeWithoutResult( status -> {
+
+            try ( Stream<ZitatIdUndHash> stream = _zitateRepo.streamAlleIdsUndHashes() ) {
+
+                stream.filter( zitat -> !hashesInDatei.contains( zitat.inhaltsHash() ) )
+                      .map( ZitatIdUndHash::id )
+                      .forEach( zuLoeschendeIds::add );
+            }
+        });
+
+        for ( int von = 0; von < zuLoeschendeIds.size(); von += _batchGroesse ) {
+
+            final List<Long> idsBatch = zuLoeschendeIds.subList( von, Math.min( von + _batchGroesse,
+                                                                                zuLoeschendeIds.size() ) );
+            _transactionTemplate.executeWithoutResult( status -> {
+
+                _entityManager.setProperty( "jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS );
+
+                for ( Long id : idsBatch ) {
+
+                    final ZitatEntity zitat = _entityManager.find( ZitatEntity.class, id );
+                    if ( zitat != null ) {
+
+                        _entityManager.remove( zitat );
+                    }
+                }
+                _entityManager.flush();
+                _entityManager.clear();
+            });
+        }
+
+        fortschritt.abgleichenNanos += System.nanoTime() - startNanos;
+
+        return zuLoeschendeIds.size();
+    }
+
+
+    /**
+     * Schreibt die Zitate in {@code batch} in einer Transaktion in die Datenbank
+     * und leert danach die Liste.
+     *
+     * @param batch Zu schreibende Zitate; wird danach geleert
+     *
+     * @param fortschritt Fortschritt, der aktualisiert und ggf. geloggt wird
+     *
+     * @param ohneIndizierung {@code true}, wenn die automatische Indizierung für diese
+     *                        Transaktion abgeschaltet werden soll (Bulk-Modus)
+     */
+    private void batchSchreiben( List<ZitatEntity> batch, Fortschritt fortschritt, boolean ohneIndizierung ) {
+
+        if ( batch.isEmpty() ) {
+
+            return;
+        }
+
+        final long startNanos = System.nanoTime();
+
+        _transactionTemplate.executeWithoutResult( status -> {
+
+            // importierte Zitate nicht in den Second-Level-Cache schreiben, sonst würden
+            // bei großen Dateien nur die zuletzt importierten Zitate den Cache füllen
+            _entityManager.setProperty( "jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS );
+
+            if ( ohneIndizierung ) {
+
+                Search.session( _entityManager )
+                      .indexingPlanFilter( ctx -> ctx.exclude( ZitatEntity.class ) );
+            }
+
+            for ( ZitatEntity zitat : batch ) {
+
+                _entityManager.persist( zitat );
+            }
+            _entityManager.flush();
+            _entityManager.clear();
+        });
+
+        fortschritt.schreibenNanos += System.nanoTime() - startNanos;
+
+        final long anzahlVorher = fortschritt.anzahl;
+        fortschritt.anzahl += batch.size();
+        batch.clear();
+
+        fortschritt.beobachter.accept( fortschritt.anzahl );
+
+        if ( fortschritt.anzahl / _protokollIntervall > anzahlVorher / _protokollIntervall ) {
+
+            LOG.info( "Import-Fortschritt: {} Zitate geschrieben ({} Zitate/s).",
+                      fortschritt.anzahl, fortschritt.zitateProSekunde() );
+        }
+    }
+
+
+    /**
+     * Zähler und Startzeit für einen Import-Vorgang.
+     */
+    private static class Fortschritt {
+
+        /** Startzeitpunkt für Berechnung Durchsatz. */
+        final long startNanos = System.nanoTime();
+
+        /** Empfänger für Anzahl geschriebener Zitate nach jedem Batch. */
+        final LongConsumer beobachter;
+
+        /** Anzahl der bisher geschriebenen Zitate. */
+        long anzahl = 0;
+
+        /** Summe der Dauer aller Aufrufe von {@code batchSchreiben()} in Nanosekunden. */
+        long schreibenNanos = 0;
+
+        /** Dauer für Nachtragen und Abgleich der Inhalts-Hashes in Nanosekunden (nur inkrementeller Import). */
+        long abgleichenNanos = 0;
+
+        /** Dauer für Lesen der Zeilen in Nanosekunden. */
+        long lesenNanos = 0;
+
+        /** Dauer für Parsen der Zeilen (ohne Schreiben und Abgleichen) in Nanosekunden. */
+        long parsenNanos = 0;
+
+        Fortschritt( LongConsumer beobachter ) {
+
+            this.beobachter = beobachter;
+        }
+
+        /** Vergangene Zeit seit Start in Millisekunden. */
+        long millisekunden() {
+
+            return ( System.nanoTime() - startNanos ) / 1_000_000;
+        }
+
+        /** Durchsatz seit Start. */
+        long zitateProSekunde() {
+
+            return anzahl * 1000 / Math.max( 1, millisekunden() );
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import java.util.Optional;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+
+
+/**
+ * Ergebnis der Auswahl eines zufälligen Zitats.
+ *
+ * @param zitatOptional Optional mit zufällig ausgewähltem Zitat; leer, wenn die
+ *                      Datenbank keine Zitate enthält
+ *
+ * @param anzahlZitate Anzahl der Zitate in der Datenbank; stammt aus demselben
+ *                     Snapshot wie das ausgewählte Zitat, so dass keine zweite
+ *                     Query ({@code count()}) nötig ist
+ */
+public record ZufallsZitat( Optional<ZitatEntity> zitatOptional,
+                            int                   anzahlZitate ) {
+}
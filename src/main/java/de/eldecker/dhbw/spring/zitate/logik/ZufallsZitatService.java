@@ -0,0 +1,256 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.ZUFALLSZITAT;
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.ZUFALLSZITAT_SNAPSHOT;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitateAenderungsZaehler;
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+
+/**
+ * Service-Bean für die Auswahl eines zufälligen Zitats mit konstantem Aufwand.
+ * <br><br>
+ *
+ * Statt einer Native Query mit {@code ORDER BY RAND()}, die bei jedem Aufruf die
+ * ganze Tabelle liest und sortiert, wird ein Snapshot mit den IDs aller Zitate
+ * als primitives {@code long}-Array im Speicher gehalten (8 Byte pro Zitat).
+ * Für ein Zufallszitat wird eine ID aus dem Array gewählt und das Zitat mit
+ * einem einzigen Zugriff über den Primärschlüssel geladen.
+ * <br><br>
+ *
+ * Der Snapshot wird neu geladen, wenn sich laut {@link ZitateAenderungsZaehler}
+ * der Datenbestand geändert hat. Während ein Thread neu lädt, verwenden die
+ * anderen Threads noch den alten Snapshot.
+ * <br><br>
+ *
+ * Die Dauer für die Auswahl eines Zitats und für das Neuladen des Snapshots wird in
+ * den Timern {@code zitate.zufallszitat} und {@code zitate.zufallszitat.snapshot} erfasst.
+ */
+@Service
+public class ZufallsZitatService {
+
+    private static final Logger LOG = LoggerFactory.getLogger( ZufallsZitatService.class );
+
+    /**
+     * Maximale Anzahl Versuche, falls eine ID aus dem Snapshot zwischenzeitlich
+     * gelöscht wurde.
+     */
+    private static final int MAX_VERSUCHE = 3;
+
+    /**
+     * Unveränderlicher Snapshot der IDs.
+     *
+     * @param ids Aufsteigend sortierte IDs aller Zitate
+     *
+     * @param generation Stand des Änderungszählers, bei dem der Snapshot geladen wurde
+     */
+    private record IdSnapshot( long[] ids, long generation ) {}
+
+    /** Repo-Bean für Zugriff auf Datenbanktabelle mit Zitaten. */
+    private final ZitateRepo _zitateRepo;
+
+    /** Bean mit Generationszähler, um veralteten Snapshot zu erkennen. */
+    private final ZitateAenderungsZaehler _aenderungsZaehler;
+
+    /** Für das Laden des Snapshots in einer Read-Only-Transaktion (Stream braucht Transaktion). */
+    private final TransactionTemplate _transactionTemplate;
+
+    /** Sperre, damit immer nur ein Thread den Snapshot neu lädt. */
+    private final ReentrantLock _ladeSperre = new ReentrantLock();
+
+    /** Timer für {@link #getZufallsZitat()}. */
+    private final Timer _zufallsZitatTimer;
+
+    /** Timer für Neuladen des Snapshots. */
+    private final Timer _snapshotTimer;
+
+    /** Aktueller Snapshot; {@code null} bis zum ersten Laden. */
+    private volatile IdSnapshot _snapshot = null;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ZufallsZitatService( ZitateRepo                 zitateRepo,
+                                ZitateAenderungsZaehler    aenderungsZaehler,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry              meterRegistry ) {
+
+        _zitateRepo        = zitateRepo;
+        _aenderungsZaehler = aenderungsZaehler;
+
+        _transactionTemplate = new TransactionTemplate( transactionManager );
+        _transactionTemplate.setReadOnly( true );
+
+        _zufallsZitatTimer = Timer.builder( ZUFALLSZITAT )
+                                  .description( "Dauer für Auswahl eines Zufallszitats" )
+                                  .register( meterRegistry );
+        _snapshotTimer     = Timer.builder( ZUFALLSZITAT_SNAPSHOT )
+                                  .description( "Dauer für Laden des Snapshots mit allen Zitat-IDs" )
+                                  .register( meterRegistry );
+    }
+
+
+    /**
+     * Zufälliges Zitat auswählen.
+     *
+     * @return Ergebnis mit zufälligem Zitat (leer wenn Datenbank leer) und
+     *         Anzahl der Zitate aus demselben Snapshot
+     */
+    public ZufallsZitat getZufallsZitat() {
+
+        return _zufallsZitatTimer.record( this::waehleZufallsZitat );
+    }
+
+
+    /**
+     * Eigentliche Auswahl des Zufallszitats für {@link #getZufallsZitat()}.
+     *
+     * @return Ergebnis mit zufälligem Zitat und Anzahl der Zitate
+     */
+    private ZufallsZitat waehleZufallsZitat() {
+
+        IdSnapshot snapshot = holeSnapshot();
+
+        for ( int versuch = 1; versuch <= MAX_VERSUCHE; versuch++ ) {
+
+            final long[] ids = snapshot.ids();
+            if ( ids.length == 0 ) {
+
+                return new ZufallsZitat( Optional.empty(), 0 );
+            }
+
+            final long id = ids[ ThreadLocalRandom.current().nextInt( ids.length ) ];
+
+            final Optional<ZitatEntity> zitatOptional = _zitateRepo.findById( id );
+            if ( zitatOptional.isPresent() ) {
+
+                return new ZufallsZitat( zitatOptional, ids.length );
+            }
+
+            LOG.warn( "Zitat mit ID {} aus Snapshot nicht mehr in Datenbank, lade Snapshot neu.", id );
+            snapshot = ladeSnapshot();
+        }
+
+        return new ZufallsZitat( Optional.empty(), snapshot.ids().length );
+    }
+
+
+    /**
+     * Liefert den aktuellen Snapshot und lädt ihn bei Bedarf neu.
+     *
+     * @return Snapshot, nicht {@code null}
+     */
+    private IdSnapshot holeSnapshot() {
+
+        final IdSnapshot snapshot = _snapshot;
+        if ( snapshot == null ) {
+
+            return ladeSnapshot();
+        }
+
+        if ( snapshot.generation() != _aenderungsZaehler.getGeneration() &&
+             _ladeSperre.tryLock() ) {
+
+            try {
+
+                return ladeSnapshotGesperrt();
+            }
+            finally {
+
+                _ladeSperre.unlock();
+            }
+        }
+
+        return snapshot;
+    }
+
+
+    /**
+     * Snapshot neu laden; wartet ggf. auf einen anderen Thread, der gerade lädt.
+     *
+     * @return Neuer Snapshot
+     */
+    private IdSnapshot ladeSnapshot() {
+
+        _ladeSperre.lock();
+        try {
+
+            return ladeSnapshotGesperrt();
+        }
+        finally {
+
+            _ladeSperre.unlock();
+        }
+    }
+
+
+    /**
+     * Lädt die IDs aller Zitate in ein neues Array, sofern nicht ein anderer Thread
+     * in der Zwischenzeit schon einen aktuellen Snapshot geladen hat.
+     * Darf nur aufgerufen werden, wenn {@link #_ladeSperre} gehalten wird.
+     *
+     * @return Neuer (oder gerade von anderem Thread geladener) Snapshot
+     */
+    private IdSnapshot ladeSnapshotGesperrt() {
+
+        final long generation = _aenderungsZaehler.getGeneration();
+
+        final IdSnapshot snapshotAlt = _snapshot;
+        if ( snapshotAlt != null && snapshotAlt.generation() == generation ) {
+
+            return snapshotAlt;
+        }
+
+        final long startZeit = System.nanoTime();
+
+        final long[] ids = _transactionTemplate.execute( status -> {
+
+            long[] puffer = new long[ snapshotAlt == null ? 1024 : snapshotAlt.ids().length + 1024 ];
+            int anzahl = 0;
+
+            try ( Stream<Long> idStream = _zitateRepo.streamAlleIds() ) {
+
+                for ( Long id : (Iterable<Long>) idStream::iterator ) {
+
+                    if ( anzahl == puffer.length ) {
+
+                        puffer = Arrays.copyOf( puffer, puffer.length * 2 );
+                    }
+                    puffer[ anzahl++ ] = id;
+                }
+            }
+
+            return Arrays.copyOf( puffer, anzahl );
+        });
+
+        final IdSnapshot snapshotNeu = new IdSnapshot( ids, generation );
+        _snapshot = snapshotNeu;
+
+        final long dauerNanos = System.nanoTime() - startZeit;
+        _snapshotTimer.record( dauerNanos, NANOSECONDS );
+
+        LOG.info( "Snapshot mit {} Zitat-IDs in {} ms geladen.", ids.length, dauerNanos / 1_000_000 );
+
+        return snapshotNeu;
+    }
+
+}
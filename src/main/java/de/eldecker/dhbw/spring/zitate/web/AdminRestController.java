@@ -0,0 +1,355 @@
+package de.eldecker.dhbw.spring.zitate.web;
+
+import static org.springframework.http.HttpStatus.ACCEPTED;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.PAYLOAD_TOO_LARGE;
+import static org.springframework.http.MediaType.APPLICATION_OCTET_STREAM_VALUE;
+import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
+import static org.springframework.http.MediaType.TEXT_PLAIN_VALUE;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import de.eldecker.dhbw.spring.zitate.helferlein.DateiZuGrossException;
+import de.eldecker.dhbw.spring.zitate.helferlein.ZitateException;
+import de.eldecker.dhbw.spring.zitate.logik.ExportFormat;
+import de.eldecker.dhbw.spring.zitate.logik.ImportJobService;
+import de.eldecker.dhbw.spring.zitate.logik.ImportJobStatus;
+import de.eldecker.dhbw.spring.zitate.logik.ReindexService;
+import de.eldecker.dhbw.spring.zitate.logik.ReindexStatus;
+import de.eldecker.dhbw.spring.zitate.logik.SuchCacheStatistik;
+import de.eldecker.dhbw.spring.zitate.logik.SuchService;
+import de.eldecker.dhbw.spring.zitate.logik.ZitateExporter;
+import jakarta.servlet.http.HttpServletRequest;
+
+
+/**
+ * REST-Controller für Admin-Funktionen. Alle Methoden liefern JSON zurück.
+ * <br><br>
+ *
+ * Beispiel für Start einer Reindexierung mit 2 Threads und max. 1000 Dokumenten pro Sekunde:
+ * <pre>
+ * curl -X POST "http://localhost:8080/api/v1/admin/reindex?threads=2&amp;maxDokumenteProSekunde=1000"
+ * </pre>
+ *
+ * Beispiele für Import einer Zitatdatei in die laufende Anwendung (als Formular-Upload
+ * bzw. als Request-Body) und Abfrage des Status von Job 2:
+ * <pre>
+ * curl -F "datei=@quotes.txt" http://localhost:8080/api/v1/admin/import
+ * curl -H "Content-Type: text/plain" --data-binary @quotes.txt "http://localhost:8080/api/v1/admin/import?entfernen=true"
+ * curl http://localhost:8080/api/v1/admin/import/2
+ * </pre>
+ *
+ * Beispiel für Export aller Zitate als komprimierte CSV-Datei:
+ * <pre>
+ * curl -o zitate.csv.gz "http://localhost:8080/api/v1/admin/export?format=csv&amp;gzip=true"
+ * </pre>
+ */
+@RestController
+@RequestMapping( "/api/v1/admin/" )
+public class AdminRestController {
+
+    private static final Logger LOG = LoggerFactory.getLogger( AdminRestController.class );
+
+    /** Service-Bean für Neuindizierung im laufenden Betrieb. */
+    private final ReindexService _reindexService;
+
+    /** Service-Bean für Suche, wird für Statistik des Such-Caches benötigt. */
+    private final SuchService _suchService;
+
+    /** Service-Bean für Import von Zitatdateien im Hintergrund. */
+    private final ImportJobService _importJobService;
+
+    /** Service-Bean für Export aller Zitate als Stream. */
+    private final ZitateExporter _exporter;
+
+    /** Max. Größe einer hochgeladenen Zitatdatei in Bytes. */
+    private final long _maxUploadBytes;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public AdminRestController( ReindexService   reindexService,
+                                SuchService      suchService,
+                                ImportJobService importJobService,
+                                ZitateExporter   exporter,
+                                @Value( "${zitate.import.upload.max-bytes:1073741824}" ) long maxUploadBytes ) {
+
+        _reindexService   = reindexService;
+        _suchService      = suchService;
+        _importJobService = importJobService;
+        _exporter         = exporter;
+        _maxUploadBytes   = maxUploadBytes;
+    }
+
+
+    /**
+     * Exception-Handler: Es läuft schon ein Job bzw. es warten schon zu viele Jobs,
+     * deshalb HTTP-Status 409.
+     *
+     * @param ex Exception-Objekt mit Fehlermeldung
+     *
+     * @return Fehlermeldung als Response-Body
+     */
+    @ExceptionHandler( ZitateException.class )
+    public ResponseEntity<String> exceptionBehandeln( ZitateException ex ) {
+
+        LOG.warn( "Admin-Funktion abgelehnt: " + ex.getMessage() );
+
+        return ResponseEntity.status( CONFLICT ).body( ex.getMessage() );
+    }
+
+
+    /**
+     * Exception-Handler: Die hochgeladene Zitatdatei ist zu groß, deshalb HTTP-Status 413.
+     *
+     * @param ex Exception-Objekt mit Fehlermeldung
+     *
+     * @return Fehlermeldung als Response-Body
+     */
+    @ExceptionHandler( DateiZuGrossException.class )
+    public ResponseEntity<String> dateiZuGrossBehandeln( DateiZuGrossException ex ) {
+
+        LOG.warn( "Import abgelehnt: " + ex.getMessage() );
+
+        return ResponseEntity.status( PAYLOAD_TOO_LARGE ).body( ex.getMessage() );
+    }
+
+
+    /**
+     * Neuindizierung aller Zitate im Hintergrund starten. Während der Job läuft,
+     * liefert die Suche weiter Treffer aus dem bisherigen Index.
+     *
+     * @param threads Anzahl Threads; Default-Wert 0 bedeutet halbe Anzahl der CPU-Kerne
+     *                (mind. 1), damit für die Suchanfragen noch Kerne frei bleiben
+     *
+     * @param maxDokumenteProSekunde Ratenbegrenzung; Default-Wert 0 bedeutet unbegrenzt
+     *
+     * @return HTTP-Status 202 mit Status des gestarteten Jobs, oder 400 bei ungültigem
+     *         Parameterwert bzw. 409 wenn schon ein Job läuft
+     *
+     * @throws ZitateException Es läuft schon ein Job
+     */
+    @PostMapping( "/reindex" )
+    public ResponseEntity<ReindexStatus> reindexStarten(
+            @RequestParam( value = "threads"               , required = false, defaultValue = "0" ) int  threads,
+            @RequestParam( value = "maxDokumenteProSekunde", required = false, defaultValue = "0" ) long maxDokumenteProSekunde )
+                    throws ZitateException {
+
+        final int anzahlKerne = Runtime.getRuntime().availableProcessors();
+
+        if ( threads < 0 || threads > anzahlKerne * 2 || maxDokumenteProSekunde < 0 ) {
+
+            return ResponseEntity.badRequest().build();
+        }
+
+        final int threadsEffektiv = threads == 0 ? Math.max( 1, anzahlKerne / 2 ) : threads;
+
+        final ReindexStatus status = _reindexService.starten( threadsEffektiv, maxDokumenteProSekunde );
+
+        return ResponseEntity.status( ACCEPTED ).body( status );
+    }
+
+
+    /**
+     * Status des laufenden (oder zuletzt gelaufenen) Reindexierungs-Jobs abfragen,
+     * mit Fortschritt und geschätzter Restlaufzeit.
+     *
+     * @return Status des Jobs
+     */
+    @GetMapping( "/reindex" )
+    public ReindexStatus reindexStatus() {
+
+        return _reindexService.getStatus();
+    }
+
+
+    /**
+     * Status aller Import-Jobs seit Start der Anwendung abfragen (die letzten 20),
+     * einschließlich des Imports beim Start.
+     *
+     * @return Liste mit Status der Jobs, neuester Job zuerst
+     */
+    @GetMapping( "/import" )
+    public List<ImportJobStatus> importStatusListe() {
+
+        return _importJobService.getAlleStatus();
+    }
+
+
+    /**
+     * Status eines Import-Jobs abfragen, mit Fortschritt (gelesene Bytes), Durchsatz
+     * und ggf. Fehlermeldung.
+     *
+     * @param id ID des Jobs
+     *
+     * @return Status des Jobs, oder HTTP-Status 404 wenn Job unbekannt
+     */
+    @GetMapping( "/import/{id}" )
+    public ResponseEntity<ImportJobStatus> importStatus( @PathVariable( "id" ) long id ) {
+
+        return ResponseEntity.of( _importJobService.getStatus( id ) );
+    }
+
+
+    /**
+     * Zitatdatei als Formular-Upload ({@code multipart/form-data}, Feld {@code datei})
+     * empfangen und im Hintergrund importieren. Der Servlet-Container legt die Datei beim
+     * Empfang auf der Festplatte ab, sie wird also nicht im Speicher gehalten; für den
+     * Import wird sie mit {@link MultipartFile#transferTo(java.io.File)} nur noch in das
+     * Upload-Verzeichnis verschoben und nicht noch einmal kopiert.
+     *
+     * @param datei Hochgeladene Zitatdatei (UTF-8)
+     *
+     * @param entfernen {@code true}, wenn nicht mehr in der Datei enthaltene Zitate
+     *                  gelöscht werden sollen (nur wenn schon Zitate in der Datenbank sind)
+     *
+     * @return HTTP-Status 202 mit Status des Jobs und URL für Abfrage des Status
+     *
+     * @throws ZitateException Zu viele Jobs warten schon, führt zu HTTP-Status 409
+     *
+     * @throws DateiZuGrossException Datei ist zu groß, führt zu HTTP-Status 413
+     *
+     * @throws IOException Fehler beim Übertragen der hochgeladenen Datei
+     */
+    @PostMapping( value = "/import", consumes = MULTIPART_FORM_DATA_VALUE )
+    public ResponseEntity<ImportJobStatus> importHochladen(
+            @RequestParam( "datei" ) MultipartFile datei,
+            @RequestParam( value = "entfernen", required = false, defaultValue = "false" ) boolean entfernen )
+                    throws ZitateException, DateiZuGrossException, IOException {
+
+        final ImportJobStatus status =
+                _importJobService.hochgeladeneDateiImportieren( ziel -> datei.transferTo( ziel.toFile() ),
+                                                                datei.getSize(), datei.getOriginalFilename(),
+                                                                entfernen );
+
+        return importGestartet( status );
+    }
+
+
+    /**
+     * Zitatdatei als Request-Body ({@code text/plain} oder {@code application/octet-stream})
+     * empfangen und im Hintergrund importieren. Der Body wird direkt aus dem Request in
+     * eine temporäre Datei kopiert.
+     *
+     * @param request Request, aus dessen Body die Datei gelesen wird
+     *
+     * @param entfernen {@code true}, wenn nicht mehr in der Datei enthaltene Zitate
+     *                  gelöscht werden sollen (nur wenn schon Zitate in der Datenbank sind)
+     *
+     * @return HTTP-Status 202 mit Status des Jobs und URL für Abfrage des Status, oder
+     *         413 wenn laut Header {@code Content-Length} die Datei zu groß ist
+     *
+     * @throws ZitateException Zu viele Jobs warten schon, führt zu HTTP-Status 409
+     *
+     * @throws DateiZuGrossException Datei ist zu groß (ohne {@code Content-Length}
+     *                               erst beim Empfang festgestellt), führt zu HTTP-Status 413
+     *
+     * @throws IOException Fehler beim Lesen des Request-Body
+     */
+    @PostMapping( value = "/import", consumes = { TEXT_PLAIN_VALUE, APPLICATION_OCTET_STREAM_VALUE } )
+    public ResponseEntity<ImportJobStatus> importAusBody(
+            HttpServletRequest request,
+            @RequestParam( value = "entfernen", required = false, defaultValue = "false" ) boolean entfernen )
+                    throws ZitateException, DateiZuGrossException, IOException {
+
+        if ( request.getContentLengthLong() > _maxUploadBytes ) {
+
+            return ResponseEntity.status( PAYLOAD_TOO_LARGE ).build();
+        }
+
+        final ImportJobStatus status =
+                _importJobService.hochgeladeneDateiImportieren( request.getInputStream(), null, entfernen );
+
+        return importGestartet( status );
+    }
+
+
+    /**
+     * Antwort für eingereihten Import-Job.
+     *
+     * @param status Status des Jobs
+     *
+     * @return HTTP-Status 202 mit Header {@code Location} für Abfrage des Status
+     */
+    private static ResponseEntity<ImportJobStatus> importGestartet( ImportJobStatus status ) {
+
+        return ResponseEntity.status( ACCEPTED )
+                             .location( URI.create( "/api/v1/admin/import/" + status.id() ) )
+                             .body( status );
+    }
+
+
+    /**
+     * Alle Zitate als Datei exportieren. Die Zitate werden mit einem Cursor aus der
+     * Datenbank gelesen und sofort in die Antwort geschrieben, der Speicherbedarf ist
+     * also unabhängig von der Anzahl der Zitate.
+     *
+     * @param format {@code ndjson} (Default), {@code csv} oder {@code txt} (Format der
+     *               Zitatdatei, kann wieder importiert werden)
+     *
+     * @param gzip {@code true}, wenn die Datei mit GZIP komprimiert werden soll
+     *             (Dateiendung {@code .gz}); Default ist {@code false}
+     *
+     * @return Streaming-Antwort mit Header {@code Content-Disposition} für Download,
+     *         oder HTTP-Status 400 bei unbekanntem Format
+     */
+    @GetMapping( "/export" )
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam( value = "format", required = false, defaultValue = "ndjson" ) String  formatParameter,
+            @RequestParam( value = "gzip"  , required = false, defaultValue = "false"  ) boolean gzip ) {
+
+        final ExportFormat format = ExportFormat.ausParameter( formatParameter );
+        if ( format == null ) {
+
+            return ResponseEntity.badRequest().build();
+        }
+
+        final String dateiname = "zitate-export." + format.getDateiendung() + ( gzip ? ".gz" : "" );
+
+        final MediaType mediaType = gzip ? MediaType.parseMediaType( "application/gzip" )
+                                         : MediaType.parseMediaType( format.getMediaType() + ";charset=UTF-8" );
+
+        final StreamingResponseBody body = outputStream -> _exporter.exportiere( format, gzip, outputStream );
+
+        return ResponseEntity.ok()
+                             .contentType( mediaType )
+                             .header( HttpHeaders.CONTENT_DISPOSITION,
+                                      ContentDisposition.attachment().filename( dateiname ).build().toString() )
+                             .body( body );
+    }
+
+
+    /**
+     * Statistik des Caches für Suchergebnisse abfragen.
+     *
+     * @return Treffer, Fehlschläge, Verdrängungen und Größe des Caches
+     */
+    @GetMapping( "/suchcache" )
+    public SuchCacheStatistik suchCacheStatistik() {
+
+        return _suchService.getCacheStatistik();
+    }
+
+}
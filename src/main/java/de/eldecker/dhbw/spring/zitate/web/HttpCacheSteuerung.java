@@ -0,0 +1,236 @@
+package de.eldecker.dhbw.spring.zitate.web;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitateAenderungsZaehler;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Bedingte Anfragen (HTTP-Caching) für Suchergebnisse: jede Antwort bekommt ein
+ * starkes {@code ETag}, das aus den geprüften Parametern der Anfrage und dem Stand des
+ * {@link ZitateAenderungsZaehler} berechnet wird, sowie einen Header
+ * {@code Cache-Control}, damit Browser und CDNs die Antwort zwischenspeichern dürfen.
+ * <br><br>
+ *
+ * Das ETag kann also <i>vor</i> der Suche berechnet werden: schickt der Client in
+ * {@code If-None-Match} dasselbe ETag, dann wird ohne Zugriff auf Lucene mit HTTP-Status
+ * 304 geantwortet. Nach jeder Änderung an den Zitaten ändern sich alle ETags. Da der
+ * Zähler bei jedem Start wieder bei 0 beginnt, enthält das ETag zusätzlich eine beim
+ * Start zufällig gewählte Kennung der Instanz; im Cluster-Modus hat deshalb jeder Knoten
+ * eigene ETags.
+ * <br><br>
+ *
+ * Wenn Tomcat die Antwort komprimiert ({@code server.compression.enabled}), macht er aus
+ * dem starken ein schwaches ETag ({@code W/"..."}); beim Vergleich mit
+ * {@code If-None-Match} wird deshalb wie in RFC 9110 vorgesehen das Präfix {@code W/}
+ * ignoriert.
+ */
+@Component
+public class HttpCacheSteuerung {
+
+    /** Bean mit Generationszähler für den Datenbestand der Zitate. */
+    private final ZitateAenderungsZaehler _aenderungsZaehler;
+
+    /** Beim Start zufällig gewählte Kennung dieser Instanz. */
+    private final String _instanz;
+
+    /** Header {@code Cache-Control} für Suchergebnisse. */
+    private final CacheControl _cacheControl;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public HttpCacheSteuerung( ZitateAenderungsZaehler aenderungsZaehler,
+                               @Value( "${zitate.http.cache.max-age-sekunden:60}"  ) int maxAgeSekunden,
+                               @Value( "${zitate.http.cache.s-maxage-sekunden:60}" ) int sMaxAgeSekunden ) {
+
+        _aenderungsZaehler = aenderungsZaehler;
+        _instanz           = Long.toString( ThreadLocalRandom.current().nextLong() >>> 1, 36 );
+
+        _cacheControl = maxAgeSekunden > 0
+                        ? CacheControl.maxAge( maxAgeSekunden, TimeUnit.SECONDS )
+                                      .sMaxAge( Math.max( 0, sMaxAgeSekunden ), TimeUnit.SECONDS )
+                                      .cachePublic()
+                        : CacheControl.noCache().cachePublic();
+    }
+
+
+    /**
+     * Starkes ETag für eine Anfrage berechnen; muss <i>vor</i> der Suche aufgerufen
+     * werden, damit ein Ergebnis, das schon den Stand nach einer gleichzeitigen Änderung
+     * enthält, kein ETag mit dem neuen Zählerstand bekommt.
+     *
+     * @param art Art der Antwort, z.B. "app-suche" (gleiche Parameter ergeben bei HTML
+     *            und JSON unterschiedliche Antworten)
+     *
+     * @param parameter Geprüfte Parameter der Anfrage, dürfen {@code null} sein
+     *
+     * @return ETag in Anführungszeichen, z.B. {@code "1x3k9q0d2pz8w-42-5f1c0a9e7b3d2c41"}
+     */
+    public String etag( String art, Object... parameter ) {
+
+        final long generation = _aenderungsZaehler.getGeneration();
+
+        final StringBuilder sb = new StringBuilder( art );
+        for ( Object wert : parameter ) {
+
+            sb.append( '\u001f' ).append( wert == null ? "\u0000" : wert.toString() );
+        }
+
+        final byte[] hash = sha256().digest( sb.toString().getBytes( UTF_8 ) );
+
+        return '"' + _instanz + "-" + generation + "-" + HexFormat.of().formatHex( hash, 0, 8 ) + '"';
+    }
+
+
+    /**
+     * Prüft, ob der Client die Antwort mit diesem ETag schon hat (Header
+     * {@code If-None-Match}, schwacher Vergleich).
+     *
+     * @param request HTTP-Anfrage
+     *
+     * @param etag ETag aus {@link #etag(String, Object...)}
+     *
+     * @return {@code true}, wenn mit 304 geantwortet werden kann
+     */
+    public boolean istNichtGeaendert( HttpServletRequest request, String etag ) {
+
+        final Enumeration<String> headerWerte = request.getHeaders( HttpHeaders.IF_NONE_MATCH );
+        while ( headerWerte.hasMoreElements() ) {
+
+            for ( String wert : headerWerte.nextElement().split( "," ) ) {
+
+                String clientEtag = wert.strip();
+                if ( clientEtag.equals( "*" ) ) {
+
+                    return true;
+                }
+                if ( clientEtag.startsWith( "W/" ) ) {
+
+                    clientEtag = clientEtag.substring( 2 );
+                }
+                if ( clientEtag.equals( etag ) ) {
+
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Antwort mit HTTP-Status 304 für REST-Controller.
+     *
+     * @param etag ETag der Antwort
+     *
+     * @return Antwort ohne Body mit Headern {@code ETag} und {@code Cache-Control}
+     */
+    public <T> ResponseEntity<T> nichtGeaendert( String etag ) {
+
+        return ResponseEntity.status( NOT_MODIFIED )
+                             .eTag( etag )
+                             .cacheControl( _cacheControl )
+                             .build();
+    }
+
+
+    /**
+     * Antwort mit HTTP-Status 200 für REST-Controller.
+     *
+     * @param etag ETag der Antwort
+     *
+     * @param body Body der Antwort
+     *
+     * @return Antwort mit Headern {@code ETag} und {@code Cache-Control}
+     */
+    public <T> ResponseEntity<T> ok( String etag, T body ) {
+
+        return ResponseEntity.ok()
+                             .eTag( etag )
+                             .cacheControl( _cacheControl )
+                             .body( body );
+    }
+
+
+    /**
+     * HTTP-Status 304 mit Headern {@code ETag} und {@code Cache-Control} setzen, für
+     * Controller-Methoden, die danach {@code null} zurückgeben.
+     *
+     * @param response HTTP-Antwort
+     *
+     * @param etag ETag der Antwort
+     */
+    public void nichtGeaendertSetzen( HttpServletResponse response, String etag ) {
+
+        response.setStatus( NOT_MODIFIED.value() );
+        cacheHeaderSetzen( response, etag );
+    }
+
+
+    /**
+     * Header {@code ETag} und {@code Cache-Control} für eine erfolgreiche Suche setzen;
+     * erst nach der Suche aufrufen, damit Fehlerseiten keine Cache-Header bekommen.
+     *
+     * @param response HTTP-Antwort
+     *
+     * @param etag ETag der Antwort
+     */
+    public void cacheHeaderSetzen( HttpServletResponse response, String etag ) {
+
+        response.setHeader( HttpHeaders.ETAG, etag );
+        response.setHeader( HttpHeaders.CACHE_CONTROL, _cacheControl.getHeaderValue() );
+    }
+
+
+    /**
+     * Header {@code Cache-Control: no-store} setzen, z.B. für Zufallszitate, die bei
+     * jeder Anfrage anders sein sollen.
+     *
+     * @param response HTTP-Antwort
+     */
+    public static void nichtCachen( HttpServletResponse response ) {
+
+        response.setHeader( HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue() );
+    }
+
+
+    /**
+     * Neue Instanz für SHA-256 erzeugen; {@link MessageDigest} ist nicht thread-sicher,
+     * deshalb wird pro ETag eine eigene Instanz verwendet.
+     *
+     * @return Message-Digest für SHA-256
+     */
+    private static MessageDigest sha256() {
+
+        try {
+
+            return MessageDigest.getInstance( "SHA-256" );
+        }
+        catch ( NoSuchAlgorithmException ex ) {
+
+            throw new IllegalStateException( ex ); // muss laut Java-Spezifikation vorhanden sein
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+package de.eldecker.dhbw.spring.zitate.web;
+
+import de.eldecker.dhbw.spring.zitate.helferlein.ZitateException;
+
+
+/**
+ * Prüfung der Parameter für die Suche, wird von allen Controllern verwendet,
+ * damit die Regeln überall gleich sind.
+ */
+final class SuchParameterPruefer {
+
+    /** Mindestlänge des Suchbegriffs nach Trimming. */
+    static final int MIN_LAENGE_SUCHBEGRIFF = 4;
+
+    /** Maximaler Wert für Parameter {@code maxTreffer}. */
+    static final int MAX_TREFFER = 500;
+
+    /** Maximaler Wert für Parameter {@code maxTreffer} bei Streaming der Treffer (NDJSON). */
+    static final int MAX_TREFFER_STREAM = 100_000;
+
+    /** Maximaler Wert für Parameter {@code seitenGroesse}. */
+    static final int MAX_SEITEN_GROESSE = 100;
+
+    /** Mindestlänge des Präfixes für Vorschläge nach Trimming. */
+    static final int MIN_LAENGE_PRAEFIX = 2;
+
+    /** Maximale Länge des Präfixes für Vorschläge. */
+    static final int MAX_LAENGE_PRAEFIX = 100;
+
+    /** Maximaler Wert für Parameter {@code anzahl} bei Vorschlägen. */
+    static final int MAX_ANZAHL_VORSCHLAEGE = 20;
+
+    /** Maximale Länge des Parameters {@code autor} (Länge der DB-Spalte). */
+    static final int MAX_LAENGE_AUTOR = 255;
+
+    /** Maximaler Wert für Parameter {@code anzahl} bei Anzahl Zitate pro Autor. */
+    static final int MAX_ANZAHL_AUTOREN = 100;
+
+
+    /** Klasse hat nur statische Methoden, deshalb kein Konstruktor. */
+    private SuchParameterPruefer() {}
+
+
+    /**
+     * Suchbegriff trimmen und Länge prüfen.
+     *
+     * @param suchbegriff Suchbegriff wie vom Client übergeben
+     *
+     * @return Getrimmter Suchbegriff
+     *
+     * @throws ZitateException Suchbegriff ist nach Trimming kürzer als vier Zeichen
+     */
+    static String pruefeSuchbegriff( String suchbegriff ) throws ZitateException {
+
+        final String suchbegriffTrimmed = suchbegriff.trim();
+        if ( suchbegriffTrimmed.length() < MIN_LAENGE_SUCHBEGRIFF ) {
+
+            throw new ZitateException( "Suchbegriff \"" + suchbegriffTrimmed + "\" hat weniger als vier Buchstaben." );
+        }
+
+        return suchbegriffTrimmed;
+    }
+
+
+    /**
+     * Wert von Parameter {@code maxTreffer} prüfen.
+     *
+     * @param maxTreffer Maximale Anzahl Treffer
+     *
+     * @throws ZitateException Wert liegt nicht im Bereich 1-500
+     */
+    static void pruefeMaxTreffer( int maxTreffer ) throws ZitateException {
+
+        if ( maxTreffer < 1 || maxTreffer > MAX_TREFFER ) {
+
+            throw new ZitateException(
+                    "Parameter \"maxTreffer\" liegt nicht im zulässigen Bereich von 1-500: " + maxTreffer );
+        }
+    }
+
+
+    /**
+     * Wert von Parameter {@code maxTreffer} prüfen, wenn die Treffer gestreamt
+     * werden (größere Obergrenze, weil die Treffer nicht im Speicher gehalten werden).
+     *
+     * @param maxTreffer Maximale Anzahl Treffer
+     *
+     * @throws ZitateException Wert liegt nicht im Bereich 1-100.000
+     */
+    static void pruefeMaxTrefferStream( int maxTreffer ) throws ZitateException {
+
+        if ( maxTreffer < 1 || maxTreffer > MAX_TREFFER_STREAM ) {
+
+            throw new ZitateException(
+                    "Parameter \"maxTreffer\" liegt nicht im zulässigen Bereich von 1-100000: " + maxTreffer );
+        }
+    }
+
+
+    /**
+     * Werte der Parameter für die Fuzzy-Suche prüfen.
+     *
+     * @param fuzzyMaxEditDistance Maximale Edit-Distanz
+     *
+     * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes
+     *
+     * @throws ZitateException Edit-Distanz nicht im Bereich 0-2 oder Präfixlänge
+     *                         nicht im Bereich 0-10
+     */
+    static void pruefeFuzzyParameter( int fuzzyMaxEditDistance, int praefixLaenge ) throws ZitateException {
+
+        if ( fuzzyMaxEditDistance < 0 || fuzzyMaxEditDistance > 2 ) {
+
+            throw new ZitateException(
+                    "Parameter \"fuzzyMaxEditDistance\" liegt nicht im zulässigen Bereich von 0-2: " +
+                    fuzzyMaxEditDistance );
+        }
+        if ( praefixLaenge < 0 || praefixLaenge > 10 ) {
+
+            throw new ZitateException(
+                    "Parameter \"praefixLaenge\" liegt nicht im zulässigen Bereich von 0-10: " + praefixLaenge );
+        }
+    }
+
+
+    /**
+     * Präfix für Vorschläge trimmen und Länge prüfen.
+     *
+     * @param praefix Bisher eingegebener Text wie vom Client übergeben
+     *
+     * @return Getrimmter Präfix
+     *
+     * @throws ZitateException Präfix ist nach Trimming kürzer als zwei oder länger
+     *                         als 100 Zeichen
+     */
+    static String pruefePraefix( String praefix ) throws ZitateException {
+
+        final String praefixTrimmed = praefix.trim();
+        if ( praefixTrimmed.length() < MIN_LAENGE_PRAEFIX || praefixTrimmed.length() > MAX_LAENGE_PRAEFIX ) {
+
+            throw new ZitateException(
+                    "Präfix für Vorschläge muss zwei bis 100 Zeichen lang sein: \"" + praefixTrimmed + "\"" );
+        }
+
+        return praefixTrimmed;
+    }
+
+
+    /**
+     * Wert von Parameter {@code anzahl} für Vorschläge prüfen.
+     *
+     * @param anzahl Maximale Anzahl Vorschläge
+     *
+     * @throws ZitateException Wert liegt nicht im Bereich 1-20
+     */
+    static void pruefeAnzahlVorschlaege( int anzahl ) throws ZitateException {
+
+        if ( anzahl < 1 || anzahl > MAX_ANZAHL_VORSCHLAEGE ) {
+
+            throw new ZitateException(
+                    "Parameter \"anzahl\" liegt nicht im zulässigen Bereich von 1-20: " + anzahl );
+        }
+    }
+
+
+    /**
+     * Optionalen Parameter {@code autor} trimmen und Länge prüfen.
+     *
+     * @param autor Autor wie vom Client übergeben, darf {@code null} sein
+     *
+     * @return Getrimmter Autor, oder {@code null} wenn {@code autor} fehlt oder leer ist
+     *
+     * @throws ZitateException Autor ist länger als 255 Zeichen
+     */
+    static String pruefeAutor( String autor ) throws ZitateException {
+
+        if ( autor == null || autor.isBlank() ) {
+
+            return null;
+        }
+
+        final String autorTrimmed = autor.trim();
+        if ( autorTrimmed.length() > MAX_LAENGE_AUTOR ) {
+
+            throw new ZitateException( "Parameter \"autor\" ist länger als 255 Zeichen." );
+        }
+
+        return autorTrimmed;
+    }
+
+
+    /**
+     * Wert von Parameter {@code anzahl} für Anzahl Zitate pro Autor prüfen.
+     *
+     * @param anzahl Maximale Anzahl Autoren
+     *
+     * @throws ZitateException Wert liegt nicht im Bereich 1-100
+     */
+    static void pruefeAnzahlAutoren( int anzahl ) throws ZitateException {
+
+        if ( anzahl < 1 || anzahl > MAX_ANZAHL_AUTOREN ) {
+
+            throw new ZitateException(
+                    "Parameter \"anzahl\" liegt nicht im zulässigen Bereich von 1-100: " + anzahl );
+        }
+    }
+
+
+    /**
+     * Wert von Parameter {@code seitenGroesse} prüfen.
+     *
+     * @param seitenGroesse Anzahl Treffer pro Seite
+     *
+     * @throws ZitateException Wert liegt nicht im Bereich 1-100
+     */
+    static void pruefeSeitenGroesse( int seitenGroesse ) throws ZitateException {
+
+        if ( seitenGroesse < 1 || seitenGroesse > MAX_SEITEN_GROESSE ) {
+
+            throw new ZitateException(
+                    "Parameter \"seitenGroesse\" liegt nicht im zulässigen Bereich von 1-100: " + seitenGroesse );
+        }
+    }
+
+}
@@ -1,11 +1,14 @@
 package de.eldecker.dhbw.spring.zitate.web;
 
-import java.util.List;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+import java.util.Map;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -13,16 +16,28 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import de.eldecker.dhbw.spring.zitate.db.FuzzySuche;
 import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
-import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import de.eldecker.dhbw.spring.zitate.db.ZitatSeite;
+import de.eldecker.dhbw.spring.zitate.helferlein.UeberlastException;
 import de.eldecker.dhbw.spring.zitate.helferlein.ZitateException;
+import de.eldecker.dhbw.spring.zitate.logik.SeitenCursor;
+import de.eldecker.dhbw.spring.zitate.logik.SuchErgebnis;
+import de.eldecker.dhbw.spring.zitate.logik.SuchService;
+import de.eldecker.dhbw.spring.zitate.logik.ZufallsZitat;
+import de.eldecker.dhbw.spring.zitate.logik.ZufallsZitatService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 
 /**
  * Controller-Klasse für Thymeleaf-Templates. Jede Mapping-Methode
  * gibt den String mit dem Namen der Template-Datei (ohne Datei-Endung)
  * zurück, die angezeigt werden soll.
+ * <br><br>
+ *
+ * Ergebnisseiten der Suche bekommen ein {@code ETag} und einen Header {@code Cache-Control}
+ * (siehe {@link HttpCacheSteuerung}); kennt der Browser die Seite schon, dann gibt die
+ * Methode {@code null} zurück und es wird nur HTTP-Status 304 gesendet.
  */
 @Controller
 @RequestMapping( "/app/" )
@@ -30,22 +45,30 @@ public class ThymeleafController {
 
     private static final Logger LOG = LoggerFactory.getLogger( ThymeleafController.class );
 
-    /** Repo-Bean für Fuzzy-Suche. */
-    private final FuzzySuche _fuzzySuche;
+    /** Maximale Anzahl Autoren, die auf der Ergebnisseite mit Anzahl Treffern angezeigt werden. */
+    private static final int ANZAHL_AUTOREN_FACETTEN = 10;
+
+    /** Service-Bean für (gecachte) Fuzzy-Suche. */
+    private final SuchService _suchService;
 
-    /** Repo-Bean für "normalen" Zugriff auf Datenbanktabelle mit Zitaten. */
-    private final ZitateRepo _zitateRepo;
+    /** Service-Bean für Auswahl eines zufälligen Zitats. */
+    private final ZufallsZitatService _zufallsZitatService;
+
+    /** Für ETags und Header {@code Cache-Control}. */
+    private final HttpCacheSteuerung _httpCache;
 
 
     /**
      * Konstruktor für <i>Dependency Injection</i>.
      */
     @Autowired
-    public ThymeleafController ( FuzzySuche fuzzySuche,
-                                 ZitateRepo zitateRepo ) {
+    public ThymeleafController ( SuchService         suchService,
+                                 ZufallsZitatService zufallsZitatService,
+                                 HttpCacheSteuerung  httpCache ) {
 
-        _fuzzySuche = fuzzySuche;
-        _zitateRepo = zitateRepo;
+        _suchService         = suchService;
+        _zufallsZitatService = zufallsZitatService;
+        _httpCache           = httpCache;
     }
 
 
@@ -73,6 +96,32 @@ public class ThymeleafController {
     }
 
 
+    /**
+     * Exception-Handler für Suchen, die wegen Überlast abgewiesen wurden: Fehlerseite
+     * mit HTTP-Status 503 und Header {@code Retry-After}.
+     *
+     * @param ex Exception mit Fehlerbeschreibung und Wartezeit
+     *
+     * @param model Objekt für Platzhalterwerte in Template.
+     *
+     * @param response HTTP-Antwort für Status und Header
+     *
+     * @return Name der Template-Datei "such-fehler.html" ohne Datei-Endung
+     */
+    @ExceptionHandler( UeberlastException.class )
+    public String ueberlastBehandeln( UeberlastException ex, Model model, HttpServletResponse response ) {
+
+        LOG.debug( "Suche wegen Überlast abgewiesen: " + ex.getMessage() );
+
+        response.setStatus( SERVICE_UNAVAILABLE.value() );
+        response.setHeader( HttpHeaders.RETRY_AFTER, String.valueOf( ex.getRetryAfterSekunden() ) );
+
+        model.addAttribute( "fehlermeldung", ex.getMessage() );
+
+        return "suche-fehler";
+    }
+
+
 	/**
 	 * Controller-Methode für Suche.
 	 *
@@ -85,12 +134,28 @@ public class ThymeleafController {
 	 * @param fuzzyMaxEditDistance Parameter für Steuerung der Fuzzy-Suche (optionaler Parameter);
 	 *                             je höher der Wert, desto ungenauere Treffer werden zurückgeliefert;
 	 *                             bei 0 ist Fuzzy-Suche ausgeschaltet;
-	 *                             Werte echt-kleiner 0 und echt-größer 10 sind nicht zulässig.
-	 *                             Der Default-Wert ist 2.
+	 *                             Werte echt-kleiner 0 und echt-größer 2 (Maximum von Lucene) sind
+	 *                             nicht zulässig. Der Default-Wert ist 2.
+	 *
+	 * @param praefixLaenge Anzahl Zeichen am Anfang jedes Suchterms, die bei der Fuzzy-Suche exakt
+	 *                      übereinstimmen müssen (optionaler Parameter); zulässig sind 0 bis 10,
+	 *                      Default-Wert ist 0.
+	 *
+	 * @param autor Nur Zitate dieses Autors anzeigen (optionaler Parameter); Groß-/Kleinschreibung
+	 *              spielt keine Rolle.
+	 *
+	 * @param gestaffelt Gestaffelte Suche (optionaler Parameter, Default-Wert {@code true}): zuerst
+	 *                   exakt suchen und die Edit-Distanz nur bei zu wenigen Treffern bis
+	 *                   {@code fuzzyMaxEditDistance} erhöhen.
 	 *
 	 * @param model Objekt für Platzhalterwerte in Template.
 	 *
-	 * @return Name der Template-Datei "such-ergebnis.html" ohne Datei-Endung (auch wenn nichts gefunden wurde)
+	 * @param request HTTP-Anfrage für Header {@code If-None-Match}
+	 *
+	 * @param response HTTP-Antwort für Status 304 und Cache-Header
+	 *
+	 * @return Name der Template-Datei "such-ergebnis.html" ohne Datei-Endung (auch wenn nichts gefunden wurde),
+	 *         oder {@code null} bei HTTP-Status 304
 	 *
 	 * @throws ZitateException Ungültiger Parameter übergeben: {@code suchbegriff} zu kurz oder Wert für
 	 *                         {@code maxTreffer} und/oder {@code fuzzyMaxEditDistance} nicht im zulässigen
@@ -98,52 +163,151 @@ public class ThymeleafController {
 	 *                         verarbeitet.
 	 */
 	@GetMapping( "/suche" )
-	public String suche( @RequestParam(value = "suchbegriff", required = true                      ) String suchbegriff      ,
-	                     @RequestParam(value = "maxTreffer" , required = false, defaultValue = "10") int maxTreffer          ,
-						 @RequestParam(value = "fuzziness"  , required = false, defaultValue = "2" ) int fuzzyMaxEditDistance,
-			             Model model ) throws ZitateException {
+	public String suche( @RequestParam(value = "suchbegriff"  , required = true                        ) String  suchbegriff         ,
+	                     @RequestParam(value = "maxTreffer"   , required = false, defaultValue = "10"  ) int     maxTreffer          ,
+						 @RequestParam(value = "fuzziness"    , required = false, defaultValue = "2"   ) int     fuzzyMaxEditDistance,
+						 @RequestParam(value = "praefixLaenge", required = false, defaultValue = "0"   ) int     praefixLaenge       ,
+						 @RequestParam(value = "autor"        , required = false                        ) String  autor               ,
+						 @RequestParam(value = "gestaffelt"   , required = false, defaultValue = "true") boolean gestaffelt          ,
+			             Model model, HttpServletRequest request, HttpServletResponse response ) throws ZitateException {
+
+		final String suchbegriffTrimmed = SuchParameterPruefer.pruefeSuchbegriff( suchbegriff );
+		SuchParameterPruefer.pruefeMaxTreffer( maxTreffer );
+		SuchParameterPruefer.pruefeFuzzyParameter( fuzzyMaxEditDistance, praefixLaenge );
+		final String autorTrimmed = SuchParameterPruefer.pruefeAutor( autor );
+
+		final String etag = _httpCache.etag( "app-suche", suchbegriffTrimmed, maxTreffer, fuzzyMaxEditDistance,
+		                                     praefixLaenge, autorTrimmed, gestaffelt );
+		if ( _httpCache.istNichtGeaendert( request, etag ) ) {
+
+			_httpCache.nichtGeaendertSetzen( response, etag );
+			return null;
+		}
 
-		final String suchbegriffTrimmed = suchbegriff.trim();
-		if ( suchbegriffTrimmed.length() < 4 ) {
+		final SuchErgebnis suchErgebnis =
+					_suchService.suche( suchbegriffTrimmed, maxTreffer, fuzzyMaxEditDistance, praefixLaenge,
+					                    autorTrimmed, gestaffelt );
 
-		    throw new ZitateException( "Suchbegriff \"" + suchbegriffTrimmed + "\" hat weniger als vier Buchstaben." );
+		// Facetten nur ohne Autor-Filter, sonst gäbe es nur einen Eintrag
+		final Map<String, Long> autorenFacetten = autorTrimmed != null
+		        ? Map.of()
+		        : _suchService.zaehleAutoren( suchbegriffTrimmed, fuzzyMaxEditDistance, praefixLaenge,
+		                                      ANZAHL_AUTOREN_FACETTEN );
 
-		}
-		if ( maxTreffer < 1 || maxTreffer > 500 ) {
+		model.addAttribute( "suchbegriff"  , suchbegriffTrimmed          );
+		model.addAttribute( "ergebnisListe", suchErgebnis.trefferListe() );
+		model.addAttribute( "suchstufe"    , suchErgebnis.stufe()        );
+		model.addAttribute( "fuzziness"    , fuzzyMaxEditDistance        );
+		model.addAttribute( "praefixLaenge", praefixLaenge               );
+		model.addAttribute( "maxTreffer"   , maxTreffer                  );
+		model.addAttribute( "autor"        , autorTrimmed                );
+		model.addAttribute( "autoren"      , autorenFacetten             );
 
-		    throw new ZitateException(
-		            "Parameter \"maxTreffer\" liegt nicht im zulässigen Bereich von 1-500: " + maxTreffer );
-		}
-        if ( fuzzyMaxEditDistance < 0 || fuzzyMaxEditDistance > 10 ) {
+		_httpCache.cacheHeaderSetzen( response, etag );
 
-            throw new ZitateException(
-                    "Parameter \"fuzzyMaxEditDistance\" liegt nicht im zulässigen Bereich von 0-10: " +
-                    fuzzyMaxEditDistance );
-        }
+		return "suche-ergebnis";
+	}
 
-		final List<ZitatEntity> ergebnisListe =
-					_fuzzySuche.sucheFuzzy( suchbegriffTrimmed, maxTreffer, 2 );
 
-		model.addAttribute( "suchbegriff"  , suchbegriffTrimmed );
-		model.addAttribute( "ergebnisListe", ergebnisListe      );
+	/**
+	 * Controller-Methode für seitenweises Blättern durch alle Treffer einer Suche.
+	 * Die Treffer werden dabei nach ID (nicht nach Relevanz) sortiert, dafür ist der
+	 * Aufwand für jede Seite gleich, egal wie weit schon geblättert wurde.
+	 *
+	 * @param suchbegriff Suchbegriff; obligatorisch; muss nach Trimming mindestens vier
+	 *                    Zeichen lang sein.
+	 *
+	 * @param seitenGroesse Anzahl Treffer pro Seite (optionaler Parameter); Default-Wert
+	 *                      ist 10, zulässig sind 1 bis 100.
+	 *
+	 * @param fuzzyMaxEditDistance Edit-Distanz für Fuzzy-Suche (optionaler Parameter);
+	 *                             zulässig sind 0 bis 2, Default-Wert ist 2.
+	 *
+	 * @param praefixLaenge Länge des exakt übereinstimmenden Präfixes (optionaler Parameter);
+	 *                      zulässig sind 0 bis 10, Default-Wert ist 0.
+	 *
+	 * @param autor Nur Zitate dieses Autors anzeigen (optionaler Parameter).
+	 *
+	 * @param cursor Cursor aus Link "nächste Seite" bzw. "vorherige Seite" der vorherigen
+	 *               Ergebnisseite (optionaler Parameter); fehlt er, dann wird die erste
+	 *               Seite angezeigt.
+	 *
+	 * @param model Objekt für Platzhalterwerte in Template.
+	 *
+	 * @param request HTTP-Anfrage für Header {@code If-None-Match}
+	 *
+	 * @param response HTTP-Antwort für Status 304 und Cache-Header
+	 *
+	 * @return Name der Template-Datei "such-ergebnis.html" ohne Datei-Endung, oder {@code null} bei HTTP-Status 304
+	 *
+	 * @throws ZitateException Ungültiger Parameter übergeben
+	 */
+	@GetMapping( "/suche/seite" )
+	public String sucheSeite( @RequestParam(value = "suchbegriff"  , required = true                      ) String suchbegriff         ,
+	                          @RequestParam(value = "seitenGroesse", required = false, defaultValue = "10") int    seitenGroesse       ,
+	                          @RequestParam(value = "fuzziness"    , required = false, defaultValue = "2" ) int    fuzzyMaxEditDistance,
+	                          @RequestParam(value = "praefixLaenge", required = false, defaultValue = "0" ) int    praefixLaenge       ,
+	                          @RequestParam(value = "autor"        , required = false                     ) String autor               ,
+	                          @RequestParam(value = "cursor"       , required = false                     ) String cursor              ,
+	                          Model model, HttpServletRequest request, HttpServletResponse response ) throws ZitateException {
+
+	    final String suchbegriffTrimmed = SuchParameterPruefer.pruefeSuchbegriff( suchbegriff );
+	    SuchParameterPruefer.pruefeSeitenGroesse( seitenGroesse );
+	    SuchParameterPruefer.pruefeFuzzyParameter( fuzzyMaxEditDistance, praefixLaenge );
+	    final String autorTrimmed = SuchParameterPruefer.pruefeAutor( autor );
+
+	    final SeitenCursor seitenCursor = cursor == null || cursor.isBlank() ? null : SeitenCursor.dekodieren( cursor );
+
+	    final String etag = _httpCache.etag( "app-suche-seite", suchbegriffTrimmed, seitenGroesse, fuzzyMaxEditDistance,
+	                                         praefixLaenge, autorTrimmed, cursor == null ? null : cursor.strip() );
+	    if ( _httpCache.istNichtGeaendert( request, etag ) ) {
+
+	        _httpCache.nichtGeaendertSetzen( response, etag );
+	        return null;
+	    }
 
-		return "suche-ergebnis";
+	    final ZitatSeite seite = _suchService.sucheSeite( suchbegriffTrimmed, fuzzyMaxEditDistance, praefixLaenge,
+	                                                      seitenGroesse, seitenCursor, autorTrimmed );
+
+	    model.addAttribute( "suchbegriff"    , suchbegriffTrimmed                        );
+	    model.addAttribute( "ergebnisListe"  , seite.trefferListe()                      );
+	    model.addAttribute( "blaettern"      , true                                      );
+	    model.addAttribute( "anzahlGesamt"   , seite.anzahlTrefferGesamt()               );
+	    model.addAttribute( "anzahlExakt"    , seite.anzahlExakt()                       );
+	    model.addAttribute( "seitenGroesse"  , seitenGroesse                             );
+	    model.addAttribute( "fuzziness"      , fuzzyMaxEditDistance                      );
+	    model.addAttribute( "praefixLaenge"  , praefixLaenge                             );
+	    model.addAttribute( "autor"          , autorTrimmed                              );
+	    model.addAttribute( "cursorNaechste" , SeitenCursor.fuerNaechsteSeite( seite )   );
+	    model.addAttribute( "cursorVorherige", SeitenCursor.fuerVorherigeSeite( seite )  );
+
+	    _httpCache.cacheHeaderSetzen( response, etag );
+
+	    return "suche-ergebnis";
 	}
 
 
 	/**
-	 * Controller-Methode für Seite, die ein zufällig ausgewähltes Zitat anzeigt.
+	 * Controller-Methode für Seite, die ein zufällig ausgewähltes Zitat anzeigt; darf
+	 * nicht gecacht werden, weil jeder Aufruf ein anderes Zitat zeigen soll.
 	 *
 	 * @param model Objekt für Platzhalterwerte in Template.
 	 *
+	 * @param response HTTP-Antwort für Header {@code Cache-Control}
+	 *
 	 * @return Name der Template-Datei "zitat-zufall.html" ohne Datei-Endung
 	 */
 	@GetMapping( "/zufall" )
-	public String zufaelligesZitat( Model model ) {
+	public String zufaelligesZitat( Model model, HttpServletResponse response ) {
+
+	    HttpCacheSteuerung.nichtCachen( response );
+
+	    final ZufallsZitat zufallsZitat = _zufallsZitatService.getZufallsZitat();
 
-	    final Optional<ZitatEntity> zitatOptional = _zitateRepo.getZufallsZitat();
+	    final Optional<ZitatEntity> zitatOptional = zufallsZitat.zitatOptional();
 
 	    String zitat = "";
+	    String autor = null;
 	    int    id    = -1;
 
 	    if ( zitatOptional.isEmpty() ) {
@@ -155,12 +319,14 @@ public class ThymeleafController {
 	        final ZitatEntity zufallsEntity = zitatOptional.get();
 	        
 	        zitat = zufallsEntity.getZitat();
+	        autor = zufallsEntity.getAutor();
 	        id    = (int) zufallsEntity.getId().intValue();
 	    }
 
-		final int anzahlZitate = (int) _zitateRepo.count();
+		final int anzahlZitate = zufallsZitat.anzahlZitate();
 
 	    model.addAttribute( "zitat_text"   , zitat        );
+	    model.addAttribute( "zitat_autor"  , autor        );
 	    model.addAttribute( "zitat_id"     , id           );
 		model.addAttribute( "anzahl_zitate", anzahlZitate );
 
@@ -0,0 +1,375 @@
+package de.eldecker.dhbw.spring.zitate.web;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitatTreffer;
+import de.eldecker.dhbw.spring.zitate.db.ZitatVorschlag;
+import de.eldecker.dhbw.spring.zitate.helferlein.UeberlastException;
+import de.eldecker.dhbw.spring.zitate.helferlein.ZitateException;
+import de.eldecker.dhbw.spring.zitate.logik.SuchErgebnis;
+import de.eldecker.dhbw.spring.zitate.logik.SuchService;
+import de.eldecker.dhbw.spring.zitate.logik.SuchSchott;
+import de.eldecker.dhbw.spring.zitate.logik.ZufallsZitat;
+import de.eldecker.dhbw.spring.zitate.logik.ZufallsZitatService;
+import jakarta.servlet.http.HttpServletRequest;
+
+
+/**
+ * REST-Controller für Suche und Zufallszitat als JSON, z.B. für andere Services,
+ * die sonst die HTML-Seiten des {@link ThymeleafController} auswerten müssten.
+ * Die Parameter werden mit denselben Regeln wie dort geprüft; bei ungültigen
+ * Parametern wird HTTP-Status 400 mit einem "Problem Detail" (RFC 9457) als
+ * JSON zurückgeliefert. Wird eine Suche wegen Überlast abgewiesen (siehe
+ * {@link de.eldecker.dhbw.spring.zitate.logik.SuchSchott}), dann ist der HTTP-Status 503
+ * mit Header {@code Retry-After}.
+ * <br><br>
+ *
+ * Suchergebnisse, Vorschläge und Autoren bekommen ein {@code ETag} und einen Header
+ * {@code Cache-Control} (siehe {@link HttpCacheSteuerung}); bei passendem
+ * {@code If-None-Match} wird ohne Suche mit HTTP-Status 304 geantwortet.
+ * <br><br>
+ *
+ * Beispiele:
+ * <pre>
+ * curl "http://localhost:8080/api/v1/suche?suchbegriff=love&amp;maxTreffer=5"
+ * curl "http://localhost:8080/api/v1/suche/ndjson?suchbegriff=love&amp;maxTreffer=50000"
+ * curl "http://localhost:8080/api/v1/zufall"
+ * curl "http://localhost:8080/api/v1/vorschlaege?praefix=lo"
+ * curl "http://localhost:8080/api/v1/autoren?suchbegriff=love"
+ * curl "http://localhost:8080/api/v1/autoren/zitate?autor=Oscar%20Wilde"
+ * </pre>
+ */
+@RestController
+@RequestMapping( "/api/v1/" )
+public class ZitateRestController {
+
+    private static final Logger LOG = LoggerFactory.getLogger( ZitateRestController.class );
+
+    /** Media-Type für "Newline Delimited JSON": ein JSON-Objekt pro Zeile. */
+    public static final MediaType NDJSON = MediaType.parseMediaType( "application/x-ndjson" );
+
+    /** Service-Bean für (gecachte) Suche. */
+    private final SuchService _suchService;
+
+    /** Service-Bean für Auswahl eines zufälligen Zitats. */
+    private final ZufallsZitatService _zufallsZitatService;
+
+    /** Für Serialisierung der einzelnen Treffer beim Streaming als NDJSON. */
+    private final ObjectMapper _objectMapper;
+
+    /** Für ETags und Header {@code Cache-Control}. */
+    private final HttpCacheSteuerung _httpCache;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ZitateRestController( SuchService         suchService,
+                                 ZufallsZitatService zufallsZitatService,
+                                 ObjectMapper        objectMapper,
+                                 HttpCacheSteuerung  httpCache ) {
+
+        _suchService         = suchService;
+        _zufallsZitatService = zufallsZitatService;
+        _objectMapper        = objectMapper;
+        _httpCache           = httpCache;
+    }
+
+
+    /**
+     * Exception-Handler für ungültige Parameter.
+     *
+     * @param ex Exception mit Fehlerbeschreibung
+     *
+     * @return Problem Detail mit HTTP-Status 400
+     */
+    @ExceptionHandler( ZitateException.class )
+    public ProblemDetail exceptionBehandeln( ZitateException ex ) {
+
+        LOG.warn( "Ungültige Anfrage an REST-API: " + ex.getMessage() );
+
+        return ProblemDetail.forStatusAndDetail( BAD_REQUEST, ex.getMessage() );
+    }
+
+
+    /**
+     * Exception-Handler für Suchen, die wegen Überlast abgewiesen wurden. Wird nur auf
+     * Level DEBUG geloggt, weil unter Last sehr viele Anfragen betroffen sein können
+     * (Anzahl siehe Metrik {@code zitate.schott.abgewiesen}).
+     *
+     * @param ex Exception mit Fehlerbeschreibung und Wartezeit
+     *
+     * @return Problem Detail mit HTTP-Status 503 und Header {@code Retry-After}
+     */
+    @ExceptionHandler( UeberlastException.class )
+    public ResponseEntity<ProblemDetail> ueberlastBehandeln( UeberlastException ex ) {
+
+        LOG.debug( "Suche wegen Überlast abgewiesen: " + ex.getMessage() );
+
+        return ResponseEntity.status( SERVICE_UNAVAILABLE )
+                             .header( HttpHeaders.RETRY_AFTER, String.valueOf( ex.getRetryAfterSekunden() ) )
+                             .body( ProblemDetail.forStatusAndDetail( SERVICE_UNAVAILABLE, ex.getMessage() ) );
+    }
+
+
+    /**
+     * Suche nach Zitaten, Ergebnis als JSON-Objekt mit Trefferliste und Suchstufe.
+     * Parameter wie bei {@link ThymeleafController#suche(String, int, int, int, String, boolean, org.springframework.ui.Model,
+     * HttpServletRequest, jakarta.servlet.http.HttpServletResponse)}.
+     *
+     * @return Suchergebnis, oder HTTP-Status 304 ohne Body
+     *
+     * @throws ZitateException Ungültiger Parameter, führt zu HTTP-Status 400
+     */
+    @GetMapping( "/suche" )
+    public ResponseEntity<SuchErgebnis> suche( @RequestParam(value = "suchbegriff"  , required = true                        ) String  suchbegriff         ,
+                                               @RequestParam(value = "maxTreffer"   , required = false, defaultValue = "10"  ) int     maxTreffer          ,
+                                               @RequestParam(value = "fuzziness"    , required = false, defaultValue = "2"   ) int     fuzzyMaxEditDistance,
+                                               @RequestParam(value = "praefixLaenge", required = false, defaultValue = "0"   ) int     praefixLaenge       ,
+                                               @RequestParam(value = "autor"        , required = false                        ) String  autor               ,
+                                               @RequestParam(value = "gestaffelt"   , required = false, defaultValue = "true") boolean gestaffelt          ,
+                                               HttpServletRequest request )
+                                                       throws ZitateException {
+
+        final String suchbegriffTrimmed = SuchParameterPruefer.pruefeSuchbegriff( suchbegriff );
+        SuchParameterPruefer.pruefeMaxTreffer( maxTreffer );
+        SuchParameterPruefer.pruefeFuzzyParameter( fuzzyMaxEditDistance, praefixLaenge );
+        final String autorTrimmed = SuchParameterPruefer.pruefeAutor( autor );
+
+        final String etag = _httpCache.etag( "api-suche", suchbegriffTrimmed, maxTreffer, fuzzyMaxEditDistance,
+                                             praefixLaenge, autorTrimmed, gestaffelt );
+        if ( _httpCache.istNichtGeaendert( request, etag ) ) {
+
+            return _httpCache.nichtGeaendert( etag );
+        }
+
+        return _httpCache.ok( etag, _suchService.suche( suchbegriffTrimmed, maxTreffer, fuzzyMaxEditDistance,
+                                                        praefixLaenge, autorTrimmed, gestaffelt ) );
+    }
+
+
+    /**
+     * Suche nach Zitaten für große Ergebnismengen: die Treffer werden als NDJSON (ein
+     * JSON-Objekt pro Zeile) gestreamt, d.h. jeder Treffer wird geschrieben, sobald er
+     * aus dem Index geholt wurde, ohne dass die ganze Trefferliste im Speicher gehalten wird.
+     * <br><br>
+     *
+     * Die Erlaubnis des {@link SuchSchott} wird schon vor
+     * dem Beginn der Antwort geholt, damit eine Abweisung wegen Überlast noch als HTTP-Status
+     * 503 mit {@code Retry-After} gesendet werden kann; zurückgegeben wird sie erst, wenn die
+     * Antwort geschrieben ist. Wird die max. Laufzeit überschritten, dann wird die schon
+     * begonnene Antwort abgebrochen.
+     *
+     * @param maxTreffer Maximale Anzahl Treffer; Default-Wert ist 1000, zulässig sind 1 bis 100.000
+     *
+     * @return Streaming-Antwort mit Media-Type {@code application/x-ndjson}
+     *
+     * @throws ZitateException Ungültiger Parameter, führt zu HTTP-Status 400
+     *
+     * @throws UeberlastException Keine Erlaubnis für gestreamte Suche frei, führt zu HTTP-Status 503
+     */
+    @GetMapping( "/suche/ndjson" )
+    public ResponseEntity<StreamingResponseBody> sucheNdjson(
+                               @RequestParam(value = "suchbegriff"  , required = true                        ) String suchbegriff         ,
+                               @RequestParam(value = "maxTreffer"   , required = false, defaultValue = "1000") int    maxTreffer          ,
+                               @RequestParam(value = "fuzziness"    , required = false, defaultValue = "2"   ) int    fuzzyMaxEditDistance,
+                               @RequestParam(value = "praefixLaenge", required = false, defaultValue = "0"   ) int    praefixLaenge       ,
+                               @RequestParam(value = "autor"        , required = false                        ) String autor )
+                                       throws ZitateException {
+
+        final String suchbegriffTrimmed = SuchParameterPruefer.pruefeSuchbegriff( suchbegriff );
+        SuchParameterPruefer.pruefeMaxTrefferStream( maxTreffer );
+        SuchParameterPruefer.pruefeFuzzyParameter( fuzzyMaxEditDistance, praefixLaenge );
+        final String autorTrimmed = SuchParameterPruefer.pruefeAutor( autor );
+
+        final SuchSchott.Erlaubnis erlaubnis = _suchService.streamErlaubnisHolen();
+
+        final StreamingResponseBody body = outputStream -> {
+
+            final OutputStream gepuffert = new BufferedOutputStream( outputStream, 16 * 1024 );
+            try ( erlaubnis ) {
+
+                _suchService.streameTreffer( erlaubnis, suchbegriffTrimmed, fuzzyMaxEditDistance, praefixLaenge,
+                                             maxTreffer, autorTrimmed, treffer -> {
+                    try {
+
+                        gepuffert.write( _objectMapper.writeValueAsBytes( treffer ) );
+                        gepuffert.write( '\n' );
+                    }
+                    catch ( IOException ex ) {
+
+                        throw new UncheckedIOException( ex );
+                    }
+                });
+            }
+            catch ( UncheckedIOException ex ) {
+
+                throw ex.getCause();
+            }
+            gepuffert.flush();
+        };
+
+        return ResponseEntity.ok()
+                             .contentType( NDJSON )
+                             .body( body );
+    }
+
+
+    /**
+     * Vorschläge für die Eingabe im Suchfeld ("Search as you type"), wird von der Seite
+     * {@code zitatsuche.html} nach jedem Tastendruck (mit Verzögerung) aufgerufen.
+     * Im Gegensatz zur eigentlichen Suche reichen hier schon zwei Zeichen, weil nur
+     * nach Wortanfängen in einem eigenen Lucene-Feld gesucht wird.
+     *
+     * @param praefix Bisher eingegebener Text, mindestens zwei Zeichen
+     *
+     * @param anzahl Maximale Anzahl Vorschläge; Default-Wert ist 8, zulässig sind 1 bis 20
+     *
+     * @return Liste mit Vorschlägen (ID und ggf. gekürzter Text), ggf. leer; oder HTTP-Status 304 ohne Body
+     *
+     * @throws ZitateException Ungültiger Parameter, führt zu HTTP-Status 400
+     */
+    @GetMapping( "/vorschlaege" )
+    public ResponseEntity<List<ZitatVorschlag>> vorschlaege( @RequestParam(value = "praefix", required = true                     ) String praefix,
+                                                             @RequestParam(value = "anzahl" , required = false, defaultValue = "8") int    anzahl ,
+                                                             HttpServletRequest request )
+                                                                     throws ZitateException {
+
+        final String praefixTrimmed = SuchParameterPruefer.pruefePraefix( praefix );
+        SuchParameterPruefer.pruefeAnzahlVorschlaege( anzahl );
+
+        final String etag = _httpCache.etag( "api-vorschlaege", praefixTrimmed, anzahl );
+        if ( _httpCache.istNichtGeaendert( request, etag ) ) {
+
+            return _httpCache.nichtGeaendert( etag );
+        }
+
+        return _httpCache.ok( etag, _suchService.vorschlaege( praefixTrimmed, anzahl ) );
+    }
+
+
+    /**
+     * Anzahl Zitate pro Autor (Facetten), berechnet mit einer Lucene-Aggregation.
+     * Ohne {@code suchbegriff} werden alle Zitate gezählt, sonst nur die Treffer der Suche.
+     *
+     * @param suchbegriff Optionaler Suchbegriff, mindestens vier Zeichen
+     *
+     * @param anzahl Maximale Anzahl Autoren; Default-Wert ist 20, zulässig sind 1 bis 100
+     *
+     * @return JSON-Objekt mit Autor als Schlüssel und Anzahl Zitate als Wert,
+     *         absteigend nach Anzahl sortiert; oder HTTP-Status 304 ohne Body
+     *
+     * @throws ZitateException Ungültiger Parameter, führt zu HTTP-Status 400
+     */
+    @GetMapping( "/autoren" )
+    public ResponseEntity<Map<String, Long>> autoren( @RequestParam(value = "suchbegriff"  , required = false                     ) String suchbegriff         ,
+                                                      @RequestParam(value = "fuzziness"    , required = false, defaultValue = "2" ) int    fuzzyMaxEditDistance,
+                                                      @RequestParam(value = "praefixLaenge", required = false, defaultValue = "0" ) int    praefixLaenge       ,
+                                                      @RequestParam(value = "anzahl"       , required = false, defaultValue = "20") int    anzahl              ,
+                                                      HttpServletRequest request )
+                                                              throws ZitateException {
+
+        final String suchbegriffTrimmed = suchbegriff == null || suchbegriff.isBlank()
+                                          ? null
+                                          : SuchParameterPruefer.pruefeSuchbegriff( suchbegriff );
+        SuchParameterPruefer.pruefeFuzzyParameter( fuzzyMaxEditDistance, praefixLaenge );
+        SuchParameterPruefer.pruefeAnzahlAutoren( anzahl );
+
+        final String etag = _httpCache.etag( "api-autoren", suchbegriffTrimmed, fuzzyMaxEditDistance, praefixLaenge, anzahl );
+        if ( _httpCache.istNichtGeaendert( request, etag ) ) {
+
+            return _httpCache.nichtGeaendert( etag );
+        }
+
+        return _httpCache.ok( etag, _suchService.zaehleAutoren( suchbegriffTrimmed, fuzzyMaxEditDistance,
+                                                                praefixLaenge, anzahl ) );
+    }
+
+
+    /**
+     * Alle Zitate eines Autors; Groß-/Kleinschreibung und Akzente im Namen spielen
+     * keine Rolle, der Name muss aber vollständig sein.
+     *
+     * @param autor Name des Autors
+     *
+     * @param maxTreffer Maximale Anzahl Treffer; Default-Wert ist 10, zulässig sind 1 bis 500
+     *
+     * @return Liste der Zitate, nach ID sortiert; oder HTTP-Status 304 ohne Body
+     *
+     * @throws ZitateException Ungültiger Parameter, führt zu HTTP-Status 400
+     */
+    @GetMapping( "/autoren/zitate" )
+    public ResponseEntity<List<ZitatTreffer>> zitateVonAutor( @RequestParam(value = "autor"     , required = true                      ) String autor     ,
+                                                              @RequestParam(value = "maxTreffer", required = false, defaultValue = "10") int    maxTreffer,
+                                                              HttpServletRequest request )
+                                                                      throws ZitateException {
+
+        final String autorTrimmed = SuchParameterPruefer.pruefeAutor( autor );
+        if ( autorTrimmed == null ) {
+
+            throw new ZitateException( "Parameter \"autor\" ist leer." );
+        }
+        SuchParameterPruefer.pruefeMaxTreffer( maxTreffer );
+
+        final String etag = _httpCache.etag( "api-autor-zitate", autorTrimmed, maxTreffer );
+        if ( _httpCache.istNichtGeaendert( request, etag ) ) {
+
+            return _httpCache.nichtGeaendert( etag );
+        }
+
+        return _httpCache.ok( etag, _suchService.sucheNachAutor( autorTrimmed, maxTreffer ) );
+    }
+
+
+    /**
+     * Zufälliges Zitat als JSON; darf nicht gecacht werden, weil jeder Aufruf ein
+     * anderes Zitat liefern soll.
+     *
+     * @return Zufallszitat mit HTTP-Status 200, oder HTTP-Status 404 wenn die
+     *         Datenbank keine Zitate enthält
+     */
+    @GetMapping( "/zufall" )
+    public ResponseEntity<ZufallsZitatAntwort> zufall() {
+
+        final ZufallsZitat zufallsZitat = _zufallsZitatService.getZufallsZitat();
+        if ( zufallsZitat.zitatOptional().isEmpty() ) {
+
+            return ResponseEntity.notFound().cacheControl( CacheControl.noStore() ).build();
+        }
+
+        final ZitatEntity zitat = zufallsZitat.zitatOptional().get();
+
+        return ResponseEntity.ok()
+                             .cacheControl( CacheControl.noStore() )
+                             .body( new ZufallsZitatAntwort( zitat.getId(), zitat.getZitat(), zitat.getAutor(),
+                                                             zufallsZitat.anzahlZitate() ) );
+    }
+
+}
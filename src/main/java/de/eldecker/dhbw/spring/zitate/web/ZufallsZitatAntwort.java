@@ -0,0 +1,19 @@
+package de.eldecker.dhbw.spring.zitate.web;
+
+
+/**
+ * JSON-Antwort des REST-Endpunkts für ein zufälliges Zitat.
+ *
+ * @param id ID des Zitats
+ *
+ * @param zitat Text des Zitats
+ *
+ * @param autor Autor des Zitats, oder {@code null} wenn unbekannt
+ *
+ * @param anzahlZitate Anzahl der Zitate in der Datenbank
+ */
+public record ZufallsZitatAntwort( Long   id,
+                                   String zitat,
+                                   String autor,
+                                   int    anzahlZitate ) {
+}
@@ -1,4 +1,4 @@
 /**
- * Paket enthält Controller für Thymeleaf-Template-Engine.
+ * Paket enthält Controller für Thymeleaf-Template-Engine und REST-Controller.
  */
 package de.eldecker.dhbw.spring.zitate.web;
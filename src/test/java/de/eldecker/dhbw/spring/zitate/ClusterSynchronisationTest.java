@@ -0,0 +1,211 @@
+package de.eldecker.dhbw.spring.zitate;
+
+import static de.eldecker.dhbw.spring.zitate.helferlein.Metriken.CLUSTER_VERZOEGERUNG;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.h2.tools.Server;
+import org.hibernate.search.mapper.orm.Search;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.FuzzySuche;
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import de.eldecker.dhbw.spring.zitate.logik.ImportErgebnis;
+import de.eldecker.dhbw.spring.zitate.logik.ZitateImporter;
+import de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Test für den Cluster-Modus: startet einen H2-Server über TCP und zwei Instanzen der
+ * Anwendung (Knoten "a" und "b") mit dieser Datenbank und jeweils eigenem Lucene-Index
+ * im Heap. Auf Knoten "a" werden Zitate importiert und wieder gelöscht; geprüft wird,
+ * dass der Index von Knoten "b" nach kurzer Zeit denselben Stand hat. Ausgegeben wird
+ * die Verzögerung, bis die Änderungen auf Knoten "b" gefunden werden.
+ * Außerdem wird geprüft, dass Knoten "b" gelöschte Zitate aus seinem Second-Level-Cache
+ * entfernt (jeder Knoten hat seinen eigenen Cache, siehe {@code ZitatCacheKonfigurator}).
+ * <br><br>
+ *
+ * Der Test läuft nur, wenn er explizit eingeschaltet wird:
+ * <pre>
+ * mvn test -Dtest=ClusterSynchronisationTest -Dclustertest=true
+ * </pre>
+ * Mit {@code clustertest.max-verzoegerung-ms} (5000) wird die Verzögerung festgelegt,
+ * ab der der Test fehlschlägt.
+ */
+@EnabledIfSystemProperty( named = "clustertest", matches = "true" )
+class ClusterSynchronisationTest {
+
+    /** Abfrage-Intervall der Knoten im Test. */
+    private static final int ABFRAGE_INTERVALL_MS = 100;
+
+    /** Zitate mit einem Wort, das im synthetischen Korpus nicht vorkommt. */
+    private static final String ZITATE_MIT_MARKER = """
+            "The quokka smiles at everyone." -- Test Autor
+            .
+            "A quokka never hurries." -- Test Autor
+            .
+            """;
+
+
+    @Test
+    void aenderungenErreichenAnderenKnoten() throws Exception {
+
+        final long maxVerzoegerungMillis = Long.getLong( "clustertest.max-verzoegerung-ms", 5000 );
+
+        final Server h2Server = Server.createTcpServer( "-tcpPort", "0", "-ifNotExists" ).start();
+        final String datenbankUrl = "jdbc:h2:tcp://localhost:" + h2Server.getPort() +
+                                    "/mem:clustertest;DB_CLOSE_DELAY=-1";
+        try ( ConfigurableApplicationContext knotenA = knotenStarten( "a", datenbankUrl );
+              ConfigurableApplicationContext knotenB = knotenStarten( "b", datenbankUrl ) ) {
+
+            final ZitateImporter importerA = knotenA.getBean( ZitateImporter.class );
+            final ZitateRepo     repoA     = knotenA.getBean( ZitateRepo.class );
+
+            // Einfügen: Zitate mit Marker-Wort auf Knoten "a", Suche auf Knoten "b"
+            importerA.importiere( reader( ZITATE_MIT_MARKER ) );
+            final long verzoegerungEinfuegen = warten( () -> treffer( knotenB, "quokka" ) == 2, maxVerzoegerungMillis );
+
+            // Zitate mit Marker auf Knoten "b" laden, damit sie in dessen Second-Level-Cache liegen
+            final List<Long> markerIds = repoA.findAll().stream().map( ZitatEntity::getId ).toList();
+            final Cache      cacheB    = knotenB.getBean( EntityManagerFactory.class ).getCache();
+            assertEquals( 2, knotenB.getBean( ZitateRepo.class ).findAllById( markerIds ).size() );
+            markerIds.forEach( id -> assertTrue( cacheB.contains( ZitatEntity.class, id ) ) );
+
+            // viele Zitate: alle Dokumente müssen auf Knoten "b" ankommen
+            final String korpus = new ZitatKorpusGenerator( ZitatKorpusGenerator.DEFAULT_SEED ).erzeugen( 2000 );
+            importerA.importiere( reader( korpus ) );
+            final long anzahlZitate = repoA.count();
+            final long verzoegerungKorpus = warten( () -> anzahlDokumente( knotenB ) == anzahlZitate,
+                                                    maxVerzoegerungMillis );
+
+            // Löschen: inkrementeller Import nur mit dem Korpus entfernt die Zitate mit Marker
+            final ImportErgebnis ergebnis = importerA.importiereInkrementell( reader( korpus ), true );
+            assertEquals( 2, ergebnis.entfernt() );
+            final long verzoegerungLoeschen = warten( () -> treffer( knotenB, "quokka" ) == 0, maxVerzoegerungMillis );
+            markerIds.forEach( id -> assertFalse( cacheB.contains( ZitatEntity.class, id ), "Zitat " + id + " noch im Cache" ) );
+
+            assertEquals( repoA.count(), anzahlDokumente( knotenB ) );
+            assertEquals( anzahlDokumente( knotenA ), anzahlDokumente( knotenB ) );
+
+            final Timer timerB = knotenB.getBean( MeterRegistry.class ).get( CLUSTER_VERZOEGERUNG ).timer();
+            assertTrue( timerB.count() >= anzahlZitate, "Verzögerung für jede Änderung erfasst" );
+
+            System.out.println( String.format(
+                    "Cluster-Test mit 2 Knoten (Abfrage alle %d ms):%n" +
+                    "  Einfügen bis Treffer auf Knoten b : %d ms%n" +
+                    "  Korpus (%d Zitate) auf Knoten b   : %d ms nach Ende des Imports%n" +
+                    "  Löschen bis kein Treffer mehr     : %d ms%n" +
+                    "  Verzögerung laut Metrik           : Mittel %.0f ms, Max. %.0f ms (%d Änderungen)",
+                    ABFRAGE_INTERVALL_MS, verzoegerungEinfuegen, anzahlZitate, verzoegerungKorpus, verzoegerungLoeschen,
+                    timerB.mean( MILLISECONDS ), timerB.max( MILLISECONDS ), timerB.count() ) );
+        }
+        finally {
+
+            h2Server.stop();
+        }
+    }
+
+
+    /**
+     * Startet einen Knoten ohne Web-Server.
+     *
+     * @param knoten Kennung des Knotens
+     *
+     * @param datenbankUrl JDBC-URL des gemeinsamen H2-Servers
+     *
+     * @return Kontext des Knotens
+     */
+    private static ConfigurableApplicationContext knotenStarten( String knoten, String datenbankUrl ) {
+
+        return new SpringApplicationBuilder( ZitateSammlungApplication.class )
+                        .web( WebApplicationType.NONE )
+                        .run( "--spring.datasource.url=" + datenbankUrl,
+                              "--spring.jpa.hibernate.ddl-auto=update",
+                              "--spring.jpa.properties.hibernate.search.backend.directory.type=local-heap",
+                              "--zitate.cluster.aktiv=true",
+                              "--zitate.cluster.knoten=" + knoten,
+                              "--zitate.cluster.abfrage-intervall-ms=" + ABFRAGE_INTERVALL_MS,
+                              "--zitate.cluster.sicherheitsabstand-ms=200",
+                              "--zitate.import.beim-start=false",
+                              "--logging.file.name=",
+                              "--logging.level.de.eldecker=WARN" );
+    }
+
+
+    /**
+     * Wartet, bis {@code bedingung} erfüllt ist.
+     *
+     * @param bedingung Wird alle 10 ms geprüft
+     *
+     * @param maxMillis Max. Wartezeit
+     *
+     * @return Wartezeit in Millisekunden
+     */
+    private static long warten( BooleanSupplier bedingung, long maxMillis ) throws InterruptedException {
+
+        final long start = System.nanoTime();
+        while ( !bedingung.getAsBoolean() ) {
+
+            final long millis = ( System.nanoTime() - start ) / 1_000_000;
+            assertTrue( millis < maxMillis, "Änderung nach " + maxMillis + " ms nicht auf anderem Knoten" );
+            Thread.sleep( 10 );
+        }
+
+        return ( System.nanoTime() - start ) / 1_000_000;
+    }
+
+
+    /**
+     * Anzahl Treffer einer exakten Suche im Index eines Knotens.
+     */
+    private static int treffer( ConfigurableApplicationContext knoten, String suchbegriff ) {
+
+        final TransactionTemplate transaktion = new TransactionTemplate( knoten.getBean( PlatformTransactionManager.class ) );
+        transaktion.setReadOnly( true );
+
+        return transaktion.execute( status -> knoten.getBean( FuzzySuche.class )
+                                                    .sucheFuzzyTreffer( suchbegriff, 100, 0, 0, null )
+                                                    .size() );
+    }
+
+
+    /**
+     * Anzahl Dokumente im Index eines Knotens.
+     */
+    private static long anzahlDokumente( ConfigurableApplicationContext knoten ) {
+
+        try ( EntityManager entityManager = knoten.getBean( EntityManagerFactory.class ).createEntityManager() ) {
+
+            return Search.session( entityManager )
+                         .search( ZitatEntity.class )
+                         .where( f -> f.matchAll() )
+                         .fetchTotalHitCount();
+        }
+    }
+
+
+    private static BufferedReader reader( String text ) {
+
+        return new BufferedReader( new StringReader( text ) );
+    }
+
+}
@@ -0,0 +1,49 @@
+package de.eldecker.dhbw.spring.zitate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+
+
+/**
+ * Prüft, dass {@code application.properties} von Spring Boot in die Basis-Konfiguration
+ * und je ein Dokument pro Profil ({@code #---}) aufgeteilt wird; steht ein Kommentar
+ * direkt nach {@code #---}, dann wird die Datei als ein einziges Dokument geladen und
+ * die Basis-Konfiguration gilt nur noch für das zuletzt genannte Profil.
+ */
+class KonfigurationsProfileTest {
+
+    private static final String ON_PROFILE = "spring.config.activate.on-profile";
+
+
+    @Test
+    void einDokumentProProfil() throws IOException {
+
+        final List<PropertySource<?>> dokumente =
+                new PropertiesPropertySourceLoader().load( "application", new ClassPathResource( "application.properties" ) );
+
+        assertEquals( 5, dokumente.size() );
+
+        final PropertySource<?> basis = dokumente.get( 0 );
+        assertNull( basis.getProperty( ON_PROFILE ) );
+        assertNotNull( basis.getProperty( "spring.datasource.url" ) );
+        assertNotNull( basis.getProperty( "spring.jpa.properties.hibernate.search.backend.analysis.configurer" ) );
+
+        assertEquals( "lucene-mmap"       , String.valueOf( dokumente.get( 1 ).getProperty( ON_PROFILE ) ) );
+        assertEquals( "lucene-heap"       , String.valueOf( dokumente.get( 2 ).getProperty( ON_PROFILE ) ) );
+        assertEquals( "lucene-schreiblast", String.valueOf( dokumente.get( 3 ).getProperty( ON_PROFILE ) ) );
+        assertEquals( "produktion"        , String.valueOf( dokumente.get( 4 ).getProperty( ON_PROFILE ) ) );
+
+        assertNull( dokumente.get( 1 ).getProperty( "spring.datasource.url" ) );
+        assertNull( dokumente.get( 1 ).getProperty( "spring.jpa.properties.hibernate.search.backend.directory.type" ) );
+    }
+
+}
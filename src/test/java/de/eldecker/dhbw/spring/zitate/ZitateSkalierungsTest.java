@@ -0,0 +1,292 @@
+package de.eldecker.dhbw.spring.zitate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.FuzzySuche;
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import de.eldecker.dhbw.spring.zitate.logik.ZitateImporter;
+import de.eldecker.dhbw.spring.zitate.logik.ZufallsZitatService;
+import de.eldecker.dhbw.spring.zitate.testdaten.LatenzStatistik;
+import de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator;
+
+
+/**
+ * Skalierungstest: erzeugt mit dem {@link ZitatKorpusGenerator} eine Zitatdatei mit
+ * (per Default) einer Million Zitaten, importiert sie in eine leere Datenbank und gibt
+ * folgende Werte aus:
+ * <ul>
+ * <li>Dauer des Imports (inkl. Neuaufbau des Index)</li>
+ * <li>Größe des Lucene-Index auf der Festplatte</li>
+ * <li>Maximaler Heap-Verbrauch während des Imports</li>
+ * <li>Perzentile der Antwortzeiten für Suchen mit Edit-Distanz 0 bis 2, Suche nach Autor,
+ *     Vorschläge und Zufallszitat</li>
+ * </ul>
+ * Datenbank, Index und Zitatdatei liegen in {@code target/skalierungstest/} und werden
+ * bei jedem Lauf neu angelegt.
+ * <br><br>
+ *
+ * Der Test läuft nur, wenn er explizit eingeschaltet wird:
+ * <pre>
+ * mvn test -Dtest=ZitateSkalierungsTest -Dskalierungstest=true -Dskalierungstest.anzahl-zitate=2000000
+ * </pre>
+ */
+@SpringBootTest( properties = { "spring.jpa.hibernate.ddl-auto=create",
+                                "zitate.import.beim-start=false",
+                                "logging.file.name=" } )
+@EnabledIfSystemProperty( named = "skalierungstest", matches = "true" )
+class ZitateSkalierungsTest {
+
+    /** Verzeichnis für Datenbank, Index und Zitatdatei. */
+    private static final Path VERZEICHNIS = Path.of( "target", "skalierungstest" ).toAbsolutePath();
+
+    /** Anzahl Anfragen pro Art von Suche. */
+    private static final int ANZAHL_ANFRAGEN = 500;
+
+    @Autowired
+    private ZitateImporter _importer;
+
+    @Autowired
+    private ZitateRepo _zitateRepo;
+
+    @Autowired
+    private FuzzySuche _fuzzySuche;
+
+    @Autowired
+    private ZufallsZitatService _zufallsZitatService;
+
+    @Autowired
+    private PlatformTransactionManager _transactionManager;
+
+
+    @DynamicPropertySource
+    static void verzeichnisseKonfigurieren( DynamicPropertyRegistry registry ) throws IOException {
+
+        loeschen( VERZEICHNIS );
+        Files.createDirectories( VERZEICHNIS );
+
+        registry.add( "spring.datasource.url", () -> "jdbc:h2:file:" + VERZEICHNIS.resolve( "zitate" ) );
+        registry.add( "spring.jpa.properties.hibernate.search.backend.directory.root",
+                      () -> VERZEICHNIS.resolve( "lucene" ).toString() );
+    }
+
+
+    @Test
+    void importUndSucheMitGrossemKorpus() throws Exception {
+
+        final long anzahlZitate = Long.getLong( "skalierungstest.anzahl-zitate", 1_000_000 );
+
+        final Path datei = VERZEICHNIS.resolve( "zitate-synthetisch.txt" );
+
+        long start = System.nanoTime();
+        new ZitatKorpusGenerator( ZitatKorpusGenerator.DEFAULT_SEED ).schreiben( datei, anzahlZitate );
+        final long generierenMillis = millisSeit( start );
+
+        final long anzahlVorImport = _zitateRepo.count();
+
+        heapSpitzenZuruecksetzen();
+        start = System.nanoTime();
+        final long anzahlImportiert;
+        try ( BufferedReader reader = Files.newBufferedReader( datei ) ) {
+
+            anzahlImportiert = _importer.importiere( reader );
+        }
+        final long importMillis = millisSeit( start );
+        final long heapSpitzeMB = heapSpitzeBytes() / ( 1024 * 1024 );
+
+        assertEquals( anzahlZitate, anzahlImportiert );
+        assertEquals( anzahlVorImport + anzahlZitate, _zitateRepo.count() );
+
+        final long indexMB = groesseBytes( VERZEICHNIS.resolve( "lucene" ) ) / ( 1024 * 1024 );
+
+        final TransactionTemplate transaktion = new TransactionTemplate( _transactionManager );
+        transaktion.setReadOnly( true );
+
+        final Random       zufall   = new Random( ZitatKorpusGenerator.DEFAULT_SEED );
+        final List<String> woerter  = ZitatKorpusGenerator.WOERTER.subList( 40, ZitatKorpusGenerator.WOERTER.size() );
+        final Supplier<String> wort = () -> woerter.get( zufall.nextInt( woerter.size() ) );
+
+        final StringBuilder bericht = new StringBuilder();
+        bericht.append( String.format( "Skalierungstest mit %d Zitaten:%n", anzahlZitate ) )
+               .append( String.format( "  Zitatdatei erzeugt    : %d ms (%d MB)%n",
+                                       generierenMillis, Files.size( datei ) / ( 1024 * 1024 ) ) )
+               .append( String.format( "  Import inkl. Index    : %d ms (%d Zitate/s)%n",
+                                       importMillis, anzahlZitate * 1000 / Math.max( 1, importMillis ) ) )
+               .append( String.format( "  Index auf Festplatte  : %d MB%n", indexMB ) )
+               .append( String.format( "  Heap-Spitze bei Import: %d MB (Summe der Spitzen aller Heap-Bereiche)%n",
+                                       heapSpitzeMB ) );
+
+        for ( int editDistanz = 0; editDistanz <= 2; editDistanz++ ) {
+
+            final int distanz = editDistanz;
+            final LatenzStatistik statistik = messen( () -> {
+
+                final String suchbegriff = distanz == 0 ? wort.get() : tippfehler( wort.get(), zufall );
+                transaktion.execute( status -> _fuzzySuche.sucheFuzzyTreffer( suchbegriff, 10, distanz, 0, null ) );
+            });
+            bericht.append( String.format( "  Suche Edit-Distanz %d  : %s%n", distanz, statistik.bericht() ) );
+        }
+
+        final LatenzStatistik autorStatistik = messen( () -> transaktion.execute( status ->
+                    _fuzzySuche.sucheNachAutor( "Oscar Wilde", 10 ) ) );
+        bericht.append( String.format( "  Suche nach Autor      : %s%n", autorStatistik.bericht() ) );
+
+        final LatenzStatistik vorschlagStatistik = messen( () -> {
+
+            final String w       = wort.get();
+            final String praefix = w.substring( 0, Math.min( 3, w.length() ) );
+            transaktion.execute( status -> _fuzzySuche.sucheVorschlaege( praefix, 8, 80 ) );
+        });
+        bericht.append( String.format( "  Vorschläge            : %s%n", vorschlagStatistik.bericht() ) );
+
+        final LatenzStatistik zufallStatistik = messen( _zufallsZitatService::getZufallsZitat );
+        bericht.append( String.format( "  Zufallszitat          : %s%n", zufallStatistik.bericht() ) );
+
+        System.out.println( bericht );
+    }
+
+
+    /**
+     * Aktion erst zum Aufwärmen und dann {@link #ANZAHL_ANFRAGEN} mal mit Zeitmessung ausführen.
+     *
+     * @param aktion Auszuführende Aktion
+     *
+     * @return Statistik der gemessenen Dauern
+     */
+    private static LatenzStatistik messen( Runnable aktion ) {
+
+        for ( int i = 0; i < ANZAHL_ANFRAGEN / 5; i++ ) {
+
+            aktion.run();
+        }
+
+        final LatenzStatistik statistik = new LatenzStatistik( ANZAHL_ANFRAGEN );
+        for ( int i = 0; i < ANZAHL_ANFRAGEN; i++ ) {
+
+            final long start = System.nanoTime();
+            aktion.run();
+            statistik.hinzufuegen( System.nanoTime() - start );
+        }
+
+        return statistik;
+    }
+
+
+    /**
+     * Vertauscht zwei benachbarte Buchstaben, damit die Fuzzy-Suche etwas zu tun hat.
+     *
+     * @param wort Wort mit mindestens zwei Buchstaben
+     *
+     * @param zufall Zufallsgenerator
+     *
+     * @return Wort mit Tippfehler
+     */
+    private static String tippfehler( String wort, Random zufall ) {
+
+        final char[] zeichen = wort.toCharArray();
+        final int    i       = zufall.nextInt( zeichen.length - 1 );
+        final char   tmp     = zeichen[ i ];
+        zeichen[ i ]     = zeichen[ i + 1 ];
+        zeichen[ i + 1 ] = tmp;
+
+        return new String( zeichen );
+    }
+
+
+    /** Spitzenwerte aller Heap-Bereiche zurücksetzen (nach GC, damit Altlasten nicht zählen). */
+    private static void heapSpitzenZuruecksetzen() {
+
+        System.gc();
+        for ( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() ) {
+
+            if ( pool.getType() == MemoryType.HEAP ) {
+
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+
+    /**
+     * Summe der Spitzenwerte aller Heap-Bereiche seit dem letzten Zurücksetzen; da die
+     * Spitzen nicht gleichzeitig auftreten müssen, ist das eine Obergrenze.
+     *
+     * @return Heap-Spitze in Bytes
+     */
+    private static long heapSpitzeBytes() {
+
+        return ManagementFactory.getMemoryPoolMXBeans()
+                                .stream()
+                                .filter( pool -> pool.getType() == MemoryType.HEAP )
+                                .mapToLong( pool -> pool.getPeakUsage().getUsed() )
+                                .sum();
+    }
+
+
+    /**
+     * Größe aller Dateien in einem Verzeichnis (rekursiv).
+     *
+     * @param verzeichnis Verzeichnis
+     *
+     * @return Summe der Dateigrößen in Bytes
+     */
+    private static long groesseBytes( Path verzeichnis ) throws IOException {
+
+        try ( Stream<Path> pfade = Files.walk( verzeichnis ) ) {
+
+            return pfade.filter( Files::isRegularFile )
+                        .mapToLong( pfad -> pfad.toFile().length() )
+                        .sum();
+        }
+    }
+
+
+    /**
+     * Verzeichnis mit Inhalt löschen, falls vorhanden.
+     *
+     * @param verzeichnis Zu löschendes Verzeichnis
+     */
+    private static void loeschen( Path verzeichnis ) throws IOException {
+
+        if ( !Files.exists( verzeichnis ) ) {
+
+            return;
+        }
+
+        try ( Stream<Path> pfade = Files.walk( verzeichnis ) ) {
+
+            for ( Path pfad : pfade.sorted( Comparator.reverseOrder() ).toList() ) {
+
+                Files.delete( pfad );
+            }
+        }
+    }
+
+
+    private static long millisSeit( long startNanos ) {
+
+        return ( System.nanoTime() - startNanos ) / 1_000_000;
+    }
+
+}
@@ -0,0 +1,85 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import de.eldecker.dhbw.spring.zitate.logik.ReindexStatus.Zustand;
+
+
+/**
+ * Test für {@link ReindexService}: Dokumente von Zitaten, die an der automatischen
+ * Indizierung vorbei aus der Datenbank gelöscht wurden, müssen nach der Neuindizierung
+ * aus dem Index verschwunden sein.
+ */
+@SpringBootTest( properties = { "spring.datasource.url=jdbc:h2:mem:reindextest",
+                                "spring.jpa.hibernate.ddl-auto=create-drop",
+                                "spring.jpa.properties.hibernate.search.backend.directory.type=local-heap",
+                                "zitate.import.beim-start=false",
+                                "zitate.reindex.batchgroesse=2",
+                                "logging.file.name=" } )
+class ReindexServiceTest {
+
+    private static final String ZITATE = """
+            "The quokka smiles at everyone." -- Autor A
+            .
+            "A quokka never hurries." -- Autor A
+            .
+            "Wombats dig deep tunnels." -- Autor B
+            .
+            "Numbats eat termites." -- Autor C
+            .
+            "Bilbies have long ears." -- Autor C
+            .
+            """;
+
+    @Autowired
+    private ZitateImporter _importer;
+
+    @Autowired
+    private ReindexService _reindexService;
+
+    @Autowired
+    private MassenIndizierer _massenIndizierer;
+
+    @Autowired
+    private ZitateRepo _zitateRepo;
+
+    @Autowired
+    private JdbcTemplate _jdbcTemplate;
+
+
+    @Test
+    void verwaisteDokumenteWerdenEntfernt() throws Exception {
+
+        _importer.importiere( new BufferedReader( new StringReader( ZITATE ) ) );
+        assertEquals( 5, _massenIndizierer.anzahlDokumente() );
+
+        // per SQL löschen, damit die automatische Indizierung nichts davon mitbekommt
+        _jdbcTemplate.update( "DELETE FROM zitate WHERE autor = 'Autor C'" );
+        assertEquals( 3, _zitateRepo.count() );
+        assertEquals( 5, _massenIndizierer.anzahlDokumente() );
+
+        _reindexService.starten( 2, 0 );
+
+        ReindexStatus status = _reindexService.getStatus();
+        for ( int i = 0; i < 500 && status.zustand() == Zustand.LAEUFT; i++ ) {
+
+            Thread.sleep( 20 );
+            status = _reindexService.getStatus();
+        }
+
+        assertEquals( Zustand.FERTIG, status.zustand(), status.fehlermeldung() );
+        assertEquals( 3, status.anzahlIndiziert() );
+        assertEquals( 2, status.anzahlEntfernt() );
+        assertEquals( 3, _massenIndizierer.anzahlDokumente() );
+    }
+
+}
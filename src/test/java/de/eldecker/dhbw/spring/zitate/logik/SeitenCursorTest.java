@@ -0,0 +1,111 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatSeite;
+import de.eldecker.dhbw.spring.zitate.db.ZitatTreffer;
+import de.eldecker.dhbw.spring.zitate.helferlein.ZitateException;
+
+
+/**
+ * Unit-Test für {@link SeitenCursor}: Kodieren/Dekodieren (auch altes Format ohne
+ * Anzahl) und Cursor für nächste bzw. vorherige Seite.
+ */
+class SeitenCursorTest {
+
+    private static final List<ZitatTreffer> TREFFER = List.of( new ZitatTreffer( 7L , "Eins", null ),
+                                                               new ZitatTreffer( 12L, "Zwei", null ),
+                                                               new ZitatTreffer( 30L, "Drei", null ) );
+
+
+    @Test
+    void kodierenUndDekodieren() throws ZitateException {
+
+        assertEquals( "bjoxMjM6NDU6ZQ", new SeitenCursor( false, 123, 45, true ).kodieren() );
+
+        for ( SeitenCursor cursor : List.of( new SeitenCursor( false, 123, 45, true ),
+                                             new SeitenCursor( true , 123, 10000, false ),
+                                             new SeitenCursor( false, 0, 0, true ),
+                                             new SeitenCursor( true , Long.MAX_VALUE, 1, true ) ) ) {
+
+            assertEquals( cursor, SeitenCursor.dekodieren( cursor.kodieren() ) );
+        }
+    }
+
+
+    @Test
+    void altesFormatOhneAnzahl() throws ZitateException {
+
+        assertEquals( new SeitenCursor( false, 123, SeitenCursor.ANZAHL_UNBEKANNT, false ),
+                      SeitenCursor.dekodieren( "bjoxMjM" ) );
+        assertEquals( new SeitenCursor( true, 7, SeitenCursor.ANZAHL_UNBEKANNT, false ),
+                      SeitenCursor.dekodieren( base64( "v:7" ) ) );
+    }
+
+
+    @Test
+    void ungueltigesBase64() {
+
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( "%%%" ) );
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( "bjox=MjM" ) );
+    }
+
+
+    @Test
+    void falschesPraefixOderKeineZahl() {
+
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( base64( "x:123" ) ) );
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( base64( "123" ) ) );
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( base64( "n:" ) ) );
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( base64( "n:abc" ) ) );
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( base64( "n:1:2" ) ) );
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( base64( "n:1:2:x" ) ) );
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( base64( "n:1:-1:e" ) ) );
+        assertThrows( ZitateException.class, () -> SeitenCursor.dekodieren( "" ) );
+    }
+
+
+    @Test
+    void cursorFuerNachbarseiten() throws ZitateException {
+
+        final ZitatSeite seite = new ZitatSeite( TREFFER, 100, true, true, true );
+
+        assertEquals( new SeitenCursor( false, 30, 100, true ), SeitenCursor.dekodieren( SeitenCursor.fuerNaechsteSeite( seite ) ) );
+        assertEquals( new SeitenCursor( true , 7 , 100, true ), SeitenCursor.dekodieren( SeitenCursor.fuerVorherigeSeite( seite ) ) );
+    }
+
+
+    @Test
+    void keinCursorOhneNachbarseite() {
+
+        final ZitatSeite ersteUndLetzteSeite = new ZitatSeite( TREFFER, 3, true, false, false );
+
+        assertNull( SeitenCursor.fuerNaechsteSeite( ersteUndLetzteSeite ) );
+        assertNull( SeitenCursor.fuerVorherigeSeite( ersteUndLetzteSeite ) );
+    }
+
+
+    @Test
+    void keinCursorFuerLeereSeite() {
+
+        final ZitatSeite leereSeite = new ZitatSeite( List.of(), 0, true, true, true );
+
+        assertNull( SeitenCursor.fuerNaechsteSeite( leereSeite ) );
+        assertNull( SeitenCursor.fuerVorherigeSeite( leereSeite ) );
+    }
+
+
+    private static String base64( String klartext ) {
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( klartext.getBytes( UTF_8 ) );
+    }
+
+}
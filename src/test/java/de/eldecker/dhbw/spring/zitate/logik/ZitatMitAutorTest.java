@@ -0,0 +1,71 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Unit-Test für {@link ZitatMitAutor#ausRohtext(String)}: Abtrennen und Trimmen des Autors.
+ */
+class ZitatMitAutorTest {
+
+    @Test
+    void autorWirdAbgetrenntUndGetrimmt() {
+
+        assertEquals( new ZitatMitAutor( "\"Legend: A lie that has attained the dignity of age.\"", "H. L. Mencken" ),
+                      ZitatMitAutor.ausRohtext( "\"Legend: A lie that has attained the dignity of age.\" -- H. L. Mencken" ) );
+
+        assertEquals( new ZitatMitAutor( "Text", "Autor" ),
+                      ZitatMitAutor.ausRohtext( "  Text\t-- Autor  " ) );
+
+        assertEquals( new ZitatMitAutor( "Text", "Autor" ),
+                      ZitatMitAutor.ausRohtext( "Text--Autor" ) );
+    }
+
+
+    @Test
+    void autorStehtNachLetztemDoppelstrich() {
+
+        assertEquals( new ZitatMitAutor( "\"Erst -- dann.\"", "Autor" ),
+                      ZitatMitAutor.ausRohtext( "\"Erst -- dann.\" -- Autor" ) );
+    }
+
+
+    @Test
+    void ohneAutorBleibtTextUnveraendert() {
+
+        assertEquals( new ZitatMitAutor( " Nur Text. ", null ), ZitatMitAutor.ausRohtext( " Nur Text. " ) );
+
+        // nichts vor dem Doppelstrich
+        assertEquals( new ZitatMitAutor( " -- Autor", null ), ZitatMitAutor.ausRohtext( " -- Autor" ) );
+
+        // Anführungszeichen nach dem Doppelstrich: Doppelstrich gehört zum Zitat
+        assertEquals( new ZitatMitAutor( "\"Warte -- \"sagte er\"", null ),
+                      ZitatMitAutor.ausRohtext( "\"Warte -- \"sagte er\"" ) );
+    }
+
+
+    @Test
+    void trennerOhneAutor() {
+
+        assertEquals( new ZitatMitAutor( "Text", null ), ZitatMitAutor.ausRohtext( "Text --  " ) );
+
+        // so exportiert ZitateExporter Zitate ohne Autor: "--" im Text ist dann kein Trenner
+        assertEquals( new ZitatMitAutor( "Never trust -- a computer.", null ),
+                      ZitatMitAutor.ausRohtext( "Never trust -- a computer. --" ) );
+        assertEquals( new ZitatMitAutor( " Nur Text. ", null ), ZitatMitAutor.ausRohtext( " Nur Text.  --" ) );
+    }
+
+
+    @Test
+    void laengeDesAutors() {
+
+        final String autorMax = "a".repeat( ZitatMitAutor.MAX_LAENGE_AUTOR );
+        assertEquals( new ZitatMitAutor( "Text", autorMax ), ZitatMitAutor.ausRohtext( "Text -- " + autorMax ) );
+
+        final String zuLang = "Text -- " + autorMax + "a";
+        assertEquals( new ZitatMitAutor( zuLang, null ), ZitatMitAutor.ausRohtext( zuLang ) );
+    }
+
+}
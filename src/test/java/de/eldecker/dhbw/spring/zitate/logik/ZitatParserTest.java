@@ -0,0 +1,110 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Unit-Test für {@link ZitatParser}: Grenzen zwischen den Zitaten, Leerzeilen und
+ * Abtrennen des Autors mit {@link ZitatMitAutor#ausRohtext(String)}.
+ */
+class ZitatParserTest {
+
+    private final List<String> _zitate = new ArrayList<>();
+
+    private final ZitatParser _parser = new ZitatParser( _zitate::add );
+
+
+    @Test
+    void zitatMitAutor() {
+
+        final long anzahl = parsen( "\"Legend: A lie that has attained the dignity of age.\" -- H. L. Mencken",
+                                    "." );
+
+        assertEquals( 1, anzahl );
+        assertEquals( List.of( "\"Legend: A lie that has attained the dignity of age.\" -- H. L. Mencken" ), _zitate );
+
+        final ZitatMitAutor zitatMitAutor = ZitatMitAutor.ausRohtext( _zitate.get( 0 ) );
+        assertEquals( "\"Legend: A lie that has attained the dignity of age.\"", zitatMitAutor.zitat() );
+        assertEquals( "H. L. Mencken", zitatMitAutor.autor() );
+    }
+
+
+    @Test
+    void zitatOhneAutor() {
+
+        parsen( "Never trust a computer you can't throw out a window.", "." );
+
+        final ZitatMitAutor zitatMitAutor = ZitatMitAutor.ausRohtext( _zitate.get( 0 ) );
+        assertEquals( "Never trust a computer you can't throw out a window.", zitatMitAutor.zitat() );
+        assertNull( zitatMitAutor.autor() );
+    }
+
+
+    @Test
+    void mehrzeiligesZitatWirdZusammengefuegt() {
+
+        parsen( "\"First line,", " second line.\"", " -- Autor", "." );
+
+        assertEquals( List.of( "\"First line, second line.\" -- Autor" ), _zitate );
+    }
+
+
+    @Test
+    void leereZitateUndLeerzeilenWerdenIgnoriert() {
+
+        final long anzahl = parsen( "", ".", ".", "   ", " . ", "Eins", "", ".", "", "Zwei", "." );
+
+        assertEquals( 2, anzahl );
+        assertEquals( List.of( "Eins", "Zwei" ), _zitate );
+    }
+
+
+    @Test
+    void zitatWirdSofortBeimPunktWeitergegeben() {
+
+        _parser.zeileVerarbeiten( "Eins" );
+        assertEquals( 0, _zitate.size() );
+
+        _parser.zeileVerarbeiten( "." );
+        assertEquals( List.of( "Eins" ), _zitate );
+
+        _parser.zeileVerarbeiten( "Zwei" );
+        assertEquals( 1, _zitate.size() );
+    }
+
+
+    @Test
+    void letztesZitatOhnePunkt() {
+
+        final long anzahl = parsen( "Eins", ".", "Zwei" );
+
+        assertEquals( 2, anzahl );
+        assertEquals( List.of( "Eins", "Zwei" ), _zitate );
+    }
+
+
+    @Test
+    void leereDatei() {
+
+        assertEquals( 0, parsen() );
+        assertEquals( 0, _zitate.size() );
+    }
+
+
+    private long parsen( String... zeilen ) {
+
+        for ( String zeile : zeilen ) {
+
+            _parser.zeileVerarbeiten( zeile );
+        }
+
+        return _parser.beenden();
+    }
+
+}
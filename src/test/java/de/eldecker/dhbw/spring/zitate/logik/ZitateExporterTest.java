@@ -0,0 +1,91 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+
+
+/**
+ * Test für {@link ZitateExporter}: ein Export im Format {@link ExportFormat#TXT} muss
+ * vom {@link ZitatParser} ohne Verlust wieder eingelesen werden, auch ein Zitat ohne
+ * Autor mit {@code --} im Text.
+ */
+@SpringBootTest( properties = { "spring.datasource.url=jdbc:h2:mem:exportertest",
+                                "spring.jpa.hibernate.ddl-auto=create-drop",
+                                "spring.jpa.properties.hibernate.search.backend.directory.type=local-heap",
+                                "zitate.import.beim-start=false",
+                                "zitate.export.fetch-groesse=2",
+                                "logging.file.name=" } )
+class ZitateExporterTest {
+
+    /** Zitate mit und ohne Autor, mit "--" im Text, mehrzeilig und mit Umlauten. */
+    private static final String ZITATE = """
+            "Legend: A lie that has attained the dignity of age." -- H. L. Mencken
+            .
+            Never trust a computer you can't throw out a window.
+            .
+            "Erst -- dann." -- Autor mit -- Strich
+            .
+            "Warte -- "sagte er"
+            .
+            "Zwei Zeilen,
+             ein Zitat." -- Jürgen Müller-Lüdenscheidt
+            .
+            "Der Punkt am Zeilenende zählt nicht." -- A. B.
+            .
+            """;
+
+    @Autowired
+    private ZitateImporter _importer;
+
+    @Autowired
+    private ZitateExporter _exporter;
+
+    @Autowired
+    private ZitateRepo _zitateRepo;
+
+
+    @Test
+    void txtExportKannWiederImportiertWerden() throws Exception {
+
+        _importer.importiere( new BufferedReader( new StringReader( ZITATE ) ) );
+
+        // kann nicht aus einer Zitatdatei kommen (dort wäre "a computer." der Autor), z.B. aber aus altem Datenbestand
+        _zitateRepo.save( new ZitatEntity( "Never trust -- a computer." ) );
+
+        final List<ZitatMitAutor> inDatenbank = _zitateRepo.findAll()
+                                                           .stream()
+                                                           .sorted( Comparator.comparing( ZitatEntity::getId ) )
+                                                           .map( zitat -> new ZitatMitAutor( zitat.getZitat(), zitat.getAutor() ) )
+                                                           .toList();
+        assertEquals( 7, inDatenbank.size() );
+
+        final ByteArrayOutputStream ausgabe = new ByteArrayOutputStream();
+        assertEquals( 7, _exporter.exportiere( ExportFormat.TXT, false, ausgabe ) );
+        final String export = ausgabe.toString( UTF_8 );
+
+        final List<ZitatMitAutor> ausExport = new ArrayList<>();
+        final ZitatParser parser = new ZitatParser( zitat -> ausExport.add( ZitatMitAutor.ausRohtext( zitat ) ) );
+        export.lines().forEach( parser::zeileVerarbeiten );
+        parser.beenden();
+
+        assertEquals( inDatenbank, ausExport );
+
+        final ImportErgebnis erneut = _importer.importiereInkrementell( new BufferedReader( new StringReader( export ) ), false );
+        assertEquals( 0, erneut.eingefuegt() );
+    }
+
+}
@@ -0,0 +1,170 @@
+package de.eldecker.dhbw.spring.zitate.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitatEntity;
+import de.eldecker.dhbw.spring.zitate.db.ZitateRepo;
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Test für {@link ZitateImporter} mit Batch-Größe 2, damit volle und angebrochene
+ * Batches vorkommen; außerdem für den inkrementellen Import.
+ */
+@SpringBootTest( properties = { "spring.datasource.url=jdbc:h2:mem:importertest",
+                                "spring.jpa.hibernate.ddl-auto=create-drop",
+                                "spring.jpa.properties.hibernate.search.backend.directory.type=local-heap",
+                                "zitate.import.beim-start=false",
+                                "zitate.import.batchgroesse=2",
+                                "logging.file.name=" } )
+class ZitateImporterTest {
+
+    @Autowired
+    private ZitateImporter _importer;
+
+    @Autowired
+    private ZitateRepo _zitateRepo;
+
+    @Autowired
+    private JdbcTemplate _jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory _entityManagerFactory;
+
+
+    @BeforeEach
+    void datenbankLeeren() {
+
+        _zitateRepo.deleteAll();
+    }
+
+
+    @Test
+    void volleBatches() throws Exception {
+
+        final List<Long> fortschritt = new ArrayList<>();
+
+        assertEquals( 4, _importer.importiere( reader( "Eins", "Zwei", "Drei", "Vier" ), fortschritt::add ) );
+
+        assertEquals( List.of( 2L, 4L ), fortschritt );
+        assertEquals( 4, _zitateRepo.count() );
+    }
+
+
+    @Test
+    void letzterBatchAngebrochen() throws Exception {
+
+        final List<Long> fortschritt = new ArrayList<>();
+
+        assertEquals( 5, _importer.importiere( reader( "Eins", "Zwei", "Drei", "Vier", "Fünf" ), fortschritt::add ) );
+
+        assertEquals( List.of( 2L, 4L, 5L ), fortschritt );
+        assertEquals( 5, _zitateRepo.count() );
+    }
+
+
+    @Test
+    void leereDatei() throws Exception {
+
+        final List<Long> fortschritt = new ArrayList<>();
+
+        assertEquals( 0, _importer.importiere( reader(), fortschritt::add ) );
+
+        assertEquals( List.of(), fortschritt );
+        assertEquals( 0, _zitateRepo.count() );
+    }
+
+
+    @Test
+    void inkrementellerImportUeberspringtUnveraenderteZitate() {
+
+        final ImportErgebnis ersterImport = _importer.importiereInkrementell( reader( "Eins", "Zwei", "Drei", "Zwei" ), false );
+        assertEquals( new ImportErgebnis( 4, 3, 0, 0 ), ersterImport );
+
+        final Map<String, Long> idsVorher = idsNachZitat();
+
+        final ImportErgebnis wiederholt = _importer.importiereInkrementell( reader( "Eins", "Zwei", "Drei" ), true );
+        assertEquals( new ImportErgebnis( 3, 0, 0, 0 ), wiederholt );
+        assertEquals( idsVorher, idsNachZitat() );
+    }
+
+
+    @Test
+    void inkrementellerImportErsetztGeaenderteZitate() {
+
+        _importer.importiereInkrementell( reader( "Eins", "Zwei", "Drei" ), false );
+        final Map<String, Long> idsVorher = idsNachZitat();
+
+        final ImportErgebnis geaendert = _importer.importiereInkrementell( reader( "Eins", "Zwei geändert", "Drei" ), true );
+        assertEquals( new ImportErgebnis( 3, 1, 1, 0 ), geaendert );
+
+        final Map<String, Long> idsNachher = idsNachZitat();
+        assertEquals( 3, idsNachher.size() );
+        assertEquals( idsVorher.get( "\"Eins\"" ), idsNachher.get( "\"Eins\"" ) );
+        assertEquals( idsVorher.get( "\"Drei\"" ), idsNachher.get( "\"Drei\"" ) );
+        assertNull( idsNachher.get( "\"Zwei\"" ) );
+        assertEquals( "Autor Zwei geändert",
+                      _zitateRepo.findById( idsNachher.get( "\"Zwei geändert\"" ) ).orElseThrow().getAutor() );
+    }
+
+
+    @Test
+    void inkrementellerImportUeberZitateImAltenFormat() {
+
+        // altes Format: Autor steht noch im Text, Spalten "autor" und "inhalts_hash" leer
+        _zitateRepo.saveAll( List.of( new ZitatEntity( "\"Eins\" -- Autor Eins" ),
+                                      new ZitatEntity( "\"Zwei\" -- Autor Zwei" ),
+                                      new ZitatEntity( "\"Ohne Autor\"" ) ) );
+        _jdbcTemplate.update( "UPDATE Zitate SET inhalts_hash = NULL" );
+        _entityManagerFactory.getCache().evictAll();
+
+        final ImportErgebnis ergebnis = _importer.importiereInkrementell( reader( "Eins", "Zwei", "Drei" ), false );
+        assertEquals( new ImportErgebnis( 3, 1, 0, 3 ), ergebnis );
+
+        final Map<String, Long> ids = idsNachZitat();
+        assertEquals( 4, ids.size() );
+        assertEquals( "Autor Eins", _zitateRepo.findById( ids.get( "\"Eins\"" ) ).orElseThrow().getAutor() );
+        assertNull( _zitateRepo.findById( ids.get( "\"Ohne Autor\"" ) ).orElseThrow().getAutor() );
+    }
+
+
+    /**
+     * IDs aller Zitate in der Datenbank mit dem Text als Schlüssel.
+     */
+    private Map<String, Long> idsNachZitat() {
+
+        return _zitateRepo.findAll()
+                          .stream()
+                          .collect( Collectors.toMap( ZitatEntity::getZitat, ZitatEntity::getId ) );
+    }
+
+
+    /**
+     * Reader für Zitatdatei mit den Zitaten, jeweils mit Autor.
+     */
+    private static BufferedReader reader( String... zitate ) {
+
+        final StringBuilder sb = new StringBuilder();
+        for ( String zitat : zitate ) {
+
+            sb.append( '"' ).append( zitat ).append( "\" -- Autor " ).append( zitat ).append( "\n.\n" );
+        }
+
+        return new BufferedReader( new StringReader( sb.toString() ) );
+    }
+
+}
@@ -0,0 +1,130 @@
+package de.eldecker.dhbw.spring.zitate.testdaten;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Sammelt gemessene Dauern (z.B. Antwortzeiten) und berechnet Perzentile für die
+ * Ausgabe in Last- und Skalierungstests. Objekte dieser Klasse sind thread-safe; statt
+ * {@code synchronized} wird eine {@link ReentrantLock} verwendet, damit virtuelle Threads
+ * beim Warten auf die Sperre ihren Träger-Thread freigeben.
+ */
+public class LatenzStatistik {
+
+    /** Gemessene Dauern in Nanosekunden; nur die ersten {@link #_anzahl} Einträge sind belegt. */
+    private long[] _nanos;
+
+    /** Anzahl der bisher hinzugefügten Messwerte. */
+    private int _anzahl = 0;
+
+    /** Sperre für {@link #_nanos} und {@link #_anzahl}. */
+    private final ReentrantLock _sperre = new ReentrantLock();
+
+
+    /**
+     * Leere Statistik erzeugen.
+     *
+     * @param erwarteteAnzahl Erwartete Anzahl Messwerte (Array wird bei Bedarf vergrößert)
+     */
+    public LatenzStatistik( int erwarteteAnzahl ) {
+
+        _nanos = new long[ Math.max( 16, erwarteteAnzahl ) ];
+    }
+
+
+    /**
+     * Messwert hinzufügen.
+     *
+     * @param dauerNanos Gemessene Dauer in Nanosekunden
+     */
+    public void hinzufuegen( long dauerNanos ) {
+
+        _sperre.lock();
+        try {
+
+            if ( _anzahl == _nanos.length ) {
+
+                _nanos = Arrays.copyOf( _nanos, _nanos.length * 2 );
+            }
+            _nanos[ _anzahl++ ] = dauerNanos;
+        }
+        finally {
+
+            _sperre.unlock();
+        }
+    }
+
+
+    /**
+     * Perzentil der bisherigen Messwerte berechnen ("nearest rank").
+     *
+     * @param perzentil Perzentil, z.B. 99.0
+     *
+     * @return Wert des Perzentils in Millisekunden, 0 wenn es keine Messwerte gibt
+     */
+    public double perzentilMillis( double perzentil ) {
+
+        _sperre.lock();
+        try {
+
+            if ( _anzahl == 0 ) {
+
+                return 0;
+            }
+
+            Arrays.sort( _nanos, 0, _anzahl );
+
+            final int index = (int) Math.ceil( perzentil / 100.0 * _anzahl ) - 1;
+
+            return _nanos[ Math.max( 0, index ) ] / 1_000_000.0;
+        }
+        finally {
+
+            _sperre.unlock();
+        }
+    }
+
+
+    /**
+     * Anzahl der bisher hinzugefügten Messwerte.
+     *
+     * @return Anzahl Messwerte
+     */
+    public int getAnzahl() {
+
+        _sperre.lock();
+        try {
+
+            return _anzahl;
+        }
+        finally {
+
+            _sperre.unlock();
+        }
+    }
+
+
+    /**
+     * Zusammenfassung für die Ausgabe.
+     *
+     * @return String mit Anzahl Messwerte und Perzentilen 50, 90, 99, 99.9 und 100 in Millisekunden
+     */
+    public String bericht() {
+
+        _sperre.lock(); // wiedereintrittsfähig, perzentilMillis() sperrt erneut
+        try {
+
+            return String.format( Locale.ROOT, "n=%d, p50=%.2f ms, p90=%.2f ms, p99=%.2f ms, p99.9=%.2f ms, max=%.2f ms",
+                                  _anzahl,
+                                  perzentilMillis( 50.0 ), perzentilMillis( 90.0 ), perzentilMillis( 99.0 ),
+                                  perzentilMillis( 99.9 ), perzentilMillis( 100.0 ) );
+        }
+        finally {
+
+            _sperre.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,360 @@
+package de.eldecker.dhbw.spring.zitate.testdaten;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Erzeugt synthetische Zitatdateien beliebiger Größe im Format von {@code zitate.txt}
+ * (siehe {@code DatenImporterRunner}), z.B. für Last- und Skalierungstests oder die
+ * JMH-Benchmarks.
+ * <br><br>
+ *
+ * Damit die Daten realistisch sind, werden die Wörter nach dem Zipf'schen Gesetz aus
+ * einem englischen Vokabular gezogen (wenige häufige Wörter wie "the", viele seltene),
+ * die Anzahl Wörter pro Zitat ist log-normal verteilt (Median ca. 18 Wörter, einzelne
+ * sehr lange Zitate), und ca. 90% der Zitate haben einen Autor, wobei einige Autoren
+ * sehr viele Zitate haben. Die Zitate werden wie in der Originaldatei auf Zeilen mit
+ * höchstens ca. 60 Zeichen umbrochen.
+ * <br><br>
+ *
+ * Bei gleichem Seed wird immer dieselbe Datei erzeugt.
+ * <br><br>
+ *
+ * Aufruf auf der Kommandozeile:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *        -Dexec.mainClass=de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator \
+ *        -Dexec.args="target/zitate-1m.txt 1000000 4711"
+ * </pre>
+ */
+public class ZitatKorpusGenerator {
+
+    /** Default-Seed, wenn keiner angegeben ist. */
+    public static final long DEFAULT_SEED = 4711L;
+
+    /** Vokabular, ungefähr nach Häufigkeit sortiert (Rang 1 = häufigstes Wort). */
+    public static final List<String> WOERTER = List.of(
+            "the", "of", "and", "a", "to", "is", "in", "you", "that", "it",
+            "not", "be", "he", "for", "are", "with", "as", "his", "we", "all",
+            "but", "they", "have", "what", "one", "when", "who", "can", "man", "life",
+            "no", "if", "do", "there", "your", "by", "more", "love", "only", "people",
+            "never", "will", "time", "world", "good", "nothing", "always", "men", "so", "an",
+            "like", "than", "woman", "women", "thing", "way", "truth", "God", "know", "money",
+            "great", "think", "make", "other", "little", "every", "most", "because", "things", "nature",
+            "mind", "friend", "heart", "death", "art", "happiness", "wisdom", "power", "success", "work",
+            "war", "history", "marriage", "politics", "freedom", "knowledge", "music", "science", "religion", "future",
+            "courage", "beauty", "failure", "dream", "child", "children", "government", "society", "human", "virtue",
+            "laugh", "lie", "dignity", "television", "electricity", "candlelight", "genius", "fool", "wise", "wrong",
+            "right", "mistake", "experience", "imagination", "education", "patience", "honesty", "silence", "memory", "youth",
+            "age", "old", "young", "friendship", "enemy", "fear", "hope", "faith", "doubt", "reason",
+            "passion", "pleasure", "pain", "sorrow", "joy", "tears", "smile", "kiss", "wine", "food",
+            "book", "books", "word", "words", "writer", "poet", "poetry", "philosophy", "philosopher", "idea",
+            "ideas", "opinion", "argument", "question", "answer", "problem", "solution", "computer", "machine", "technology",
+            "progress", "civilization", "country", "nation", "law", "justice", "crime", "punishment", "liberty", "democracy",
+            "king", "president", "politician", "lawyer", "doctor", "teacher", "student", "soldier", "artist", "critic",
+            "audience", "actor", "theatre", "comedy", "tragedy", "humor", "wit", "irony", "luck", "chance",
+            "fate", "destiny", "soul", "spirit", "body", "health", "sickness", "medicine", "sleep", "morning",
+            "night", "day", "year", "century", "moment", "eternity", "heaven", "hell", "angel", "devil",
+            "sin", "conscience", "character", "ambition", "vanity", "pride", "jealousy", "envy", "greed", "anger",
+            "kindness", "charity", "generosity", "gratitude", "forgiveness", "revenge", "peace", "violence", "revolution", "change",
+            "tradition", "habit", "custom", "fashion", "style", "taste", "elegance", "simplicity", "complexity", "perfection",
+            "excellence", "mediocrity", "talent", "effort", "discipline", "triumph", "victory", "defeat", "competition", "game",
+            "sport", "business", "profit", "economy", "wealth", "poverty", "rich", "poor", "tax", "bank",
+            "weather", "rain", "sun", "sea", "mountain", "river", "garden", "flower", "tree", "animal",
+            "dog", "cat", "horse", "bird", "city", "village", "home", "house", "family", "mother",
+            "father", "husband", "wife", "brother", "sister", "neighbour", "stranger", "guest", "crowd", "mankind" );
+
+    /** Vornamen für die Autoren. */
+    private static final List<String> VORNAMEN = List.of(
+            "Oscar", "Mark", "George", "Albert", "Winston", "Dorothy", "Groucho", "Woody", "Ambrose", "Samuel",
+            "Benjamin", "Thomas", "Friedrich", "Johann", "Jane", "Virginia", "Agatha", "Bertrand", "Henry", "Ralph",
+            "Robert", "William", "Charles", "Emily", "Marie", "Lily", "Margaret", "Eleanor", "Abraham", "Franklin",
+            "Voltaire", "Blaise", "Rene", "Immanuel", "Arthur", "Erich", "Kurt", "Hermann", "Sigmund", "Carl" );
+
+    /** Nachnamen für die Autoren. */
+    private static final List<String> NACHNAMEN = List.of(
+            "Wilde", "Twain", "Shaw", "Einstein", "Churchill", "Parker", "Marx", "Allen", "Bierce", "Johnson",
+            "Franklin", "Jefferson", "Nietzsche", "Goethe", "Austen", "Woolf", "Christie", "Russell", "Ford", "Emerson",
+            "Frost", "Shakespeare", "Dickens", "Dickinson", "Curie", "Tomlin", "Thatcher", "Roosevelt", "Lincoln", "Pascal",
+            "Descartes", "Kant", "Schopenhauer", "Kaestner", "Tucholsky", "Hesse", "Freud", "Jung", "Mencken", "Burgess",
+            "Turner", "Gobel", "Levant", "Chesterton", "Orwell", "Huxley", "Kafka", "Brecht", "Heine", "Lichtenberg",
+            "Montaigne", "Seneca", "Cicero", "Plato", "Aristotle", "Confucius", "Hemingway", "Faulkner", "Steinbeck", "Camus" );
+
+    /** Anzahl verschiedener Autoren. */
+    private static final int ANZAHL_AUTOREN = VORNAMEN.size() * NACHNAMEN.size();
+
+    /** Anteil der Zitate mit Autor. */
+    private static final double ANTEIL_MIT_AUTOR = 0.9;
+
+    /** Exponent für Zipf-Verteilung der Wörter und Autoren. */
+    private static final double ZIPF_EXPONENT = 1.07;
+
+    /** Median der Anzahl Wörter pro Zitat (Log-Normalverteilung). */
+    private static final double MEDIAN_WOERTER = 18.0;
+
+    /** Streuung der Anzahl Wörter pro Zitat (Sigma der Log-Normalverteilung). */
+    private static final double SIGMA_WOERTER = 0.6;
+
+    /** Minimale und maximale Anzahl Wörter pro Zitat. */
+    private static final int MIN_WOERTER = 3, MAX_WOERTER = 200;
+
+    /** Zeilen werden nach dem ersten Wort umbrochen, das über diese Länge hinausgeht. */
+    private static final int ZEILENLAENGE = 55;
+
+    /** Zufallsgenerator mit Seed. */
+    private final Random _zufall;
+
+    /** Kumulierte Wahrscheinlichkeiten der Zipf-Verteilung für {@link #WOERTER}. */
+    private final double[] _kumuliertWoerter;
+
+    /** Kumulierte Wahrscheinlichkeiten der Zipf-Verteilung für die Autoren. */
+    private final double[] _kumuliertAutoren;
+
+
+    /**
+     * Generator mit bestimmtem Seed erzeugen.
+     *
+     * @param seed Seed für Zufallsgenerator; gleicher Seed ergibt gleiche Zitate
+     */
+    public ZitatKorpusGenerator( long seed ) {
+
+        _zufall           = new Random( seed );
+        _kumuliertWoerter = zipfKumuliert( WOERTER.size() );
+        _kumuliertAutoren = zipfKumuliert( ANZAHL_AUTOREN );
+    }
+
+
+    /**
+     * Zitate erzeugen und als Zitatdatei (UTF-8) schreiben.
+     *
+     * @param datei Pfad der Datei, wird ggf. überschrieben (fehlende Verzeichnisse werden angelegt)
+     *
+     * @param anzahl Anzahl der Zitate
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    public void schreiben( Path datei, long anzahl ) throws IOException {
+
+        final Path verzeichnis = datei.toAbsolutePath().getParent();
+        if ( verzeichnis != null ) {
+
+            Files.createDirectories( verzeichnis );
+        }
+
+        try ( BufferedWriter writer = Files.newBufferedWriter( datei, UTF_8 ) ) {
+
+            schreiben( writer, anzahl );
+        }
+    }
+
+
+    /**
+     * Zitate erzeugen und nach und nach in {@code writer} schreiben, es wird also nie
+     * mehr als ein Zitat im Speicher gehalten. Der {@code writer} wird nicht geschlossen.
+     *
+     * @param writer Ziel für Zitatdatei
+     *
+     * @param anzahl Anzahl der Zitate
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    public void schreiben( Writer writer, long anzahl ) throws IOException {
+
+        final StringBuilder sb = new StringBuilder( 1024 );
+
+        for ( long i = 0; i < anzahl; i++ ) {
+
+            sb.setLength( 0 );
+            if ( i > 0 ) {
+
+                sb.append( ".\n" );
+            }
+            zitatAnhaengen( sb );
+            writer.append( sb );
+        }
+    }
+
+
+    /**
+     * Zitate als String erzeugen (nur für kleinere Dateien sinnvoll).
+     *
+     * @param anzahl Anzahl der Zitate
+     *
+     * @return Inhalt der Zitatdatei
+     */
+    public String erzeugen( int anzahl ) {
+
+        final StringWriter writer = new StringWriter( anzahl * 130 );
+        try {
+
+            schreiben( writer, anzahl );
+        }
+        catch ( IOException ex ) {
+
+            throw new UncheckedIOException( ex ); // kann bei StringWriter nicht auftreten
+        }
+
+        return writer.toString();
+    }
+
+
+    /**
+     * Ein zufälliges Wort aus dem Vokabular (gemäß Zipf-Verteilung), z.B. für
+     * Suchbegriffe in Lasttests.
+     *
+     * @return Wort aus {@link #WOERTER}
+     */
+    public String zufallsWort() {
+
+        return WOERTER.get( zipfIndex( _kumuliertWoerter ) );
+    }
+
+
+    /**
+     * Ein Zitat mit abschließendem Zeilenumbruch an {@code sb} anhängen.
+     *
+     * @param sb Puffer für Zitatdatei
+     */
+    private void zitatAnhaengen( StringBuilder sb ) {
+
+        final int anzahlWoerter = anzahlWoerter();
+
+        int zeilenStart = sb.length();
+        sb.append( '"' );
+        for ( int w = 0; w < anzahlWoerter; w++ ) {
+
+            String wort = zufallsWort();
+            if ( w == 0 ) {
+
+                wort = Character.toUpperCase( wort.charAt( 0 ) ) + wort.substring( 1 );
+            }
+
+            if ( w > 0 ) {
+
+                if ( sb.length() - zeilenStart > ZEILENLAENGE ) {
+
+                    // Folgezeilen beginnen wie in der Originaldatei mit einem Leerzeichen
+                    sb.append( '\n' );
+                    zeilenStart = sb.length();
+                }
+                sb.append( ' ' );
+            }
+            sb.append( wort );
+
+            if ( w < anzahlWoerter - 1 && _zufall.nextInt( 12 ) == 0 ) {
+
+                sb.append( ',' );
+            }
+        }
+
+        final int satzzeichen = _zufall.nextInt( 10 );
+        sb.append( satzzeichen < 7 ? '.' : satzzeichen < 9 ? '!' : '?' ).append( '"' );
+
+        if ( _zufall.nextDouble() < ANTEIL_MIT_AUTOR ) {
+
+            // Autor mal in derselben Zeile, mal in eigener Zeile (wie in der Originaldatei)
+            sb.append( _zufall.nextBoolean() ? " -- " : "\n -- " );
+
+            final int autorIndex = zipfIndex( _kumuliertAutoren );
+            sb.append( VORNAMEN.get( autorIndex % VORNAMEN.size() ) )
+              .append( ' ' )
+              .append( NACHNAMEN.get( autorIndex / VORNAMEN.size() ) );
+        }
+
+        sb.append( '\n' );
+    }
+
+
+    /**
+     * Anzahl Wörter für ein Zitat gemäß Log-Normalverteilung.
+     *
+     * @return Anzahl Wörter zwischen {@link #MIN_WOERTER} und {@link #MAX_WOERTER}
+     */
+    private int anzahlWoerter() {
+
+        final double wert = Math.exp( Math.log( MEDIAN_WOERTER ) + SIGMA_WOERTER * _zufall.nextGaussian() );
+
+        return (int) Math.max( MIN_WOERTER, Math.min( MAX_WOERTER, Math.round( wert ) ) );
+    }
+
+
+    /**
+     * Zufälligen Index gemäß Zipf-Verteilung ziehen.
+     *
+     * @param kumuliert Kumulierte Wahrscheinlichkeiten
+     *
+     * @return Index zwischen 0 und {@code kumuliert.length - 1}
+     */
+    private int zipfIndex( double[] kumuliert ) {
+
+        final int index = Arrays.binarySearch( kumuliert, _zufall.nextDouble() );
+
+        return Math.min( index >= 0 ? index : -index - 1, kumuliert.length - 1 );
+    }
+
+
+    /**
+     * Kumulierte Wahrscheinlichkeiten einer Zipf-Verteilung berechnen.
+     *
+     * @param n Anzahl der Ränge
+     *
+     * @return Aufsteigendes Array, letzter Wert ist 1
+     */
+    private static double[] zipfKumuliert( int n ) {
+
+        final double[] kumuliert = new double[ n ];
+
+        double summe = 0;
+        for ( int i = 0; i < n; i++ ) {
+
+            summe += 1.0 / Math.pow( i + 1, ZIPF_EXPONENT );
+            kumuliert[ i ] = summe;
+        }
+        for ( int i = 0; i < n; i++ ) {
+
+            kumuliert[ i ] /= summe;
+        }
+
+        return kumuliert;
+    }
+
+
+    /**
+     * Zitatdatei auf der Kommandozeile erzeugen.
+     *
+     * @param args Pfad der Datei, Anzahl Zitate und optional Seed
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    public static void main( String[] args ) throws IOException {
+
+        if ( args.length < 2 ) {
+
+            System.err.println( "Aufruf: ZitatKorpusGenerator <datei> <anzahl> [seed]" );
+            System.exit( 1 );
+        }
+
+        final Path datei  = Path.of( args[ 0 ] );
+        final long anzahl = Long.parseLong( args[ 1 ] );
+        final long seed   = args.length > 2 ? Long.parseLong( args[ 2 ] ) : DEFAULT_SEED;
+
+        final long start = System.nanoTime();
+        new ZitatKorpusGenerator( seed ).schreiben( datei, anzahl );
+        final long millis = ( System.nanoTime() - start ) / 1_000_000;
+
+        System.out.printf( "%d Zitate in %d ms nach %s geschrieben (%d MB).%n",
+                           anzahl, millis, datei, Files.size( datei ) / ( 1024 * 1024 ) );
+    }
+
+}
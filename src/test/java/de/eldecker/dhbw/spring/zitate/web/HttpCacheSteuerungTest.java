@@ -0,0 +1,79 @@
+package de.eldecker.dhbw.spring.zitate.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import de.eldecker.dhbw.spring.zitate.db.ZitateAenderungsZaehler;
+
+
+/**
+ * Unit-Test für {@link HttpCacheSteuerung}: ETags und Vergleich mit {@code If-None-Match}.
+ */
+class HttpCacheSteuerungTest {
+
+    private final ZitateAenderungsZaehler _zaehler = new ZitateAenderungsZaehler();
+
+    private final HttpCacheSteuerung _httpCache = new HttpCacheSteuerung( _zaehler, 60, 300 );
+
+
+    @Test
+    void etagHaengtVonParameternUndGenerationAb() {
+
+        final String etag = _httpCache.etag( "api-suche", "love", 10, 2, 0, null, true );
+
+        assertEquals( etag, _httpCache.etag( "api-suche", "love", 10, 2, 0, null, true ) );
+        assertTrue( etag.startsWith( "\"" ) && etag.endsWith( "\"" ) );
+
+        assertNotEquals( etag, _httpCache.etag( "app-suche", "love", 10, 2, 0, null, true ) );
+        assertNotEquals( etag, _httpCache.etag( "api-suche", "love", 10, 2, 0, "null", true ) );
+        assertNotEquals( etag, _httpCache.etag( "api-suche", "love", 10, 1, 0, null, true ) );
+
+        _zaehler.erhoehen();
+        assertNotEquals( etag, _httpCache.etag( "api-suche", "love", 10, 2, 0, null, true ) );
+    }
+
+
+    @Test
+    void ifNoneMatchMitSchwachemVergleich() {
+
+        final String etag = _httpCache.etag( "api-vorschlaege", "lo", 8 );
+
+        assertFalse( _httpCache.istNichtGeaendert( new MockHttpServletRequest(), etag ) );
+
+        assertTrue( _httpCache.istNichtGeaendert( mitIfNoneMatch( etag ), etag ) );
+        assertTrue( _httpCache.istNichtGeaendert( mitIfNoneMatch( "W/" + etag ), etag ) );
+        assertTrue( _httpCache.istNichtGeaendert( mitIfNoneMatch( "\"anderes\", " + etag ), etag ) );
+        assertTrue( _httpCache.istNichtGeaendert( mitIfNoneMatch( "*" ), etag ) );
+
+        assertFalse( _httpCache.istNichtGeaendert( mitIfNoneMatch( "\"anderes\"" ), etag ) );
+    }
+
+
+    @Test
+    void headerFuer304() {
+
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        _httpCache.nichtGeaendertSetzen( response, "\"x\"" );
+
+        assertEquals( 304, response.getStatus() );
+        assertEquals( "\"x\"", response.getHeader( HttpHeaders.ETAG ) );
+        assertEquals( "max-age=60, public, s-maxage=300", response.getHeader( HttpHeaders.CACHE_CONTROL ) );
+    }
+
+
+    private static MockHttpServletRequest mitIfNoneMatch( String wert ) {
+
+        final MockHttpServletRequest request = new MockHttpServletRequest( "GET", "/api/v1/suche" );
+        request.addHeader( HttpHeaders.IF_NONE_MATCH, wert );
+
+        return request;
+    }
+
+}
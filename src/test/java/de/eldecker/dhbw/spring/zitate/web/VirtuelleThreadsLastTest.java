@@ -0,0 +1,314 @@
+package de.eldecker.dhbw.spring.zitate.web;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.eldecker.dhbw.spring.zitate.ZitateSammlungApplication;
+import de.eldecker.dhbw.spring.zitate.logik.ZitateImporter;
+import de.eldecker.dhbw.spring.zitate.testdaten.LatenzStatistik;
+import de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+
+/**
+ * Lasttest, der die Anwendung nacheinander mit Plattform-Threads und mit virtuellen
+ * Threads ({@code spring.threads.virtual.enabled}) startet und jeweils mit vielen
+ * gleichzeitigen Verbindungen Suchen und Zufallszitate abruft; ausgegeben werden
+ * Durchsatz und Perzentile der Antwortzeiten für beide Modi.
+ * <br><br>
+ *
+ * Während des Laufs mit virtuellen Threads werden mit JFR die Ereignisse
+ * {@code jdk.VirtualThreadPinned} aufgezeichnet, also Stellen, an denen ein virtueller
+ * Thread blockiert, ohne seinen Träger-Thread freizugeben (z.B. in einem
+ * {@code synchronized}-Block). Gezählt werden nur Ereignisse in Threads der Anwendung;
+ * für jede Stelle wird der erste Frame außerhalb des JDK ausgegeben. Der Test schlägt
+ * fehl, wenn es mehr als {@code lasttest.max-pinning} solcher Ereignisse gibt.
+ * <br><br>
+ *
+ * Damit die Thread-Modelle und nicht Cache oder Schott gemessen werden, ist der
+ * Such-Cache aus und die Grenzen des Schotts sind sehr hoch. Der Test läuft nur,
+ * wenn er explizit eingeschaltet wird:
+ * <pre>
+ * mvn test -Dtest=VirtuelleThreadsLastTest -Dlasttest=true
+ * </pre>
+ * Über weitere System-Properties können die Parameter angepasst werden:
+ * {@code lasttest.anzahl-zitate} (50000), {@code lasttest.verbindungen} (1000),
+ * {@code lasttest.dauer-sekunden} (20) und {@code lasttest.max-pinning} (0).
+ * Bei vielen Verbindungen muss ggf. die Grenze für offene Dateien erhöht werden
+ * ({@code ulimit -n}).
+ */
+@EnabledIfSystemProperty( named = "lasttest", matches = "true" )
+class VirtuelleThreadsLastTest {
+
+    /** Name des JFR-Ereignisses für blockierte virtuelle Threads, die am Träger-Thread hängen. */
+    private static final String JFR_PINNED = "jdk.VirtualThreadPinned";
+
+    /**
+     * Präfixe der Namen von virtuellen Threads, die Spring Boot für Tomcat bzw. für
+     * asynchrone Verarbeitung (z.B. NDJSON-Streaming) anlegt; die Client-Threads
+     * dieses Tests haben keinen Namen.
+     */
+    private static final List<String> THREAD_PRAEFIXE = List.of( "tomcat-handler-", "task-" );
+
+    /**
+     * Ergebnis eines Laufs.
+     *
+     * @param modus Bezeichnung des Thread-Modus für die Ausgabe
+     *
+     * @param statistik Antwortzeiten aller Anfragen mit HTTP-Status 200
+     *
+     * @param durchsatz Anfragen pro Sekunde (nur HTTP-Status 200)
+     *
+     * @param abgewiesen Anzahl Antworten mit HTTP-Status 503
+     *
+     * @param fehler Anzahl anderer Status-Codes oder Exceptions
+     *
+     * @param pinning Anzahl Pinning-Ereignisse pro Stelle im Code
+     */
+    private record Messung( String            modus,
+                            LatenzStatistik   statistik,
+                            double            durchsatz,
+                            long              abgewiesen,
+                            long              fehler,
+                            Map<String, Long> pinning ) {}
+
+
+    @Test
+    void plattformThreadsGegenVirtuelleThreads() throws Exception {
+
+        final int anzahlZitate  = Integer.getInteger( "lasttest.anzahl-zitate" , 50_000 );
+        final int verbindungen  = Integer.getInteger( "lasttest.verbindungen"  , 1000   );
+        final int dauerSekunden = Integer.getInteger( "lasttest.dauer-sekunden", 20     );
+        final int maxPinning    = Integer.getInteger( "lasttest.max-pinning"   , 0      );
+
+        final String korpus = new ZitatKorpusGenerator( ZitatKorpusGenerator.DEFAULT_SEED ).erzeugen( anzahlZitate );
+
+        final Messung plattform = messen( false, korpus, verbindungen, dauerSekunden );
+        final Messung virtuell  = messen( true , korpus, verbindungen, dauerSekunden );
+
+        final StringBuilder bericht = new StringBuilder();
+        bericht.append( String.format( "Thread-Modi: %d Zitate, %d Verbindungen, %d s pro Modus%n",
+                                       anzahlZitate, verbindungen, dauerSekunden ) );
+        for ( Messung messung : List.of( plattform, virtuell ) ) {
+
+            bericht.append( String.format( Locale.ROOT, "  %-9s: %8.0f Anfragen/s, 503: %d, Fehler: %d; %s%n",
+                                           messung.modus(), messung.durchsatz(), messung.abgewiesen(),
+                                           messung.fehler(), messung.statistik().bericht() ) );
+        }
+
+        final long anzahlPinning = virtuell.pinning().values().stream().mapToLong( Long::longValue ).sum();
+        bericht.append( String.format( "  Pinning bei virtuellen Threads: %d Ereignisse%n", anzahlPinning ) );
+        virtuell.pinning().forEach( ( stelle, anzahl ) ->
+                bericht.append( String.format( "    %6d x %s%n", anzahl, stelle ) ) );
+
+        System.out.println( bericht );
+
+        assertEquals( 0, plattform.fehler(), "Fehler mit Plattform-Threads" );
+        assertEquals( 0, virtuell.fehler() , "Fehler mit virtuellen Threads" );
+        assertTrue( anzahlPinning <= maxPinning,
+                    anzahlPinning + " Pinning-Ereignisse bei virtuellen Threads, erlaubt sind " + maxPinning );
+    }
+
+
+    /**
+     * Anwendung im gewünschten Thread-Modus starten, Korpus importieren und Last erzeugen.
+     *
+     * @param virtuelleThreads Wert für {@code spring.threads.virtual.enabled}
+     *
+     * @param korpus Inhalt der Zitatdatei, die importiert wird
+     *
+     * @param verbindungen Anzahl gleichzeitiger Verbindungen
+     *
+     * @param dauerSekunden Dauer der Messung
+     *
+     * @return Ergebnis der Messung
+     */
+    private static Messung messen( boolean virtuelleThreads, String korpus,
+                                   int verbindungen, int dauerSekunden ) throws Exception {
+
+        final String modus = virtuelleThreads ? "virtuell" : "plattform";
+
+        try ( ConfigurableApplicationContext kontext =
+                new SpringApplicationBuilder( ZitateSammlungApplication.class )
+                        .run( "--server.port=0",
+                              "--spring.threads.virtual.enabled=" + virtuelleThreads,
+                              "--spring.datasource.url=jdbc:h2:mem:lasttest-" + modus,
+                              "--spring.jpa.hibernate.ddl-auto=create-drop",
+                              "--spring.jpa.properties.hibernate.search.backend.directory.type=local-heap",
+                              "--zitate.suchcache.max-eintraege=0",
+                              "--zitate.import.beim-start=false",
+                              "--zitate.schott.exakt.max-parallel=100000",
+                              "--zitate.schott.fuzzy-1.max-parallel=100000",
+                              "--zitate.schott.fuzzy-2.max-parallel=100000",
+                              "--logging.file.name=",
+                              "--logging.level.de.eldecker=WARN" ) ) {
+
+            kontext.getBean( ZitateImporter.class )
+                   .importiere( new BufferedReader( new StringReader( korpus ) ) );
+
+            final int port = kontext.getEnvironment().getProperty( "local.server.port", Integer.class );
+
+            final HttpClient httpClient = HttpClient.newBuilder()
+                                                    .version( HttpClient.Version.HTTP_1_1 )
+                                                    .connectTimeout( Duration.ofSeconds( 30 ) )
+                                                    .build();
+
+            // Aufwärmen (JIT, Lucene-Caches), wird nicht ausgewertet
+            lastErzeugen( httpClient, port, 50, 5, new LatenzStatistik( 10_000 ), new LongAdder(), new LongAdder() );
+
+            final Map<String, Long> pinning = new ConcurrentHashMap<>();
+
+            final LatenzStatistik statistik  = new LatenzStatistik( verbindungen * 100 );
+            final LongAdder       abgewiesen = new LongAdder();
+            final LongAdder       fehler     = new LongAdder();
+
+            try ( RecordingStream jfr = new RecordingStream() ) {
+
+                jfr.enable( JFR_PINNED ).withThreshold( Duration.ZERO ).withStackTrace();
+                jfr.onEvent( JFR_PINNED, event -> pinningErfassen( event, pinning ) );
+                jfr.startAsync();
+
+                lastErzeugen( httpClient, port, verbindungen, dauerSekunden, statistik, abgewiesen, fehler );
+
+                jfr.stop();
+            }
+
+            return new Messung( modus,
+                                statistik,
+                                statistik.getAnzahl() / (double) dauerSekunden,
+                                abgewiesen.sum(),
+                                fehler.sum(),
+                                pinning );
+        }
+    }
+
+
+    /**
+     * Startet pro Verbindung einen (virtuellen) Client-Thread, der bis zum Ende der
+     * Dauer nacheinander Anfragen schickt: 80% Suchen mit Edit-Distanz 1 nach einem
+     * zufälligen Wort, 20% Zufallszitate.
+     *
+     * @param httpClient HTTP-Client
+     *
+     * @param port Port der Anwendung
+     *
+     * @param verbindungen Anzahl gleichzeitiger Verbindungen
+     *
+     * @param dauerSekunden Dauer
+     *
+     * @param statistik Für Antwortzeiten der erfolgreichen Anfragen
+     *
+     * @param abgewiesen Zähler für HTTP-Status 503
+     *
+     * @param fehler Zähler für andere Status-Codes und Exceptions
+     */
+    private static void lastErzeugen( HttpClient httpClient, int port, int verbindungen, int dauerSekunden,
+                                      LatenzStatistik statistik, LongAdder abgewiesen, LongAdder fehler ) {
+
+        final List<String> woerter = ZitatKorpusGenerator.WOERTER.stream()
+                                                                 .filter( wort -> wort.length() >= 4 )
+                                                                 .toList();
+
+        final long endeNanos = System.nanoTime() + SECONDS.toNanos( dauerSekunden );
+
+        try ( ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor() ) {
+
+            for ( int i = 0; i < verbindungen; i++ ) {
+
+                clients.submit( () -> {
+
+                    final ThreadLocalRandom zufall = ThreadLocalRandom.current();
+                    while ( System.nanoTime() < endeNanos ) {
+
+                        final String pfad = zufall.nextInt( 5 ) == 0
+                                ? "/api/v1/zufall"
+                                : "/api/v1/suche?fuzziness=1&gestaffelt=false&suchbegriff=" +
+                                  woerter.get( zufall.nextInt( woerter.size() ) );
+
+                        final HttpRequest request =
+                                HttpRequest.newBuilder( URI.create( "http://localhost:" + port + pfad ) ).build();
+                        try {
+
+                            final long start = System.nanoTime();
+                            final HttpResponse<Void> response =
+                                    httpClient.send( request, HttpResponse.BodyHandlers.discarding() );
+                            final long dauer = System.nanoTime() - start;
+
+                            switch ( response.statusCode() ) {
+
+                                case 200 -> statistik.hinzufuegen( dauer );
+                                case 503 -> abgewiesen.increment();
+                                default  -> fehler.increment();
+                            }
+                        }
+                        catch ( Exception ex ) {
+
+                            fehler.increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        } // close() wartet auf alle Client-Threads
+    }
+
+
+    /**
+     * Pinning-Ereignis zählen, wenn es in einem Thread der Anwendung (also bei der Verarbeitung
+     * einer Anfrage) aufgetreten ist. Als Stelle wird der oberste Frame außerhalb des JDK
+     * verwendet, das ist normalerweise die Bibliothek bzw. Klasse mit dem
+     * {@code synchronized}-Block.
+     *
+     * @param event JFR-Ereignis {@code jdk.VirtualThreadPinned}
+     *
+     * @param pinning Map mit Anzahl pro Stelle, wird aktualisiert
+     */
+    private static void pinningErfassen( RecordedEvent event, Map<String, Long> pinning ) {
+
+        final String threadName = event.getThread() == null ? null : event.getThread().getJavaName();
+        if ( threadName == null || THREAD_PRAEFIXE.stream().noneMatch( threadName::startsWith ) ) {
+
+            return; // z.B. Client-Threads dieses Tests
+        }
+
+        final List<RecordedFrame> frames = event.getStackTrace() == null
+                                           ? List.of()
+                                           : event.getStackTrace().getFrames();
+
+        final String stelle = frames.stream()
+                                    .map( frame -> frame.getMethod().getType().getName() + "." +
+                                                   frame.getMethod().getName() )
+                                    .filter( name -> !name.startsWith( "java." ) &&
+                                                     !name.startsWith( "jdk."  ) &&
+                                                     !name.startsWith( "sun."  ) )
+                                    .findFirst()
+                                    .orElse( "(nur JDK-Frames)" );
+
+        pinning.merge( stelle, 1L, Long::sum );
+    }
+
+}
@@ -0,0 +1,155 @@
+package de.eldecker.dhbw.spring.zitate.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator.WOERTER;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import de.eldecker.dhbw.spring.zitate.logik.ZitateImporter;
+import de.eldecker.dhbw.spring.zitate.testdaten.LatenzStatistik;
+import de.eldecker.dhbw.spring.zitate.testdaten.ZitatKorpusGenerator;
+
+
+/**
+ * Lasttest für den Endpunkt mit den Vorschlägen ({@code GET /api/v1/vorschlaege}):
+ * importiert einen synthetischen Datenbestand (siehe {@link ZitatKorpusGenerator}) und
+ * schickt dann von mehreren Threads gleichzeitig Anfragen mit zufälligen Präfixen;
+ * ausgegeben werden die Perzentile der Antwortzeiten.
+ * <br><br>
+ *
+ * Der Test läuft nur, wenn er explizit eingeschaltet wird:
+ * <pre>
+ * mvn test -Dtest=VorschlaegeLastTest -Dlasttest=true
+ * </pre>
+ * Über weitere System-Properties können Umfang und Grenzwert angepasst werden:
+ * {@code lasttest.anzahl-zitate} (50000), {@code lasttest.threads} (32),
+ * {@code lasttest.anfragen-pro-thread} (500) und {@code lasttest.p99-max-ms} (50).
+ */
+@SpringBootTest( webEnvironment = RANDOM_PORT,
+                 properties = { "spring.datasource.url=jdbc:h2:mem:lasttest",
+                                "spring.jpa.hibernate.ddl-auto=create-drop",
+                                "spring.jpa.properties.hibernate.search.backend.directory.type=local-heap",
+                                "zitate.import.beim-start=false",
+                                "logging.file.name=" } )
+@EnabledIfSystemProperty( named = "lasttest", matches = "true" )
+class VorschlaegeLastTest {
+
+    @LocalServerPort
+    private int _port;
+
+    @Autowired
+    private ZitateImporter _importer;
+
+
+    @Test
+    void vorschlaegeUnterLast() throws Exception {
+
+        final int  anzahlZitate      = Integer.getInteger( "lasttest.anzahl-zitate"     , 50_000 );
+        final int  anzahlThreads     = Integer.getInteger( "lasttest.threads"           , 32     );
+        final int  anfragenProThread = Integer.getInteger( "lasttest.anfragen-pro-thread", 500   );
+        final long p99MaxMillis      = Long.getLong(       "lasttest.p99-max-ms"        , 50     );
+
+        final String korpus = new ZitatKorpusGenerator( ZitatKorpusGenerator.DEFAULT_SEED ).erzeugen( anzahlZitate );
+        _importer.importiere( new BufferedReader( new StringReader( korpus ) ) );
+
+        final HttpClient httpClient = HttpClient.newBuilder()
+                                                .version( HttpClient.Version.HTTP_1_1 )
+                                                .build();
+
+        // Aufwärmen (JIT, Lucene-Caches), wird nicht gemessen
+        for ( int i = 0; i < 1000; i++ ) {
+
+            anfrage( httpClient );
+        }
+
+        final LatenzStatistik statistik = new LatenzStatistik( anzahlThreads * anfragenProThread );
+
+        final ExecutorService executor = Executors.newFixedThreadPool( anzahlThreads );
+        try {
+
+            final Future<?>[] futures = new Future<?>[ anzahlThreads ];
+            for ( int t = 0; t < anzahlThreads; t++ ) {
+
+                futures[ t ] = executor.submit( () -> {
+
+                    for ( int i = 0; i < anfragenProThread; i++ ) {
+
+                        statistik.hinzufuegen( anfrage( httpClient ) );
+                    }
+                    return null;
+                });
+            }
+            for ( Future<?> future : futures ) {
+
+                future.get();
+            }
+        }
+        finally {
+
+            executor.shutdown();
+        }
+
+        final double p99Millis = statistik.perzentilMillis( 99.0 );
+
+        System.out.printf( "Vorschläge: %d Zitate, %d Threads; %s%n",
+                           anzahlZitate, anzahlThreads, statistik.bericht() );
+
+        assertTrue( p99Millis <= p99MaxMillis,
+                    "p99 der Antwortzeit " + p99Millis + " ms ist größer als " + p99MaxMillis + " ms" );
+    }
+
+
+    /**
+     * Eine Anfrage mit einem zufälligen Präfix (zwei bis fünf Zeichen eines Worts,
+     * ggf. mit vollständigem Wort davor) schicken.
+     *
+     * @return Dauer der Anfrage in Nanosekunden
+     */
+    private long anfrage( HttpClient httpClient ) throws Exception {
+
+        final ThreadLocalRandom zufall = ThreadLocalRandom.current();
+
+        String wort = WOERTER.get( zufall.nextInt( WOERTER.size() ) );
+        while ( wort.length() < 2 ) { // Präfix muss mindestens zwei Zeichen haben
+
+            wort = WOERTER.get( zufall.nextInt( WOERTER.size() ) );
+        }
+        String praefix = wort.substring( 0, Math.min( wort.length(), 2 + zufall.nextInt( 4 ) ) );
+        if ( zufall.nextInt( 4 ) == 0 ) {
+
+            praefix = WOERTER.get( zufall.nextInt( WOERTER.size() ) ) + " " + praefix;
+        }
+
+        final HttpRequest request = HttpRequest.newBuilder(
+                URI.create( "http://localhost:" + _port + "/api/v1/vorschlaege?praefix=" +
+                            URLEncoder.encode( praefix, StandardCharsets.UTF_8 ) ) ).build();
+
+        final long start = System.nanoTime();
+        final HttpResponse<String> response = httpClient.send( request, HttpResponse.BodyHandlers.ofString() );
+        final long dauer = System.nanoTime() - start;
+
+        assertEquals( 200, response.statusCode(), response.body() );
+
+        return dauer;
+    }
+
+}